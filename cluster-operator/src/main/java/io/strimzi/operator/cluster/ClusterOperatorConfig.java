@@ -9,6 +9,7 @@ import io.fabric8.kubernetes.api.model.LocalObjectReferenceBuilder;
 import io.strimzi.operator.cluster.model.ImagePullPolicy;
 import io.strimzi.operator.cluster.model.KafkaVersion;
 import io.strimzi.operator.cluster.model.NoImageException;
+import io.strimzi.operator.common.AbstractOperator;
 import io.strimzi.operator.common.InvalidConfigurationException;
 import io.strimzi.operator.common.Util;
 import io.strimzi.operator.common.operator.resource.AbstractWatchableResourceOperator;
@@ -35,6 +36,8 @@ public class ClusterOperatorConfig {
     public static final String STRIMZI_CREATE_CLUSTER_ROLES = "STRIMZI_CREATE_CLUSTER_ROLES";
     public static final String STRIMZI_IMAGE_PULL_POLICY = "STRIMZI_IMAGE_PULL_POLICY";
     public static final String STRIMZI_IMAGE_PULL_SECRETS = "STRIMZI_IMAGE_PULL_SECRETS";
+    public static final String STRIMZI_RESOURCE_CACHE = "STRIMZI_RESOURCE_CACHE";
+    public static final String STRIMZI_MAX_CONCURRENT_RECONCILIATIONS = "STRIMZI_MAX_CONCURRENT_RECONCILIATIONS";
 
     // Env vars for configuring images
     public static final String STRIMZI_KAFKA_IMAGES = "STRIMZI_KAFKA_IMAGES";
@@ -54,6 +57,8 @@ public class ClusterOperatorConfig {
     public static final long DEFAULT_FULL_RECONCILIATION_INTERVAL_MS = 120_000;
     public static final long DEFAULT_OPERATION_TIMEOUT_MS = 300_000;
     public static final boolean DEFAULT_CREATE_CLUSTER_ROLES = false;
+    public static final boolean DEFAULT_RESOURCE_CACHE = false;
+    public static final int DEFAULT_MAX_CONCURRENT_RECONCILIATIONS = AbstractOperator.DEFAULT_MAX_CONCURRENT_RECONCILIATIONS;
 
     private final Set<String> namespaces;
     private final long reconciliationIntervalMs;
@@ -62,6 +67,8 @@ public class ClusterOperatorConfig {
     private final KafkaVersion.Lookup versions;
     private final ImagePullPolicy imagePullPolicy;
     private final List<LocalObjectReference> imagePullSecrets;
+    private final boolean resourceCache;
+    private final int maxConcurrentReconciliations;
 
     /**
      * Constructor
@@ -75,6 +82,39 @@ public class ClusterOperatorConfig {
      * @param imagePullSecrets Set of secrets for pulling container images from secured repositories
      */
     public ClusterOperatorConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs, boolean createClusterRoles, KafkaVersion.Lookup versions, ImagePullPolicy imagePullPolicy, List<LocalObjectReference> imagePullSecrets) {
+        this(namespaces, reconciliationIntervalMs, operationTimeoutMs, createClusterRoles, versions, imagePullPolicy, imagePullSecrets, DEFAULT_RESOURCE_CACHE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param namespaces namespace in which the operator will run and create resources
+     * @param reconciliationIntervalMs    specify every how many milliseconds the reconciliation runs
+     * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
+     * @param createClusterRoles true to create the cluster roles
+     * @param versions The configured Kafka versions
+     * @param imagePullPolicy Image pull policy configured by the user
+     * @param imagePullSecrets Set of secrets for pulling container images from secured repositories
+     * @param resourceCache true to serve reads of the managed resources from a cache kept up to date by watches
+     */
+    public ClusterOperatorConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs, boolean createClusterRoles, KafkaVersion.Lookup versions, ImagePullPolicy imagePullPolicy, List<LocalObjectReference> imagePullSecrets, boolean resourceCache) {
+        this(namespaces, reconciliationIntervalMs, operationTimeoutMs, createClusterRoles, versions, imagePullPolicy, imagePullSecrets, resourceCache, DEFAULT_MAX_CONCURRENT_RECONCILIATIONS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param namespaces namespace in which the operator will run and create resources
+     * @param reconciliationIntervalMs    specify every how many milliseconds the reconciliation runs
+     * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
+     * @param createClusterRoles true to create the cluster roles
+     * @param versions The configured Kafka versions
+     * @param imagePullPolicy Image pull policy configured by the user
+     * @param imagePullSecrets Set of secrets for pulling container images from secured repositories
+     * @param resourceCache true to serve reads of the managed resources from a cache kept up to date by watches
+     * @param maxConcurrentReconciliations the maximum number of resources of each kind which are reconciled at the same time
+     */
+    public ClusterOperatorConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs, boolean createClusterRoles, KafkaVersion.Lookup versions, ImagePullPolicy imagePullPolicy, List<LocalObjectReference> imagePullSecrets, boolean resourceCache, int maxConcurrentReconciliations) {
         this.namespaces = unmodifiableSet(new HashSet<>(namespaces));
         this.reconciliationIntervalMs = reconciliationIntervalMs;
         this.operationTimeoutMs = operationTimeoutMs;
@@ -82,6 +122,8 @@ public class ClusterOperatorConfig {
         this.versions = versions;
         this.imagePullPolicy = imagePullPolicy;
         this.imagePullSecrets = imagePullSecrets;
+        this.resourceCache = resourceCache;
+        this.maxConcurrentReconciliations = maxConcurrentReconciliations;
     }
 
     /**
@@ -110,7 +152,9 @@ public class ClusterOperatorConfig {
         boolean createClusterRoles = parseCreateClusterRoles(map.get(ClusterOperatorConfig.STRIMZI_CREATE_CLUSTER_ROLES));
         ImagePullPolicy imagePullPolicy = parseImagePullPolicy(map.get(ClusterOperatorConfig.STRIMZI_IMAGE_PULL_POLICY));
         List<LocalObjectReference> imagePullSecrets = parseImagePullSecrets(map.get(ClusterOperatorConfig.STRIMZI_IMAGE_PULL_SECRETS));
-        return new ClusterOperatorConfig(namespaces, reconciliationInterval, operationTimeout, createClusterRoles, lookup, imagePullPolicy, imagePullSecrets);
+        boolean resourceCache = parseResourceCache(map.get(ClusterOperatorConfig.STRIMZI_RESOURCE_CACHE));
+        int maxConcurrentReconciliations = parseMaxConcurrentReconciliations(map.get(ClusterOperatorConfig.STRIMZI_MAX_CONCURRENT_RECONCILIATIONS));
+        return new ClusterOperatorConfig(namespaces, reconciliationInterval, operationTimeout, createClusterRoles, lookup, imagePullPolicy, imagePullSecrets, resourceCache, maxConcurrentReconciliations);
 
     }
 
@@ -163,6 +207,30 @@ public class ClusterOperatorConfig {
         return createClusterRoles;
     }
 
+    private static boolean parseResourceCache(String resourceCacheEnvVar) {
+        boolean resourceCache = DEFAULT_RESOURCE_CACHE;
+
+        if (resourceCacheEnvVar != null) {
+            resourceCache = Boolean.parseBoolean(resourceCacheEnvVar);
+        }
+
+        return resourceCache;
+    }
+
+    private static int parseMaxConcurrentReconciliations(String maxConcurrentReconciliationsEnvVar) {
+        int maxConcurrentReconciliations = DEFAULT_MAX_CONCURRENT_RECONCILIATIONS;
+
+        if (maxConcurrentReconciliationsEnvVar != null) {
+            maxConcurrentReconciliations = Integer.parseInt(maxConcurrentReconciliationsEnvVar);
+            if (maxConcurrentReconciliations <= 0) {
+                throw new InvalidConfigurationException(ClusterOperatorConfig.STRIMZI_MAX_CONCURRENT_RECONCILIATIONS
+                        + " must be a positive number");
+            }
+        }
+
+        return maxConcurrentReconciliations;
+    }
+
     private static ImagePullPolicy parseImagePullPolicy(String imagePullPolicyEnvVar) {
         ImagePullPolicy imagePullPolicy = null;
 
@@ -265,6 +333,20 @@ public class ClusterOperatorConfig {
         return imagePullSecrets;
     }
 
+    /**
+     * @return  Indicates whether reads of the managed resources are served from a cache kept up to date by watches
+     */
+    public boolean isResourceCache() {
+        return resourceCache;
+    }
+
+    /**
+     * @return  The maximum number of resources of each kind which are reconciled at the same time
+     */
+    public int getMaxConcurrentReconciliations() {
+        return maxConcurrentReconciliations;
+    }
+
     @Override
     public String toString() {
         return "ClusterOperatorConfig(" +
@@ -275,6 +357,8 @@ public class ClusterOperatorConfig {
                 ",versions=" + versions +
                 ",imagePullPolicy=" + imagePullPolicy +
                 ",imagePullSecrets=" + imagePullSecrets +
+                ",resourceCache=" + resourceCache +
+                ",maxConcurrentReconciliations=" + maxConcurrentReconciliations +
                 ")";
     }
 }
@@ -81,6 +81,9 @@ public class Main {
         printEnvInfo();
 
         ResourceOperatorSupplier resourceOperatorSupplier = new ResourceOperatorSupplier(vertx, client, pfa, config.getOperationTimeoutMs());
+        if (config.isResourceCache()) {
+            resourceOperatorSupplier.enableResourceCache();
+        }
 
         OpenSslCertManager certManager = new OpenSslCertManager();
         PasswordGenerator passwordGenerator = new PasswordGenerator(12,
@@ -89,7 +89,7 @@ public abstract class AbstractConnectOperator<C extends KubernetesClient, T exte
                                    CrdOperator<C, T, L, D> resourceOperator,
                                    ResourceOperatorSupplier supplier, ClusterOperatorConfig config,
                                    Function<Vertx, KafkaConnectApi> connectClientProvider) {
-        super(vertx, kind, resourceOperator);
+        super(vertx, kind, resourceOperator, config.getMaxConcurrentReconciliations());
         this.connectorOperator = supplier.kafkaConnectorOperator;
         this.connectClientProvider = connectClientProvider;
         this.configMapOperations = supplier.configMapOperations;
@@ -144,6 +144,7 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator<KubernetesCl
     private final IngressOperator ingressOperations;
     private final StorageClassOperator storageClassOperator;
     private final CrdOperator<KubernetesClient, Kafka, KafkaList, DoneableKafka> crdOperator;
+    private final StepGraph<ReconciliationState> reconcileSteps;
 
     /**
      * @param vertx The Vertx instance
@@ -170,6 +171,7 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator<KubernetesCl
         this.ingressOperations = supplier.ingressOperations;
         this.storageClassOperator = supplier.storageClassOperations;
         this.crdOperator = supplier.kafkaOperator;
+        this.reconcileSteps = reconcileSteps();
     }
 
     @Override
@@ -229,94 +231,124 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator<KubernetesCl
         return createOrUpdateFuture;
     }
 
+    /**
+     * Reconcile the resources of the Kafka cluster by executing the {@linkplain #reconcileSteps() reconciliation steps}.
+     * @param reconcileState The state of the reconciliation.
+     * @return A future which completes once all the steps have completed, or fails if any step failed.
+     */
     Future<Void> reconcile(ReconciliationState reconcileState)  {
-        Future<Void> chainFuture = Future.future();
+        return reconcileSteps.execute(reconcileState.reconciliation, reconcileState).map((Void) null);
+    }
 
-        reconcileState.reconcileCas(this::dateSupplier)
-                .compose(state -> state.clusterOperatorSecret())
+    /**
+     * The steps of the reconciliation of a Kafka cluster.
+     * ZooKeeper, Kafka, and then the topic operator, entity operator and Kafka exporter are reconciled in turn.
+     * Within each of them the steps which create or update a resource which is independent of the others
+     * (network policies, service accounts, services, config maps, pod disruption budgets...) run concurrently.
+     * The steps which change the pods (manual pod cleaning and rolling updates, upgrades, scaling, rolling updates)
+     * and those which collect the external addresses and listener statuses each run in sequence.
+     * The secrets which are signed by the cluster CA are generated one at a time.
+     * @return The steps.
+     */
+    private StepGraph<ReconciliationState> reconcileSteps() {
+        return new StepGraph<ReconciliationState>()
+                .step("reconcileCas", state -> state.reconcileCas(this::dateSupplier))
+                .step("clusterOperatorSecret", state -> state.clusterOperatorSecret(), "reconcileCas")
                 // Roll everything if a new CA is added to the trust store.
-                .compose(state -> state.rollingUpdateForNewCaKey())
-                .compose(state -> state.getZookeeperDescription())
-                .compose(state -> state.zkManualPodCleaning())
-                .compose(state -> state.zkNetPolicy())
-                .compose(state -> state.zkManualRollingUpdate())
-                .compose(state -> state.zookeeperServiceAccount())
-                .compose(state -> state.zkPvcs())
-                .compose(state -> state.zkScaleUpStep())
-                .compose(state -> state.zkScaleDown())
-                .compose(state -> state.zkService())
-                .compose(state -> state.zkHeadlessService())
-                .compose(state -> state.zkAncillaryCm())
-                .compose(state -> state.zkNodesSecret())
-                .compose(state -> state.zkPodDisruptionBudget())
-                .compose(state -> state.zkStatefulSet())
-                .compose(state -> state.zkScaleUp())
-                .compose(state -> state.zkRollingUpdate())
-                .compose(state -> state.zkPodsReady())
-                .compose(state -> state.zkServiceEndpointReadiness())
-                .compose(state -> state.zkHeadlessServiceEndpointReadiness())
-                .compose(state -> state.zkPersistentClaimDeletion())
-
-                .compose(state -> state.getKafkaClusterDescription())
-                .compose(state -> state.kafkaManualPodCleaning())
-                .compose(state -> state.kafkaNetPolicy())
-                .compose(state -> state.kafkaManualRollingUpdate())
-                .compose(state -> state.kafkaUpgrade())
-                .compose(state -> state.kafkaPvcs())
-                .compose(state -> state.kafkaInitServiceAccount())
-                .compose(state -> state.kafkaInitClusterRoleBinding())
-                .compose(state -> state.kafkaScaleDown())
-                .compose(state -> state.kafkaService())
-                .compose(state -> state.kafkaHeadlessService())
-                .compose(state -> state.kafkaExternalBootstrapService())
-                .compose(state -> state.kafkaReplicaServices())
-                .compose(state -> state.kafkaBootstrapRoute())
-                .compose(state -> state.kafkaReplicaRoutes())
-                .compose(state -> state.kafkaBootstrapIngress())
-                .compose(state -> state.kafkaReplicaIngress())
-                .compose(state -> state.kafkaExternalBootstrapServiceReady())
-                .compose(state -> state.kafkaReplicaServicesReady())
-                .compose(state -> state.kafkaBootstrapRouteReady())
-                .compose(state -> state.kafkaReplicaRoutesReady())
-                .compose(state -> state.kafkaGenerateCertificates())
-                .compose(state -> state.kafkaAncillaryCm())
-                .compose(state -> state.kafkaBrokersSecret())
-                .compose(state -> state.kafkaPodDisruptionBudget())
-                .compose(state -> state.kafkaStatefulSet())
-                .compose(state -> state.kafkaRollingUpdate())
-                .compose(state -> state.kafkaScaleUp())
-                .compose(state -> state.kafkaPodsReady())
-                .compose(state -> state.kafkaServiceEndpointReady())
-                .compose(state -> state.kafkaHeadlessServiceEndpointReady())
-                .compose(state -> state.kafkaPersistentClaimDeletion())
-
-                .compose(state -> state.getTopicOperatorDescription())
-                .compose(state -> state.topicOperatorServiceAccount())
-                .compose(state -> state.topicOperatorRoleBinding())
-                .compose(state -> state.topicOperatorAncillaryCm())
-                .compose(state -> state.topicOperatorSecret())
-                .compose(state -> state.topicOperatorDeployment())
-
-                .compose(state -> state.getEntityOperatorDescription())
-                .compose(state -> state.entityOperatorServiceAccount())
-                .compose(state -> state.entityOperatorTopicOpRoleBinding())
-                .compose(state -> state.entityOperatorUserOpRoleBinding())
-                .compose(state -> state.entityOperatorTopicOpAncillaryCm())
-                .compose(state -> state.entityOperatorUserOpAncillaryCm())
-                .compose(state -> state.entityOperatorSecret())
-                .compose(state -> state.entityOperatorDeployment())
-                .compose(state -> state.entityOperatorReady())
-
-                .compose(state -> state.getKafkaExporterDescription())
-                .compose(state -> state.kafkaExporterServiceAccount())
-                .compose(state -> state.kafkaExporterSecret())
-                .compose(state -> state.kafkaExporterDeployment())
-                .compose(state -> state.kafkaExporterService())
-                .compose(state -> state.kafkaExporterReady())
-
-                .compose(state -> chainFuture.complete(), chainFuture);
-
-        return chainFuture;
+                .step("rollingUpdateForNewCaKey", state -> state.rollingUpdateForNewCaKey(), "clusterOperatorSecret")
+
+                .step("getZookeeperDescription", state -> state.getZookeeperDescription(), "rollingUpdateForNewCaKey")
+                .step("zkNetPolicy", state -> state.zkNetPolicy(), "getZookeeperDescription")
+                .step("zookeeperServiceAccount", state -> state.zookeeperServiceAccount(), "getZookeeperDescription")
+                .step("zkService", state -> state.zkService(), "getZookeeperDescription")
+                .step("zkHeadlessService", state -> state.zkHeadlessService(), "getZookeeperDescription")
+                .step("zkAncillaryCm", state -> state.zkAncillaryCm(), "getZookeeperDescription")
+                .step("zkPodDisruptionBudget", state -> state.zkPodDisruptionBudget(), "getZookeeperDescription")
+                .step("zkManualPodCleaning", state -> state.zkManualPodCleaning(), "getZookeeperDescription")
+                .step("zkManualRollingUpdate", state -> state.zkManualRollingUpdate(), "zkManualPodCleaning")
+                .step("zkPvcs", state -> state.zkPvcs(), "zkManualRollingUpdate")
+                // Changes the number of replicas of zkCluster, so must precede the steps which use it
+                .step("zkScaleUpStep", state -> state.zkScaleUpStep(), "zkPvcs")
+                .step("zkScaleDown", state -> state.zkScaleDown(), "zkScaleUpStep")
+                .step("zkNodesSecret", state -> state.zkNodesSecret(), "zkScaleUpStep")
+                .step("zkStatefulSet", state -> state.zkStatefulSet(), "zkScaleDown", "zkNodesSecret",
+                        "zkNetPolicy", "zookeeperServiceAccount", "zkService", "zkHeadlessService",
+                        "zkAncillaryCm", "zkPodDisruptionBudget")
+                .step("zkScaleUp", state -> state.zkScaleUp(), "zkStatefulSet")
+                .step("zkRollingUpdate", state -> state.zkRollingUpdate(), "zkScaleUp")
+                .step("zkPodsReady", state -> state.zkPodsReady(), "zkRollingUpdate")
+                .step("zkServiceEndpointReadiness", state -> state.zkServiceEndpointReadiness(), "zkPodsReady")
+                .step("zkHeadlessServiceEndpointReadiness", state -> state.zkHeadlessServiceEndpointReadiness(), "zkPodsReady")
+                .step("zkPersistentClaimDeletion", state -> state.zkPersistentClaimDeletion(),
+                        "zkServiceEndpointReadiness", "zkHeadlessServiceEndpointReadiness")
+
+                .step("getKafkaClusterDescription", state -> state.getKafkaClusterDescription(), "zkPersistentClaimDeletion")
+                .step("kafkaNetPolicy", state -> state.kafkaNetPolicy(), "getKafkaClusterDescription")
+                .step("kafkaInitServiceAccount", state -> state.kafkaInitServiceAccount(), "getKafkaClusterDescription")
+                .step("kafkaInitClusterRoleBinding", state -> state.kafkaInitClusterRoleBinding(), "kafkaInitServiceAccount")
+                .step("kafkaHeadlessService", state -> state.kafkaHeadlessService(), "getKafkaClusterDescription")
+                .step("kafkaExternalBootstrapService", state -> state.kafkaExternalBootstrapService(), "getKafkaClusterDescription")
+                .step("kafkaReplicaServices", state -> state.kafkaReplicaServices(), "getKafkaClusterDescription")
+                .step("kafkaBootstrapRoute", state -> state.kafkaBootstrapRoute(), "getKafkaClusterDescription")
+                .step("kafkaReplicaRoutes", state -> state.kafkaReplicaRoutes(), "getKafkaClusterDescription")
+                .step("kafkaAncillaryCm", state -> state.kafkaAncillaryCm(), "getKafkaClusterDescription")
+                .step("kafkaPodDisruptionBudget", state -> state.kafkaPodDisruptionBudget(), "getKafkaClusterDescription")
+                .step("kafkaManualPodCleaning", state -> state.kafkaManualPodCleaning(), "getKafkaClusterDescription")
+                .step("kafkaManualRollingUpdate", state -> state.kafkaManualRollingUpdate(), "kafkaManualPodCleaning")
+                .step("kafkaUpgrade", state -> state.kafkaUpgrade(), "kafkaManualRollingUpdate")
+                .step("kafkaPvcs", state -> state.kafkaPvcs(), "kafkaUpgrade")
+                .step("kafkaScaleDown", state -> state.kafkaScaleDown(), "kafkaPvcs")
+                // These steps collect the external addresses and listener statuses
+                .step("kafkaService", state -> state.kafkaService(), "getKafkaClusterDescription")
+                .step("kafkaBootstrapIngress", state -> state.kafkaBootstrapIngress(), "kafkaService")
+                .step("kafkaReplicaIngress", state -> state.kafkaReplicaIngress(), "kafkaBootstrapIngress")
+                .step("kafkaExternalBootstrapServiceReady", state -> state.kafkaExternalBootstrapServiceReady(),
+                        "kafkaReplicaIngress", "kafkaExternalBootstrapService")
+                .step("kafkaReplicaServicesReady", state -> state.kafkaReplicaServicesReady(),
+                        "kafkaExternalBootstrapServiceReady", "kafkaReplicaServices")
+                .step("kafkaBootstrapRouteReady", state -> state.kafkaBootstrapRouteReady(),
+                        "kafkaReplicaServicesReady", "kafkaBootstrapRoute")
+                .step("kafkaReplicaRoutesReady", state -> state.kafkaReplicaRoutesReady(),
+                        "kafkaBootstrapRouteReady", "kafkaReplicaRoutes")
+                .step("kafkaGenerateCertificates", state -> state.kafkaGenerateCertificates(), "kafkaReplicaRoutesReady")
+                .step("kafkaBrokersSecret", state -> state.kafkaBrokersSecret(), "kafkaGenerateCertificates")
+                .step("kafkaStatefulSet", state -> state.kafkaStatefulSet(), "kafkaScaleDown", "kafkaBrokersSecret",
+                        "kafkaNetPolicy", "kafkaInitClusterRoleBinding", "kafkaHeadlessService",
+                        "kafkaAncillaryCm", "kafkaPodDisruptionBudget")
+                .step("kafkaRollingUpdate", state -> state.kafkaRollingUpdate(), "kafkaStatefulSet")
+                .step("kafkaScaleUp", state -> state.kafkaScaleUp(), "kafkaRollingUpdate")
+                .step("kafkaPodsReady", state -> state.kafkaPodsReady(), "kafkaScaleUp")
+                .step("kafkaServiceEndpointReady", state -> state.kafkaServiceEndpointReady(), "kafkaPodsReady")
+                .step("kafkaHeadlessServiceEndpointReady", state -> state.kafkaHeadlessServiceEndpointReady(), "kafkaPodsReady")
+                .step("kafkaPersistentClaimDeletion", state -> state.kafkaPersistentClaimDeletion(),
+                        "kafkaServiceEndpointReady", "kafkaHeadlessServiceEndpointReady")
+
+                .step("getTopicOperatorDescription", state -> state.getTopicOperatorDescription(), "kafkaPersistentClaimDeletion")
+                .step("topicOperatorServiceAccount", state -> state.topicOperatorServiceAccount(), "getTopicOperatorDescription")
+                .step("topicOperatorRoleBinding", state -> state.topicOperatorRoleBinding(), "getTopicOperatorDescription")
+                .step("topicOperatorAncillaryCm", state -> state.topicOperatorAncillaryCm(), "getTopicOperatorDescription")
+                .step("topicOperatorSecret", state -> state.topicOperatorSecret(), "getTopicOperatorDescription")
+                .step("topicOperatorDeployment", state -> state.topicOperatorDeployment(), "topicOperatorServiceAccount",
+                        "topicOperatorRoleBinding", "topicOperatorAncillaryCm", "topicOperatorSecret")
+
+                .step("getEntityOperatorDescription", state -> state.getEntityOperatorDescription(), "kafkaPersistentClaimDeletion")
+                .step("entityOperatorServiceAccount", state -> state.entityOperatorServiceAccount(), "getEntityOperatorDescription")
+                .step("entityOperatorTopicOpRoleBinding", state -> state.entityOperatorTopicOpRoleBinding(), "getEntityOperatorDescription")
+                .step("entityOperatorUserOpRoleBinding", state -> state.entityOperatorUserOpRoleBinding(), "getEntityOperatorDescription")
+                .step("entityOperatorTopicOpAncillaryCm", state -> state.entityOperatorTopicOpAncillaryCm(), "getEntityOperatorDescription")
+                .step("entityOperatorUserOpAncillaryCm", state -> state.entityOperatorUserOpAncillaryCm(), "getEntityOperatorDescription")
+                .step("entityOperatorSecret", state -> state.entityOperatorSecret(), "getEntityOperatorDescription", "topicOperatorSecret")
+                .step("entityOperatorDeployment", state -> state.entityOperatorDeployment(), "entityOperatorServiceAccount",
+                        "entityOperatorTopicOpRoleBinding", "entityOperatorUserOpRoleBinding",
+                        "entityOperatorTopicOpAncillaryCm", "entityOperatorUserOpAncillaryCm", "entityOperatorSecret")
+                .step("entityOperatorReady", state -> state.entityOperatorReady(), "entityOperatorDeployment")
+
+                .step("getKafkaExporterDescription", state -> state.getKafkaExporterDescription(), "kafkaPersistentClaimDeletion")
+                .step("kafkaExporterServiceAccount", state -> state.kafkaExporterServiceAccount(), "getKafkaExporterDescription")
+                .step("kafkaExporterSecret", state -> state.kafkaExporterSecret(), "getKafkaExporterDescription", "entityOperatorSecret")
+                .step("kafkaExporterService", state -> state.kafkaExporterService(), "getKafkaExporterDescription")
+                .step("kafkaExporterDeployment", state -> state.kafkaExporterDeployment(), "kafkaExporterServiceAccount", "kafkaExporterSecret")
+                .step("kafkaExporterReady", state -> state.kafkaExporterReady(), "kafkaExporterDeployment", "kafkaExporterService");
     }
 
     ReconciliationState createReconciliationState(Reconciliation reconciliation, Kafka kafkaAssembly) {
@@ -2072,11 +2104,10 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator<KubernetesCl
                         // We have to wait for the pod to be actually deleted
                         log.debug("{}: Checking if Pod {} has been deleted", reconciliation, podName);
 
-                        Future<Void> waitForDeletion = podOperations.waitFor(namespace, podName, pollingIntervalMs, timeoutMs, (ignore1, ignore2) -> {
-                            Pod deletion = podOperations.get(namespace, podName);
+                        Future<Void> waitForDeletion = podOperations.awaitCondition(namespace, podName, "deleted", deletion -> {
                             log.trace("Checking if Pod {} in namespace {} has been deleted or recreated", podName, namespace);
                             return deletion == null;
-                        });
+                        }, timeoutMs);
 
                         return waitForDeletion;
                     })
@@ -2091,11 +2122,10 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator<KubernetesCl
 
                             log.debug("{}: Checking if PVC {} for Pod {} has been deleted", reconciliation, pvcName, podName);
 
-                            Future<Void> waitForDeletion = pvcOperations.waitFor(namespace, pvcName, pollingIntervalMs, timeoutMs, (ignore1, ignore2) -> {
-                                PersistentVolumeClaim deletion = pvcOperations.get(namespace, pvcName);
+                            Future<Void> waitForDeletion = pvcOperations.awaitCondition(namespace, pvcName, "deleted", deletion -> {
                                 log.trace("Checking if {} {} in namespace {} has been deleted", pvc.getKind(), pvcName, namespace);
                                 return deletion == null || (deletion.getMetadata() != null && !uid.equals(deletion.getMetadata().getUid()));
-                            });
+                            }, timeoutMs);
 
                             waitForDeletionResults.add(waitForDeletion);
                         }
@@ -0,0 +1,192 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.assembly;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The steps of a reconciliation, each of which declares the steps it depends on.
+ * When {@linkplain #execute(Object, Object) executed}, a step starts as soon as all the steps it depends on
+ * have completed, so steps which don't depend on each other run concurrently.
+ * Once a step fails no further steps are started, and the execution fails with the cause of the first failure
+ * once the steps which are already running have completed.
+ * The time taken by each step is logged at DEBUG level.
+ *
+ * A step may only depend on steps which have already been added, so the graph cannot have cycles.
+ * Steps which run concurrently must not change the same state.
+ *
+ * @param <S> The type of the state passed to each step.
+ */
+class StepGraph<S> {
+
+    private static final Logger log = LogManager.getLogger(StepGraph.class.getName());
+
+    private static class Step<S> {
+        private final int index;
+        private final String name;
+        private final Function<S, Future<S>> action;
+        private final List<Step<S>> dependencies;
+        private final List<Step<S>> dependents = new ArrayList<>();
+
+        private Step(int index, String name, Function<S, Future<S>> action, List<Step<S>> dependencies) {
+            this.index = index;
+            this.name = name;
+            this.action = action;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Map<String, Step<S>> steps = new LinkedHashMap<>();
+
+    /**
+     * Add a step.
+     * @param name The name of the step, which is unique within the graph.
+     * @param action The step.
+     * @param dependencies The names of the steps which must complete before this step starts.
+     * @return This graph.
+     * @throws IllegalArgumentException If the name is already used or a dependency hasn't been added.
+     */
+    StepGraph<S> step(String name, Function<S, Future<S>> action, String... dependencies) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate step " + name);
+        }
+        List<Step<S>> deps = new ArrayList<>(dependencies.length);
+        for (String dependency : dependencies) {
+            Step<S> dep = steps.get(dependency);
+            if (dep == null) {
+                throw new IllegalArgumentException("Step " + name + " depends on unknown step " + dependency);
+            }
+            deps.add(dep);
+        }
+        Step<S> step = new Step<>(steps.size(), name, action, deps);
+        for (Step<S> dep : deps) {
+            dep.dependents.add(step);
+        }
+        steps.put(name, step);
+        return this;
+    }
+
+    /**
+     * Execute the steps.
+     * @param logContext The context for log messages, such as the reconciliation.
+     * @param state The state passed to each step.
+     * @return A future which completes with the state once all the steps have completed,
+     * or fails if any step failed.
+     */
+    Future<S> execute(Object logContext, S state) {
+        return new Execution(logContext, state).start();
+    }
+
+    /** The state of one execution of the graph. */
+    private class Execution {
+        private final Object logContext;
+        private final S state;
+        private final Future<S> result = Future.future();
+        private final long startNanos = System.nanoTime();
+        // All guarded by this
+        private final int[] pendingDependencies = new int[steps.size()];
+        private final Map<String, Long> timingsMs = new LinkedHashMap<>();
+        private int running = 0;
+        private int completed = 0;
+        private Throwable failure;
+
+        private Execution(Object logContext, S state) {
+            this.logContext = logContext;
+            this.state = state;
+        }
+
+        private Future<S> start() {
+            List<Step<S>> ready = new ArrayList<>();
+            synchronized (this) {
+                for (Step<S> step : steps.values()) {
+                    pendingDependencies[step.index] = step.dependencies.size();
+                    if (step.dependencies.isEmpty()) {
+                        ready.add(step);
+                    }
+                }
+                running += ready.size();
+            }
+            if (steps.isEmpty()) {
+                result.complete(state);
+            }
+            ready.forEach(this::run);
+            return result;
+        }
+
+        private void run(Step<S> step) {
+            long stepStartNanos = System.nanoTime();
+            log.trace("{}: Starting step {}", logContext, step.name);
+            Future<S> stepResult;
+            try {
+                stepResult = step.action.apply(state);
+            } catch (Throwable t) {
+                stepResult = Future.failedFuture(t);
+            }
+            stepResult.setHandler(ar -> completed(step, stepStartNanos, ar));
+        }
+
+        private void completed(Step<S> step, long stepStartNanos, AsyncResult<S> ar) {
+            long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stepStartNanos);
+            List<Step<S>> ready = Collections.emptyList();
+            boolean done;
+            synchronized (this) {
+                running--;
+                completed++;
+                timingsMs.put(step.name, tookMs);
+                if (ar.failed()) {
+                    log.debug("{}: Step {} failed after {}ms", logContext, step.name, tookMs);
+                    if (failure == null) {
+                        failure = ar.cause();
+                    }
+                } else {
+                    log.debug("{}: Step {} took {}ms", logContext, step.name, tookMs);
+                    if (failure == null) {
+                        ready = new ArrayList<>();
+                        for (Step<S> dependent : step.dependents) {
+                            if (--pendingDependencies[dependent.index] == 0) {
+                                ready.add(dependent);
+                            }
+                        }
+                        running += ready.size();
+                    }
+                }
+                done = running == 0 && (failure != null || completed == steps.size());
+            }
+            ready.forEach(this::run);
+            if (done) {
+                finished();
+            }
+        }
+
+        private void finished() {
+            Throwable cause;
+            synchronized (this) {
+                if (log.isDebugEnabled()) {
+                    long sumMs = timingsMs.values().stream().mapToLong(Long::longValue).sum();
+                    log.debug("{}: Ran {} of {} steps in {}ms (the steps took {}ms in total)",
+                            logContext, timingsMs.size(), steps.size(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), sumMs);
+                }
+                cause = failure;
+            }
+            if (cause != null) {
+                result.fail(cause);
+            } else {
+                result.complete(state);
+            }
+        }
+    }
+}
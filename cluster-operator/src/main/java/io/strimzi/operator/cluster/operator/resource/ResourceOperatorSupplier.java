@@ -165,4 +165,18 @@ public class ResourceOperatorSupplier {
         this.storageClassOperations = storageClassOperator;
         this.kafkaConnectorOperator = kafkaConnectorOperator;
     }
+
+    /**
+     * Serve reads of the Services, ConfigMaps, Secrets, ServiceAccounts, NetworkPolicies and PodDisruptionBudgets
+     * which the operator manages from caches kept up to date by watches.
+     * StatefulSets, Pods and the other resources whose status the operator waits on are still read from the API server.
+     */
+    public void enableResourceCache() {
+        serviceOperations.enableCache();
+        configMapOperations.enableCache();
+        secretOperations.enableCache();
+        serviceAccountOperations.enableCache();
+        networkPolicyOperator.enableCache();
+        podDisruptionBudgetOperator.enableCache();
+    }
 }
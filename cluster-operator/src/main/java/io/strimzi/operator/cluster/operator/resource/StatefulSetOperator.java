@@ -318,16 +318,14 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
         try {
             Future<ReconcileResult<StatefulSet>> fut = Future.future();
 
-            long pollingIntervalMs = 1_000;
             long timeoutMs = operationTimeoutMs;
 
             operation().inNamespace(namespace).withName(name).cascading(cascading).withGracePeriod(-1L).delete();
 
-            Future<Void> deletedFut = waitFor(namespace, name, pollingIntervalMs, timeoutMs, (ignore1, ignore2) -> {
-                StatefulSet sts = get(namespace, name);
+            Future<Void> deletedFut = awaitCondition(namespace, name, "deleted", sts -> {
                 log.trace("Checking if {} {} in namespace {} has been deleted", resourceKind, name, namespace);
                 return sts == null;
-            });
+            }, timeoutMs);
 
             deletedFut.setHandler(res -> {
                 if (res.succeeded())    {
@@ -48,6 +48,8 @@ public class ClusterOperatorConfigTest {
         assertThat(config.getNamespaces(), is(singleton("namespace")));
         assertThat(config.getReconciliationIntervalMs(), is(ClusterOperatorConfig.DEFAULT_FULL_RECONCILIATION_INTERVAL_MS));
         assertThat(config.getOperationTimeoutMs(), is(ClusterOperatorConfig.DEFAULT_OPERATION_TIMEOUT_MS));
+        assertThat(config.isResourceCache(), is(ClusterOperatorConfig.DEFAULT_RESOURCE_CACHE));
+        assertThat(config.getMaxConcurrentReconciliations(), is(ClusterOperatorConfig.DEFAULT_MAX_CONCURRENT_RECONCILIATIONS));
     }
 
     @Test
@@ -70,6 +72,36 @@ public class ClusterOperatorConfigTest {
         assertThat(config.getOperationTimeoutMs(), is(30_000L));
     }
 
+    @Test
+    public void testResourceCache() {
+        Map<String, String> envVars = new HashMap<>(ClusterOperatorConfigTest.envVars);
+        envVars.put(ClusterOperatorConfig.STRIMZI_RESOURCE_CACHE, "true");
+
+        ClusterOperatorConfig config = ClusterOperatorConfig.fromMap(envVars, KafkaVersionTestUtils.getKafkaVersionLookup());
+
+        assertThat(config.isResourceCache(), is(true));
+    }
+
+    @Test
+    public void testMaxConcurrentReconciliations() {
+        Map<String, String> envVars = new HashMap<>(ClusterOperatorConfigTest.envVars);
+        envVars.put(ClusterOperatorConfig.STRIMZI_MAX_CONCURRENT_RECONCILIATIONS, "3");
+
+        ClusterOperatorConfig config = ClusterOperatorConfig.fromMap(envVars, KafkaVersionTestUtils.getKafkaVersionLookup());
+
+        assertThat(config.getMaxConcurrentReconciliations(), is(3));
+    }
+
+    @Test
+    public void testInvalidMaxConcurrentReconciliations() {
+        Map<String, String> envVars = new HashMap<>(ClusterOperatorConfigTest.envVars);
+        envVars.put(ClusterOperatorConfig.STRIMZI_MAX_CONCURRENT_RECONCILIATIONS, "0");
+
+        assertThrows(InvalidConfigurationException.class, () -> {
+            ClusterOperatorConfig.fromMap(envVars, KafkaVersionTestUtils.getKafkaVersionLookup());
+        });
+    }
+
     @Test
     public void testEnvVarsDefault() {
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.assembly;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(VertxExtension.class)
+public class StepGraphTest {
+
+    private static Vertx vertx;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeAll
+    public static void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterAll
+    public static void after() {
+        vertx.close();
+    }
+
+    /** A step which records when it starts and ends, and completes with the given outcome after the given delay. */
+    private Function<String, Future<String>> step(String name, long delayMs, boolean succeeds) {
+        return state -> {
+            events.add("start " + name);
+            Future<String> result = Future.future();
+            vertx.setTimer(delayMs, ignored -> {
+                events.add("end " + name);
+                if (succeeds) {
+                    result.complete(state);
+                } else {
+                    result.fail(new RuntimeException(name + " failed"));
+                }
+            });
+            return result;
+        };
+    }
+
+    @Test
+    public void testIndependentStepsRunConcurrently(VertxTestContext context) {
+        StepGraph<String> graph = new StepGraph<String>()
+                .step("a", step("a", 10, true))
+                .step("b", step("b", 100, true), "a")
+                .step("c", step("c", 200, true), "a")
+                .step("d", step("d", 10, true), "b", "c");
+
+        Checkpoint async = context.checkpoint();
+        graph.execute("test", "state").setHandler(context.succeeding(state -> context.verify(() -> {
+            assertThat(state, is("state"));
+            assertThat(events, is(asList("start a", "end a", "start b", "start c", "end b", "end c", "start d", "end d")));
+            async.flag();
+        })));
+    }
+
+    @Test
+    public void testFailureStopsDependentSteps(VertxTestContext context) {
+        StepGraph<String> graph = new StepGraph<String>()
+                .step("a", step("a", 10, true))
+                .step("b", step("b", 10, false), "a")
+                .step("c", step("c", 100, true), "a")
+                .step("d", step("d", 10, true), "b")
+                .step("e", step("e", 10, true), "c");
+
+        Checkpoint async = context.checkpoint();
+        graph.execute("test", "state").setHandler(context.failing(e -> context.verify(() -> {
+            assertThat(e.getMessage(), is("b failed"));
+            // c was already running, so the execution completes once it has ended
+            assertThat(events, is(asList("start a", "end a", "start b", "start c", "end b", "end c")));
+            async.flag();
+        })));
+    }
+
+    @Test
+    public void testThrowingStepFails(VertxTestContext context) {
+        StepGraph<String> graph = new StepGraph<String>()
+                .step("a", state -> {
+                    throw new IllegalStateException("Boom");
+                })
+                .step("b", step("b", 10, true), "a");
+
+        Checkpoint async = context.checkpoint();
+        graph.execute("test", "state").setHandler(context.failing(e -> context.verify(() -> {
+            assertThat(e.getMessage(), is("Boom"));
+            assertThat(events.isEmpty(), is(true));
+            async.flag();
+        })));
+    }
+
+    @Test
+    public void testDependenciesMustBeKnown() {
+        StepGraph<String> graph = new StepGraph<String>()
+                .step("a", step("a", 10, true));
+
+        assertThrows(IllegalArgumentException.class, () -> graph.step("b", step("b", 10, true), "c"));
+        assertThrows(IllegalArgumentException.class, () -> graph.step("a", step("a", 10, true)));
+    }
+}
@@ -406,7 +406,7 @@ public class StatefulSetOperatorTest
             }
 
             @Override
-            public Future<Void> waitFor(String namespace, String name, long pollIntervalMs, final long timeoutMs, BiPredicate<String, String> predicate) {
+            public Future<Void> awaitCondition(String namespace, String name, String conditionName, Predicate<StatefulSet> condition, long timeoutMs) {
                 return Future.succeededFuture();
             }
         };
@@ -133,6 +133,8 @@ class MockBuilder<T extends HasMetadata,
 
         when(mixed.inNamespace(any())).thenReturn(mixed);
         when(mixed.list()).thenAnswer(i -> mockList(p -> true));
+        // Paginated lists return every resource in a single page
+        when(mixed.list(any(), any())).thenAnswer(i -> mockList(p -> true));
         when(mixed.withLabels(any())).thenAnswer(i -> {
             MixedOperation<T, L, D, R> mixedWithLabels = mock(MixedOperation.class);
             Map<String, String> labels = i.getArgument(0);
@@ -237,6 +239,9 @@ class MockBuilder<T extends HasMetadata,
         when(mixedWithLabels.list()).thenAnswer(i2 -> {
             return mockList(predicate);
         });
+        when(mixedWithLabels.list(any(), any())).thenAnswer(i2 -> {
+            return mockList(predicate);
+        });
         when(mixedWithLabels.watch(any())).thenAnswer(i2 -> {
             Watcher watcher = i2.getArgument(0);
             return addWatcher(PredicatedWatcher.predicatedWatcher(resourceTypeClass.getName(), "watch on labeled", predicate, watcher));
@@ -15,12 +15,16 @@ import io.strimzi.operator.common.model.ValidationVisitor;
 import io.strimzi.operator.common.operator.resource.AbstractWatchableResourceOperator;
 import io.strimzi.operator.common.operator.resource.TimeoutException;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.shareddata.Lock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -40,6 +44,10 @@ import static io.strimzi.operator.common.Util.async;
  * <li>add support for operator-side {@linkplain #validate(HasMetadata) validation}.
  *     This can be used to automatically log warnings about source resources which used deprecated part of the CR API.
  *
+ * <li>runs reconciliations through a {@link ReconciliationQueue}, so that there's at most one reconciliation
+ *     of each resource waiting, those triggered by watch events run before those of the periodic reconciliation,
+ *     and failed reconciliations are retried with a back-off.
+ *
  * </ul>
  * @param <T> The Java representation of the Kubernetes resource, e.g. {@code Kafka} or {@code KafkaConnect}
  * @param <S> The "Resource Operator" for the source resource type. Typically this will be some instantiation of
@@ -54,14 +62,30 @@ public abstract class AbstractOperator<
 
     protected static final int LOCK_TIMEOUT_MS = 10000;
 
+    public static final int DEFAULT_MAX_CONCURRENT_RECONCILIATIONS = 10;
+
     protected final Vertx vertx;
     protected final S resourceOperator;
     private final String kind;
+    private final ReconciliationQueue queue;
 
     public AbstractOperator(Vertx vertx, String kind, S resourceOperator) {
+        this(vertx, kind, resourceOperator, DEFAULT_MAX_CONCURRENT_RECONCILIATIONS);
+    }
+
+    /**
+     * @param vertx The Vertx instance.
+     * @param kind The kind of the resource.
+     * @param resourceOperator The operator for the resource.
+     * @param maxConcurrentReconciliations The maximum number of resources which are reconciled at the same time.
+     */
+    public AbstractOperator(Vertx vertx, String kind, S resourceOperator, int maxConcurrentReconciliations) {
         this.vertx = vertx;
         this.kind = kind;
         this.resourceOperator = resourceOperator;
+        // Retries after 5s, 10s, 20s, 40s, 80s and 160s
+        this.queue = new ReconciliationQueue(vertx, maxConcurrentReconciliations,
+            () -> new BackOff(5_000L, 2, 7), this::reconcileWithLock);
     }
 
     @Override
@@ -107,11 +131,37 @@ public abstract class AbstractOperator<
      * Reconciliation works by getting the assembly resource (e.g. {@code KafkaUser})
      * in the given namespace with the given name and
      * comparing with the corresponding resource.
+     * The reconciliation is queued ahead of those of the periodic reconciliation,
+     * and coalesced with any reconciliation of the same resource which is already waiting.
      * @param reconciliation The reconciliation.
      * @return A Future which is completed with the result of the reconciliation.
      */
     @Override
     public final Future<Void> reconcile(Reconciliation reconciliation) {
+        return queue.enqueue(reconciliation, ReconciliationQueue.Priority.HIGH);
+    }
+
+    /**
+     * Queues the reconciliation of the given resources behind any triggered by watch events.
+     * @param trigger The cause of this reconciliation (for logging).
+     * @param desiredNames The resources to reconcile.
+     * @param handler Handler called once all the resources have been reconciled.
+     */
+    @Override
+    public void reconcileThese(String trigger, Set<NamespaceAndName> desiredNames, Handler<AsyncResult<Void>> handler) {
+        if (desiredNames.size() > 0) {
+            List<Future> futures = new ArrayList<>();
+            for (NamespaceAndName resourceRef : desiredNames) {
+                Reconciliation reconciliation = new Reconciliation(trigger, kind(), resourceRef.getNamespace(), resourceRef.getName());
+                futures.add(queue.enqueue(reconciliation, ReconciliationQueue.Priority.LOW));
+            }
+            CompositeFuture.join(futures).map((Void) null).setHandler(handler);
+        } else {
+            handler.handle(Future.succeededFuture());
+        }
+    }
+
+    private Future<Void> reconcileWithLock(Reconciliation reconciliation) {
         String namespace = reconciliation.namespace();
         String name = reconciliation.name();
         Future<Void> handler = withLock(reconciliation, LOCK_TIMEOUT_MS, () -> {
@@ -0,0 +1,265 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common;
+
+import io.strimzi.operator.common.model.NamespaceAndName;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A work queue of reconciliations, with at most one entry for each resource.
+ *
+ * <ul>
+ *     <li>A reconciliation which is requested while one of the same resource is waiting is coalesced with it.</li>
+ *     <li>A reconciliation which is requested while one of the same resource is running is run again
+ *     once the running one has finished, so that the change which caused the request is not lost.</li>
+ *     <li>At most {@code maxRunning} reconciliations run at the same time.
+ *     All those waiting in the {@link Priority#HIGH} lane start before any waiting in the {@link Priority#LOW} lane,
+ *     so reconciliations triggered by watch events are not stuck behind a periodic reconciliation of all the resources.</li>
+ *     <li>A resource whose reconciliation fails is retried, in the {@link Priority#LOW} lane,
+ *     after the delays given by a {@link BackOff}.
+ *     A reconciliation which is requested in the meantime starts without waiting for the delay.
+ *     Once the BackOff's attempts are exhausted the resource is left to the next periodic reconciliation.</li>
+ * </ul>
+ */
+public class ReconciliationQueue {
+
+    private static final Logger LOGGER = LogManager.getLogger(ReconciliationQueue.class);
+
+    public enum Priority {
+        /** For reconciliations triggered by watch events. */
+        HIGH,
+        /** For periodic reconciliations and retries. */
+        LOW
+    }
+
+    private enum State {
+        IDLE,
+        WAITING,
+        RUNNING
+    }
+
+    /** The state of the reconciliations of one resource. */
+    private static class Entry {
+        private final NamespaceAndName key;
+        private State state = State.IDLE;
+        private Reconciliation reconciliation;
+        private Priority priority;
+        /** The futures to complete when the waiting reconciliation, or the running one if none is waiting, has finished. */
+        private List<Future<Void>> waiters = new ArrayList<>(1);
+        /** Whether the resource has to be reconciled again once the running reconciliation has finished. */
+        private boolean dirty = false;
+        private List<Future<Void>> dirtyWaiters = new ArrayList<>(1);
+        /** The delays between retries, or null if the last reconciliation succeeded. */
+        private BackOff backOff;
+        private long retryTimer = -1;
+
+        private Entry(NamespaceAndName key) {
+            this.key = key;
+        }
+    }
+
+    private final Vertx vertx;
+    private final int maxRunning;
+    private final Supplier<BackOff> backOffSupplier;
+    private final Function<Reconciliation, Future<Void>> reconciler;
+
+    // All guarded by this
+    private final Map<NamespaceAndName, Entry> entries = new HashMap<>();
+    private final ArrayDeque<Entry> highLane = new ArrayDeque<>();
+    private final ArrayDeque<Entry> lowLane = new ArrayDeque<>();
+    private int running = 0;
+
+    /**
+     * @param vertx The vertx instance, on whose context the reconciliations are started.
+     * @param maxRunning The maximum number of reconciliations which may run at the same time.
+     * @param backOffSupplier Supplies the delays between retries of a resource whose reconciliation has failed.
+     * @param reconciler Runs a reconciliation.
+     */
+    public ReconciliationQueue(Vertx vertx, int maxRunning, Supplier<BackOff> backOffSupplier,
+                               Function<Reconciliation, Future<Void>> reconciler) {
+        if (maxRunning <= 0) {
+            throw new IllegalArgumentException("maxRunning must be positive");
+        }
+        this.vertx = vertx;
+        this.maxRunning = maxRunning;
+        this.backOffSupplier = backOffSupplier;
+        this.reconciler = reconciler;
+    }
+
+    /**
+     * Request the given reconciliation.
+     * @param reconciliation The reconciliation.
+     * @param priority The lane in which to wait.
+     * @return A future which completes with the outcome of the reconciliation which satisfies this request.
+     */
+    public Future<Void> enqueue(Reconciliation reconciliation, Priority priority) {
+        Future<Void> result = Future.future();
+        NamespaceAndName key = new NamespaceAndName(reconciliation.namespace(), reconciliation.name());
+        synchronized (this) {
+            Entry entry = entries.computeIfAbsent(key, Entry::new);
+            cancelRetry(entry);
+            switch (entry.state) {
+                case IDLE:
+                    entry.state = State.WAITING;
+                    entry.reconciliation = reconciliation;
+                    entry.priority = priority;
+                    entry.waiters.add(result);
+                    lane(priority).add(entry);
+                    break;
+                case WAITING:
+                    LOGGER.debug("{}: Coalesced with waiting reconciliation {}", reconciliation, entry.reconciliation);
+                    entry.waiters.add(result);
+                    if (priority == Priority.HIGH && entry.priority == Priority.LOW && lowLane.remove(entry)) {
+                        entry.priority = Priority.HIGH;
+                        highLane.add(entry);
+                    }
+                    break;
+                case RUNNING:
+                    LOGGER.debug("{}: Will run again once reconciliation {} has finished", reconciliation, entry.reconciliation);
+                    if (!entry.dirty || priority == Priority.HIGH) {
+                        entry.priority = priority;
+                    }
+                    entry.dirty = true;
+                    entry.reconciliation = reconciliation;
+                    entry.dirtyWaiters.add(result);
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+        startWaiting();
+        return result;
+    }
+
+    private ArrayDeque<Entry> lane(Priority priority) {
+        return priority == Priority.HIGH ? highLane : lowLane;
+    }
+
+    private void cancelRetry(Entry entry) {
+        if (entry.retryTimer != -1) {
+            vertx.cancelTimer(entry.retryTimer);
+            entry.retryTimer = -1;
+        }
+    }
+
+    private void startWaiting() {
+        while (true) {
+            Entry entry;
+            Reconciliation reconciliation;
+            List<Future<Void>> waiters;
+            synchronized (this) {
+                if (running >= maxRunning) {
+                    return;
+                }
+                entry = highLane.poll();
+                if (entry == null) {
+                    entry = lowLane.poll();
+                    if (entry == null) {
+                        return;
+                    }
+                }
+                entry.state = State.RUNNING;
+                reconciliation = entry.reconciliation;
+                waiters = entry.waiters;
+                entry.waiters = new ArrayList<>(1);
+                running++;
+            }
+            Entry started = entry;
+            vertx.runOnContext(ignored -> {
+                Future<Void> fut;
+                try {
+                    fut = reconciler.apply(reconciliation);
+                } catch (Throwable t) {
+                    fut = Future.failedFuture(t);
+                }
+                fut.setHandler(ar -> finished(started, ar, waiters));
+            });
+        }
+    }
+
+    private void finished(Entry entry, AsyncResult<Void> result, List<Future<Void>> waiters) {
+        synchronized (this) {
+            running--;
+            if (result.succeeded()) {
+                entry.backOff = null;
+            }
+            if (entry.dirty) {
+                entry.state = State.WAITING;
+                entry.dirty = false;
+                entry.waiters = entry.dirtyWaiters;
+                entry.dirtyWaiters = new ArrayList<>(1);
+                lane(entry.priority).add(entry);
+            } else {
+                entry.state = State.IDLE;
+                if (result.succeeded()) {
+                    entries.remove(entry.key);
+                } else {
+                    scheduleRetry(entry);
+                }
+            }
+        }
+        for (Future<Void> waiter : waiters) {
+            waiter.handle(result);
+        }
+        startWaiting();
+    }
+
+    private void scheduleRetry(Entry entry) {
+        if (entry.backOff == null) {
+            entry.backOff = backOffSupplier.get();
+            // The attempt which just failed
+            entry.backOff.delayMs();
+        }
+        Reconciliation retry = new Reconciliation("retry", entry.reconciliation.kind(),
+                entry.reconciliation.namespace(), entry.reconciliation.name());
+        if (entry.backOff.done()) {
+            LOGGER.warn("{}: Giving up after {} attempts, until the next periodic reconciliation", retry, entry.backOff.maxAttempts());
+            entries.remove(entry.key);
+            return;
+        }
+        long delay = entry.backOff.delayMs();
+        LOGGER.debug("{}: Retrying in {}ms", retry, delay);
+        entry.retryTimer = vertx.setTimer(delay, ignored -> {
+            synchronized (this) {
+                entry.retryTimer = -1;
+            }
+            enqueue(retry, Priority.LOW);
+        });
+    }
+
+    /**
+     * @return The number of reconciliations which are waiting to run.
+     */
+    public synchronized int waiting() {
+        return highLane.size() + lowLane.size();
+    }
+
+    /**
+     * @return The number of reconciliations which are running.
+     */
+    public synchronized int running() {
+        return running;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ReconciliationQueue(maxRunning=" + maxRunning
+                + ", running=" + running
+                + ", waitingHigh=" + highLane.size()
+                + ", waitingLow=" + lowLane.size() + ")";
+    }
+}
@@ -40,8 +40,18 @@ public abstract class AbstractReadyResourceOperator<C extends KubernetesClient,
         super(vertx, client, resourceKind);
     }
 
+    /**
+     * Returns a future that completes when the resource identified by the given {@code namespace} and {@code name}
+     * is ready. The resource is watched rather than polled.
+     *
+     * @param namespace The namespace.
+     * @param name The resource name.
+     * @param pollIntervalMs Unused, since the resource is watched rather than polled.
+     * @param timeoutMs The timeout, in milliseconds.
+     * @return A future that completes when the resource is ready.
+     */
     public Future<Void> readiness(String namespace, String name, long pollIntervalMs, long timeoutMs) {
-        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isReady);
+        return awaitCondition(namespace, name, "ready", () -> isReady(namespace, name), this::isReady, timeoutMs);
     }
 
     /**
@@ -64,4 +74,18 @@ public abstract class AbstractReadyResourceOperator<C extends KubernetesClient,
             return false;
         }
     }
+
+    /**
+     * Check if a resource is in the Ready state.
+     *
+     * @param resource The resource, or null if it doesn't exist.
+     * @return Whether the resource in in the Ready state.
+     */
+    protected boolean isReady(T resource) {
+        if (resource != null)   {
+            return !Readiness.isReadinessApplicable(resource.getClass()) || Readiness.isReady(resource);
+        } else {
+            return false;
+        }
+    }
 }
@@ -26,7 +26,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 /**
  * Abstract resource creation, for a generic resource type {@code R}.
@@ -45,6 +48,9 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
     protected final Vertx vertx;
     protected final C client;
     protected final String resourceKind;
+    private volatile ResourceCache<T> cache;
+    private final AtomicLong patchesSent = new AtomicLong();
+    private final AtomicLong patchesSkipped = new AtomicLong();
 
     /**
      * Constructor.
@@ -60,6 +66,39 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
 
     protected abstract MixedOperation<T, L, D, R> operation();
 
+    /**
+     * Serve reads in a namespace from a {@link ResourceCache}, which is kept up to date by a watch of the namespace
+     * and by the writes made by this operator.
+     * Reads across all namespaces, and reads with label selectors using expressions, still go to the API server.
+     */
+    @SuppressWarnings("unchecked") // due to L extends KubernetesResourceList/*<T>*/
+    public synchronized void enableCache() {
+        if (cache == null) {
+            cache = new ResourceCache<>(resourceKind, new ResourceCache.Source<T>() {
+                @Override
+                public ResourceCache.Listing<T> list(String namespace) {
+                    L list = operation().inNamespace(namespace).list();
+                    return new ResourceCache.Listing<>(list.getItems(),
+                            list.getMetadata() != null ? list.getMetadata().getResourceVersion() : null);
+                }
+
+                @Override
+                public Watch watch(String namespace, String resourceVersion, Watcher<T> watcher) {
+                    return resourceVersion != null
+                            ? operation().inNamespace(namespace).withResourceVersion(resourceVersion).watch(watcher)
+                            : operation().inNamespace(namespace).watch(watcher);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return The cache from which reads are served, or null if they're served by the API server.
+     */
+    ResourceCache<T> cache() {
+        return cache;
+    }
+
     /**
      * Asynchronously create or update the given {@code resource} depending on whether it already exists,
      * returning a future for the outcome.
@@ -92,20 +131,20 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
         Future<ReconcileResult<T>> fut = Future.future();
         vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
             future -> {
-                T current = operation().inNamespace(namespace).withName(name).get();
+                T current = get(namespace, name);
                 if (desired != null) {
                     if (current == null) {
                         log.debug("{} {}/{} does not exist, creating it", resourceKind, namespace, name);
-                        internalCreate(namespace, name, desired).setHandler(future);
+                        cacheWrite(namespace, name, internalCreate(namespace, name, desired)).setHandler(future);
                     } else {
                         log.debug("{} {}/{} already exists, patching it", resourceKind, namespace, name);
-                        internalPatch(namespace, name, current, desired).setHandler(future);
+                        cacheWrite(namespace, name, internalPatch(namespace, name, current, desired)).setHandler(future);
                     }
                 } else {
                     if (current != null) {
                         // Deletion is desired
                         log.debug("{} {}/{} exist, deleting it", resourceKind, namespace, name);
-                        internalDelete(namespace, name).setHandler(future);
+                        cacheWrite(namespace, name, internalDelete(namespace, name)).setHandler(future);
                     } else {
                         log.debug("{} {}/{} does not exist, noop", resourceKind, namespace, name);
                         future.complete(ReconcileResult.noop(null));
@@ -119,6 +158,24 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
         return fut;
     }
 
+    /**
+     * Update the cache, if there is one, with the result of the given write, once it has succeeded.
+     */
+    private Future<ReconcileResult<T>> cacheWrite(String namespace, String name, Future<ReconcileResult<T>> write) {
+        ResourceCache<T> cache = this.cache;
+        if (cache == null) {
+            return write;
+        }
+        return write.map(result -> {
+            if (result.resource() != null) {
+                cache.updated(result.resource());
+            } else if (result == ReconcileResult.<T>deleted()) {
+                cache.deleted(namespace, name);
+            }
+            return result;
+        });
+    }
+
     /**
      * Deletes the resource with the given namespace and name and completes the given future accordingly.
      * This method will do a cascading delete.
@@ -163,6 +220,9 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
 
     protected Future<ReconcileResult<T>> internalPatch(String namespace, String name, T current, T desired, boolean cascading) {
         try {
+            if (!needsPatch(namespace, name, current, desired)) {
+                return Future.succeededFuture(ReconcileResult.noop(current));
+            }
             T result = operation().inNamespace(namespace).withName(name).cascading(cascading).patch(desired);
             log.debug("{} {} in namespace {} has been patched", resourceKind, name, namespace);
             return Future.succeededFuture(wasChanged(current, result) ? ReconcileResult.patched(result) : ReconcileResult.noop(result));
@@ -172,6 +232,38 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
         }
     }
 
+    /**
+     * Whether patching the {@code current} resource to the {@code desired} one would change it,
+     * counting the patches which are needed and those which are not.
+     * A patch which would not change the resource should not be sent to the API server.
+     */
+    protected boolean needsPatch(String namespace, String name, T current, T desired) {
+        if (new ResourceDiff(current, desired).isEmpty()) {
+            long skipped = patchesSkipped.incrementAndGet();
+            log.debug("{} {} in namespace {} has not been patched because it is unchanged ({} patches skipped, {} sent)",
+                    resourceKind, name, namespace, skipped, patchesSent.get());
+            return false;
+        } else {
+            patchesSent.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * @return The number of patches of this kind of resource which have been sent to the API server.
+     */
+    public long patchesSent() {
+        return patchesSent.get();
+    }
+
+    /**
+     * @return The number of patches of this kind of resource which have not been sent because
+     * they would not have changed the resource.
+     */
+    public long patchesSkipped() {
+        return patchesSkipped.get();
+    }
+
     protected boolean wasChanged(T oldVersion, T newVersion) {
         if (oldVersion != null
                 && oldVersion.getMetadata() != null
@@ -206,6 +298,10 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
      * @return The resource, or null if it doesn't exist.
      */
     public T get(String namespace, String name) {
+        ResourceCache<T> cache = this.cache;
+        if (cache != null) {
+            return cache.get(namespace, name);
+        }
         return operation().inNamespace(namespace).withName(name).get();
     }
 
@@ -259,6 +355,10 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
 
     @SuppressWarnings("unchecked") // due to L extends KubernetesResourceList/*<T>*/
     protected List<T> listInNamespace(String namespace, Labels selector) {
+        ResourceCache<T> cache = this.cache;
+        if (cache != null) {
+            return cache.list(namespace, selector != null ? selector.toMap() : null);
+        }
         NonNamespaceOperation<T, L, D, R> tldrNonNamespaceOperation = operation().inNamespace(namespace);
 
         if (selector != null) {
@@ -304,6 +404,12 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
         Future<List<T>> result = Future.future();
         vertx.createSharedWorkerExecutor("kubernetes-ops-tool").executeBlocking(
             future -> {
+                ResourceCache<T> cache = this.cache;
+                if (cache != null && !AbstractWatchableResourceOperator.ANY_NAMESPACE.equals(namespace)
+                        && (!selector.isPresent() || selector.get().getMatchExpressions() == null || selector.get().getMatchExpressions().isEmpty())) {
+                    future.complete(cache.list(namespace, selector.map(LabelSelector::getMatchLabels).orElse(null)));
+                    return;
+                }
                 FilterWatchListDeletable<T, L, Boolean, Watch, Watcher<T>> operation;
                 if (AbstractWatchableResourceOperator.ANY_NAMESPACE.equals(namespace))  {
                     operation = operation().inAnyNamespace();
@@ -338,4 +444,44 @@ public abstract class AbstractResourceOperator<C extends KubernetesClient, T ext
             timeoutMs,
             () -> predicate.test(namespace, name));
     }
+
+    /**
+     * Returns a future that completes when the resource identified by the given {@code namespace} and {@code name}
+     * meets the given {@code condition}.
+     * Rather than polling, this watches the resource, getting it once each time the watch is (re)subscribed
+     * and then testing the condition against the resource in each watch event.
+     *
+     * @param namespace The namespace.
+     * @param name The resource name.
+     * @param conditionName A description of the condition (used for logging).
+     * @param condition The condition, which is passed null when the resource doesn't exist.
+     * @param timeoutMs The timeout, in milliseconds.
+     * @return A future that completes when the resource meets the condition,
+     * or fails with a {@link TimeoutException} if it doesn't within the timeout.
+     */
+    public Future<Void> awaitCondition(String namespace, String name, String conditionName, Predicate<T> condition, long timeoutMs) {
+        return awaitCondition(namespace, name, conditionName, () -> condition.test(get(namespace, name)), condition, timeoutMs);
+    }
+
+    /**
+     * Like {@link #awaitCondition(String, String, String, Predicate, long)}, but using the given {@code check}
+     * rather than getting the resource when the watch is (re)subscribed.
+     *
+     * @param namespace The namespace.
+     * @param name The resource name.
+     * @param conditionName A description of the condition (used for logging).
+     * @param check Synchronously checks whether the resource meets the condition.
+     * @param condition The condition, which is passed null when the resource has been deleted.
+     * @param timeoutMs The timeout, in milliseconds.
+     * @return A future that completes when the resource meets the condition,
+     * or fails with a {@link TimeoutException} if it doesn't within the timeout.
+     */
+    protected Future<Void> awaitCondition(String namespace, String name, String conditionName, BooleanSupplier check, Predicate<T> condition, long timeoutMs) {
+        return new ConditionWatcher<>(vertx,
+            String.format("%s resource %s in namespace %s to be %s", resourceKind, name, namespace, conditionName),
+            watcher -> operation().inNamespace(namespace).withName(name).watch(watcher),
+            check,
+            condition,
+            timeoutMs).start();
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common.operator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Waits for a single resource to meet a condition by watching it, rather than by polling it.
+ *
+ * Each time the watch is (re)subscribed, the condition is checked once, so that a change which happened
+ * before the watch was established isn't missed. After that, the condition is tested against the resource
+ * in each watch event, and no thread is held while waiting for the next one.
+ * If the watch closes before the condition is met, it is resubscribed.
+ *
+ * @param <T> The Kubernetes resource type.
+ */
+class ConditionWatcher<T extends HasMetadata> implements Watcher<T> {
+
+    private static final Logger LOGGER = LogManager.getLogger(ConditionWatcher.class);
+
+    /** How long to wait before resubscribing when the watch couldn't be established. */
+    private static final long RESUBSCRIBE_DELAY_MS = 1_000;
+
+    private final Vertx vertx;
+    private final Context context;
+    private final String logContext;
+    private final Function<Watcher<T>, Watch> subscribe;
+    private final BooleanSupplier check;
+    private final Predicate<T> condition;
+    private final long timeoutMs;
+    private final Future<Void> result = Future.future();
+    private final AtomicBoolean done = new AtomicBoolean(false);
+    private final AtomicReference<Watch> watch = new AtomicReference<>();
+    private long timerId;
+
+    /**
+     * @param vertx The Vertx instance.
+     * @param logContext A description of the resource and the condition (for logging).
+     * @param subscribe Starts a watch of the resource, delivering its events to the given watcher.
+     * @param check Synchronously checks whether the condition is met, when the watch is (re)subscribed.
+     * @param condition Whether the resource in a watch event meets the condition.
+     *                  It is passed null when the event is the deletion of the resource.
+     * @param timeoutMs The timeout, in milliseconds.
+     */
+    ConditionWatcher(Vertx vertx, String logContext, Function<Watcher<T>, Watch> subscribe,
+                     BooleanSupplier check, Predicate<T> condition, long timeoutMs) {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.logContext = logContext;
+        this.subscribe = subscribe;
+        this.check = check;
+        this.condition = condition;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Start waiting.
+     * @return A future which completes when the condition is met,
+     * or fails with a {@link TimeoutException} if it isn't met within the timeout.
+     */
+    Future<Void> start() {
+        LOGGER.debug("Waiting for {}", logContext);
+        timerId = vertx.setTimer(Math.max(1, timeoutMs), ignored -> {
+            String exceptionMessage = String.format("Exceeded timeout of %dms while waiting for %s", timeoutMs, logContext);
+            LOGGER.error(exceptionMessage);
+            complete(new TimeoutException(exceptionMessage));
+        });
+        subscribe();
+        return result;
+    }
+
+    private void subscribe() {
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").<Boolean>executeBlocking(
+            future -> {
+                if (done.get()) {
+                    future.complete(false);
+                    return;
+                }
+                Watch w = subscribe.apply(this);
+                watch.set(w);
+                if (done.get()) {
+                    // Completed while we were subscribing
+                    closeWatch();
+                    future.complete(false);
+                    return;
+                }
+                boolean met;
+                try {
+                    met = check.getAsBoolean();
+                } catch (Throwable e) {
+                    LOGGER.warn("Caught exception while checking {}", logContext, e);
+                    met = false;
+                }
+                future.complete(met);
+            },
+            true,
+            res -> {
+                if (res.failed()) {
+                    LOGGER.warn("Failed to watch for {}, retrying", logContext, res.cause());
+                    vertx.setTimer(RESUBSCRIBE_DELAY_MS, ignored -> {
+                        if (!done.get()) {
+                            subscribe();
+                        }
+                    });
+                } else if (res.result()) {
+                    complete(null);
+                } else {
+                    LOGGER.trace("Not yet {}", logContext);
+                }
+            });
+    }
+
+    @Override
+    public void eventReceived(Action action, T resource) {
+        if (done.get() || action == Action.ERROR) {
+            return;
+        }
+        boolean met;
+        try {
+            met = condition.test(action == Action.DELETED ? null : resource);
+        } catch (Throwable e) {
+            LOGGER.warn("Caught exception while testing {} after {} event", logContext, action, e);
+            met = false;
+        }
+        if (met) {
+            context.runOnContext(ignored -> complete(null));
+        }
+    }
+
+    @Override
+    public void onClose(KubernetesClientException cause) {
+        if (!done.get()) {
+            LOGGER.debug("Watch for {} closed, resubscribing", logContext, cause);
+            watch.set(null);
+            context.runOnContext(ignored -> subscribe());
+        }
+    }
+
+    private void closeWatch() {
+        Watch w = watch.getAndSet(null);
+        if (w != null) {
+            try {
+                w.close();
+            } catch (Exception e) {
+                LOGGER.debug("Caught exception while closing watch for {}", logContext, e);
+            }
+        }
+    }
+
+    private void complete(Throwable error) {
+        if (done.compareAndSet(false, true)) {
+            vertx.cancelTimer(timerId);
+            // Closing a watch waits for its executor to terminate, which mustn't block the event loop
+            vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+                future -> {
+                    closeWatch();
+                    future.complete();
+                },
+                false,
+                ignored -> { });
+            if (error == null) {
+                LOGGER.debug("Done waiting for {}", logContext);
+                result.complete();
+            } else {
+                result.fail(error);
+            }
+        }
+    }
+}
@@ -53,25 +53,23 @@ public class DeploymentConfigOperator extends AbstractScalableResourceOperator<O
      *
      * @param namespace The namespace.
      * @param name The resource name.
-     * @param pollIntervalMs The polling interval
+     * @param pollIntervalMs Unused, since the deployment configuration is watched rather than polled
      * @param timeoutMs The timeout
      * @return  A future which completes when the observed generation of the deployment configuration matches the
      * generation sequence number of the desired state.
      */
     public Future<Void> waitForObserved(String namespace, String name, long pollIntervalMs, long timeoutMs) {
-        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isObserved);
+        return awaitCondition(namespace, name, "observed", this::isObserved, timeoutMs);
     }
 
     /**
      * Check if a deployment configuration has been observed.
      *
-     * @param namespace The namespace.
-     * @param name The resource name.
+     * @param dep The deployment configuration, or null if it doesn't exist.
      * @return Whether the deployment has been observed.
      */
-    private boolean isObserved(String namespace, String name) {
-        DeploymentConfig dep = get(namespace, name);
-        if (dep != null)   {
+    private boolean isObserved(DeploymentConfig dep) {
+        if (dep != null && dep.getStatus() != null)   {
             return dep.getMetadata().getGeneration().equals(dep.getStatus().getObservedGeneration());
         } else {
             return false;
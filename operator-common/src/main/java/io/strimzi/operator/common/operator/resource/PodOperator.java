@@ -57,7 +57,6 @@ public class PodOperator extends AbstractReadyResourceOperator<KubernetesClient,
      * @return a Future which completes when the Pod has been recreated
      */
     public Future<Void> restart(String logContext, Pod pod, long timeoutMs) {
-        long pollingIntervalMs = 1_000;
         String namespace = pod.getMetadata().getNamespace();
         String podName = pod.getMetadata().getName();
         Future<Void> deleteFinished = Future.future();
@@ -70,15 +69,15 @@ public class PodOperator extends AbstractReadyResourceOperator<KubernetesClient,
         log.debug("{}}: Waiting for pod {} to be deleted", logContext, podName);
         Future<Void> podReconcileFuture =
                 reconcile(namespace, podName, null).compose(ignore -> {
-                    Future<Void> del = waitFor(namespace, podName, pollingIntervalMs, timeoutMs, (ignore1, ignore2) -> {
+                    Future<Void> del = awaitCondition(namespace, podName, "recreated", newPod -> {
                         // predicate - changed generation means pod has been updated
-                        String newUid = getPodUid(get(namespace, podName));
+                        String newUid = getPodUid(newPod);
                         boolean done = !deleted.equals(newUid);
                         if (done) {
                             log.debug("Rolling pod {} finished", podName);
                         }
                         return done;
-                    });
+                    }, timeoutMs);
                     return del;
                 });
 
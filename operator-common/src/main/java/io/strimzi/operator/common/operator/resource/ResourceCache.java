@@ -0,0 +1,287 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common.operator.resource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory copy of the resources of one kind, for each namespace in which they have been read.
+ *
+ * The first read in a namespace lists the resources in that namespace and then watches them from the
+ * list's resourceVersion, keeping the copy up to date. Reads in that namespace are then served from memory.
+ * Writes made through the owning operator update the copy optimistically with their results, so that
+ * an operator always reads its own writes, even before the watch has delivered them.
+ * If the watch of a namespace closes, the next read in that namespace lists the resources again.
+ * Reads return copies of the cached resources, so that callers which modify the resources they have read
+ * (to build the desired state, for example) don't modify the cache.
+ *
+ * @param <T> The Kubernetes resource type.
+ */
+public class ResourceCache<T extends HasMetadata> {
+
+    private static final Logger LOGGER = LogManager.getLogger(ResourceCache.class);
+
+    /**
+     * How the cache lists and watches the resources.
+     * @param <T> The Kubernetes resource type.
+     */
+    public interface Source<T> {
+        /**
+         * Synchronously list the resources in the given namespace.
+         * @param namespace The namespace.
+         * @return The resources, and the resourceVersion of the list.
+         */
+        Listing<T> list(String namespace);
+
+        /**
+         * Watch the resources in the given namespace, from the given resourceVersion.
+         * @param namespace The namespace.
+         * @param resourceVersion The resourceVersion.
+         * @param watcher The watcher.
+         * @return The watch.
+         */
+        Watch watch(String namespace, String resourceVersion, Watcher<T> watcher);
+    }
+
+    /**
+     * The result of listing the resources in a namespace.
+     * @param <T> The Kubernetes resource type.
+     */
+    public static class Listing<T> {
+        final List<T> items;
+        final String resourceVersion;
+
+        public Listing(List<T> items, String resourceVersion) {
+            this.items = items;
+            this.resourceVersion = resourceVersion;
+        }
+    }
+
+    /** The copy of the resources in one namespace. */
+    private class Store implements Watcher<T> {
+        private final String namespace;
+        // All guarded by this
+        private final Map<String, T> byName = new HashMap<>();
+        private boolean synced = false;
+        private Watch watch;
+
+        Store(String namespace) {
+            this.namespace = namespace;
+        }
+
+        /**
+         * List and watch the resources, unless the store is already synced.
+         */
+        synchronized void sync() {
+            if (synced) {
+                return;
+            }
+            Listing<T> listing = source.list(namespace);
+            lists.incrementAndGet();
+            Map<String, T> previous = new HashMap<>(byName);
+            byName.clear();
+            for (T resource : listing.items) {
+                // Keep a version which a write has brought into the store while the list was in progress
+                T cached = previous.get(resource.getMetadata().getName());
+                byName.put(resource.getMetadata().getName(), cached != null && isOlder(resource, cached) ? cached : resource);
+            }
+            watch = source.watch(namespace, listing.resourceVersion, this);
+            synced = true;
+            LOGGER.debug("Cached {} {} resources in namespace {} at resourceVersion {}",
+                    byName.size(), resourceKind, namespace, listing.resourceVersion);
+        }
+
+        synchronized T get(String name) {
+            sync();
+            return copy(byName.get(name));
+        }
+
+        synchronized List<T> list(Map<String, String> labels) {
+            sync();
+            List<T> result = new ArrayList<>();
+            for (T resource : byName.values()) {
+                if (matches(resource, labels)) {
+                    result.add(copy(resource));
+                }
+            }
+            return result;
+        }
+
+        synchronized void put(T resource) {
+            T cached = byName.get(resource.getMetadata().getName());
+            if (cached == null || !isOlder(resource, cached)) {
+                byName.put(resource.getMetadata().getName(), resource);
+            }
+        }
+
+        synchronized void remove(String name) {
+            byName.remove(name);
+        }
+
+        synchronized void close() {
+            if (watch != null) {
+                watch.close();
+                watch = null;
+            }
+            synced = false;
+        }
+
+        @Override
+        public void eventReceived(Action action, T resource) {
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    put(resource);
+                    break;
+                case DELETED:
+                    remove(resource.getMetadata().getName());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public synchronized void onClose(KubernetesClientException cause) {
+            // Nothing keeps the store up to date any more, so the next read has to list again
+            LOGGER.debug("Watch of {} resources in namespace {} closed, the cache will be resynced", resourceKind, namespace, cause);
+            watch = null;
+            synced = false;
+        }
+    }
+
+    private final String resourceKind;
+    private final Source<T> source;
+    private final Map<String, Store> stores = new ConcurrentHashMap<>();
+    private final AtomicLong lists = new AtomicLong();
+
+    /**
+     * @param resourceKind The kind of resource (used for logging).
+     * @param source How to list and watch the resources.
+     */
+    public ResourceCache(String resourceKind, Source<T> source) {
+        this.resourceKind = resourceKind;
+        this.source = source;
+    }
+
+    private Store store(String namespace) {
+        return stores.computeIfAbsent(namespace, Store::new);
+    }
+
+    /**
+     * Synchronously get the resource with the given name in the given namespace,
+     * listing and watching the namespace first if it isn't cached.
+     * @param namespace The namespace.
+     * @param name The name.
+     * @return The resource, or null if it doesn't exist.
+     */
+    public T get(String namespace, String name) {
+        return store(namespace).get(name);
+    }
+
+    /**
+     * Synchronously list the resources in the given namespace which have all the given labels,
+     * listing and watching the namespace first if it isn't cached.
+     * @param namespace The namespace.
+     * @param labels The labels, or null to list all the resources.
+     * @return The matching resources.
+     */
+    public List<T> list(String namespace, Map<String, String> labels) {
+        return store(namespace).list(labels);
+    }
+
+    /**
+     * Update the cache with a resource which has been created or patched.
+     * @param resource The resource, as returned by the API server.
+     */
+    public void updated(T resource) {
+        if (resource != null && resource.getMetadata() != null) {
+            // The caller keeps the resource, and could modify it
+            store(resource.getMetadata().getNamespace()).put(copy(resource));
+        }
+    }
+
+    /**
+     * Update the cache with the deletion of a resource.
+     * @param namespace The namespace.
+     * @param name The name.
+     */
+    public void deleted(String namespace, String name) {
+        store(namespace).remove(name);
+    }
+
+    /**
+     * Close the watches and stop serving reads from memory until the next read lists the resources again.
+     */
+    public void close() {
+        for (Store store : stores.values()) {
+            store.close();
+        }
+    }
+
+    /**
+     * @return The number of times the cache has listed the resources of a namespace.
+     */
+    public long lists() {
+        return lists.get();
+    }
+
+    /**
+     * A deep copy of the given resource, made by a round trip through JSON.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends HasMetadata> T copy(T resource) {
+        if (resource == null) {
+            return null;
+        }
+        ObjectMapper mapper = Serialization.jsonMapper();
+        JsonNode tree = mapper.valueToTree(resource);
+        return (T) mapper.convertValue(tree, resource.getClass());
+    }
+
+    private static boolean matches(HasMetadata resource, Map<String, String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return true;
+        }
+        Map<String, String> resourceLabels = resource.getMetadata().getLabels();
+        if (resourceLabels == null) {
+            return false;
+        }
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (!label.getValue().equals(resourceLabels.get(label.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether {@code resource} is older than {@code cached}.
+     * A resourceVersion is opaque, so if either isn't a number they are assumed not to be ordered.
+     */
+    private static boolean isOlder(HasMetadata resource, HasMetadata cached) {
+        try {
+            return Long.parseLong(resource.getMetadata().getResourceVersion())
+                    < Long.parseLong(cached.getMetadata().getResourceVersion());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common.operator.resource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.zjsonpatch.JsonDiff;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static io.fabric8.kubernetes.client.internal.PatchUtils.patchMapper;
+
+/**
+ * Whether patching a resource to the desired state would change it.
+ *
+ * The desired resource is built by the operator, so it lacks the fields which the API server and other
+ * controllers fill in (the resourceVersion, the status, defaulted fields in the spec...).
+ * Removing one of those known server-populated fields from the current resource is therefore not a change,
+ * but removing any other field is, because the operator no longer wants it set.
+ * Adding or removing an empty object or array is not a change either.
+ */
+public class ResourceDiff extends AbstractResourceDiff {
+    private static final Logger log = LogManager.getLogger(ResourceDiff.class.getName());
+
+    /** Fields of every kind of resource which are filled in by the API server. */
+    private static final String SERVER_POPULATED_PATHS = "/status"
+            + "|/metadata/resourceVersion"
+            + "|/metadata/uid"
+            + "|/metadata/creationTimestamp"
+            + "|/metadata/generation"
+            + "|/metadata/managedFields"
+            + "|/metadata/selfLink";
+
+    /** Fields of a pod template which are defaulted by the API server. */
+    private static final String POD_TEMPLATE_DEFAULTS = "/spec/template/metadata/creationTimestamp"
+            + "|/spec/template/spec/dnsPolicy"
+            + "|/spec/template/spec/restartPolicy"
+            + "|/spec/template/spec/schedulerName"
+            + "|/spec/template/spec/serviceAccount"
+            + "|/spec/template/spec/terminationGracePeriodSeconds"
+            + "|/spec/template/spec/(?:initContainers|containers)/[0-9]+/imagePullPolicy"
+            + "|/spec/template/spec/(?:initContainers|containers)/[0-9]+/terminationMessagePath"
+            + "|/spec/template/spec/(?:initContainers|containers)/[0-9]+/terminationMessagePolicy"
+            + "|/spec/template/spec/(?:initContainers|containers)/[0-9]+/ports/[0-9]+/protocol"
+            + "|/spec/template/spec/(?:initContainers|containers)/[0-9]+/env/[0-9]+/valueFrom/fieldRef/apiVersion"
+            + "|/spec/template/spec/(?:initContainers|containers)/[0-9]+/(?:livenessProbe|readinessProbe)/(?:failureThreshold|periodSeconds|successThreshold)"
+            + "|/spec/template/spec/volumes/[0-9]+/(?:configMap|secret)/defaultMode";
+
+    /** Fields of each kind of resource which are filled in or defaulted by the API server or its controllers. */
+    private static final Map<String, String> SERVER_POPULATED_PATHS_BY_KIND = new HashMap<>();
+    static {
+        SERVER_POPULATED_PATHS_BY_KIND.put("Service", "/spec/clusterIP"
+                + "|/spec/sessionAffinity"
+                + "|/spec/externalTrafficPolicy"
+                + "|/spec/healthCheckNodePort"
+                + "|/spec/ports/[0-9]+/protocol"
+                + "|/spec/ports/[0-9]+/targetPort"
+                + "|/spec/ports/[0-9]+/nodePort");
+        SERVER_POPULATED_PATHS_BY_KIND.put("Deployment", POD_TEMPLATE_DEFAULTS
+                + "|/spec/progressDeadlineSeconds"
+                + "|/spec/revisionHistoryLimit");
+        SERVER_POPULATED_PATHS_BY_KIND.put("StatefulSet", POD_TEMPLATE_DEFAULTS
+                + "|/spec/podManagementPolicy"
+                + "|/spec/revisionHistoryLimit"
+                + "|/spec/updateStrategy"
+                + "|/spec/volumeClaimTemplates/[0-9]+/metadata/creationTimestamp"
+                + "|/spec/volumeClaimTemplates/[0-9]+/status"
+                + "|/spec/volumeClaimTemplates/[0-9]+/spec/volumeMode"
+                + "|/spec/volumeClaimTemplates/[0-9]+/spec/dataSource");
+        SERVER_POPULATED_PATHS_BY_KIND.put("DeploymentConfig", POD_TEMPLATE_DEFAULTS
+                + "|/spec/revisionHistoryLimit"
+                + "|/spec/test"
+                + "|/spec/strategy/activeDeadlineSeconds"
+                + "|/spec/strategy/rollingParams/(?:updatePeriodSeconds|intervalSeconds|timeoutSeconds|maxSurge|maxUnavailable)"
+                + "|/spec/triggers/[0-9]+/imageChangeParams/lastTriggeredImage");
+        SERVER_POPULATED_PATHS_BY_KIND.put("BuildConfig", "/spec/runPolicy"
+                + "|/spec/successfulBuildsHistoryLimit"
+                + "|/spec/failedBuildsHistoryLimit"
+                + "|/spec/triggers/[0-9]+/imageChange/lastTriggeredImageID");
+        SERVER_POPULATED_PATHS_BY_KIND.put("ImageStream", "/spec/lookupPolicy"
+                + "|/spec/tags/[0-9]+/generation"
+                + "|/spec/tags/[0-9]+/importPolicy"
+                + "|/spec/tags/[0-9]+/referencePolicy");
+        SERVER_POPULATED_PATHS_BY_KIND.put("PersistentVolumeClaim", "/spec/volumeMode"
+                + "|/spec/volumeName"
+                + "|/spec/storageClassName"
+                + "|/metadata/finalizers"
+                + "|/metadata/annotations/pv.kubernetes.io~1[^/]*"
+                + "|/metadata/annotations/volume.beta.kubernetes.io~1storage-provisioner"
+                + "|/metadata/annotations/volume.kubernetes.io~1selected-node");
+        SERVER_POPULATED_PATHS_BY_KIND.put("Route", "/spec/host"
+                + "|/spec/wildcardPolicy"
+                + "|/spec/to/weight");
+        SERVER_POPULATED_PATHS_BY_KIND.put("NetworkPolicy", "/spec/policyTypes"
+                + "|/spec/ingress/[0-9]+/ports/[0-9]+/protocol");
+        SERVER_POPULATED_PATHS_BY_KIND.put("Secret", "/type");
+        SERVER_POPULATED_PATHS_BY_KIND.put("ServiceAccount", "/secrets"
+                + "|/imagePullSecrets");
+    }
+
+    private static final Map<String, Pattern> IGNORABLE_REMOVALS = new ConcurrentHashMap<>();
+
+    private static Pattern ignorableRemovals(String kind) {
+        return IGNORABLE_REMOVALS.computeIfAbsent(kind == null ? "" : kind, k -> {
+            String kindPaths = SERVER_POPULATED_PATHS_BY_KIND.get(k);
+            return Pattern.compile("^(?:" + SERVER_POPULATED_PATHS + (kindPaths != null ? "|" + kindPaths : "") + ")(?:/.*)?$");
+        });
+    }
+
+    private static boolean isEmptyContainer(JsonNode node) {
+        return node != null && node.isContainerNode() && node.size() == 0;
+    }
+
+    private final boolean isEmpty;
+
+    public ResourceDiff(HasMetadata current, HasMetadata desired) {
+        JsonNode source = patchMapper().valueToTree(current);
+        JsonNode target = patchMapper().valueToTree(desired);
+        JsonNode diff = JsonDiff.asJson(source, target);
+        Pattern ignorableRemovals = ignorableRemovals(current.getKind());
+
+        int num = 0;
+
+        for (JsonNode d : diff) {
+            String op = d.get("op").asText();
+            String pathValue = d.get("path").asText();
+
+            if ("remove".equals(op)
+                    && (ignorableRemovals.matcher(pathValue).matches()
+                        || isEmptyContainer(lookupPath(source, pathValue)))) {
+                log.trace("Ignoring {} diff {}", current.getKind(), d);
+                continue;
+            }
+            JsonNode value = d.get("value");
+            if ("add".equals(op) && isEmptyContainer(value)) {
+                log.trace("Ignoring {} diff {}", current.getKind(), d);
+                continue;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("{} differs: {}", current.getKind(), d);
+                log.debug("Current {} path {} has value {}", current.getKind(), pathValue, lookupPath(source, pathValue));
+                log.debug("Desired {} path {} has value {}", current.getKind(), pathValue, lookupPath(target, pathValue));
+            }
+
+            num++;
+        }
+
+        this.isEmpty = num == 0;
+    }
+
+    /**
+     * Returns whether the Diff is empty or not
+     *
+     * @return true when patching the current resource to the desired one would not change it
+     */
+    @Override
+    public boolean isEmpty() {
+        return isEmpty;
+    }
+}
@@ -36,12 +36,12 @@ public class RouteOperator extends AbstractResourceOperator<OpenShiftClient, Rou
      *
      * @param namespace     Namespace.
      * @param name          Name of the route.
-     * @param pollIntervalMs    Interval in which we poll.
+     * @param pollIntervalMs    Unused, since the route is watched rather than polled.
      * @param timeoutMs     Timeout.
      * @return A future that succeeds when the Route has an assigned address.
      */
     public Future<Void> hasAddress(String namespace, String name, long pollIntervalMs, long timeoutMs) {
-        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isAddressReady);
+        return awaitCondition(namespace, name, "assigned an address", RouteOperator::isAddressReady, timeoutMs);
     }
 
     /**
@@ -52,9 +52,10 @@ public class RouteOperator extends AbstractResourceOperator<OpenShiftClient, Rou
      * @return Whether the address is ready.
      */
     public boolean isAddressReady(String namespace, String name) {
-        Resource<Route, DoneableRoute> resourceOp = operation().inNamespace(namespace).withName(name);
-        Route resource = resourceOp.get();
+        return isAddressReady(operation().inNamespace(namespace).withName(name).get());
+    }
 
+    private static boolean isAddressReady(Route resource) {
         if (resource != null && resource.getStatus() != null && resource.getStatus().getIngress() != null && resource.getStatus().getIngress().size() > 0) {
             if (resource.getStatus().getIngress().get(0).getHost() != null) {
                 return true;
@@ -95,12 +95,12 @@ public class ServiceOperator extends AbstractResourceOperator<KubernetesClient,
      *
      * @param namespace     Namespace
      * @param name          Name of the service
-     * @param pollIntervalMs    Interval in which we poll
+     * @param pollIntervalMs    Unused, since the service is watched rather than polled
      * @param timeoutMs     Timeout
      * @return A future that succeeds when the Service has an assigned address.
      */
     public Future<Void> hasIngressAddress(String namespace, String name, long pollIntervalMs, long timeoutMs) {
-        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isIngressAddressReady);
+        return awaitCondition(namespace, name, "assigned an ingress address", ServiceOperator::isIngressAddressReady, timeoutMs);
     }
 
     /**
@@ -111,9 +111,10 @@ public class ServiceOperator extends AbstractResourceOperator<KubernetesClient,
      * @return Whether the Service already has assigned ingress address.
      */
     public boolean isIngressAddressReady(String namespace, String name) {
-        ServiceResource<Service, DoneableService> resourceOp = operation().inNamespace(namespace).withName(name);
-        Service resource = resourceOp.get();
+        return isIngressAddressReady(operation().inNamespace(namespace).withName(name).get());
+    }
 
+    private static boolean isIngressAddressReady(Service resource) {
         if (resource != null && resource.getStatus() != null && resource.getStatus().getLoadBalancer() != null && resource.getStatus().getLoadBalancer().getIngress() != null && resource.getStatus().getLoadBalancer().getIngress().size() > 0) {
             if (resource.getStatus().getLoadBalancer().getIngress().get(0).getHostname() != null || resource.getStatus().getLoadBalancer().getIngress().get(0).getIp() != null) {
                 return true;
@@ -128,12 +129,12 @@ public class ServiceOperator extends AbstractResourceOperator<KubernetesClient,
      *
      * @param namespace     Namespace
      * @param name          Name of the service
-     * @param pollIntervalMs    Interval in which we poll
+     * @param pollIntervalMs    Unused, since the service is watched rather than polled
      * @param timeoutMs     Timeout
      * @return A future that succeeds when the Service has an assigned node port
      */
     public Future<Void> hasNodePort(String namespace, String name, long pollIntervalMs, long timeoutMs) {
-        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isNodePortReady);
+        return awaitCondition(namespace, name, "assigned node ports", ServiceOperator::isNodePortReady, timeoutMs);
     }
 
     /**
@@ -144,9 +145,10 @@ public class ServiceOperator extends AbstractResourceOperator<KubernetesClient,
      * @return Whether the Service already has assigned node ports.
      */
     public boolean isNodePortReady(String namespace, String name) {
-        ServiceResource<Service, DoneableService> resourceOp = operation().inNamespace(namespace).withName(name);
-        Service resource = resourceOp.get();
+        return isNodePortReady(operation().inNamespace(namespace).withName(name).get());
+    }
 
+    private static boolean isNodePortReady(Service resource) {
         if (resource != null && resource.getSpec() != null && resource.getSpec().getPorts() != null) {
             boolean ready = true;
 
@@ -0,0 +1,155 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static io.strimzi.operator.common.ReconciliationQueue.Priority.HIGH;
+import static io.strimzi.operator.common.ReconciliationQueue.Priority.LOW;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class ReconciliationQueueTest {
+
+    private static Vertx vertx;
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeAll
+    public static void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterAll
+    public static void after() {
+        vertx.close();
+    }
+
+    private static Reconciliation reconciliation(String name) {
+        return new Reconciliation("test", "Kafka", "ns", name);
+    }
+
+    /** A reconciler which records the reconciliations and completes them with the given outcome after 10ms. */
+    private Function<Reconciliation, Future<Void>> reconciler(Function<Integer, Boolean> succeedsOnCall) {
+        return reconciliation -> {
+            calls.add(reconciliation.name());
+            boolean succeeds = succeedsOnCall.apply(calls.size());
+            Future<Void> result = Future.future();
+            vertx.setTimer(10, ignored -> {
+                if (succeeds) {
+                    result.complete();
+                } else {
+                    result.fail(new RuntimeException("Failed"));
+                }
+            });
+            return result;
+        };
+    }
+
+    @Test
+    public void testWaitingReconciliationsAreCoalesced(VertxTestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, 1, BackOff::new, reconciler(call -> true));
+        Checkpoint async = context.checkpoint();
+        CompositeFuture.join(asList(
+                queue.enqueue(reconciliation("a"), HIGH),
+                queue.enqueue(reconciliation("b"), LOW),
+                queue.enqueue(reconciliation("b"), LOW),
+                queue.enqueue(reconciliation("b"), HIGH)))
+            .setHandler(context.succeeding(v -> context.verify(() -> {
+                assertThat(calls, is(asList("a", "b")));
+                async.flag();
+            })));
+    }
+
+    @Test
+    public void testRunningReconciliationIsRunAgainOnceFinished(VertxTestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, 1, BackOff::new, reconciler(call -> true));
+        Checkpoint async = context.checkpoint();
+        Future<Void> first = queue.enqueue(reconciliation("a"), HIGH);
+        assertThat(queue.running(), is(1));
+        CompositeFuture.join(asList(
+                first,
+                queue.enqueue(reconciliation("a"), HIGH),
+                queue.enqueue(reconciliation("a"), LOW)))
+            .setHandler(context.succeeding(v -> context.verify(() -> {
+                assertThat(calls, is(asList("a", "a")));
+                assertThat(queue.running(), is(0));
+                assertThat(queue.waiting(), is(0));
+                async.flag();
+            })));
+    }
+
+    @Test
+    public void testHighPriorityRunsFirst(VertxTestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, 1, BackOff::new, reconciler(call -> true));
+        Checkpoint async = context.checkpoint();
+        CompositeFuture.join(asList(
+                queue.enqueue(reconciliation("running"), LOW),
+                queue.enqueue(reconciliation("low1"), LOW),
+                queue.enqueue(reconciliation("low2"), LOW),
+                queue.enqueue(reconciliation("high"), HIGH),
+                queue.enqueue(reconciliation("low2"), HIGH)))
+            .setHandler(context.succeeding(v -> context.verify(() -> {
+                assertThat(calls, is(asList("running", "high", "low2", "low1")));
+                async.flag();
+            })));
+    }
+
+    @Test
+    public void testConcurrencyIsCapped(VertxTestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, 2, BackOff::new, reconciler(call -> true));
+        Checkpoint async = context.checkpoint();
+        Future<Void> a = queue.enqueue(reconciliation("a"), HIGH);
+        Future<Void> b = queue.enqueue(reconciliation("b"), HIGH);
+        Future<Void> c = queue.enqueue(reconciliation("c"), HIGH);
+        assertThat(queue.running(), is(2));
+        assertThat(queue.waiting(), is(1));
+        CompositeFuture.join(a, b, c).setHandler(context.succeeding(v -> context.verify(() -> {
+            assertThat(calls.size(), is(3));
+            async.flag();
+        })));
+    }
+
+    @Test
+    public void testFailedReconciliationIsRetriedUntilSuccess(VertxTestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, 1, () -> new BackOff(20, 2, 5), reconciler(call -> call >= 3));
+        Checkpoint async = context.checkpoint();
+        queue.enqueue(reconciliation("a"), HIGH).setHandler(context.failing(e -> {
+            vertx.setTimer(500, ignored -> context.verify(() -> {
+                // Retried after 20ms and 40ms, then succeeded
+                assertThat(calls, is(asList("a", "a", "a")));
+                async.flag();
+            }));
+        }));
+    }
+
+    @Test
+    public void testRetriesAreBounded(VertxTestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, 1, () -> new BackOff(1, 2, 3), reconciler(call -> false));
+        Checkpoint async = context.checkpoint();
+        queue.enqueue(reconciliation("a"), HIGH).setHandler(context.failing(e -> {
+            vertx.setTimer(500, ignored -> context.verify(() -> {
+                assertThat(calls, is(asList("a", "a", "a")));
+                async.flag();
+            }));
+        }));
+    }
+}
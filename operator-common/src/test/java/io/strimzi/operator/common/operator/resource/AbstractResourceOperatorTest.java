@@ -7,11 +7,14 @@ package io.strimzi.operator.common.operator.resource;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.Deletable;
 import io.fabric8.kubernetes.client.dsl.EditReplacePatchDeletable;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.Checkpoint;
@@ -22,14 +25,23 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -87,6 +99,13 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
 
     public void createWhenExistsIsAPatch(VertxTestContext context, boolean cascade) {
         T resource = resource();
+        // The existing resource has a label which the desired one doesn't
+        Map<String, String> labels = new HashMap<>();
+        if (resource.getMetadata().getLabels() != null) {
+            labels.putAll(resource.getMetadata().getLabels());
+        }
+        labels.put("changed", "true");
+        resource.getMetadata().setLabels(labels);
         Resource mockResource = mock(resourceType());
         when(mockResource.get()).thenReturn(resource);
         when(mockResource.cascading(cascade)).thenReturn(mockResource);
@@ -119,6 +138,35 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
         });
     }
 
+    @Test
+    public void createWhenExistsAndUnchangedIsANoop(VertxTestContext context) {
+        T resource = resource();
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(resource);
+        when(mockResource.cascading(any(Boolean.class))).thenReturn(mockResource);
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(resource.getMetadata().getName()))).thenReturn(mockResource);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(resource.getMetadata().getNamespace()))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R> op = createResourceOperations(vertx, mockClient);
+
+        Checkpoint async = context.checkpoint();
+        op.createOrUpdate(resource).setHandler(context.succeeding(result -> context.verify(() -> {
+            assertThat(result instanceof ReconcileResult.Noop, is(true));
+            verify(mockResource, never()).patch(any());
+            verify(mockResource, never()).delete();
+            verify(mockResource, never()).create(any());
+            assertThat(op.patchesSent(), is(0L));
+            async.flag();
+        })));
+    }
+
     @Test
     public void existenceCheckThrows(VertxTestContext context) {
         T resource = resource();
@@ -289,6 +337,77 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
         });
     }
 
+    @Test
+    public void awaitConditionCompletesOnMatchingEvent(VertxTestContext context) {
+        T resource = resource();
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(resource);
+        AtomicReference<Watcher<T>> watcher = new AtomicReference<>();
+        Watch mockWatch = mock(Watch.class);
+        AtomicBoolean closedOnWorker = new AtomicBoolean(false);
+        doAnswer(invocation -> {
+            closedOnWorker.set(Context.isOnWorkerThread());
+            return null;
+        }).when(mockWatch).close();
+        when(mockResource.watch(any())).then(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mockWatch;
+        });
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R> op = createResourceOperations(vertx, mockClient);
+
+        Checkpoint async = context.checkpoint();
+        op.awaitCondition(NAMESPACE, RESOURCE_NAME, "deleted", Objects::isNull, 10_000).setHandler(context.succeeding(v -> context.verify(() -> {
+            // A single GET, when the watch was subscribed
+            verify(mockResource, times(1)).get();
+            // Closing the watch can block, so it happens on a worker thread
+            verify(mockWatch, timeout(1_000)).close();
+            assertThat(closedOnWorker.get(), is(true));
+            async.flag();
+        })));
+        vertx.setTimer(100, ignored -> {
+            watcher.get().eventReceived(Watcher.Action.MODIFIED, resource);
+            watcher.get().eventReceived(Watcher.Action.DELETED, resource);
+        });
+    }
+
+    @Test
+    public void awaitConditionTimesOut(VertxTestContext context) {
+        T resource = resource();
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(resource);
+        Watch mockWatch = mock(Watch.class);
+        when(mockResource.watch(any())).thenReturn(mockWatch);
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R> op = createResourceOperations(vertx, mockClient);
+
+        Checkpoint async = context.checkpoint();
+        op.awaitCondition(NAMESPACE, RESOURCE_NAME, "deleted", Objects::isNull, 100).setHandler(context.failing(e -> context.verify(() -> {
+            assertThat(e instanceof TimeoutException, is(true));
+            verify(mockResource, times(1)).get();
+            verify(mockWatch, timeout(1_000)).close();
+            async.flag();
+        })));
+    }
+
     @Test
     public void deletionThrows(VertxTestContext context) {
         RuntimeException ex = new RuntimeException("Testing this exception is handled correctly");
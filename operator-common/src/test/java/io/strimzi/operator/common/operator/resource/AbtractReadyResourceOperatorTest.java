@@ -8,6 +8,9 @@ import io.fabric8.kubernetes.api.model.Doneable;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
@@ -19,10 +22,12 @@ import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.matches;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
@@ -108,14 +113,24 @@ public abstract class AbtractReadyResourceOperatorTest<C extends KubernetesClien
         waitUntilReadySuccessful(context, 2);
     }
 
+    /**
+     * The resource is checked once each time the watch is subscribed, so closing the watch after each check
+     * which finds the resource not ready causes it to be checked again.
+     */
     public void waitUntilReadySuccessful(VertxTestContext context, int unreadyCount) {
         T resource = resource();
         Resource mockResource = mock(resourceType());
         when(mockResource.get()).thenReturn(resource);
+        AtomicReference<Watcher<T>> watcher = new AtomicReference<>();
+        when(mockResource.watch(any())).then(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mock(Watch.class);
+        });
         AtomicInteger count = new AtomicInteger();
         when(mockResource.isReady()).then(invocation -> {
             int cnt = count.getAndIncrement();
             if (cnt < unreadyCount) {
+                vertx.setTimer(10, ignored -> watcher.get().onClose(new KubernetesClientException("Watch closed")));
                 return Boolean.FALSE;
             } else if (cnt == unreadyCount) {
                 return Boolean.TRUE;
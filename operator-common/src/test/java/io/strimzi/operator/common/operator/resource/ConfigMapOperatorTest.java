@@ -7,15 +7,33 @@ package io.strimzi.operator.common.operator.resource;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
 import io.fabric8.kubernetes.api.model.DoneableConfigMap;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.Watchable;
+import io.strimzi.operator.common.model.Labels;
 import io.vertx.core.Vertx;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
 
 import java.util.Random;
 
 import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ConfigMapOperatorTest extends AbstractResourceOperatorTest<KubernetesClient, ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> {
@@ -51,4 +69,114 @@ public class ConfigMapOperatorTest extends AbstractResourceOperatorTest<Kubernet
                 .withData(singletonMap("FOO", Integer.toString(new Random().nextInt())))
                 .build();
     }
+
+    @Test
+    public void cachedReadsAndWrites(VertxTestContext context) {
+        ConfigMap existing = new ConfigMapBuilder(resource())
+                .editMetadata()
+                    .withResourceVersion("5")
+                .endMetadata()
+                .build();
+        ConfigMap patched = new ConfigMapBuilder(existing)
+                .editMetadata()
+                    .withResourceVersion("6")
+                .endMetadata()
+                .build();
+
+        Resource mockResource = mock(resourceType());
+        when(mockResource.cascading(true)).thenReturn(mockResource);
+        when(mockResource.patch(any())).thenReturn(patched);
+
+        Watchable mockWatchable = mock(Watchable.class);
+        when(mockWatchable.watch(any())).thenReturn(mock(Watch.class));
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
+        when(mockNameable.list()).thenReturn(new ConfigMapListBuilder()
+                .withNewMetadata()
+                    .withResourceVersion("5")
+                .endMetadata()
+                .withItems(existing)
+                .build());
+        when(mockNameable.withResourceVersion(eq("5"))).thenReturn(mockWatchable);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        KubernetesClient mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<KubernetesClient, ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> op = createResourceOperations(vertx, mockClient);
+        op.enableCache();
+
+        Checkpoint async = context.checkpoint();
+        op.reconcile(NAMESPACE, RESOURCE_NAME, resource()).setHandler(context.succeeding(result -> context.verify(() -> {
+            // The existing resource was read from the cache, which the patched resource then replaced
+            verify(mockResource, never()).get();
+            verify(mockResource).patch(any());
+            verify(mockWatchable).watch(any());
+            assertThat(op.get(NAMESPACE, RESOURCE_NAME).getMetadata().getResourceVersion(), is("6"));
+            assertThat(op.list(NAMESPACE, Labels.fromMap(singletonMap("foo", "bar"))).size(), is(1));
+            assertThat(op.list(NAMESPACE, Labels.fromMap(singletonMap("foo", "baz"))).size(), is(0));
+            verify(mockNameable, times(1)).list();
+            assertThat(op.cache().lists(), is(1L));
+            assertThat(op.get(NAMESPACE, "other"), is(nullValue()));
+            async.flag();
+        })));
+    }
+
+    @Test
+    public void cachedReadsCanBeModified(VertxTestContext context) {
+        ConfigMap existing = new ConfigMapBuilder(resource())
+                .editMetadata()
+                    .withResourceVersion("5")
+                .endMetadata()
+                .build();
+
+        Resource mockResource = mock(resourceType());
+        when(mockResource.cascading(true)).thenReturn(mockResource);
+        when(mockResource.patch(any())).thenAnswer(invocation -> new ConfigMapBuilder(invocation.<ConfigMap>getArgument(0))
+                .editMetadata()
+                    .withResourceVersion("6")
+                .endMetadata()
+                .build());
+
+        Watchable mockWatchable = mock(Watchable.class);
+        when(mockWatchable.watch(any())).thenReturn(mock(Watch.class));
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
+        when(mockNameable.list()).thenReturn(new ConfigMapListBuilder()
+                .withNewMetadata()
+                    .withResourceVersion("5")
+                .endMetadata()
+                .withItems(existing)
+                .build());
+        when(mockNameable.withResourceVersion(eq("5"))).thenReturn(mockWatchable);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        KubernetesClient mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<KubernetesClient, ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> op = createResourceOperations(vertx, mockClient);
+        op.enableCache();
+
+        // Build the desired resource by modifying the one which has been read, in place
+        ConfigMap desired = op.get(NAMESPACE, RESOURCE_NAME);
+        desired.getData().put("FOO", "changed");
+        assertThat(op.get(NAMESPACE, RESOURCE_NAME).getData(), is(existing.getData()));
+
+        Checkpoint async = context.checkpoint();
+        op.reconcile(NAMESPACE, RESOURCE_NAME, desired).setHandler(context.succeeding(result -> context.verify(() -> {
+            // The cache still held the server's state, so the change was patched
+            verify(mockResource).patch(any());
+            assertThat(result instanceof ReconcileResult.Patched, is(true));
+            ConfigMap cached = op.get(NAMESPACE, RESOURCE_NAME);
+            assertThat(cached.getMetadata().getResourceVersion(), is("6"));
+            assertThat(cached.getData().get("FOO"), is("changed"));
+            async.flag();
+        })));
+    }
 }
@@ -71,7 +71,11 @@ public class PodDisruptionBudgetOperatorTest extends AbstractResourceOperatorTes
 
     @Override
     public void createWhenExistsIsAPatch(VertxTestContext context, boolean cascade) {
-        PodDisruptionBudget resource = resource();
+        PodDisruptionBudget resource = new PodDisruptionBudgetBuilder(resource())
+                .editSpec()
+                    .withNewMaxUnavailable(2)
+                .endSpec()
+                .build();
         Resource mockResource = mock(resourceType());
         when(mockResource.get()).thenReturn(resource);
 
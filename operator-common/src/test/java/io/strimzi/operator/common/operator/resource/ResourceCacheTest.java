@@ -0,0 +1,144 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common.operator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResourceCacheTest {
+
+    /** A source backed by a map, which records the watches started. */
+    static class FakeSource implements ResourceCache.Source<ConfigMap> {
+        final Map<String, List<ConfigMap>> resources = new HashMap<>();
+        final Map<String, Watcher<ConfigMap>> watchers = new HashMap<>();
+        final List<String> watchedFrom = new ArrayList<>();
+        int closed = 0;
+
+        @Override
+        public ResourceCache.Listing<ConfigMap> list(String namespace) {
+            return new ResourceCache.Listing<>(new ArrayList<>(resources.getOrDefault(namespace, new ArrayList<>())), "10");
+        }
+
+        @Override
+        public Watch watch(String namespace, String resourceVersion, Watcher<ConfigMap> watcher) {
+            watchers.put(namespace, watcher);
+            watchedFrom.add(namespace + "@" + resourceVersion);
+            return () -> closed++;
+        }
+    }
+
+    private FakeSource source;
+    private ResourceCache<ConfigMap> cache;
+
+    private static ConfigMap configMap(String namespace, String name, String resourceVersion, Map<String, String> labels) {
+        return new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withNamespace(namespace)
+                    .withName(name)
+                    .withResourceVersion(resourceVersion)
+                    .withLabels(labels)
+                .endMetadata()
+                .build();
+    }
+
+    @BeforeEach
+    public void setup() {
+        source = new FakeSource();
+        List<ConfigMap> ns1 = new ArrayList<>();
+        ns1.add(configMap("ns1", "a", "5", singletonMap("app", "x")));
+        ns1.add(configMap("ns1", "b", "6", singletonMap("app", "y")));
+        source.resources.put("ns1", ns1);
+        cache = new ResourceCache<>("ConfigMap", source);
+    }
+
+    @Test
+    public void testReadsListAndWatchEachNamespaceOnce() {
+        assertThat(cache.get("ns1", "a").getMetadata().getResourceVersion(), is("5"));
+        assertThat(cache.get("ns1", "c"), is(nullValue()));
+        assertThat(cache.list("ns1", null).size(), is(2));
+        assertThat(cache.list("ns1", singletonMap("app", "y")).get(0).getMetadata().getName(), is("b"));
+        assertThat(cache.lists(), is(1L));
+        assertThat(source.watchedFrom, is(singletonList("ns1@10")));
+
+        assertThat(cache.get("ns2", "a"), is(nullValue()));
+        assertThat(cache.lists(), is(2L));
+    }
+
+    @Test
+    public void testWatchEventsUpdateTheCache() {
+        cache.get("ns1", "a");
+        Watcher<ConfigMap> watcher = source.watchers.get("ns1");
+        watcher.eventReceived(Watcher.Action.ADDED, configMap("ns1", "c", "11", null));
+        watcher.eventReceived(Watcher.Action.MODIFIED, configMap("ns1", "a", "12", singletonMap("app", "y")));
+        watcher.eventReceived(Watcher.Action.DELETED, configMap("ns1", "b", "13", null));
+
+        assertThat(cache.get("ns1", "c").getMetadata().getResourceVersion(), is("11"));
+        assertThat(cache.get("ns1", "a").getMetadata().getResourceVersion(), is("12"));
+        assertThat(cache.get("ns1", "b"), is(nullValue()));
+        assertThat(cache.list("ns1", singletonMap("app", "y")).size(), is(1));
+        assertThat(cache.lists(), is(1L));
+    }
+
+    @Test
+    public void testWritesUpdateTheCacheUnlessOlder() {
+        cache.get("ns1", "a");
+        cache.updated(configMap("ns1", "a", "20", null));
+        assertThat(cache.get("ns1", "a").getMetadata().getResourceVersion(), is("20"));
+
+        // A watch event which is older than the write doesn't replace it
+        source.watchers.get("ns1").eventReceived(Watcher.Action.MODIFIED, configMap("ns1", "a", "15", null));
+        assertThat(cache.get("ns1", "a").getMetadata().getResourceVersion(), is("20"));
+
+        cache.deleted("ns1", "a");
+        assertThat(cache.get("ns1", "a"), is(nullValue()));
+    }
+
+    @Test
+    public void testReadsReturnCopies() {
+        cache.get("ns1", "a").getMetadata().getLabels().put("app", "changed");
+        for (ConfigMap configMap : cache.list("ns1", null)) {
+            configMap.getMetadata().setResourceVersion("99");
+        }
+        ConfigMap written = configMap("ns1", "c", "20", singletonMap("app", "x"));
+        cache.updated(written);
+        written.getMetadata().setResourceVersion("100");
+
+        assertThat(cache.get("ns1", "a").getMetadata().getLabels().get("app"), is("x"));
+        assertThat(cache.get("ns1", "b").getMetadata().getResourceVersion(), is("6"));
+        assertThat(cache.get("ns1", "c").getMetadata().getResourceVersion(), is("20"));
+    }
+
+    @Test
+    public void testClosedWatchCausesRelist() {
+        cache.get("ns1", "a");
+        source.watchers.get("ns1").onClose(new KubernetesClientException("Gone", 410, null));
+        source.resources.get("ns1").add(configMap("ns1", "c", "30", null));
+
+        assertThat(cache.get("ns1", "c").getMetadata().getResourceVersion(), is("30"));
+        assertThat(cache.lists(), is(2L));
+        assertThat(source.watchedFrom.size(), is(2));
+
+        cache.close();
+        assertThat(source.closed, is(1));
+        cache.get("ns1", "c");
+        assertThat(cache.lists(), is(3L));
+    }
+}
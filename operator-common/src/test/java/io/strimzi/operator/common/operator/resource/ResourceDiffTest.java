@@ -0,0 +1,312 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common.operator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResourceDiffTest {
+
+    private static Service desiredService() {
+        return new ServiceBuilder()
+                .withNewMetadata()
+                    .withName("my-service")
+                    .withNamespace("my-namespace")
+                    .withLabels(singletonMap("app", "kafka"))
+                .endMetadata()
+                .withNewSpec()
+                    .withType("ClusterIP")
+                    .addNewPort()
+                        .withName("clients")
+                        .withPort(9092)
+                    .endPort()
+                .endSpec()
+                .build();
+    }
+
+    /** The desired service, as the API server returns it. */
+    private static ServiceBuilder currentService() {
+        return new ServiceBuilder(desiredService())
+                .editMetadata()
+                    .withResourceVersion("123")
+                    .withUid("abc")
+                    .withCreationTimestamp("2019-01-01T00:00:00Z")
+                .endMetadata()
+                .editSpec()
+                    .withClusterIP("10.0.0.1")
+                    .withSessionAffinity("None")
+                    .editFirstPort()
+                        .withProtocol("TCP")
+                    .endPort()
+                .endSpec()
+                .withNewStatus()
+                    .withNewLoadBalancer()
+                    .endLoadBalancer()
+                .endStatus();
+    }
+
+    @Test
+    public void testFieldsFilledInByTheServerAreNotChanges() {
+        assertThat(new ResourceDiff(currentService().build(), desiredService()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testChangedSpecIsAChange() {
+        Service desired = desiredService();
+        desired.getSpec().getPorts().get(0).setPort(9093);
+        assertThat(new ResourceDiff(currentService().build(), desired).isEmpty(), is(false));
+    }
+
+    @Test
+    public void testRemovedSpecFieldIsAChange() {
+        Service current = currentService()
+                .editSpec()
+                    .withType("LoadBalancer")
+                    .withLoadBalancerSourceRanges("10.0.0.0/8")
+                .endSpec()
+                .build();
+        Service desired = new ServiceBuilder(desiredService())
+                .editSpec()
+                    .withType("LoadBalancer")
+                .endSpec()
+                .build();
+        assertThat(new ResourceDiff(current, desired).isEmpty(), is(false));
+    }
+
+    private static Deployment desiredDeployment() {
+        return new DeploymentBuilder()
+                .withNewMetadata()
+                    .withName("my-deployment")
+                    .withNamespace("my-namespace")
+                .endMetadata()
+                .withNewSpec()
+                    .withReplicas(1)
+                    .withNewTemplate()
+                        .withNewSpec()
+                            .addNewContainer()
+                                .withName("my-container")
+                                .withImage("my-image")
+                            .endContainer()
+                        .endSpec()
+                    .endTemplate()
+                .endSpec()
+                .build();
+    }
+
+    /** The given deployment, as the API server returns it. */
+    private static DeploymentBuilder currentDeployment(Deployment desired) {
+        return new DeploymentBuilder(desired)
+                .editMetadata()
+                    .withResourceVersion("123")
+                    .withGeneration(2L)
+                .endMetadata()
+                .editSpec()
+                    .withProgressDeadlineSeconds(600)
+                    .withRevisionHistoryLimit(10)
+                    .editTemplate()
+                        .editSpec()
+                            .withDnsPolicy("ClusterFirst")
+                            .withRestartPolicy("Always")
+                            .withSchedulerName("default-scheduler")
+                            .withNewSecurityContext()
+                            .endSecurityContext()
+                            .withTerminationGracePeriodSeconds(30L)
+                            .editFirstContainer()
+                                .withImagePullPolicy("IfNotPresent")
+                                .withTerminationMessagePath("/dev/termination-log")
+                                .withTerminationMessagePolicy("File")
+                            .endContainer()
+                        .endSpec()
+                    .endTemplate()
+                .endSpec()
+                .withNewStatus()
+                    .withObservedGeneration(2L)
+                    .withReplicas(1)
+                .endStatus();
+    }
+
+    @Test
+    public void testDeploymentDefaultsAreNotChanges() {
+        Deployment desired = desiredDeployment();
+        assertThat(new ResourceDiff(currentDeployment(desired).build(), desired).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDroppedContainerLimitsAreAChange() {
+        Deployment previous = new DeploymentBuilder(desiredDeployment())
+                .editSpec()
+                    .editTemplate()
+                        .editSpec()
+                            .editFirstContainer()
+                                .withNewResources()
+                                    .withLimits(singletonMap("memory", new Quantity("1Gi")))
+                                .endResources()
+                            .endContainer()
+                        .endSpec()
+                    .endTemplate()
+                .endSpec()
+                .build();
+        assertThat(new ResourceDiff(currentDeployment(previous).build(), desiredDeployment()).isEmpty(), is(false));
+    }
+
+    @Test
+    public void testStatefulSetDefaultsAreNotChanges() {
+        StatefulSet desired = new StatefulSetBuilder()
+                .withNewMetadata()
+                    .withName("my-cluster-kafka")
+                    .withNamespace("my-namespace")
+                    .withAnnotations(singletonMap("strimzi.io/generation", "0"))
+                .endMetadata()
+                .withNewSpec()
+                    .withReplicas(3)
+                    .withServiceName("my-cluster-kafka-brokers")
+                    .withNewTemplate()
+                        .withNewSpec()
+                            .addNewContainer()
+                                .withName("kafka")
+                                .withImage("strimzi/kafka")
+                                .addNewPort()
+                                    .withName("clients")
+                                    .withContainerPort(9092)
+                                .endPort()
+                                .withNewReadinessProbe()
+                                    .withNewTcpSocket()
+                                        .withNewPort(9092)
+                                    .endTcpSocket()
+                                    .withInitialDelaySeconds(15)
+                                .endReadinessProbe()
+                            .endContainer()
+                        .endSpec()
+                    .endTemplate()
+                    .addNewVolumeClaimTemplate()
+                        .withNewMetadata()
+                            .withName("data")
+                        .endMetadata()
+                        .withNewSpec()
+                            .withAccessModes("ReadWriteOnce")
+                        .endSpec()
+                    .endVolumeClaimTemplate()
+                .endSpec()
+                .build();
+        StatefulSet current = new StatefulSetBuilder(desired)
+                .editMetadata()
+                    .withResourceVersion("123")
+                    .withUid("abc")
+                    .withGeneration(4L)
+                .endMetadata()
+                .editSpec()
+                    .withPodManagementPolicy("Parallel")
+                    .withRevisionHistoryLimit(10)
+                    .withNewUpdateStrategy()
+                        .withNewRollingUpdate()
+                            .withPartition(0)
+                        .endRollingUpdate()
+                    .endUpdateStrategy()
+                    .editTemplate()
+                        .editSpec()
+                            .withDnsPolicy("ClusterFirst")
+                            .withRestartPolicy("Always")
+                            .withSchedulerName("default-scheduler")
+                            .withNewSecurityContext()
+                            .endSecurityContext()
+                            .withTerminationGracePeriodSeconds(30L)
+                            .editFirstContainer()
+                                .withImagePullPolicy("IfNotPresent")
+                                .withTerminationMessagePath("/dev/termination-log")
+                                .withTerminationMessagePolicy("File")
+                                .editFirstPort()
+                                    .withProtocol("TCP")
+                                .endPort()
+                                .editReadinessProbe()
+                                    .withFailureThreshold(3)
+                                    .withPeriodSeconds(10)
+                                    .withSuccessThreshold(1)
+                                .endReadinessProbe()
+                            .endContainer()
+                        .endSpec()
+                    .endTemplate()
+                    .editFirstVolumeClaimTemplate()
+                        .editSpec()
+                            .withVolumeMode("Filesystem")
+                        .endSpec()
+                        .withNewStatus()
+                            .withPhase("Pending")
+                        .endStatus()
+                    .endVolumeClaimTemplate()
+                .endSpec()
+                .withNewStatus()
+                    .withObservedGeneration(4L)
+                    .withReplicas(3)
+                .endStatus()
+                .build();
+        assertThat(new ResourceDiff(current, desired).isEmpty(), is(true));
+
+        desired.getSpec().getTemplate().getSpec().getContainers().get(0).setImage("strimzi/kafka:latest");
+        assertThat(new ResourceDiff(current, desired).isEmpty(), is(false));
+    }
+
+    @Test
+    public void testRemovedArrayElementIsAChange() {
+        Service current = currentService()
+                .editSpec()
+                    .addNewPort()
+                        .withName("replication")
+                        .withPort(9091)
+                    .endPort()
+                .endSpec()
+                .build();
+        assertThat(new ResourceDiff(current, desiredService()).isEmpty(), is(false));
+    }
+
+    @Test
+    public void testRemovedLabelIsAChange() {
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", "kafka");
+        labels.put("other", "label");
+        Service current = currentService()
+                .editMetadata()
+                    .withLabels(labels)
+                .endMetadata()
+                .build();
+        assertThat(new ResourceDiff(current, desiredService()).isEmpty(), is(false));
+    }
+
+    @Test
+    public void testConfigMapData() {
+        ConfigMap current = new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName("my-config")
+                    .withResourceVersion("123")
+                .endMetadata()
+                .withData(singletonMap("key", "value"))
+                .build();
+        ConfigMap desired = new ConfigMapBuilder(current)
+                .editMetadata()
+                    .withResourceVersion(null)
+                    .withAnnotations(emptyMap())
+                .endMetadata()
+                .build();
+        assertThat(new ResourceDiff(current, desired).isEmpty(), is(true));
+
+        desired.setData(emptyMap());
+        assertThat(new ResourceDiff(current, desired).isEmpty(), is(false));
+    }
+}
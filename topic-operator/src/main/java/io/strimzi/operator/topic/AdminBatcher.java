@@ -0,0 +1,159 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Collects the per-topic requests of one kind of AdminClient operation (for example {@code createTopics})
+ * and sends them as a single request, once {@code maxBatchSize} requests have been collected or
+ * {@code lingerMs} after the first of them, whichever is sooner.
+ * The per-topic result of the single request is fanned back to the future returned for each topic,
+ * on the Vert.x context of the caller which submitted it.
+ *
+ * @param <R> The type of the per-topic request.
+ */
+class AdminBatcher<R> {
+
+    private final static Logger LOGGER = LogManager.getLogger(AdminBatcher.class);
+
+    /** The future for the result of a submitted request, and the context on which to complete it. */
+    private static class Submission {
+        private final Context context;
+        private final Future<Void> future = Future.future();
+
+        Submission(Context context) {
+            this.context = context;
+        }
+
+        void complete(AsyncResult<Void> result) {
+            context.runOnContext(ignored -> future.handle(result));
+        }
+    }
+
+    private final Vertx vertx;
+    private final String name;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final Function<Map<String, R>, Map<String, KafkaFuture<Void>>> send;
+
+    // All guarded by this
+    private Map<String, R> requests = new LinkedHashMap<>();
+    private Map<String, Submission> submissions = new LinkedHashMap<>();
+    private long timerId = -1;
+    private long batches = 0;
+
+    /**
+     * @param vertx The vertx instance, used for the linger timer.
+     * @param name The name of the operation, for logging.
+     * @param maxBatchSize The maximum number of topics in a single request.
+     * @param lingerMs How long to wait for more requests after the first request of a batch.
+     * @param send Sends a batch of requests, keyed by topic name, returning the futures of their results, keyed by topic name.
+     */
+    AdminBatcher(Vertx vertx, String name, int maxBatchSize, long lingerMs,
+                 Function<Map<String, R>, Map<String, KafkaFuture<Void>>> send) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.vertx = vertx;
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+        this.send = send;
+    }
+
+    /**
+     * Add the given request to the next batch.
+     * @param topicName The name of the topic.
+     * @param request The request.
+     * @return A future which is completed, on the caller's context, with the result of the request.
+     */
+    Future<Void> submit(String topicName, R request) {
+        Submission submission = new Submission(vertx.getOrCreateContext());
+        synchronized (this) {
+            if (requests.containsKey(topicName)) {
+                // A single request cannot contain the same topic twice
+                flush();
+            }
+            requests.put(topicName, request);
+            submissions.put(topicName, submission);
+            if (requests.size() >= maxBatchSize) {
+                flush();
+            } else if (requests.size() == 1) {
+                if (lingerMs > 0) {
+                    timerId = vertx.setTimer(lingerMs, this::onLingerTimer);
+                } else {
+                    // Still batch up the requests made in the same turn of the event loop
+                    vertx.runOnContext(ignored -> onLingerTimer(-1));
+                }
+            }
+        }
+        return submission.future;
+    }
+
+    private synchronized void onLingerTimer(long id) {
+        if (id == timerId && !requests.isEmpty()) {
+            flush();
+        }
+    }
+
+    private synchronized void flush() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+        Map<String, R> batchRequests = requests;
+        Map<String, Submission> batchSubmissions = submissions;
+        requests = new LinkedHashMap<>();
+        submissions = new LinkedHashMap<>();
+        batches++;
+        LOGGER.debug("Sending {} of {} topics", name, batchRequests.size());
+        Map<String, KafkaFuture<Void>> results;
+        try {
+            results = send.apply(batchRequests);
+        } catch (RuntimeException e) {
+            for (Submission submission : batchSubmissions.values()) {
+                submission.complete(Future.failedFuture(e));
+            }
+            return;
+        }
+        for (Map.Entry<String, Submission> entry : batchSubmissions.entrySet()) {
+            Submission submission = entry.getValue();
+            KafkaFuture<Void> result = results.get(entry.getKey());
+            if (result == null) {
+                submission.complete(Future.failedFuture(
+                        new IllegalStateException("No result for topic " + entry.getKey() + " in " + name)));
+            } else {
+                // Invoked on an AdminClient thread
+                result.whenComplete((v, error) -> submission.complete(error != null
+                        ? Future.failedFuture(error) : Future.succeededFuture(v)));
+            }
+        }
+    }
+
+    /**
+     * @return The number of requests which are waiting to be sent.
+     */
+    synchronized int pending() {
+        return requests.size();
+    }
+
+    /**
+     * @return The number of batches which have been sent.
+     */
+    synchronized long batches() {
+        return batches;
+    }
+}
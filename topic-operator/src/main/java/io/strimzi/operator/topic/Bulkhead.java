@@ -0,0 +1,129 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A named worker pool of a fixed size, dedicated to the blocking calls made to one backend,
+ * so that a slow or unavailable backend can only exhaust its own threads and not those of the others.
+ *
+ * The bulkhead counts the tasks which are waiting for a thread, the tasks which are running
+ * and the tasks which have completed, so that its saturation can be monitored.
+ */
+class Bulkhead implements WorkerExecutor {
+
+    private final String name;
+    private final int size;
+    private final WorkerExecutor executor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * @param vertx The vertx instance.
+     * @param name The name of the bulkhead, which is also used as the name of its worker threads.
+     * @param size The number of worker threads.
+     */
+    Bulkhead(Vertx vertx, String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.name = name;
+        this.size = size;
+        this.executor = vertx.createSharedWorkerExecutor("topic-operator-" + name, size);
+    }
+
+    @Override
+    public <T> void executeBlocking(Handler<Future<T>> blockingCodeHandler, boolean ordered,
+                                    Handler<AsyncResult<T>> resultHandler) {
+        queued.incrementAndGet();
+        executor.executeBlocking(future -> {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                blockingCodeHandler.handle(future);
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }, ordered, resultHandler);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return executor.isMetricsEnabled();
+    }
+
+    /**
+     * Register the metrics of this bulkhead, labelled with its name, in the given registry.
+     */
+    void registerMetrics(MetricsRegistry metrics) {
+        metrics.gauge("worker_pool_size", "The number of threads in the worker pool.",
+                "pool", name, () -> size);
+        metrics.gauge("worker_pool_queued", "The number of blocking calls waiting for a thread of the worker pool.",
+                "pool", name, this::queued);
+        metrics.gauge("worker_pool_active", "The number of blocking calls running in the worker pool.",
+                "pool", name, this::active);
+        metrics.gauge("worker_pool_saturation", "The fraction of the threads of the worker pool which are busy.",
+                "pool", name, this::saturation);
+        metrics.counter("worker_pool_completed_total", "The number of blocking calls completed by the worker pool.",
+                "pool", name, this::completed);
+    }
+
+    /**
+     * @return The name of the bulkhead.
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return The number of worker threads.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of tasks waiting for a worker thread.
+     */
+    int queued() {
+        return queued.get();
+    }
+
+    /**
+     * @return The number of tasks running.
+     */
+    int active() {
+        return active.get();
+    }
+
+    /**
+     * @return The number of tasks which have completed (successfully or not).
+     */
+    long completed() {
+        return completed.get();
+    }
+
+    /**
+     * @return The fraction of the worker threads which are busy, between 0 and 1.
+     */
+    double saturation() {
+        return (double) active.get() / size;
+    }
+}
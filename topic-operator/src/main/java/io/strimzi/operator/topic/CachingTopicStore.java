@@ -0,0 +1,174 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.strimzi.operator.topic.ZkTopicStore.VersionedTopic;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import org.I0Itec.zkclient.exception.ZkBadVersionException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A write-through, in-memory cache in front of a {@link ZkTopicStore}.
+ *
+ * The cache can be {@linkplain #preload() preloaded} with all the topics in the store,
+ * after which reads are served from memory. Writes go to ZooKeeper first, and are
+ * only reflected in the cache once they've succeeded. Each cached topic remembers the version
+ * of its znode, and updates and deletes are made conditional on that version, so that a
+ * modification of the znode by some other writer is detected rather than overwritten.
+ * When that happens the topic is evicted from the cache, so the next read gets the current state.
+ */
+class CachingTopicStore implements TopicStore {
+
+    private final static Logger LOGGER = LogManager.getLogger(CachingTopicStore.class);
+
+    private final ZkTopicStore delegate;
+
+    private final ConcurrentHashMap<TopicName, VersionedTopic> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    CachingTopicStore(ZkTopicStore delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Asynchronously load all the topics in the store into the cache.
+     * @return A future which completes when the topics have been loaded.
+     */
+    Future<Void> preload() {
+        return delegate.list().compose(names -> {
+            List<Future> reads = new ArrayList<>(names.size());
+            for (TopicName name : names) {
+                reads.add(delegate.readVersioned(name).map(versioned -> {
+                    if (versioned != null) {
+                        cache.putIfAbsent(name, versioned);
+                    }
+                    return null;
+                }));
+            }
+            return CompositeFuture.join(reads);
+        }).map(ignored -> {
+            LOGGER.info("Preloaded {} topics from the topic store", cache.size());
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Topic> read(TopicName name) {
+        VersionedTopic cached = cache.get(name);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Future.succeededFuture(cached.getTopic());
+        }
+        misses.incrementAndGet();
+        return delegate.readVersioned(name).map(versioned -> {
+            if (versioned != null) {
+                cache.putIfAbsent(name, versioned);
+                return versioned.getTopic();
+            } else {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public Future<Void> create(Topic topic) {
+        return delegate.create(topic).map(ignored -> {
+            // A newly created znode has version 0
+            cache.put(topic.getTopicName(), new VersionedTopic(topic, 0));
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> update(Topic topic) {
+        TopicName name = topic.getTopicName();
+        VersionedTopic cached = cache.get(name);
+        int version = cached != null ? cached.getVersion() : -1;
+        Future<Void> result = Future.future();
+        delegate.update(topic, version).setHandler(ar -> {
+            if (ar.succeeded() && version != -1) {
+                // A successful conditional setData increments the version by exactly 1
+                cache.put(name, new VersionedTopic(topic, version + 1));
+            } else {
+                if (ar.cause() instanceof ZkBadVersionException) {
+                    LOGGER.warn("Topic {} was modified in the topic store by another writer (expected version {})", name, version);
+                }
+                cache.remove(name);
+            }
+            result.handle(ar);
+        });
+        return result;
+    }
+
+    @Override
+    public Future<Void> delete(TopicName name) {
+        VersionedTopic cached = cache.get(name);
+        int version = cached != null ? cached.getVersion() : -1;
+        Future<Void> result = Future.future();
+        delegate.delete(name, version).setHandler(ar -> {
+            if (ar.failed() && ar.cause() instanceof ZkBadVersionException) {
+                LOGGER.warn("Topic {} was modified in the topic store by another writer (expected version {})", name, version);
+            }
+            cache.remove(name);
+            result.handle(ar);
+        });
+        return result;
+    }
+
+    /**
+     * @return The number of topics in the cache.
+     */
+    int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return The number of reads served from the cache.
+     */
+    long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of reads which had to go to ZooKeeper.
+     */
+    long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The fraction of reads served from the cache, or 0 if there have been no reads.
+     */
+    double hitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Register the metrics of this cache in the given registry.
+     */
+    void registerMetrics(MetricsRegistry metrics) {
+        metrics.gauge("topic_store_cache_size", "The number of topics in the topic store cache.", this::size);
+        metrics.counter("topic_store_cache_hits_total", "The number of topic store reads served from the cache.", this::hits);
+        metrics.counter("topic_store_cache_misses_total", "The number of topic store reads which had to go to ZooKeeper.", this::misses);
+        metrics.gauge("topic_store_cache_hit_ratio", "The fraction of topic store reads served from the cache.", this::hitRate);
+    }
+
+    @Override
+    public String toString() {
+        return "CachingTopicStore(size=" + size() + ", hits=" + hits() + ", misses=" + misses() + ")";
+    }
+}
@@ -7,12 +7,37 @@ package io.strimzi.operator.topic;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 public class Config {
 
+    /** Where the operator stores its private copy of the topic state. */
+    public enum TopicStoreType {
+        /** In znodes under {@code /strimzi/topics} */
+        ZOOKEEPER,
+        /** In a compacted Kafka topic */
+        KAFKA
+    }
+
+    /** How the topic store encodes the topics it stores. */
+    public enum TopicStoreFormat {
+        /** As JSON, which every version of the operator can read */
+        JSON,
+        /** In a compact, versioned binary encoding */
+        BINARY
+    }
+
+    /** How the operator finds out about changes to topics in ZooKeeper. */
+    public enum ZkWatchMode {
+        /** With a data watch on each topic's config and partitions znodes */
+        PER_TOPIC,
+        /** With a single watch on Kafka's config change notifications */
+        NOTIFICATIONS
+    }
+
     private static abstract class Type<T> {
 
         abstract T parse(String s);
@@ -46,6 +71,30 @@ public class Config {
         }
     };
 
+    /** The kind of {@link TopicStore} to use */
+    private static final Type<? extends TopicStoreType> TOPIC_STORE_TYPE = new Type<TopicStoreType>() {
+        @Override
+        TopicStoreType parse(String s) {
+            return TopicStoreType.valueOf(s.toUpperCase(Locale.ENGLISH));
+        }
+    };
+
+    /** How to encode the stored topics */
+    private static final Type<? extends TopicStoreFormat> TOPIC_STORE_FORMAT_TYPE = new Type<TopicStoreFormat>() {
+        @Override
+        TopicStoreFormat parse(String s) {
+            return TopicStoreFormat.valueOf(s.toUpperCase(Locale.ENGLISH));
+        }
+    };
+
+    /** How to watch ZooKeeper for topic changes */
+    private static final Type<? extends ZkWatchMode> ZK_WATCH_MODE = new Type<ZkWatchMode>() {
+        @Override
+        ZkWatchMode parse(String s) {
+            return ZkWatchMode.valueOf(s.toUpperCase(Locale.ENGLISH).replace('-', '_'));
+        }
+    };
+
     /**
      * A time duration.
      */
@@ -95,10 +144,25 @@ public class Config {
     public static final String TC_ZK_CONNECT = "STRIMZI_ZOOKEEPER_CONNECT";
     public static final String TC_ZK_SESSION_TIMEOUT_MS = "STRIMZI_ZOOKEEPER_SESSION_TIMEOUT_MS";
     public static final String TC_ZK_CONNECTION_TIMEOUT_MS = "TC_ZK_CONNECTION_TIMEOUT_MS";
+    public static final String TC_ZK_WATCH_MODE = "STRIMZI_ZOOKEEPER_WATCH_MODE";
     public static final String TC_PERIODIC_INTERVAL_MS = "STRIMZI_FULL_RECONCILIATION_INTERVAL_MS";
+    public static final String TC_RESOURCE_RESYNC_INTERVAL_MS = "STRIMZI_RESOURCE_RESYNC_INTERVAL_MS";
+    public static final String TC_RESOURCE_DELETION_TIMEOUT_MS = "STRIMZI_RESOURCE_DELETION_TIMEOUT_MS";
     public static final String TC_REASSIGN_THROTTLE = "STRIMZI_REASSIGN_THROTTLE";
     public static final String TC_REASSIGN_VERIFY_INTERVAL_MS = "STRIMZI_REASSIGN_VERIFY_INTERVAL_MS";
     public static final String TC_TOPIC_METADATA_MAX_ATTEMPTS = "STRIMZI_TOPIC_METADATA_MAX_ATTEMPTS";
+    public static final String TC_TOPIC_METADATA_BATCH_SIZE = "STRIMZI_TOPIC_METADATA_BATCH_SIZE";
+    public static final String TC_ADMIN_BATCH_SIZE = "STRIMZI_ADMIN_BATCH_SIZE";
+    public static final String TC_ADMIN_BATCH_LINGER_MS = "STRIMZI_ADMIN_BATCH_LINGER_MS";
+    public static final String TC_TOPIC_STORE = "STRIMZI_TOPIC_STORE";
+    public static final String TC_MAX_CONCURRENT_RECONCILIATIONS = "STRIMZI_MAX_CONCURRENT_RECONCILIATIONS";
+    public static final String TC_MAX_CONCURRENT_STATUS_UPDATES = "STRIMZI_MAX_CONCURRENT_STATUS_UPDATES";
+    public static final String TC_MAX_EVENTS_PER_MINUTE = "STRIMZI_MAX_EVENTS_PER_MINUTE";
+    public static final String TC_KUBERNETES_WORKER_POOL_SIZE = "STRIMZI_KUBERNETES_WORKER_POOL_SIZE";
+    public static final String TC_ZOOKEEPER_WORKER_POOL_SIZE = "STRIMZI_ZOOKEEPER_WORKER_POOL_SIZE";
+    public static final String TC_KAFKA_WORKER_POOL_SIZE = "STRIMZI_KAFKA_WORKER_POOL_SIZE";
+    public static final String TC_TOPIC_STORE_TOPIC = "STRIMZI_TOPIC_STORE_TOPIC";
+    public static final String TC_TOPIC_STORE_FORMAT = "STRIMZI_TOPIC_STORE_FORMAT";
 
     public static final String TC_TLS_ENABLED = "STRIMZI_TLS_ENABLED";
     public static final String TC_TLS_TRUSTSTORE_LOCATION = "STRIMZI_TRUSTSTORE_LOCATION";
@@ -126,9 +190,23 @@ public class Config {
     /** The zookeeper connection timeout. */
     public static final Value<Long> ZOOKEEPER_CONNECTION_TIMEOUT_MS = new Value<>(TC_ZK_CONNECTION_TIMEOUT_MS, DURATION, "20000");
 
+    /**
+     * How to watch ZooKeeper for topic changes: {@code per-topic} uses two watches per topic,
+     * {@code notifications} uses a constant number of watches, but only notices partition changes during full reconciliations.
+     */
+    public static final Value<ZkWatchMode> ZOOKEEPER_WATCH_MODE = new Value<>(TC_ZK_WATCH_MODE, ZK_WATCH_MODE, "per-topic");
+
     /** The period between full reconciliations. */
     public static final Value<Long> FULL_RECONCILIATION_INTERVAL_MS = new Value<>(TC_PERIODIC_INTERVAL_MS, DURATION, "900000");
 
+    /**
+     * The period between relists of the KafkaTopics into the operator's cache of them, or 0 to rely on the watch alone.
+     */
+    public static final Value<Long> RESOURCE_RESYNC_INTERVAL_MS = new Value<>(TC_RESOURCE_RESYNC_INTERVAL_MS, DURATION, "0");
+
+    /** How long to wait for a deleted KafkaTopic to disappear, for example while its finalizers run. */
+    public static final Value<Long> RESOURCE_DELETION_TIMEOUT_MS = new Value<>(TC_RESOURCE_DELETION_TIMEOUT_MS, DURATION, "60000");
+
     /** The interbroker throttled rate to use when a topic change requires partition reassignment. */
     public static final Value<Long> REASSIGN_THROTTLE = new Value<>(TC_REASSIGN_THROTTLE, LONG, Long.toString(Long.MAX_VALUE));
 
@@ -141,6 +219,48 @@ public class Config {
     /** The maximum number of retries for getting topic metadata from the Kafka cluster */
     public static final Value<Integer> TOPIC_METADATA_MAX_ATTEMPTS = new Value<>(TC_TOPIC_METADATA_MAX_ATTEMPTS, POSITIVE_INTEGER, "6");
 
+    /** The maximum number of topics whose metadata is fetched in a single request during a full reconciliation */
+    public static final Value<Integer> TOPIC_METADATA_BATCH_SIZE = new Value<>(TC_TOPIC_METADATA_BATCH_SIZE, POSITIVE_INTEGER, "1000");
+
+    /** The maximum number of topics which are created, reconfigured or repartitioned by a single request to Kafka */
+    public static final Value<Integer> ADMIN_BATCH_SIZE = new Value<>(TC_ADMIN_BATCH_SIZE, POSITIVE_INTEGER, "100");
+
+    /**
+     * How long to wait for other topics to be created, reconfigured or repartitioned before sending a request to Kafka,
+     * or 0 to only batch the requests made at the same time.
+     */
+    public static final Value<Long> ADMIN_BATCH_LINGER_MS = new Value<>(TC_ADMIN_BATCH_LINGER_MS, DURATION, "5");
+
+    /**
+     * The maximum number of topics which are reconciled at the same time.
+     * Reconciliations triggered by watches take precedence over those of full reconciliations.
+     */
+    public static final Value<Integer> MAX_CONCURRENT_RECONCILIATIONS = new Value<>(TC_MAX_CONCURRENT_RECONCILIATIONS, POSITIVE_INTEGER, "50");
+
+    /** The maximum number of KafkaTopic status updates which are in flight at the same time. */
+    public static final Value<Integer> MAX_CONCURRENT_STATUS_UPDATES = new Value<>(TC_MAX_CONCURRENT_STATUS_UPDATES, POSITIVE_INTEGER, "10");
+
+    /** The maximum number of Kubernetes Events which are created or updated per minute. */
+    public static final Value<Integer> MAX_EVENTS_PER_MINUTE = new Value<>(TC_MAX_EVENTS_PER_MINUTE, POSITIVE_INTEGER, "60");
+
+    /** The number of threads which make blocking calls to the Kubernetes API. */
+    public static final Value<Integer> KUBERNETES_WORKER_POOL_SIZE = new Value<>(TC_KUBERNETES_WORKER_POOL_SIZE, POSITIVE_INTEGER, "10");
+
+    /** The number of threads which make blocking calls to ZooKeeper. */
+    public static final Value<Integer> ZOOKEEPER_WORKER_POOL_SIZE = new Value<>(TC_ZOOKEEPER_WORKER_POOL_SIZE, POSITIVE_INTEGER, "2");
+
+    /** The number of threads which make blocking calls to Kafka. */
+    public static final Value<Integer> KAFKA_WORKER_POOL_SIZE = new Value<>(TC_KAFKA_WORKER_POOL_SIZE, POSITIVE_INTEGER, "2");
+
+    /** Where to store the operator's private copy of the topic state: {@code zookeeper} or {@code kafka} */
+    public static final Value<TopicStoreType> TOPIC_STORE = new Value<>(TC_TOPIC_STORE, TOPIC_STORE_TYPE, "zookeeper");
+
+    /** The compacted topic used for storing the topic state when {@link #TOPIC_STORE} is {@code kafka} */
+    public static final Value<String> TOPIC_STORE_TOPIC = new Value<>(TC_TOPIC_STORE_TOPIC, STRING, "__strimzi_topic_operator_store");
+
+    /** How the topic store encodes the topics it writes: {@code json} or {@code binary}. Either can always be read. */
+    public static final Value<TopicStoreFormat> TOPIC_STORE_FORMAT = new Value<>(TC_TOPIC_STORE_FORMAT, TOPIC_STORE_FORMAT_TYPE, "json");
+
     /** If the connection with Kafka has to be encrypted by TLS protocol */
     public static final Value<String> TLS_ENABLED = new Value<>(TC_TLS_ENABLED, STRING, "false");
     /** The truststore with CA certificate for Kafka broker/server authentication */
@@ -160,10 +280,25 @@ public class Config {
         addConfigValue(configValues, ZOOKEEPER_CONNECT);
         addConfigValue(configValues, ZOOKEEPER_SESSION_TIMEOUT_MS);
         addConfigValue(configValues, ZOOKEEPER_CONNECTION_TIMEOUT_MS);
+        addConfigValue(configValues, ZOOKEEPER_WATCH_MODE);
         addConfigValue(configValues, FULL_RECONCILIATION_INTERVAL_MS);
+        addConfigValue(configValues, RESOURCE_RESYNC_INTERVAL_MS);
+        addConfigValue(configValues, RESOURCE_DELETION_TIMEOUT_MS);
         addConfigValue(configValues, REASSIGN_THROTTLE);
         addConfigValue(configValues, REASSIGN_VERIFY_INTERVAL_MS);
         addConfigValue(configValues, TOPIC_METADATA_MAX_ATTEMPTS);
+        addConfigValue(configValues, TOPIC_METADATA_BATCH_SIZE);
+        addConfigValue(configValues, ADMIN_BATCH_SIZE);
+        addConfigValue(configValues, ADMIN_BATCH_LINGER_MS);
+        addConfigValue(configValues, MAX_CONCURRENT_RECONCILIATIONS);
+        addConfigValue(configValues, MAX_CONCURRENT_STATUS_UPDATES);
+        addConfigValue(configValues, MAX_EVENTS_PER_MINUTE);
+        addConfigValue(configValues, KUBERNETES_WORKER_POOL_SIZE);
+        addConfigValue(configValues, ZOOKEEPER_WORKER_POOL_SIZE);
+        addConfigValue(configValues, KAFKA_WORKER_POOL_SIZE);
+        addConfigValue(configValues, TOPIC_STORE);
+        addConfigValue(configValues, TOPIC_STORE_TOPIC);
+        addConfigValue(configValues, TOPIC_STORE_FORMAT);
         addConfigValue(configValues, TLS_ENABLED);
         addConfigValue(configValues, TLS_TRUSTSTORE_LOCATION);
         addConfigValue(configValues, TLS_TRUSTSTORE_PASSWORD);
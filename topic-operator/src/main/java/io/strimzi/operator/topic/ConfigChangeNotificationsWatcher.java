@@ -0,0 +1,162 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.strimzi.operator.topic.zk.Zk;
+import io.vertx.core.Future;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * ZooKeeper watcher for the sequential change notification znodes which Kafka creates under
+ * {@code /config/changes} whenever the dynamic config of an entity is changed,
+ * calling {@link TopicOperator#onTopicConfigChanged(LogContext, TopicName)} for notifications about topics.
+ *
+ * Unlike {@link TopicConfigsWatcher}, this uses a single watch, however many topics there are.
+ * Notifications which already existed when the watcher was started are ignored, since the
+ * initial reconciliation will handle them.
+ */
+class ConfigChangeNotificationsWatcher {
+
+    private final static Logger LOGGER = LogManager.getLogger(ConfigChangeNotificationsWatcher.class);
+
+    static final String CHANGES_ZNODE = "/config/changes";
+
+    private static final String NOTIFICATION_PREFIX = "config_change_";
+
+    private static final String TOPICS_ENTITY = "topics";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TopicOperator topicOperator;
+
+    private volatile ZkWatcher.ZkWatcherState state = ZkWatcher.ZkWatcherState.NOT_STARTED;
+
+    /** The sequence number of the most recent notification seen, guarded by this. */
+    private long lastSequence = -1;
+
+    ConfigChangeNotificationsWatcher(TopicOperator topicOperator) {
+        this.topicOperator = topicOperator;
+    }
+
+    void start(Zk zk) {
+        zk.watchChildren(CHANGES_ZNODE, childResult -> {
+            if (state == ZkWatcher.ZkWatcherState.STOPPED) {
+                zk.unwatchChildren(CHANGES_ZNODE);
+                return;
+            }
+            if (childResult.failed()) {
+                LOGGER.error("Error on znode {} children", CHANGES_ZNODE, childResult.cause());
+                return;
+            }
+            if (started()) {
+                for (String child : newNotifications(childResult.result()).values()) {
+                    String path = CHANGES_ZNODE + "/" + child;
+                    zk.getData(path, dataResult -> {
+                        if (dataResult.succeeded()) {
+                            notifyOperator(path, dataResult.result());
+                        } else {
+                            // Kafka deletes old notifications, but not ones this recent
+                            LOGGER.warn("Error getting data of znode {}", path, dataResult.cause());
+                        }
+                    });
+                }
+            }
+        }).<Void>compose(zk2 -> {
+            zk.children(CHANGES_ZNODE, childResult -> {
+                if (childResult.failed()) {
+                    LOGGER.error("Error on znode {} children", CHANGES_ZNODE, childResult.cause());
+                    return;
+                }
+                newNotifications(childResult.result());
+                LOGGER.debug("Ignoring existing notifications up to sequence number {}", lastSequence);
+                this.state = ZkWatcher.ZkWatcherState.STARTED;
+            });
+            return Future.succeededFuture();
+        });
+    }
+
+    void stop() {
+        this.state = ZkWatcher.ZkWatcherState.STOPPED;
+    }
+
+    boolean started() {
+        return this.state == ZkWatcher.ZkWatcherState.STARTED;
+    }
+
+    /**
+     * Return the notifications which are newer than the newest one previously seen, in sequence order,
+     * and remember the newest one.
+     */
+    private synchronized TreeMap<Long, String> newNotifications(List<String> children) {
+        TreeMap<Long, String> result = new TreeMap<>();
+        for (String child : children) {
+            long sequence = sequence(child);
+            if (sequence > lastSequence) {
+                result.put(sequence, child);
+            }
+        }
+        if (!result.isEmpty()) {
+            lastSequence = result.lastKey();
+        }
+        return result;
+    }
+
+    private static long sequence(String child) {
+        if (child.startsWith(NOTIFICATION_PREFIX)) {
+            try {
+                return Long.parseLong(child.substring(NOTIFICATION_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the name of the topic the given notification is about, or null if it's not about a topic.
+     * Version 1 notifications have {@code entity_type} and {@code entity_name} fields.
+     * Version 2 notifications have an {@code entity_path} of the form {@code <entity_type>/<entity_name>}.
+     */
+    static String topicName(byte[] notification) throws IOException {
+        JsonNode json = MAPPER.readTree(notification);
+        int version = json.path("version").asInt();
+        if (version == 1) {
+            if (TOPICS_ENTITY.equals(json.path("entity_type").asText())) {
+                return json.path("entity_name").asText(null);
+            }
+        } else if (version == 2) {
+            String entityPath = json.path("entity_path").asText("");
+            if (entityPath.startsWith(TOPICS_ENTITY + "/")) {
+                return entityPath.substring(TOPICS_ENTITY.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    private void notifyOperator(String path, byte[] notification) {
+        String topicName;
+        try {
+            topicName = topicName(notification);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unparseable config change notification {}", path, e);
+            return;
+        }
+        if (topicName == null) {
+            return;
+        }
+        LogContext logContext = LogContext.zkWatch(CHANGES_ZNODE, "=" + topicName);
+        LOGGER.info("{}: Topic config change", logContext);
+        topicOperator.onTopicConfigChanged(logContext, new TopicName(topicName)).setHandler(ar -> {
+            LOGGER.info("{}: Reconciliation result due to topic config change on topic {}: {}", logContext, topicName, ar);
+        });
+    }
+}
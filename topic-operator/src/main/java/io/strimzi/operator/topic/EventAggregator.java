@@ -0,0 +1,295 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Aggregates the Kubernetes Events emitted by the operator, in the way the kubelet does.
+ *
+ * An event which is the same as one emitted within the last {@link #AGGREGATION_WINDOW_MS}
+ * (the same involved object, type, reason and message) doesn't create a new Event,
+ * but increments the count and updates the last timestamp of the existing one.
+ * The Events which are created or updated are further limited by a token bucket, which holds
+ * {@code maxPerMinute} tokens and is refilled at {@code maxPerMinute} tokens per minute.
+ * An event emitted while the bucket is empty is not lost: its Event is created or updated,
+ * with the count of all the occurrences so far, once a token is available.
+ */
+class EventAggregator {
+
+    private final static Logger LOGGER = LogManager.getLogger(EventAggregator.class);
+
+    /** How long after an event was last emitted that an identical one is aggregated with it. */
+    static final long AGGREGATION_WINDOW_MS = 10 * 60_000L;
+
+    /** The maximum number of distinct events remembered. */
+    static final int MAX_ENTRIES = 4096;
+
+    /** An event which has been emitted. */
+    private static class Entry {
+        private final List<String> key;
+        /** The first occurrence of the event, from which the Event is created. */
+        private final Event first;
+        /** The Event in Kubernetes, or null if it hasn't been created yet. */
+        private Event event;
+        private boolean creating = false;
+        private int count = 1;
+        /** The count of the Event in Kubernetes. */
+        private int writtenCount = 0;
+        private String lastTimestamp;
+        private long lastSeenMs;
+
+        Entry(List<String> key, Event first, long lastSeenMs) {
+            this.key = key;
+            this.first = first;
+            this.lastTimestamp = first.getLastTimestamp();
+            this.lastSeenMs = lastSeenMs;
+        }
+    }
+
+    private final Vertx vertx;
+    private final K8s k8s;
+    private final LongSupplier clock;
+    private final double maxTokens;
+    private final double tokensPerMs;
+
+    // All guarded by this
+    /** The entries whose count hasn't been written, waiting for a token, in the order they were first delayed. */
+    private final Set<Entry> delayed = new LinkedHashSet<>();
+    private final Map<List<String>, Entry> entries = new LinkedHashMap<List<String>, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                delayed.remove(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private double tokens;
+    private long lastRefillMs;
+    private long flushTimer = -1;
+    private long created = 0;
+    private long updated = 0;
+    private long rateLimited = 0;
+
+    /**
+     * @param vertx The vertx instance, used to write delayed events once tokens are available.
+     * @param k8s The k8s instance.
+     * @param maxPerMinute The maximum number of Events created or updated per minute.
+     */
+    EventAggregator(Vertx vertx, K8s k8s, int maxPerMinute) {
+        this(vertx, k8s, maxPerMinute, System::currentTimeMillis);
+    }
+
+    /**
+     * @param vertx The vertx instance, used to write delayed events once tokens are available,
+     *              or null if the caller will {@linkplain #flush() flush} them.
+     * @param k8s The k8s instance.
+     * @param maxPerMinute The maximum number of Events created or updated per minute.
+     * @param clock The clock.
+     */
+    EventAggregator(Vertx vertx, K8s k8s, int maxPerMinute, LongSupplier clock) {
+        if (maxPerMinute <= 0) {
+            throw new IllegalArgumentException("maxPerMinute must be positive");
+        }
+        this.vertx = vertx;
+        this.k8s = k8s;
+        this.clock = clock;
+        this.maxTokens = maxPerMinute;
+        this.tokensPerMs = maxPerMinute / 60_000.0;
+        this.tokens = maxTokens;
+        this.lastRefillMs = clock.getAsLong();
+    }
+
+    private static List<String> key(Event event) {
+        ObjectReference involved = event.getInvolvedObject();
+        return involved != null
+                ? asList(involved.getKind(), involved.getNamespace(), involved.getName(), involved.getUid(),
+                        event.getType(), event.getReason(), event.getMessage())
+                : asList(null, null, null, null, event.getType(), event.getReason(), event.getMessage());
+    }
+
+    private boolean tryAcquire(long now) {
+        tokens = Math.min(maxTokens, tokens + (now - lastRefillMs) * tokensPerMs);
+        lastRefillMs = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Create the given event, or update an identical one.
+     * @param event The event, with its last timestamp set.
+     * @return A future which completes when the Event has been created or updated,
+     * or the write has been delayed by the rate limit.
+     */
+    Future<Void> emit(Event event) {
+        List<String> key = key(event);
+        Supplier<Future<Void>> write;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.lastSeenMs < AGGREGATION_WINDOW_MS) {
+                entry.count++;
+                entry.lastSeenMs = now;
+                entry.lastTimestamp = event.getLastTimestamp();
+            } else {
+                entry = new Entry(key, event, now);
+                entries.put(key, entry);
+            }
+            write = prepareWrite(entry, now);
+            if (write == null && delayed.contains(entry)) {
+                LOGGER.debug("Delaying event {}", event.getMessage());
+                rateLimited++;
+            }
+        }
+        return write != null ? write.get() : Future.succeededFuture();
+    }
+
+    /**
+     * Take a token to write the current count of the given entry.
+     * If there is no token, the entry is delayed until there is.
+     * @return The write to make, once the lock has been released, or null if there's nothing to write now.
+     */
+    private Supplier<Future<Void>> prepareWrite(Entry entry, long now) {
+        if (entry.creating || entry.count == entry.writtenCount) {
+            // A create in progress will be followed by an update, if needed
+            delayed.remove(entry);
+            return null;
+        }
+        if (!tryAcquire(now)) {
+            delayed.add(entry);
+            scheduleFlush();
+            return null;
+        }
+        delayed.remove(entry);
+        int count = entry.count;
+        if (entry.event == null) {
+            entry.creating = true;
+            created++;
+            Event toCreate = new EventBuilder(entry.first)
+                    .withCount(count)
+                    .withFirstTimestamp(entry.first.getLastTimestamp())
+                    .withLastTimestamp(entry.lastTimestamp)
+                    .build();
+            return () -> k8s.createEvent(toCreate).map(createdEvent -> {
+                synchronized (this) {
+                    entry.creating = false;
+                    if (createdEvent != null) {
+                        entry.event = createdEvent;
+                        entry.writtenCount = count;
+                        if (entry.count > count) {
+                            delayed.add(entry);
+                            scheduleFlush();
+                        }
+                    } else {
+                        // Let the next identical event create it
+                        entries.remove(entry.key, entry);
+                    }
+                }
+                return null;
+            });
+        } else {
+            entry.event = new EventBuilder(entry.event)
+                    .withCount(count)
+                    .withLastTimestamp(entry.lastTimestamp)
+                    .build();
+            entry.writtenCount = count;
+            updated++;
+            Event toUpdate = entry.event;
+            return () -> {
+                LOGGER.debug("Updating event {} to count {}", toUpdate.getMetadata().getName(), toUpdate.getCount());
+                return k8s.updateEvent(toUpdate);
+            };
+        }
+    }
+
+    /** Schedule a flush for when the next token will be available, unless one is already scheduled. */
+    private void scheduleFlush() {
+        if (vertx != null && flushTimer == -1) {
+            long delayMs = Math.max(1L, (long) Math.ceil((1 - tokens) / tokensPerMs));
+            flushTimer = vertx.setTimer(delayMs, timerId -> {
+                synchronized (this) {
+                    flushTimer = -1;
+                }
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Write as many of the delayed events as there are tokens for.
+     * @return A future which completes when those events have been written.
+     */
+    Future<Void> flush() {
+        List<Supplier<Future<Void>>> writes = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            for (Entry entry : new ArrayList<>(delayed)) {
+                Supplier<Future<Void>> write = prepareWrite(entry, now);
+                if (write != null) {
+                    writes.add(write);
+                } else if (delayed.contains(entry)) {
+                    // Out of tokens
+                    break;
+                }
+            }
+        }
+        List<Future> futures = new ArrayList<>(writes.size());
+        for (Supplier<Future<Void>> write : writes) {
+            futures.add(write.get());
+        }
+        return CompositeFuture.join(futures).mapEmpty();
+    }
+
+    /**
+     * @return The number of Events which have been created.
+     */
+    synchronized long created() {
+        return created;
+    }
+
+    /**
+     * @return The number of Events which have been updated, rather than creating a new one.
+     */
+    synchronized long updated() {
+        return updated;
+    }
+
+    /**
+     * @return The number of events whose write was delayed because of the rate limit.
+     */
+    synchronized long rateLimited() {
+        return rateLimited;
+    }
+
+    /**
+     * @return The number of events whose Event hasn't been created or updated yet because of the rate limit.
+     */
+    synchronized int delayed() {
+        return delayed.size();
+    }
+}
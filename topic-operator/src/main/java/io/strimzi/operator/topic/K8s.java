@@ -10,6 +10,7 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 
 import java.util.List;
+import java.util.function.Function;
 
 public interface K8s {
 
@@ -47,6 +48,15 @@ public interface K8s {
      */
     Future<List<KafkaTopic>> listResources();
 
+    /**
+     * Asynchronously list the resources a page at a time, so that they never all need to be in memory at once.
+     * The next page is only requested once the future returned by the given handler for the previous page has completed.
+     * @param pageHandler The handler of each page of resources.
+     * @return A future which completes once every page has been handled,
+     * and which fails if listing a page or the handler of a page fails.
+     */
+    Future<Void> listResources(Function<List<KafkaTopic>, Future<Void>> pageHandler);
+
     /**
      * Get the resource with the given name, invoking the given handler with the result.
      * If a resource with the given name does not exist, the handler will be called with
@@ -56,10 +66,26 @@ public interface K8s {
      */
     Future<KafkaTopic> getFromName(ResourceName resourceName);
 
+    /**
+     * Get the resource for the topic with the given name, which might be specified in
+     * the resource's {@code spec.topicName} rather than being its name.
+     * If there's no such resource, the returned future will complete with a null result.
+     * @param topicName The name of the topic.
+     * @return A future which completes with the topic
+     */
+    Future<KafkaTopic> getFromTopicName(TopicName topicName);
+
     /**
      * Create an event.
      * @param event The event.
-     * @return A future which completes when the event has been created.
+     * @return A future which completes with the created event, or null if it could not be created.
+     */
+    Future<Event> createEvent(Event event);
+
+    /**
+     * Update the count and last timestamp of an existing event.
+     * @param event The event, with its name, new count and new last timestamp.
+     * @return A future which completes when the event has been updated.
      */
-    Future<Void> createEvent(Event event);
+    Future<Void> updateEvent(Event event);
 }
@@ -7,21 +7,36 @@ package io.strimzi.operator.topic;
 import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.strimzi.api.kafka.Crds;
 import io.strimzi.api.kafka.KafkaTopicList;
 import io.strimzi.api.kafka.model.DoneableKafkaTopic;
 import io.strimzi.api.kafka.model.KafkaTopic;
-import io.strimzi.operator.common.Util;
 import io.strimzi.operator.common.operator.resource.CrdOperator;
+import io.strimzi.operator.common.operator.resource.TimeoutException;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
+/**
+ * Implementation of {@link K8s} using the Kubernetes API.
+ *
+ * Once it has been {@linkplain #relist() listed}, reads are served from an in-memory {@link KafkaTopicCache},
+ * which is kept up to date by the watch events passed through the {@linkplain #cacheUpdating(Watcher) cache updating watcher},
+ * and by this instance's own writes. Until then, or once the watch has closed, reads go to the Kubernetes API.
+ */
 public class K8sImpl implements K8s {
 
     private final static Logger LOGGER = LogManager.getLogger(K8sImpl.class);
@@ -33,113 +48,404 @@ public class K8sImpl implements K8s {
     private final CrdOperator<KubernetesClient, KafkaTopic, KafkaTopicList, DoneableKafkaTopic> crdOperator;
 
     private final Vertx vertx;
+    private final WorkerExecutor workerPool;
+
+    private final KafkaTopicCache cache = new KafkaTopicCache();
+
+    /** How long to wait for the watch to report the deletion of a KafkaTopic. */
+    private final long deletionTimeoutMs;
+    /** The futures awaiting the DELETED event of each KafkaTopic. Guarded by this. */
+    private final Map<ResourceName, List<Future<Void>>> awaitingDeletion = new HashMap<>();
+
+    /** The default of {@link #deletionTimeoutMs}. */
+    static final long DEFAULT_DELETION_TIMEOUT_MS = 60_000;
+
+    /** The interval between reads of a KafkaTopic being deleted when the watch isn't running. */
+    static final long DELETION_POLL_INTERVAL_MS = 1_000;
+
+    /** The maximum number of KafkaTopics in each page of a {@link #relist()} or a paginated list. */
+    static final int LIST_PAGE_SIZE = 500;
 
     public K8sImpl(Vertx vertx, KubernetesClient client, Labels labels, String namespace) {
+        this(vertx, vertx.createSharedWorkerExecutor("topic-operator-kubernetes"), client, labels, namespace, DEFAULT_DELETION_TIMEOUT_MS);
+    }
+
+    /**
+     * @param vertx The vertx instance.
+     * @param workerPool The worker pool in which to make the blocking calls to the Kubernetes API.
+     * @param client The Kubernetes client.
+     * @param labels The labels of the KafkaTopics.
+     * @param namespace The namespace of the KafkaTopics.
+     * @param deletionTimeoutMs How long to wait for the watch to report the deletion of a KafkaTopic.
+     */
+    public K8sImpl(Vertx vertx, WorkerExecutor workerPool, KubernetesClient client, Labels labels, String namespace, long deletionTimeoutMs) {
         this.vertx = vertx;
+        this.workerPool = workerPool;
         this.client = client;
         this.crdOperator = new CrdOperator<>(vertx, client, KafkaTopic.class, KafkaTopicList.class, DoneableKafkaTopic.class);
         this.labels = labels;
         this.namespace = namespace;
+        this.deletionTimeoutMs = deletionTimeoutMs;
     }
 
     @Override
     public Future<KafkaTopic> createResource(KafkaTopic topicResource) {
         Future<KafkaTopic> handler = Future.future();
-        vertx.executeBlocking(future -> {
+        workerPool.executeBlocking(future -> {
             try {
                 KafkaTopic kafkaTopic = operation().inNamespace(namespace).create(topicResource);
                 LOGGER.debug("KafkaTopic {} created with version {}->{}",
                         kafkaTopic.getMetadata().getName(),
                         topicResource.getMetadata() != null ? topicResource.getMetadata().getResourceVersion() : null,
                         kafkaTopic.getMetadata().getResourceVersion());
+                cache.update(Watcher.Action.ADDED, kafkaTopic);
                 future.complete(kafkaTopic);
             } catch (Exception e) {
                 future.fail(e);
             }
-        }, handler);
+        }, false, handler);
         return handler;
     }
 
     @Override
     public Future<KafkaTopic> updateResource(KafkaTopic topicResource) {
         Future<KafkaTopic> handler = Future.future();
-        vertx.executeBlocking(future -> {
+        workerPool.executeBlocking(future -> {
             try {
                 KafkaTopic kafkaTopic = operation().inNamespace(namespace).withName(topicResource.getMetadata().getName()).patch(topicResource);
                 LOGGER.debug("KafkaTopic {} updated with version {}->{}",
                         kafkaTopic != null && kafkaTopic.getMetadata() != null ? kafkaTopic.getMetadata().getName() : null,
                         topicResource.getMetadata() != null ? topicResource.getMetadata().getResourceVersion() : null,
                         kafkaTopic != null && kafkaTopic.getMetadata() != null ? kafkaTopic.getMetadata().getResourceVersion() : null);
+                if (kafkaTopic != null) {
+                    cache.update(Watcher.Action.MODIFIED, kafkaTopic);
+                }
                 future.complete(kafkaTopic);
             } catch (Exception e) {
                 future.fail(e);
             }
-        }, handler);
+        }, false, handler);
         return handler;
     }
 
     @Override
     public Future<KafkaTopic> updateResourceStatus(KafkaTopic topicResource) {
-        return crdOperator.updateStatusAsync(topicResource);
+        return crdOperator.updateStatusAsync(topicResource).map(kafkaTopic -> {
+            if (kafkaTopic != null) {
+                cache.update(Watcher.Action.MODIFIED, kafkaTopic);
+            }
+            return kafkaTopic;
+        });
     }
 
     @Override
     public Future<Void> deleteResource(ResourceName resourceName) {
-        Future<Void> handler = Future.future();
-        vertx.executeBlocking(future -> {
+        // Wait for the DELETED event from before the delete request, so that it cannot be missed
+        Future<Void> deletedEvent = awaitDeletedEvent(resourceName);
+        Future<Boolean> deleteFuture = Future.future();
+        workerPool.executeBlocking(future -> {
             try {
                 // Delete the resource by the topic name, because neither ZK nor Kafka know the resource name
-                if (!Boolean.TRUE.equals(operation().inNamespace(namespace).withName(resourceName.toString()).cascading(true).delete())) {
-                    LOGGER.warn("KafkaTopic {} could not be deleted, since it doesn't seem to exist", resourceName.toString());
-                    future.complete();
-                } else {
-                    Util.waitFor(vertx, "sync resource deletion " + resourceName, 1000, Long.MAX_VALUE, () -> {
-                        KafkaTopic kafkaTopic = operation().inNamespace(namespace).withName(resourceName.toString()).get();
-                        boolean notExists = kafkaTopic == null;
-                        LOGGER.debug("KafkaTopic {} deleted {}", resourceName.toString(), notExists);
-                        return notExists;
-                    }).setHandler(future);
-                }
+                future.complete(Boolean.TRUE.equals(operation().inNamespace(namespace).withName(resourceName.toString()).cascading(true).delete()));
             } catch (Exception e) {
                 future.fail(e);
             }
-        }, handler);
+        }, false, deleteFuture);
+        Future<Void> handler = Future.future();
+        deleteFuture.setHandler(ar -> {
+            if (ar.failed()) {
+                stopAwaitingDeletedEvent(resourceName, deletedEvent);
+                handler.fail(ar.cause());
+            } else if (!ar.result()) {
+                LOGGER.warn("KafkaTopic {} could not be deleted, since it doesn't seem to exist", resourceName.toString());
+                stopAwaitingDeletedEvent(resourceName, deletedEvent);
+                handler.complete();
+            } else {
+                confirmDeletion(resourceName, deletedEvent).setHandler(handler);
+            }
+        });
         return handler;
     }
 
+    private synchronized Future<Void> awaitDeletedEvent(ResourceName resourceName) {
+        Future<Void> deletedEvent = Future.future();
+        awaitingDeletion.computeIfAbsent(resourceName, k -> new ArrayList<>()).add(deletedEvent);
+        return deletedEvent;
+    }
+
+    private synchronized void stopAwaitingDeletedEvent(ResourceName resourceName, Future<Void> deletedEvent) {
+        List<Future<Void>> awaiting = awaitingDeletion.get(resourceName);
+        if (awaiting != null) {
+            awaiting.remove(deletedEvent);
+            if (awaiting.isEmpty()) {
+                awaitingDeletion.remove(resourceName);
+            }
+        }
+    }
+
+    private void deletedEventReceived(ResourceName resourceName) {
+        List<Future<Void>> awaiting;
+        synchronized (this) {
+            awaiting = awaitingDeletion.remove(resourceName);
+        }
+        if (awaiting != null) {
+            for (Future<Void> deletedEvent : awaiting) {
+                deletedEvent.tryComplete();
+            }
+        }
+    }
+
+    /**
+     * Wait for the watch to report the deletion of the given KafkaTopic, which might not happen at once if it has finalizers.
+     * The KafkaTopic is only read if the deletion hasn't been reported within the deletion timeout or, when reads
+     * aren't being served from the cache because the watch isn't running, every {@link #DELETION_POLL_INTERVAL_MS}.
+     */
+    private Future<Void> confirmDeletion(ResourceName resourceName, Future<Void> deletedEvent) {
+        Future<Void> result = Future.future();
+        long deadline = System.currentTimeMillis() + deletionTimeoutMs;
+        AtomicLong timerId = new AtomicLong();
+        Handler<Long> check = new Handler<Long>() {
+            @Override
+            public void handle(Long id) {
+                crdOperator.getAsync(namespace, resourceName.toString()).setHandler(ar -> {
+                    long timeLeft = deadline - System.currentTimeMillis();
+                    if (ar.failed()) {
+                        stopAwaitingDeletedEvent(resourceName, deletedEvent);
+                        result.tryFail(ar.cause());
+                    } else if (ar.result() == null) {
+                        deletedEvent.tryComplete();
+                    } else if (timeLeft <= 0) {
+                        stopAwaitingDeletedEvent(resourceName, deletedEvent);
+                        result.tryFail(new TimeoutException("KafkaTopic " + resourceName + " was not deleted within " + deletionTimeoutMs + "ms"));
+                    } else if (!result.isComplete()) {
+                        timerId.set(vertx.setTimer(checkDelay(timeLeft), this));
+                    }
+                });
+            }
+        };
+        timerId.set(vertx.setTimer(checkDelay(deletionTimeoutMs), check));
+        deletedEvent.setHandler(ar -> {
+            vertx.cancelTimer(timerId.get());
+            stopAwaitingDeletedEvent(resourceName, deletedEvent);
+            LOGGER.debug("KafkaTopic {} deleted", resourceName);
+            cache.remove(resourceName);
+            result.tryComplete();
+        });
+        return result;
+    }
+
+    private long checkDelay(long timeLeft) {
+        return cache.isSynced() ? timeLeft : Math.min(DELETION_POLL_INTERVAL_MS, timeLeft);
+    }
+
     private MixedOperation<KafkaTopic, KafkaTopicList, DoneableKafkaTopic, Resource<KafkaTopic, DoneableKafkaTopic>> operation() {
         return client.customResources(Crds.topic(), KafkaTopic.class, KafkaTopicList.class, DoneableKafkaTopic.class);
     }
 
     @Override
     public Future<List<KafkaTopic>> listResources() {
+        if (cache.isSynced()) {
+            return Future.succeededFuture(cache.list());
+        }
         return crdOperator.listAsync(namespace, io.strimzi.operator.common.model.Labels.fromMap(labels.labels()));
     }
 
+    @Override
+    public Future<Void> listResources(Function<List<KafkaTopic>, Future<Void>> pageHandler) {
+        if (cache.isSynced()) {
+            List<KafkaTopic> kafkaTopics = cache.list();
+            Future<Void> result = Future.succeededFuture();
+            for (int from = 0; from < kafkaTopics.size(); from += LIST_PAGE_SIZE) {
+                List<KafkaTopic> page = kafkaTopics.subList(from, Math.min(kafkaTopics.size(), from + LIST_PAGE_SIZE));
+                result = result.compose(ignored -> pageHandler.apply(page));
+            }
+            return result;
+        }
+        return listPages(null, pageHandler);
+    }
+
+    /**
+     * List the page with the given continue token, handle it, and then list the following pages.
+     */
+    private Future<Void> listPages(String continueToken, Function<List<KafkaTopic>, Future<Void>> pageHandler) {
+        Future<KafkaTopicList> pageFuture = Future.future();
+        workerPool.executeBlocking(future -> {
+            try {
+                future.complete(listPage(continueToken));
+            } catch (Exception e) {
+                future.fail(e);
+            }
+        }, false, pageFuture);
+        return pageFuture.compose(page -> {
+            String next = page.getMetadata() != null ? page.getMetadata().getContinue() : null;
+            return pageHandler.apply(page.getItems()).compose(ignored ->
+                next != null && !next.isEmpty() ? listPages(next, pageHandler) : Future.succeededFuture());
+        });
+    }
+
+    private KafkaTopicList listPage(String continueToken) {
+        try {
+            return operation().inNamespace(namespace).withLabels(labels.labels()).list(LIST_PAGE_SIZE, continueToken);
+        } catch (KubernetesClientException e) {
+            // The continue token expires if handling the previous pages took too long, and Kubernetes then
+            // returns a token for continuing from the same position, but with the latest versions of the KafkaTopics
+            String inconsistentContinue = e.getCode() == 410 && e.getStatus() != null && e.getStatus().getMetadata() != null
+                    ? e.getStatus().getMetadata().getContinue() : null;
+            if (inconsistentContinue == null || inconsistentContinue.isEmpty()) {
+                throw e;
+            }
+            LOGGER.info("Continue token for listing KafkaTopics has expired, continuing with the latest versions");
+            return operation().inNamespace(namespace).withLabels(labels.labels()).list(LIST_PAGE_SIZE, inconsistentContinue);
+        }
+    }
+
     @Override
     public Future<KafkaTopic> getFromName(ResourceName resourceName) {
+        if (cache.isSynced()) {
+            return Future.succeededFuture(cache.get(resourceName));
+        }
         return crdOperator.getAsync(namespace, resourceName.toString());
     }
 
+    @Override
+    public Future<KafkaTopic> getFromTopicName(TopicName topicName) {
+        if (cache.isSynced()) {
+            return Future.succeededFuture(cache.getByTopicName(topicName));
+        }
+        return getFromName(topicName.asKubeName());
+    }
+
+    /**
+     * Asynchronously list the KafkaTopics, a page at a time, into the cache, and start serving reads from the cache.
+     * This should be followed by a watch from the {@linkplain #cachedResourceVersion() resulting resourceVersion}
+     * using the {@linkplain #cacheUpdating(Watcher) cache updating watcher}, and can be repeated to resync the cache.
+     * @return A future which completes when the cache has been filled.
+     */
+    public Future<Void> relist() {
+        Future<Void> handler = Future.future();
+        workerPool.executeBlocking(future -> {
+            try {
+                List<KafkaTopic> kafkaTopics = new ArrayList<>();
+                String resourceVersion = null;
+                String continueToken = null;
+                do {
+                    KafkaTopicList page = operation().inNamespace(namespace).withLabels(labels.labels())
+                            .list(LIST_PAGE_SIZE, continueToken);
+                    kafkaTopics.addAll(page.getItems());
+                    // Every page of a paginated list is from the same snapshot
+                    if (resourceVersion == null && page.getMetadata() != null) {
+                        resourceVersion = page.getMetadata().getResourceVersion();
+                    }
+                    continueToken = page.getMetadata() != null ? page.getMetadata().getContinue() : null;
+                } while (continueToken != null && !continueToken.isEmpty());
+                cache.replace(kafkaTopics, resourceVersion);
+                future.complete();
+            } catch (Exception e) {
+                future.fail(e);
+            }
+        }, false, handler);
+        return handler;
+    }
+
+    /**
+     * @return The resourceVersion of the most recent list or event seen by the cache.
+     */
+    public String cachedResourceVersion() {
+        return cache.resourceVersion();
+    }
+
+    /**
+     * Start serving reads from the cache again, once a new watch using the {@linkplain #cacheUpdating(Watcher)
+     * cache updating watcher} has started from the resourceVersion of a {@linkplain #relist() list}
+     * made since the previous watch closed.
+     */
+    public void watchStarted() {
+        cache.watchStarted();
+    }
+
+    /**
+     * Wrap the given watcher so that the cache is updated with each event before the given watcher receives it.
+     * If the watch closes with an error the cache stops being used, since nothing keeps it up to date any more,
+     * until a new watch has {@linkplain #watchStarted() started}.
+     * @param watcher The watcher.
+     * @return The cache updating watcher.
+     */
+    public Watcher<KafkaTopic> cacheUpdating(Watcher<KafkaTopic> watcher) {
+        return new Watcher<KafkaTopic>() {
+            @Override
+            public void eventReceived(Action action, KafkaTopic kafkaTopic) {
+                if (action != Action.ERROR) {
+                    cache.update(action, kafkaTopic);
+                }
+                if (action == Action.DELETED) {
+                    deletedEventReceived(new ResourceName(kafkaTopic));
+                }
+                watcher.eventReceived(action, kafkaTopic);
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+                if (cause != null) {
+                    LOGGER.warn("KafkaTopic watch closed, KafkaTopics will be read from Kubernetes", cause);
+                    cache.invalidate();
+                }
+                watcher.onClose(cause);
+            }
+        };
+    }
+
+    /**
+     * @return The cache.
+     */
+    KafkaTopicCache cache() {
+        return cache;
+    }
+
     /**
      * Create the given k8s event
      */
     @Override
-    public Future<Void> createEvent(Event event) {
-        Future<Void> handler = Future.future();
-        vertx.executeBlocking(future -> {
+    public Future<Event> createEvent(Event event) {
+        Future<Event> handler = Future.future();
+        workerPool.executeBlocking(future -> {
             try {
+                Event created = null;
                 try {
                     LOGGER.debug("Creating event {}", event);
-                    client.events().inNamespace(namespace).create(event);
+                    created = client.events().inNamespace(namespace).create(event);
                 } catch (KubernetesClientException e) {
                     LOGGER.error("Error creating event {}", event, e);
                 }
+                future.complete(created);
+            } catch (Exception e) {
+                future.fail(e);
+            }
+        }, false, handler);
+        return handler;
+    }
+
+    /**
+     * Update the count and last timestamp of the given k8s event
+     */
+    @Override
+    public Future<Void> updateEvent(Event event) {
+        Future<Void> handler = Future.future();
+        workerPool.executeBlocking(future -> {
+            try {
+                try {
+                    LOGGER.debug("Updating event {}", event);
+                    client.events().inNamespace(namespace).withName(event.getMetadata().getName()).edit()
+                            .withCount(event.getCount())
+                            .withLastTimestamp(event.getLastTimestamp())
+                            .done();
+                } catch (KubernetesClientException e) {
+                    LOGGER.error("Error updating event {}", event, e);
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
             }
-        }, handler);
+        }, false, handler);
         return handler;
     }
 }
@@ -6,6 +6,8 @@ package io.strimzi.operator.topic;
 
 import io.vertx.core.Future;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -65,6 +67,19 @@ public interface Kafka {
      */
     Future<TopicMetadata> topicMetadata(TopicName topicName);
 
+    /**
+     * Asynchronously fetch the metadata of all the given topics in Kafka,
+     * completing the returned Future with the requested metadata keyed by topic name.
+     * Implementations should fetch the metadata using a small number of batched requests,
+     * rather than one request per topic.
+     * Topics which do not exist will be absent from the resulting map.
+     * If the operation fails the returned Future will be failed with the
+     * KafkaException (not an ExecutionException).
+     * @param topicNames The names of the topics to get the metadata of.
+     * @return A future which is completed with the requested metadata.
+     */
+    Future<Map<TopicName, TopicMetadata>> topicsMetadata(Set<TopicName> topicNames);
+
     /**
      * Asynchronously list the names of the topics available in Kafka,
      * completing the returned Future with the topic names.
@@ -74,5 +89,82 @@ public interface Kafka {
      */
     Future<Set<String>> listTopics();
 
+    /**
+     * Asynchronously fetch the racks of the brokers in the cluster,
+     * completing the returned Future with the rack of each broker keyed by broker id.
+     * The rack of a broker which has no rack is null.
+     * If the operation fails the returned Future will be failed with the
+     * KafkaException (not an ExecutionException).
+     * @return A future which is completed with the racks of the brokers.
+     */
+    Future<Map<Integer, String>> brokerRacks();
+
+    /**
+     * Asynchronously fetch the names of the topics with partitions being reassigned,
+     * completing the returned Future with the topic names.
+     * The result is empty when no partition reassignment is in progress.
+     * @return A future which is completed with the names of the topics being reassigned.
+     */
+    Future<Set<TopicName>> reassigningTopics();
+
+    /**
+     * Asynchronously start the reassignment of the partitions of the given topics to the given replicas,
+     * completing the returned Future once the reassignment has been started.
+     * Only one reassignment can be in progress at a time, so this fails if another is still in progress.
+     * @param assignments The replicas of each partition, keyed by partition, keyed by topic name.
+     * @return A future which is completed once the reassignment has been started.
+     */
+    Future<Void> reassignPartitions(Map<TopicName, Map<Integer, List<Integer>>> assignments);
+
+    /**
+     * Asynchronously fetch the replicas of the given topic whose replication traffic is throttled,
+     * completing the returned Future with the {@code leader.replication.throttled.replicas}
+     * and {@code follower.replication.throttled.replicas} configs which are set on the topic, keyed by config name.
+     * @param topicName The topic name.
+     * @return A future which is completed with the topic's throttled replicas configs.
+     */
+    Future<Map<String, String>> throttledReplicas(TopicName topicName);
+
+    /**
+     * Asynchronously set the replicas of the given topic whose replication traffic is throttled,
+     * completing the returned Future when the topic's config has been updated.
+     * The replicas are given as a list of {@code partition:brokerId} pairs,
+     * as in the {@code leader.replication.throttled.replicas} topic config.
+     * @param topicName The topic name.
+     * @param leaderReplicas The throttled leader replicas, or null to remove the throttle.
+     * @param followerReplicas The throttled follower replicas, or null to remove the throttle.
+     * @return A future which is completed once the topic's config has been updated.
+     */
+    Future<Void> setThrottledReplicas(TopicName topicName, String leaderReplicas, String followerReplicas);
+
+    /**
+     * Asynchronously set the rate, in bytes per second, to which the replication traffic of the
+     * throttled replicas on the given brokers is limited,
+     * completing the returned Future when the brokers' config has been updated.
+     * @param brokerIds The broker ids.
+     * @param rate The rate, or null to remove the limit.
+     * @return A future which is completed once the brokers' config has been updated.
+     */
+    Future<Void> setReplicationThrottleRate(Set<Integer> brokerIds, Long rate);
+
+    /**
+     * Asynchronously fetch the replication throttle rates of the given brokers,
+     * completing the returned Future with the {@code leader.replication.throttled.rate}
+     * and {@code follower.replication.throttled.rate} configs which are set dynamically on each broker,
+     * keyed by config name, keyed by broker id.
+     * @param brokerIds The broker ids.
+     * @return A future which is completed with the brokers' throttle rate configs.
+     */
+    Future<Map<Integer, Map<String, String>>> replicationThrottleRates(Set<Integer> brokerIds);
+
+    /**
+     * Asynchronously set the replication throttle rates of the given brokers to those previously fetched with
+     * {@link #replicationThrottleRates(Set)}, removing the throttle rate configs which were not set,
+     * completing the returned Future when the brokers' config has been updated.
+     * @param rates The throttle rate configs, keyed by config name, keyed by broker id.
+     * @return A future which is completed once the brokers' config has been updated.
+     */
+    Future<Void> setReplicationThrottleRates(Map<Integer, Map<String, String>> rates);
+
 }
 
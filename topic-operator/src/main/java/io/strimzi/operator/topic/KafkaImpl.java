@@ -4,28 +4,50 @@
  */
 package io.strimzi.operator.topic;
 
-import io.strimzi.operator.common.Util;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.strimzi.operator.topic.zk.AclBuilder;
+import io.strimzi.operator.topic.zk.Zk;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
-import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import org.I0Itec.zkclient.exception.ZkNoNodeException;
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
 import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
 import org.apache.kafka.clients.admin.ListTopicsOptions;
 import org.apache.kafka.clients.admin.ListTopicsResult;
 import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
 
 /**
  * Partial implementation of {@link Kafka} omitting those methods which imply a partition assignment.
@@ -37,275 +59,525 @@ public class KafkaImpl implements Kafka {
 
     private final static Logger LOGGER = LogManager.getLogger(KafkaImpl.class);
 
+    /** The delay before the first check that a deleted topic has really gone. */
+    private static final long DELETION_CONFIRMATION_MIN_DELAY_MS = 100L;
+
+    /** The longest delay between checks that a deleted topic has really gone. */
+    private static final long DELETION_CONFIRMATION_MAX_DELAY_MS = 1_000L;
+
+    /** The znode through which partition reassignments are requested of the controller. */
+    static final String REASSIGN_PARTITIONS_PATH = "/admin/reassign_partitions";
+
+    static final String LEADER_THROTTLED_REPLICAS = "leader.replication.throttled.replicas";
+    static final String FOLLOWER_THROTTLED_REPLICAS = "follower.replication.throttled.replicas";
+    static final String LEADER_THROTTLED_RATE = "leader.replication.throttled.rate";
+    static final String FOLLOWER_THROTTLED_RATE = "follower.replication.throttled.rate";
+
     protected final AdminClient adminClient;
 
     protected final Vertx vertx;
 
+    /** The ZooKeeper client used to reassign partitions, or null if reassignment is not supported. */
+    private final Zk zk;
+
+    /** The maximum number of topics described by each request made by {@link #topicsMetadata(Set)}. */
+    private final int metadataBatchSize;
+
+    /** Batches the requests of {@link #createTopic(Topic)}. */
+    private final AdminBatcher<NewTopic> createTopicsBatcher;
+
+    /** Batches the requests of {@link #updateTopicConfig(Topic)}. */
+    private final AdminBatcher<Config> alterConfigsBatcher;
+
+    /** Batches the requests of {@link #increasePartitions(Topic)}. */
+    private final AdminBatcher<NewPartitions> createPartitionsBatcher;
+
     private volatile boolean stopped = false;
 
     public KafkaImpl(AdminClient adminClient, Vertx vertx) {
+        this(adminClient, vertx, Integer.parseInt(io.strimzi.operator.topic.Config.TOPIC_METADATA_BATCH_SIZE.defaultValue));
+    }
+
+    public KafkaImpl(AdminClient adminClient, Vertx vertx, int metadataBatchSize) {
+        this(adminClient, vertx, metadataBatchSize,
+                Integer.parseInt(io.strimzi.operator.topic.Config.ADMIN_BATCH_SIZE.defaultValue),
+                Long.parseLong(io.strimzi.operator.topic.Config.ADMIN_BATCH_LINGER_MS.defaultValue));
+    }
+
+    /**
+     * @param adminClient The AdminClient.
+     * @param vertx The vertx instance.
+     * @param metadataBatchSize The maximum number of topics described by each request made by {@link #topicsMetadata(Set)}.
+     * @param adminBatchSize The maximum number of topics created, reconfigured or repartitioned by a single request.
+     * @param adminBatchLingerMs How long to wait for other topics to be created, reconfigured or repartitioned
+     *                           before sending a request.
+     */
+    public KafkaImpl(AdminClient adminClient, Vertx vertx, int metadataBatchSize, int adminBatchSize, long adminBatchLingerMs) {
+        this(adminClient, vertx, metadataBatchSize, adminBatchSize, adminBatchLingerMs, null);
+    }
+
+    /**
+     * @param adminClient The AdminClient.
+     * @param vertx The vertx instance.
+     * @param metadataBatchSize The maximum number of topics described by each request made by {@link #topicsMetadata(Set)}.
+     * @param adminBatchSize The maximum number of topics created, reconfigured or repartitioned by a single request.
+     * @param adminBatchLingerMs How long to wait for other topics to be created, reconfigured or repartitioned
+     *                           before sending a request.
+     * @param zk The ZooKeeper client used to reassign partitions, as {@code kafka-reassign-partitions.sh} does.
+     */
+    public KafkaImpl(AdminClient adminClient, Vertx vertx, int metadataBatchSize, int adminBatchSize, long adminBatchLingerMs, Zk zk) {
         this.adminClient = adminClient;
         this.vertx = vertx;
+        this.zk = zk;
+        this.metadataBatchSize = metadataBatchSize;
+        this.createTopicsBatcher = new AdminBatcher<>(vertx, "createTopics", adminBatchSize, adminBatchLingerMs,
+            newTopics -> adminClient.createTopics(newTopics.values()).values());
+        this.alterConfigsBatcher = new AdminBatcher<>(vertx, "alterConfigs", adminBatchSize, adminBatchLingerMs,
+            this::alterConfigs);
+        this.createPartitionsBatcher = new AdminBatcher<>(vertx, "createPartitions", adminBatchSize, adminBatchLingerMs,
+            newPartitions -> adminClient.createPartitions(newPartitions).values());
     }
 
     public void stop() {
         this.stopped = true;
     }
 
-    abstract class Work implements Runnable, Handler<Void> {
-        @Override
-        public void run() {
-            if (!stopped && !complete()) {
-                vertx.runOnContext(this);
-            }
-        }
-
-        @Override
-        public void handle(Void v) {
-            run();
-        }
-
-        protected abstract boolean complete();
+    /**
+     * Computes the result of some work, once the {@link KafkaFuture}s it depends on are done.
+     * Because those futures are done, calling {@link KafkaFuture#get()} on them won't block.
+     */
+    @FunctionalInterface
+    interface Result<T> {
+        T get() throws ExecutionException, InterruptedException;
     }
 
-    /** Some work that depends on a single future */
-    class UniWork<T> extends Work {
-        private final KafkaFuture<T> future;
-        private final Handler<AsyncResult<T>> handler;
-        private final String name;
-
-        public UniWork(String name, KafkaFuture<T> future, Handler<AsyncResult<T>> handler) {
-            if (future == null) {
-                throw new NullPointerException();
-            }
-            if (handler == null) {
-                throw new NullPointerException();
-            }
-            this.future = future;
-            this.handler = handler;
-            this.name = name;
-        }
+    /**
+     * Returns a future which is completed, on the caller's Vert.x context, with the given {@code result}
+     * once the given {@code kafkaFuture} is done.
+     */
+    protected <T> Future<T> whenComplete(String name, KafkaFuture<?> kafkaFuture, Result<T> result) {
+        return whenComplete(name, Collections.singletonList(kafkaFuture), result);
+    }
 
-        @Override
-        protected boolean complete() {
-            if (this.future.isDone()) {
-                LOGGER.trace("Future {} of work {} is done", future, this);
-                try {
-                    try {
-                        T result = this.future.get();
-                        LOGGER.debug("Future {} has result {}", future, result);
-                        this.handler.handle(Future.succeededFuture(result));
-                        LOGGER.debug("Handler for work {} executed ok", this);
-                    } catch (ExecutionException e) {
-                        LOGGER.debug("Future {} threw {}", future, e.toString());
-                        this.handler.handle(Future.failedFuture(e.getCause()));
-                    } catch (InterruptedException e) {
-                        LOGGER.debug("Future {} threw {}", future, e.toString());
-                        this.handler.handle(Future.failedFuture(e));
+    /**
+     * Returns a future which is completed, on the caller's Vert.x context, with the given {@code result}
+     * once all the given {@code kafkaFutures} are done (whether they succeeded or failed).
+     * A callback is registered with each of the {@code kafkaFutures}, which will be invoked on the AdminClient's
+     * thread, and the last of them hops back onto the Vert.x context exactly once. Nothing runs on the context
+     * while we're waiting for the AdminClient.
+     */
+    protected <T> Future<T> whenComplete(String name, Collection<? extends KafkaFuture<?>> kafkaFutures, Result<T> result) {
+        Future<T> handler = Future.future();
+        Context context = vertx.getOrCreateContext();
+        Runnable onAllDone = () -> context.runOnContext(v -> complete(name, result, handler));
+        if (kafkaFutures.isEmpty()) {
+            onAllDone.run();
+        } else {
+            // Unlike KafkaFuture.allOf() this waits for all the futures, even when one of them fails,
+            // so that result.get() never blocks
+            AtomicInteger remaining = new AtomicInteger(kafkaFutures.size());
+            for (KafkaFuture<?> kafkaFuture : kafkaFutures) {
+                kafkaFuture.whenComplete((ignored, error) -> {
+                    if (remaining.decrementAndGet() == 0) {
+                        onAllDone.run();
                     }
-                } catch (OperatorException e) {
-                    // TODO handler threw, but I have no context for creating a k8s error event
-                    LOGGER.trace("Handler for work {} threw {}", this, e.toString());
-                    e.printStackTrace();
-                }
-                return true;
-            } else {
-                if (LOGGER.isTraceEnabled()) {
-                    LOGGER.trace("Future {} is not done", future);
-                }
-                return false;
+                });
             }
         }
-
-        @Override
-        public String toString() {
-            return name + System.identityHashCode(this);
-        }
+        return handler;
     }
 
-    /** Some work that depends on two futures */
-    class MetadataWork extends Work {
-        private final KafkaFuture<TopicDescription> descFuture;
-        private final KafkaFuture<Config> configFuture;
-        private final Handler<AsyncResult<TopicMetadata>> handler;
-        private boolean handled = false;
-
-        public MetadataWork(KafkaFuture<TopicDescription> descFuture,
-                            KafkaFuture<Config> configFuture, Handler<AsyncResult<TopicMetadata>> handler) {
-            if (descFuture == null) {
-                throw new NullPointerException();
-            }
-            if (configFuture == null) {
-                throw new NullPointerException();
-            }
-            if (handler == null) {
-                throw new NullPointerException();
-            }
-            this.descFuture = descFuture;
-            this.configFuture = configFuture;
-            this.handler = handler;
+    private <T> void complete(String name, Result<T> result, Future<T> handler) {
+        if (stopped) {
+            LOGGER.debug("Ignoring completion of {} after stop", name);
+            return;
         }
-
-
-        private <T> T result(KafkaFuture<T> future) {
-            T result;
-            try {
-                result = future.get();
-                LOGGER.trace("Future {} has result {}", future, result);
-            } catch (ExecutionException e) {
-                if (e.getCause() instanceof UnknownTopicOrPartitionException) {
-                    result = null;
-                } else {
-                    LOGGER.debug("Future {} threw {}", future, e.toString());
-                    if (!handled) {
-                        handler.handle(Future.failedFuture(e.getCause()));
-                    }
-                    handled = true;
-                    return null;
-                }
-            } catch (InterruptedException e) {
-                LOGGER.debug("Future {} threw {}", future, e.toString());
-                if (!handled) {
-                    handler.handle(Future.failedFuture(e));
-                }
-                handled = true;
-                return null;
-            }
-            return result;
+        AsyncResult<T> asyncResult;
+        try {
+            T r = result.get();
+            LOGGER.debug("Future {} has result {}", name, r);
+            asyncResult = Future.succeededFuture(r);
+        } catch (ExecutionException e) {
+            LOGGER.debug("Future {} threw {}", name, e.toString());
+            asyncResult = Future.failedFuture(e.getCause());
+        } catch (InterruptedException e) {
+            LOGGER.debug("Future {} threw {}", name, e.toString());
+            asyncResult = Future.failedFuture(e);
         }
-
-        @Override
-        protected boolean complete() {
-            if (this.descFuture.isDone()
-                    && this.configFuture.isDone()) {
-                final TopicDescription desc = result(this.descFuture);
-                final Config config = result(this.configFuture);
-                if (!handled) {
-                    TopicMetadata metadata;
-                    if (desc != null && config != null) {
-                        metadata = new TopicMetadata(desc, config);
-                    } else {
-                        metadata = null;
-                    }
-                    this.handler.handle(Future.succeededFuture(metadata));
-                    this.handled = true;
-                    LOGGER.trace("Handler for work {} executed ok", this);
-                } else {
-                }
-                return handled;
-            } else {
-                if (!this.descFuture.isDone())
-                    LOGGER.trace("Description future {} is not done", descFuture);
-                if (!this.configFuture.isDone())
-                    LOGGER.trace("Config future {} is not done", configFuture);
-                return false;
-            }
+        try {
+            handler.handle(asyncResult);
+            LOGGER.trace("Handler for {} executed ok", name);
+        } catch (OperatorException e) {
+            // TODO handler threw, but I have no context for creating a k8s error event
+            LOGGER.trace("Handler for {} threw {}", name, e.toString());
+            e.printStackTrace();
         }
     }
 
     /**
-     * Queue a future and callback. The callback will be invoked (on a separate thread)
-     * when the future is ready.
+     * @return The result of the given (done) future, or null if the topic doesn't exist.
+     * @throws ExecutionException If the future failed for any other reason.
      */
-    protected void queueWork(Work work) {
-        LOGGER.trace("Queuing work {} for immediate execution", work);
-        vertx.runOnContext(work);
+    private static <T> T resultOrNullIfUnknown(KafkaFuture<T> future) throws ExecutionException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+                return null;
+            }
+            throw e;
+        }
     }
 
     /**
-     * Delete a topic via the Kafka AdminClient API, calling the given handler
-     * (in a different thread) with the result.
+     * Delete a topic via the Kafka AdminClient API, completing the returned future once
+     * the topic is no longer described by Kafka.
      */
     @Override
     public Future<Void> deleteTopic(TopicName topicName) {
-        Future<Void> handler = Future.future();
         LOGGER.debug("Deleting topic {}", topicName);
         KafkaFuture<Void> future = adminClient.deleteTopics(
                 Collections.singleton(topicName.toString())).values().get(topicName.toString());
-        queueWork(new UniWork<>("deleteTopic", future, handler));
-        return handler.compose(ig ->
-                Util.waitFor(vertx, "deleted sync " + topicName, Long.MAX_VALUE, 1000, () -> {
-                    try {
-                        return adminClient.describeTopics(Collections.singleton(topicName.toString())).all().get().get(topicName.toString()) == null;
-                    } catch (ExecutionException e) {
-                        if (e.getCause() instanceof UnknownTopicOrPartitionException) {
-                            return true;
-                        }
-                        throw new RuntimeException(e);
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
+        return whenComplete("deleteTopic", future, future::get)
+                .compose(ignored -> awaitTopicDeletion(topicName, DELETION_CONFIRMATION_MIN_DELAY_MS));
+    }
+
+    /**
+     * Describe the given topic until Kafka reports it doesn't exist, however long that takes.
+     * The delay between attempts doubles, up to {@link #DELETION_CONFIRMATION_MAX_DELAY_MS}.
+     * No thread is blocked while waiting.
+     */
+    private Future<Void> awaitTopicDeletion(TopicName topicName, long delay) {
+        KafkaFuture<TopicDescription> future = adminClient.describeTopics(
+                Collections.singleton(topicName.toString())).values().get(topicName.toString());
+        return whenComplete("deleted sync " + topicName, future, () -> resultOrNullIfUnknown(future) == null)
+                .compose(deleted -> {
+                    if (deleted) {
+                        return Future.succeededFuture();
                     }
-                })
-        );
+                    LOGGER.debug("Topic {} not yet deleted, checking again in {}ms", topicName, delay);
+                    long nextDelay = Math.min(2 * delay, DELETION_CONFIRMATION_MAX_DELAY_MS);
+                    Future<Void> retry = Future.future();
+                    vertx.setTimer(delay, timerId -> awaitTopicDeletion(topicName, nextDelay).setHandler(retry));
+                    return retry;
+                });
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * Update a topic config via the Kafka AdminClient API, completing the returned future
+     * (on the caller's context) with the result. The request may be batched with those for other topics.
+     */
     @Override
     public Future<Void> updateTopicConfig(Topic topic) {
-        Future<Void> handler = Future.future();
         Map<ConfigResource, Config> configs = TopicSerialization.toTopicConfig(topic);
-        KafkaFuture<Void> future = adminClient.alterConfigs(configs).values().get(configs.keySet().iterator().next());
-        queueWork(new UniWork<>("updateTopicConfig", future, handler));
-        return handler;
+        return alterConfigsBatcher.submit(topic.getTopicName().toString(), configs.values().iterator().next());
+    }
+
+    @SuppressWarnings("deprecation")
+    private Map<String, KafkaFuture<Void>> alterConfigs(Map<String, Config> configs) {
+        Map<ConfigResource, Config> request = new HashMap<>(configs.size());
+        for (Map.Entry<String, Config> entry : configs.entrySet()) {
+            request.put(new ConfigResource(ConfigResource.Type.TOPIC, entry.getKey()), entry.getValue());
+        }
+        Map<ConfigResource, KafkaFuture<Void>> futures = adminClient.alterConfigs(request).values();
+        Map<String, KafkaFuture<Void>> result = new HashMap<>(futures.size());
+        for (Map.Entry<ConfigResource, KafkaFuture<Void>> entry : futures.entrySet()) {
+            result.put(entry.getKey().name(), entry.getValue());
+        }
+        return result;
     }
 
     /**
-     * Get a topic config via the Kafka AdminClient API, calling the given handler
-     * (in a different thread) with the result.
+     * Get a topic config via the Kafka AdminClient API, completing the returned future
+     * (on the caller's context) with the result.
      */
     @Override
     public Future<TopicMetadata> topicMetadata(TopicName topicName) {
-        Future<TopicMetadata> handler = Future.future();
         LOGGER.debug("Getting metadata for topic {}", topicName);
         ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, topicName.toString());
         KafkaFuture<TopicDescription> descriptionFuture = adminClient.describeTopics(
                 Collections.singleton(topicName.toString())).values().get(topicName.toString());
         KafkaFuture<Config> configFuture = adminClient.describeConfigs(
                 Collections.singleton(resource)).values().get(resource);
-        queueWork(new MetadataWork(descriptionFuture,
-            configFuture,
-            result -> handler.handle(result)));
-        return handler;
+        return whenComplete("topicMetadata", asList(descriptionFuture, configFuture), () -> {
+            TopicDescription desc = resultOrNullIfUnknown(descriptionFuture);
+            Config config = resultOrNullIfUnknown(configFuture);
+            return desc != null && config != null ? new TopicMetadata(desc, config) : null;
+        });
+    }
+
+    /**
+     * Get the metadata of the given topics via the Kafka AdminClient API, in batches of at most
+     * {@link #metadataBatchSize} topics. Each batch costs a single describeTopics and a
+     * single describeConfigs request. Batches are fetched one after the other so that the
+     * brokers are not flooded with requests.
+     */
+    @Override
+    public Future<Map<TopicName, TopicMetadata>> topicsMetadata(Set<TopicName> topicNames) {
+        LOGGER.debug("Getting metadata for {} topics", topicNames.size());
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = null;
+        for (TopicName topicName : topicNames) {
+            if (batch == null || batch.size() >= metadataBatchSize) {
+                batch = new ArrayList<>(metadataBatchSize);
+                batches.add(batch);
+            }
+            batch.add(topicName.toString());
+        }
+        Map<TopicName, TopicMetadata> result = new HashMap<>(topicNames.size());
+        Future<Void> chain = Future.succeededFuture();
+        for (List<String> names : batches) {
+            chain = chain.compose(ignored -> topicsMetadataBatch(names)).map(batchResult -> {
+                result.putAll(batchResult);
+                return null;
+            });
+        }
+        return chain.map(result);
+    }
+
+    private Future<Map<TopicName, TopicMetadata>> topicsMetadataBatch(List<String> topicNames) {
+        LOGGER.debug("Getting metadata for batch of {} topics", topicNames.size());
+        List<ConfigResource> resources = new ArrayList<>(topicNames.size());
+        for (String topicName : topicNames) {
+            resources.add(new ConfigResource(ConfigResource.Type.TOPIC, topicName));
+        }
+        Map<String, KafkaFuture<TopicDescription>> descFutures = adminClient.describeTopics(topicNames).values();
+        Map<ConfigResource, KafkaFuture<Config>> configFutures = adminClient.describeConfigs(resources).values();
+        List<KafkaFuture<?>> all = new ArrayList<>(descFutures.size() + configFutures.size());
+        all.addAll(descFutures.values());
+        all.addAll(configFutures.values());
+        return whenComplete("topicsMetadata", all, () -> {
+            Map<TopicName, TopicMetadata> metadata = new HashMap<>(descFutures.size());
+            for (Map.Entry<String, KafkaFuture<TopicDescription>> entry : descFutures.entrySet()) {
+                TopicDescription desc = resultOrNullIfUnknown(entry.getValue());
+                Config config = resultOrNullIfUnknown(configFutures.get(new ConfigResource(ConfigResource.Type.TOPIC, entry.getKey())));
+                if (desc != null && config != null) {
+                    metadata.put(new TopicName(entry.getKey()), new TopicMetadata(desc, config));
+                }
+            }
+            return metadata;
+        });
     }
 
     @Override
     public Future<Set<String>> listTopics() {
-        Future<Set<String>> handler = Future.future();
         LOGGER.debug("Listing topics");
 
         ListTopicsOptions listOptions = new ListTopicsOptions();
         listOptions.listInternal(true);
 
         ListTopicsResult future = adminClient.listTopics(listOptions);
-        queueWork(new UniWork<>("listTopics", future.names(), handler));
-        return handler;
+        return whenComplete("listTopics", future.names(), future.names()::get);
     }
 
 
+    /**
+     * Increase the partitions of a topic via the Kafka AdminClient API, completing the returned future
+     * (on the caller's context) with the result. The request may be batched with those for other topics.
+     */
     @Override
     public Future<Void> increasePartitions(Topic topic) {
-        Future<Void> handler = Future.future();
         final NewPartitions newPartitions = NewPartitions.increaseTo(topic.getNumPartitions());
-        final Map<String, NewPartitions> request = Collections.singletonMap(topic.getTopicName().toString(), newPartitions);
-        KafkaFuture<Void> future = adminClient.createPartitions(request).values().get(topic.getTopicName().toString());
-        queueWork(new UniWork<>("increasePartitions", future, handler));
-        return handler;
+        return createPartitionsBatcher.submit(topic.getTopicName().toString(), newPartitions);
     }
 
     /**
-     * Create a new topic via the Kafka AdminClient API, calling the given handler
-     * (in a different thread) with the result.
+     * Create a new topic via the Kafka AdminClient API, completing the returned future
+     * (on the caller's context) with the result. The request may be batched with those for other topics.
      */
     @Override
     public Future<Void> createTopic(Topic topic) {
-        Future<Void> handler = Future.future();
         NewTopic newTopic = TopicSerialization.toNewTopic(topic, null);
 
         LOGGER.debug("Creating topic {}", newTopic);
-        KafkaFuture<Void> future = adminClient.createTopics(
-                Collections.singleton(newTopic)).values().get(newTopic.name());
-        queueWork(new UniWork<>("createTopic", future, handler));
-        return handler;
+        return createTopicsBatcher.submit(newTopic.name(), newTopic);
+    }
+
+    @Override
+    public Future<Map<Integer, String>> brokerRacks() {
+        DescribeClusterResult cluster = adminClient.describeCluster();
+        return whenComplete("brokerRacks", cluster.nodes(), () -> {
+            Map<Integer, String> racks = new HashMap<>();
+            for (Node node : cluster.nodes().get()) {
+                racks.put(node.id(), node.rack());
+            }
+            return racks;
+        });
+    }
+
+    /**
+     * Read the topics being reassigned from the reassignment znode,
+     * from which the controller removes each partition once it has been reassigned.
+     */
+    @Override
+    public Future<Set<TopicName>> reassigningTopics() {
+        if (zk == null) {
+            return Future.failedFuture(new UnsupportedOperationException("Partition reassignment requires ZooKeeper"));
+        }
+        Future<Set<TopicName>> result = Future.future();
+        zk.getData(REASSIGN_PARTITIONS_PATH, dataResult -> {
+            if (dataResult.failed()) {
+                if (dataResult.cause() instanceof ZkNoNodeException) {
+                    result.complete(Collections.emptySet());
+                } else {
+                    result.fail(dataResult.cause());
+                }
+                return;
+            }
+            try {
+                Set<TopicName> topicNames = new HashSet<>();
+                JsonNode root = new ObjectMapper().readTree(dataResult.result());
+                for (JsonNode partition : root.path("partitions")) {
+                    topicNames.add(new TopicName(partition.path("topic").asText()));
+                }
+                result.complete(topicNames);
+            } catch (IOException e) {
+                result.fail(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Start a reassignment by creating the reassignment znode, in the same way as {@code kafka-reassign-partitions.sh}.
+     * The creation fails if the znode already exists, that is, if another reassignment is in progress.
+     */
+    @Override
+    public Future<Void> reassignPartitions(Map<TopicName, Map<Integer, List<Integer>>> assignments) {
+        if (zk == null) {
+            return Future.failedFuture(new UnsupportedOperationException("Partition reassignment requires ZooKeeper"));
+        }
+        byte[] data;
+        try {
+            data = reassignmentJson(assignments);
+        } catch (JsonProcessingException e) {
+            return Future.failedFuture(e);
+        }
+        LOGGER.debug("Reassigning partitions {}", assignments);
+        Future<Void> result = Future.future();
+        zk.create(REASSIGN_PARTITIONS_PATH, data, AclBuilder.PUBLIC, CreateMode.PERSISTENT, result);
+        return result;
+    }
+
+    static byte[] reassignmentJson(Map<TopicName, Map<Integer, List<Integer>>> assignments) throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("version", 1);
+        ArrayNode partitions = root.putArray("partitions");
+        for (Map.Entry<TopicName, Map<Integer, List<Integer>>> topic : assignments.entrySet()) {
+            for (Map.Entry<Integer, List<Integer>> partition : topic.getValue().entrySet()) {
+                ObjectNode node = partitions.addObject();
+                node.put("topic", topic.getKey().toString());
+                node.put("partition", partition.getKey());
+                ArrayNode replicas = node.putArray("replicas");
+                partition.getValue().forEach(replicas::add);
+            }
+        }
+        return mapper.writeValueAsString(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the throttled replicas of a topic via the Kafka AdminClient API.
+     */
+    @Override
+    public Future<Map<String, String>> throttledReplicas(TopicName topicName) {
+        ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, topicName.toString());
+        KafkaFuture<Config> future = adminClient.describeConfigs(Collections.singleton(resource)).values().get(resource);
+        return whenComplete("throttledReplicas", future, () -> dynamicConfigs(future.get(),
+                ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG, LEADER_THROTTLED_REPLICAS, FOLLOWER_THROTTLED_REPLICAS));
+    }
+
+    /**
+     * Set the throttled replicas of a topic via the Kafka AdminClient API, leaving the rest of its config unchanged.
+     */
+    @Override
+    public Future<Void> setThrottledReplicas(TopicName topicName, String leaderReplicas, String followerReplicas) {
+        ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, topicName.toString());
+        List<AlterConfigOp> ops = asList(
+                alterConfigOp(LEADER_THROTTLED_REPLICAS, leaderReplicas),
+                alterConfigOp(FOLLOWER_THROTTLED_REPLICAS, followerReplicas));
+        KafkaFuture<Void> future = adminClient.incrementalAlterConfigs(Collections.singletonMap(resource, ops)).all();
+        return whenComplete("setThrottledReplicas", future, future::get);
+    }
+
+    /**
+     * Set the replication throttle rate of the given brokers via the Kafka AdminClient API,
+     * leaving the rest of their dynamic config unchanged.
+     */
+    @Override
+    public Future<Void> setReplicationThrottleRate(Set<Integer> brokerIds, Long rate) {
+        Map<ConfigResource, Collection<AlterConfigOp>> request = new HashMap<>(brokerIds.size());
+        String value = rate != null ? rate.toString() : null;
+        for (Integer brokerId : brokerIds) {
+            request.put(new ConfigResource(ConfigResource.Type.BROKER, brokerId.toString()), asList(
+                    alterConfigOp(LEADER_THROTTLED_RATE, value),
+                    alterConfigOp(FOLLOWER_THROTTLED_RATE, value)));
+        }
+        KafkaFuture<Void> future = adminClient.incrementalAlterConfigs(request).all();
+        return whenComplete("setReplicationThrottleRate", future, future::get);
+    }
+
+    /**
+     * Get the replication throttle rates of the given brokers via the Kafka AdminClient API.
+     */
+    @Override
+    public Future<Map<Integer, Map<String, String>>> replicationThrottleRates(Set<Integer> brokerIds) {
+        List<ConfigResource> resources = new ArrayList<>(brokerIds.size());
+        for (Integer brokerId : brokerIds) {
+            resources.add(new ConfigResource(ConfigResource.Type.BROKER, brokerId.toString()));
+        }
+        KafkaFuture<Map<ConfigResource, Config>> future = adminClient.describeConfigs(resources).all();
+        return whenComplete("replicationThrottleRates", future, () -> {
+            Map<Integer, Map<String, String>> result = new HashMap<>(brokerIds.size());
+            for (Map.Entry<ConfigResource, Config> entry : future.get().entrySet()) {
+                result.put(Integer.valueOf(entry.getKey().name()), dynamicConfigs(entry.getValue(),
+                        ConfigEntry.ConfigSource.DYNAMIC_BROKER_CONFIG, LEADER_THROTTLED_RATE, FOLLOWER_THROTTLED_RATE));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Restore the replication throttle rates of the given brokers via the Kafka AdminClient API,
+     * leaving the rest of their dynamic config unchanged.
+     */
+    @Override
+    public Future<Void> setReplicationThrottleRates(Map<Integer, Map<String, String>> rates) {
+        Map<ConfigResource, Collection<AlterConfigOp>> request = new HashMap<>(rates.size());
+        for (Map.Entry<Integer, Map<String, String>> broker : rates.entrySet()) {
+            request.put(new ConfigResource(ConfigResource.Type.BROKER, broker.getKey().toString()), asList(
+                    alterConfigOp(LEADER_THROTTLED_RATE, broker.getValue().get(LEADER_THROTTLED_RATE)),
+                    alterConfigOp(FOLLOWER_THROTTLED_RATE, broker.getValue().get(FOLLOWER_THROTTLED_RATE))));
+        }
+        KafkaFuture<Void> future = adminClient.incrementalAlterConfigs(request).all();
+        return whenComplete("setReplicationThrottleRates", future, future::get);
+    }
+
+    /**
+     * @return The values of those of the given configs which are set in the given config with the given source.
+     */
+    private static Map<String, String> dynamicConfigs(Config config, ConfigEntry.ConfigSource source, String... names) {
+        Map<String, String> result = new HashMap<>(names.length);
+        for (String name : names) {
+            ConfigEntry entry = config.get(name);
+            if (entry != null && entry.source() == source && entry.value() != null) {
+                result.put(name, entry.value());
+            }
+        }
+        return result;
+    }
+
+    private static AlterConfigOp alterConfigOp(String name, String value) {
+        return value != null
+                ? new AlterConfigOp(new ConfigEntry(name, value), AlterConfigOp.OpType.SET)
+                : new AlterConfigOp(new ConfigEntry(name, ""), AlterConfigOp.OpType.DELETE);
+    }
+
+    /**
+     * @return The number of createTopics, alterConfigs and createPartitions requests which have been sent.
+     */
+    long adminBatches() {
+        return createTopicsBatcher.batches() + alterConfigsBatcher.batches() + createPartitionsBatcher.batches();
     }
 
 }
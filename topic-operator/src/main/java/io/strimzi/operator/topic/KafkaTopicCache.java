@@ -0,0 +1,235 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.client.Watcher;
+import io.strimzi.api.kafka.model.KafkaTopic;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory copy of the KafkaTopics, indexed by resource name and by topic name.
+ *
+ * The cache is filled by a {@linkplain #replace(List, String) list} and then kept up to date by
+ * the {@linkplain #update(Watcher.Action, KafkaTopic) events} of a watch started from the list's resourceVersion,
+ * and by the operator's own writes. It is only {@linkplain #isSynced() synced} between a list and the watch closing,
+ * and should not be read from otherwise. Once the watch has closed, the cache is synced again when a
+ * {@linkplain #watchStarted() new watch starts} from a fresh list.
+ *
+ * A list can start before a deletion and finish after it, so deletions are remembered with their resourceVersion
+ * until a list which reflects them has replaced the cache. Listed KafkaTopics which are not newer than a
+ * remembered deletion are not cached.
+ */
+class KafkaTopicCache {
+
+    private final static Logger LOGGER = LogManager.getLogger(KafkaTopicCache.class);
+
+    // All guarded by this
+    private final Map<ResourceName, KafkaTopic> byName = new HashMap<>();
+    private final Map<TopicName, ResourceName> byTopicName = new HashMap<>();
+    private boolean synced = false;
+    private boolean watchClosed = false;
+    private boolean listedSinceWatchClosed = false;
+    private String resourceVersion;
+    /** The resourceVersions at which KafkaTopics were deleted, or the latest seen if that isn't known. */
+    private final Map<ResourceName, String> deletions = new HashMap<>();
+
+    /**
+     * Replace the contents of the cache with the given list of KafkaTopics, and mark the cache as synced,
+     * unless the watch has closed.
+     * Changes which watch events or writes have made to the cache while the list was in progress are kept.
+     * @param kafkaTopics The KafkaTopics.
+     * @param resourceVersion The resourceVersion of the list.
+     */
+    synchronized void replace(List<KafkaTopic> kafkaTopics, String resourceVersion) {
+        Map<ResourceName, KafkaTopic> previous = new HashMap<>(byName);
+        byName.clear();
+        byTopicName.clear();
+        for (KafkaTopic kafkaTopic : kafkaTopics) {
+            ResourceName name = new ResourceName(kafkaTopic);
+            KafkaTopic cached = previous.remove(name);
+            String deletedVersion = deletions.get(name);
+            if (deletedVersion != null && !isNewer(kafkaTopic.getMetadata().getResourceVersion(), deletedVersion)) {
+                LOGGER.debug("Not caching listed KafkaTopic {} at resourceVersion {}, deleted at resourceVersion {}",
+                        name, kafkaTopic.getMetadata().getResourceVersion(), deletedVersion);
+            } else {
+                put(cached != null && isOlder(kafkaTopic, cached) ? cached : kafkaTopic);
+            }
+        }
+        // Keep KafkaTopics which were added after the list's snapshot
+        for (KafkaTopic cached : previous.values()) {
+            if (isNewer(cached.getMetadata().getResourceVersion(), resourceVersion)) {
+                put(cached);
+            }
+        }
+        // Forget the deletions which the list reflects
+        deletions.values().removeIf(deletedVersion -> !isNewer(deletedVersion, resourceVersion));
+        if (this.resourceVersion == null || !isNewer(this.resourceVersion, resourceVersion)) {
+            this.resourceVersion = resourceVersion;
+        }
+        this.synced = !watchClosed;
+        this.listedSinceWatchClosed = true;
+        LOGGER.debug("Cached {} KafkaTopics at resourceVersion {}", byName.size(), resourceVersion);
+    }
+
+    /**
+     * Update the cache with a watch event, or with the result of a write.
+     * Events for versions which are older than the cached version are ignored.
+     * @param action The action.
+     * @param kafkaTopic The KafkaTopic.
+     */
+    synchronized void update(Watcher.Action action, KafkaTopic kafkaTopic) {
+        ResourceName name = new ResourceName(kafkaTopic);
+        switch (action) {
+            case ADDED:
+            case MODIFIED:
+                KafkaTopic cached = byName.get(name);
+                if (cached != null && isOlder(kafkaTopic, cached)) {
+                    LOGGER.debug("Ignoring {} of KafkaTopic {} at resourceVersion {}, older than cached resourceVersion {}",
+                            action, name, kafkaTopic.getMetadata().getResourceVersion(), cached.getMetadata().getResourceVersion());
+                } else {
+                    removeCached(name);
+                    put(kafkaTopic);
+                }
+                break;
+            case DELETED:
+                remove(name, kafkaTopic.getMetadata().getResourceVersion());
+                break;
+            default:
+                break;
+        }
+        String version = kafkaTopic.getMetadata().getResourceVersion();
+        if (version != null) {
+            resourceVersion = version;
+        }
+    }
+
+    /**
+     * Remove the KafkaTopic with the given name, following its successful deletion.
+     * @param name The name of the KafkaTopic.
+     */
+    synchronized void remove(ResourceName name) {
+        KafkaTopic cached = byName.get(name);
+        remove(name, cached != null ? cached.getMetadata().getResourceVersion() : resourceVersion);
+    }
+
+    private void remove(ResourceName name, String deletedVersion) {
+        if (deletedVersion != null) {
+            deletions.merge(name, deletedVersion, (a, b) -> isNewer(a, b) ? a : b);
+        }
+        removeCached(name);
+    }
+
+    private void removeCached(ResourceName name) {
+        KafkaTopic removed = byName.remove(name);
+        if (removed != null) {
+            TopicName topicName = topicName(removed);
+            if (topicName != null && name.equals(byTopicName.get(topicName))) {
+                byTopicName.remove(topicName);
+            }
+        }
+    }
+
+    private void put(KafkaTopic kafkaTopic) {
+        ResourceName name = new ResourceName(kafkaTopic);
+        byName.put(name, kafkaTopic);
+        TopicName topicName = topicName(kafkaTopic);
+        if (topicName != null) {
+            byTopicName.put(topicName, name);
+        }
+    }
+
+    private static TopicName topicName(KafkaTopic kafkaTopic) {
+        if (kafkaTopic.getSpec() == null) {
+            return null;
+        }
+        try {
+            return new TopicName(kafkaTopic);
+        } catch (RuntimeException e) {
+            // An invalid topic name, which the operator will report when it reconciles the KafkaTopic
+            return null;
+        }
+    }
+
+    /**
+     * Whether {@code kafkaTopic} is older than {@code cached}.
+     * A resourceVersion is opaque, so if either isn't a number they are assumed not to be ordered.
+     */
+    private static boolean isOlder(KafkaTopic kafkaTopic, KafkaTopic cached) {
+        return isNewer(cached.getMetadata().getResourceVersion(), kafkaTopic.getMetadata().getResourceVersion());
+    }
+
+    /**
+     * Whether resourceVersion {@code a} is newer than {@code b}.
+     * A resourceVersion is opaque, so if either isn't a number they are assumed not to be ordered.
+     */
+    private static boolean isNewer(String a, String b) {
+        try {
+            return Long.parseLong(a) > Long.parseLong(b);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Mark the cache as no longer synced, because the watch keeping it up to date has closed.
+     */
+    synchronized void invalidate() {
+        synced = false;
+        watchClosed = true;
+        listedSinceWatchClosed = false;
+    }
+
+    /**
+     * Mark the cache as synced again, once a new watch has started from the resourceVersion of a list
+     * made since the previous watch closed.
+     */
+    synchronized void watchStarted() {
+        if (watchClosed && listedSinceWatchClosed) {
+            watchClosed = false;
+            synced = true;
+            LOGGER.debug("KafkaTopic watch restarted at resourceVersion {}", resourceVersion);
+        }
+    }
+
+    synchronized boolean isSynced() {
+        return synced;
+    }
+
+    synchronized String resourceVersion() {
+        return resourceVersion;
+    }
+
+    /**
+     * @return The KafkaTopic with the given name, or null.
+     */
+    synchronized KafkaTopic get(ResourceName name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @return The KafkaTopic for the topic with the given name, or null.
+     */
+    synchronized KafkaTopic getByTopicName(TopicName topicName) {
+        ResourceName name = byTopicName.get(topicName);
+        return name != null ? byName.get(name) : null;
+    }
+
+    /**
+     * @return All the cached KafkaTopics.
+     */
+    synchronized List<KafkaTopic> list() {
+        return new ArrayList<>(byName.values());
+    }
+
+    synchronized int size() {
+        return byName.size();
+    }
+}
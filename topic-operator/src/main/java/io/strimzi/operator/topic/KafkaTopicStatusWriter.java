@@ -0,0 +1,243 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.strimzi.api.kafka.model.KafkaTopic;
+import io.strimzi.api.kafka.model.KafkaTopicBuilder;
+import io.strimzi.api.kafka.model.status.KafkaTopicStatus;
+import io.strimzi.operator.cluster.model.StatusDiff;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the status of KafkaTopics, separately from the reconciliations which compute them.
+ *
+ * Only the latest desired status of each KafkaTopic is kept: a status which is submitted while
+ * another is waiting to be written replaces it, and both callers are given the result of writing the later one.
+ * At most one write per KafkaTopic, and at most {@code maxInflight} writes in total, are in flight at any time.
+ *
+ * The writer also remembers the generation of each KafkaTopic whose status it last wrote,
+ * so that the watch events caused by its own writes can be ignored.
+ * At most {@code maxGenerations} generations are remembered, the least recently used being forgotten first.
+ */
+class KafkaTopicStatusWriter {
+
+    private final static Logger LOGGER = LogManager.getLogger(KafkaTopicStatusWriter.class);
+
+    /** A status waiting to be written, and the futures of the callers who submitted it. */
+    private static class Write {
+        private final ResourceName name;
+        private LogContext logContext;
+        private KafkaTopic topic;
+        private final List<Future<Void>> results = new ArrayList<>(1);
+
+        Write(ResourceName name) {
+            this.name = name;
+        }
+    }
+
+    private final K8s k8s;
+    private final int maxInflight;
+
+    // All guarded by this
+    /** The writes which can be started, in the order they were first submitted. */
+    private final LinkedHashMap<ResourceName, Write> ready = new LinkedHashMap<>();
+    /** The writes which must wait for an in-flight write of the same KafkaTopic. */
+    private final Map<ResourceName, Write> blocked = new HashMap<>();
+    /** The generations of the KafkaTopics whose status is being written. */
+    private final Map<ResourceName, Long> inflight = new HashMap<>();
+    private final Map<ResourceName, Long> generations;
+    private long written = 0;
+    private long coalesced = 0;
+
+    /**
+     * @param k8s The k8s instance.
+     * @param maxInflight The maximum number of writes in flight at the same time.
+     * @param maxGenerations The maximum number of generations to remember.
+     */
+    KafkaTopicStatusWriter(K8s k8s, int maxInflight, int maxGenerations) {
+        if (maxInflight <= 0) {
+            throw new IllegalArgumentException("maxInflight must be positive");
+        }
+        this.k8s = k8s;
+        this.maxInflight = maxInflight;
+        this.generations = new LinkedHashMap<ResourceName, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResourceName, Long> eldest) {
+                return size() > maxGenerations;
+            }
+        };
+    }
+
+    /**
+     * Write the given status to the given KafkaTopic, unless the KafkaTopic already has that status.
+     * @param logContext The log context.
+     * @param topic The KafkaTopic, as observed by the reconciliation which computed the status.
+     * @param status The status.
+     * @return A future which is completed once the status, or a later one for the same KafkaTopic, is written.
+     */
+    Future<Void> write(LogContext logContext, KafkaTopic topic, KafkaTopicStatus status) {
+        ResourceName name = new ResourceName(topic);
+        Future<Void> result = Future.future();
+        synchronized (this) {
+            Write write = ready.get(name);
+            if (write == null) {
+                write = blocked.get(name);
+            }
+            if (write == null) {
+                if (!inflight.containsKey(name) && new StatusDiff(topic.getStatus(), status).isEmpty()) {
+                    LOGGER.debug("{}: KafkaTopic {} already has the status", logContext, name);
+                    return Future.succeededFuture();
+                }
+                write = new Write(name);
+                if (inflight.containsKey(name)) {
+                    blocked.put(name, write);
+                } else {
+                    ready.put(name, write);
+                }
+            } else {
+                LOGGER.debug("{}: Replacing the pending status of KafkaTopic {}", logContext, name);
+                coalesced++;
+            }
+            write.logContext = logContext;
+            write.topic = new KafkaTopicBuilder(topic).withStatus(status).build();
+            write.results.add(result);
+        }
+        startReady();
+        return result;
+    }
+
+    private void startReady() {
+        List<Write> started = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Write> iterator = ready.values().iterator();
+            while (inflight.size() < maxInflight && iterator.hasNext()) {
+                Write write = iterator.next();
+                iterator.remove();
+                inflight.put(write.name, write.topic.getMetadata().getGeneration());
+                started.add(write);
+            }
+        }
+        for (Write write : started) {
+            Future<KafkaTopic> updated;
+            try {
+                updated = k8s.updateResourceStatus(write.topic);
+            } catch (Throwable t) {
+                updated = Future.failedFuture(t);
+            }
+            updated.setHandler(ar -> written(write, ar));
+        }
+    }
+
+    private void written(Write write, AsyncResult<KafkaTopic> ar) {
+        if (ar.succeeded() && ar.result() != null) {
+            ObjectMeta metadata = ar.result().getMetadata();
+            LOGGER.debug("{}: status was set rv={}, generation={}, observedGeneration={}",
+                    write.logContext,
+                    metadata.getResourceVersion(),
+                    metadata.getGeneration(),
+                    ar.result().getStatus().getObservedGeneration());
+        } else if (ar.failed()) {
+            LOGGER.error("{}: Error setting resource status", write.logContext, ar.cause());
+        }
+        synchronized (this) {
+            inflight.remove(write.name);
+            written++;
+            if (ar.succeeded() && ar.result() != null) {
+                generations.put(write.name, ar.result().getMetadata().getGeneration());
+            }
+            Write next = blocked.remove(write.name);
+            if (next != null) {
+                ready.put(next.name, next);
+            }
+        }
+        for (Future<Void> result : write.results) {
+            try {
+                result.handle(ar.map((Void) null));
+            } catch (Throwable t) {
+                LOGGER.error("{}: Error handling result of status write", write.logContext, t);
+            }
+        }
+        startReady();
+    }
+
+    /**
+     * @return The generation of the KafkaTopic with the given name whose status is being written,
+     * or was last written, or null.
+     */
+    synchronized Long lastGeneration(ResourceName name) {
+        Long generation = inflight.get(name);
+        return generation != null ? generation : generations.get(name);
+    }
+
+    /**
+     * Forget the KafkaTopic with the given name, following its deletion.
+     * Any status still waiting to be written to it is discarded.
+     */
+    void forget(ResourceName name) {
+        List<Write> discarded = new ArrayList<>(2);
+        synchronized (this) {
+            generations.remove(name);
+            Write write = ready.remove(name);
+            if (write != null) {
+                discarded.add(write);
+            }
+            write = blocked.remove(name);
+            if (write != null) {
+                discarded.add(write);
+            }
+        }
+        for (Write write : discarded) {
+            for (Future<Void> result : write.results) {
+                result.tryComplete();
+            }
+        }
+    }
+
+    /**
+     * @return The number of statuses waiting to be written.
+     */
+    synchronized int pending() {
+        return ready.size() + blocked.size();
+    }
+
+    /**
+     * @return The number of writes in flight.
+     */
+    synchronized int inflight() {
+        return inflight.size();
+    }
+
+    /**
+     * @return The number of statuses which have been written (successfully or not).
+     */
+    synchronized long written() {
+        return written;
+    }
+
+    /**
+     * @return The number of statuses which were replaced by a later one before they were written.
+     */
+    synchronized long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return The number of generations remembered.
+     */
+    synchronized int generations() {
+        return generations.size();
+    }
+}
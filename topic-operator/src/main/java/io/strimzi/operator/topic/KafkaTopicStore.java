@@ -0,0 +1,291 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Implementation of {@link TopicStore} that stores the topic state in a compacted Kafka topic.
+ *
+ * The store topic has a single partition, keyed by topic name, with the value being the
+ * {@linkplain TopicSerialization#toStoreBytes(Topic, Config.TopicStoreFormat) encoding} of the topic,
+ * or a tombstone once the topic has been deleted.
+ * On {@link #start()} the store topic is read from the beginning to materialise the state in memory.
+ * Thereafter reads are served from memory and writes are produced to the store topic, only becoming visible
+ * once they've been acknowledged. Because writes are produced asynchronously, writes of different topics
+ * which happen at the same time are sent to the broker in the same batch.
+ *
+ * This assumes that the operator is the only writer of the store topic.
+ */
+public class KafkaTopicStore implements TopicStore {
+
+    private final static Logger LOGGER = LogManager.getLogger(KafkaTopicStore.class);
+
+    private final Vertx vertx;
+    private final WorkerExecutor workerPool;
+    private final Properties clientProperties;
+    private final String storeTopic;
+    private final Config.TopicStoreFormat format;
+    private final ConcurrentHashMap<TopicName, Topic> topics = new ConcurrentHashMap<>();
+    private volatile Producer<String, byte[]> producer;
+
+    /**
+     * @param vertx The vertx instance.
+     * @param clientProperties The properties (bootstrap servers, security etc.) common to all the Kafka clients used.
+     * @param storeTopic The name of the compacted topic in which to store the topic state.
+     */
+    public KafkaTopicStore(Vertx vertx, Properties clientProperties, String storeTopic) {
+        this(vertx, vertx.createSharedWorkerExecutor("topic-operator-kafka"), clientProperties, storeTopic);
+    }
+
+    /**
+     * @param vertx The vertx instance.
+     * @param workerPool The worker pool in which to make the blocking calls to Kafka.
+     * @param clientProperties The properties (bootstrap servers, security etc.) common to all the Kafka clients used.
+     * @param storeTopic The name of the compacted topic in which to store the topic state.
+     */
+    public KafkaTopicStore(Vertx vertx, WorkerExecutor workerPool, Properties clientProperties, String storeTopic) {
+        this(vertx, workerPool, clientProperties, storeTopic, Config.TopicStoreFormat.JSON);
+    }
+
+    /**
+     * @param vertx The vertx instance.
+     * @param workerPool The worker pool in which to make the blocking calls to Kafka.
+     * @param clientProperties The properties (bootstrap servers, security etc.) common to all the Kafka clients used.
+     * @param storeTopic The name of the compacted topic in which to store the topic state.
+     * @param format How to encode the topics written to the store. Topics in either format can be read.
+     */
+    public KafkaTopicStore(Vertx vertx, WorkerExecutor workerPool, Properties clientProperties, String storeTopic,
+                           Config.TopicStoreFormat format) {
+        this.vertx = vertx;
+        this.workerPool = workerPool;
+        this.clientProperties = clientProperties;
+        this.storeTopic = storeTopic;
+        this.format = format;
+    }
+
+    /**
+     * Asynchronously create the store topic, if it doesn't already exist,
+     * and read it to materialise the stored topics in memory.
+     * The store cannot be used until the returned future has completed successfully.
+     * @return A future which completes when the store is ready to use.
+     */
+    public Future<Void> start() {
+        Future<Void> result = Future.future();
+        workerPool.executeBlocking(future -> {
+            try {
+                createStoreTopic();
+                materialize();
+                Properties producerProperties = new Properties();
+                producerProperties.putAll(clientProperties);
+                producerProperties.put(ProducerConfig.ACKS_CONFIG, "all");
+                producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+                producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, "5");
+                producer = new KafkaProducer<>(producerProperties, new StringSerializer(), new ByteArraySerializer());
+                future.complete();
+            } catch (Throwable t) {
+                future.fail(t);
+            }
+        }, result);
+        return result;
+    }
+
+    private void createStoreTopic() throws InterruptedException, ExecutionException {
+        try (AdminClient adminClient = AdminClient.create(clientProperties)) {
+            if (adminClient.listTopics().names().get().contains(storeTopic)) {
+                return;
+            }
+            int numBrokers = adminClient.describeCluster().nodes().get().size();
+            short replicationFactor = (short) Math.max(1, Math.min(3, numBrokers));
+            Map<String, String> configs = new HashMap<>();
+            configs.put(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT);
+            configs.put(TopicConfig.MIN_IN_SYNC_REPLICAS_CONFIG, Integer.toString(Math.max(1, replicationFactor - 1)));
+            LOGGER.info("Creating topic store topic {} with replication factor {}", storeTopic, replicationFactor);
+            adminClient.createTopics(Collections.singleton(new NewTopic(storeTopic, 1, replicationFactor).configs(configs)))
+                    .all().get();
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                throw e;
+            }
+        }
+    }
+
+    private void materialize() {
+        Properties consumerProperties = new Properties();
+        consumerProperties.putAll(clientProperties);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(consumerProperties, new StringDeserializer(), new ByteArrayDeserializer())) {
+            TopicPartition partition = new TopicPartition(storeTopic, 0);
+            List<TopicPartition> partitions = Collections.singletonList(partition);
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            long endOffset = consumer.endOffsets(partitions).get(partition);
+            while (consumer.position(partition) < endOffset) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+                    TopicName topicName = new TopicName(record.key());
+                    if (record.value() == null) {
+                        topics.remove(topicName);
+                    } else {
+                        topics.put(topicName, TopicSerialization.fromStoreBytes(record.value()));
+                    }
+                }
+            }
+        }
+        LOGGER.info("Read {} topics from topic store topic {}", topics.size(), storeTopic);
+    }
+
+    /**
+     * Asynchronously move the topics in the given ZooKeeper store to this store.
+     * Topics which are already in this store are not overwritten. Each topic is removed from
+     * the ZooKeeper store once it is safely in this store, so the migration happens once, and
+     * resumes where it left off if it's interrupted.
+     * @param zkTopicStore The ZooKeeper store.
+     * @return A future which completes when the migration is complete.
+     */
+    public Future<Void> migrateFrom(ZkTopicStore zkTopicStore) {
+        return zkTopicStore.list().compose(names -> {
+            if (names.isEmpty()) {
+                return Future.succeededFuture();
+            }
+            LOGGER.info("Migrating {} topics from the ZooKeeper topic store to topic store topic {}", names.size(), storeTopic);
+            List<Future> migrations = new ArrayList<>(names.size());
+            for (TopicName name : names) {
+                migrations.add(zkTopicStore.read(name).compose(topic -> {
+                    if (topic == null || topics.containsKey(name)) {
+                        return Future.<Void>succeededFuture();
+                    }
+                    return create(topic);
+                }).compose(ignored -> zkTopicStore.delete(name).otherwise(error -> {
+                    if (error instanceof NoSuchEntityExistsException) {
+                        return null;
+                    }
+                    throw new RuntimeException(error);
+                })));
+            }
+            return CompositeFuture.all(migrations).<Void>mapEmpty();
+        });
+    }
+
+    /**
+     * Close the producer used by this store.
+     */
+    public void stop() {
+        Producer<String, byte[]> producer = this.producer;
+        if (producer != null) {
+            producer.close(Duration.ofSeconds(10));
+        }
+    }
+
+    @Override
+    public Future<Topic> read(TopicName name) {
+        return Future.succeededFuture(topics.get(name));
+    }
+
+    @Override
+    public Future<Void> create(Topic topic) {
+        if (topics.containsKey(topic.getTopicName())) {
+            return Future.failedFuture(new EntityExistsException());
+        }
+        return write(topic.getTopicName(), TopicSerialization.toStoreBytes(topic, format)).map(ignored -> {
+            topics.put(topic.getTopicName(), topic);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> update(Topic topic) {
+        if (!topics.containsKey(topic.getTopicName())) {
+            return Future.failedFuture(new NoSuchEntityExistsException());
+        }
+        return write(topic.getTopicName(), TopicSerialization.toStoreBytes(topic, format)).map(ignored -> {
+            topics.put(topic.getTopicName(), topic);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> delete(TopicName name) {
+        if (!topics.containsKey(name)) {
+            return Future.failedFuture(new NoSuchEntityExistsException());
+        }
+        // A tombstone, so that compaction eventually removes the topic
+        return write(name, null).map(ignored -> {
+            topics.remove(name);
+            return null;
+        });
+    }
+
+    /**
+     * Produce the given value to the store topic, completing the returned future on the caller's
+     * context once the record has been acknowledged.
+     * The record is sent from the worker pool, because {@code send()} can block while it fetches
+     * metadata or waits for buffer space. Sends are ordered, so writes are stored in the order they were made.
+     */
+    private Future<Void> write(TopicName name, byte[] value) {
+        Producer<String, byte[]> producer = this.producer;
+        if (producer == null) {
+            return Future.failedFuture(new IllegalStateException("The topic store has not been started"));
+        }
+        Future<Void> result = Future.future();
+        LOGGER.debug("Writing topic {} to topic store topic {}", name, storeTopic);
+        workerPool.<Void>executeBlocking(future -> {
+            try {
+                producer.send(new ProducerRecord<>(storeTopic, 0, name.toString(), value), (metadata, exception) -> {
+                    if (exception != null) {
+                        future.fail(exception);
+                    } else {
+                        future.complete();
+                    }
+                });
+            } catch (Throwable t) {
+                future.fail(t);
+            }
+        }, true, result);
+        return result;
+    }
+
+    /**
+     * @return The number of topics in this store.
+     */
+    int size() {
+        return topics.size();
+    }
+
+    @Override
+    public String toString() {
+        return "KafkaTopicStore(topic=" + storeTopic + ", size=" + topics.size() + ")";
+    }
+}
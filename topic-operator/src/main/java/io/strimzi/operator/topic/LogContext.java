@@ -16,23 +16,32 @@ public class LogContext {
 
     private final static Logger LOGGER = LogManager.getLogger(K8sTopicWatcher.class);
 
+    /** The kind of trigger of reconciliations caused by a ZooKeeper watch. */
+    static final String ZOOKEEPER = "zookeeper";
+    /** The kind of trigger of reconciliations caused by a Kubernetes watch. */
+    static final String KUBE = "kube";
+    /** The kind of trigger of reconciliations which are part of a full reconciliation. */
+    static final String PERIODIC = "periodic";
+
     private static AtomicInteger ctx = new AtomicInteger();
     private final String base;
     private final String trigger;
+    private final String triggerKind;
     private String resourceVersion;
 
-    private LogContext(String trigger) {
+    private LogContext(String triggerKind, String trigger) {
         base = ctx.getAndIncrement() + "|" + trigger;
         this.trigger = trigger;
+        this.triggerKind = triggerKind;
     }
 
 
     static LogContext zkWatch(String znode, String childAction) {
-        return new LogContext(znode + " " + childAction);
+        return new LogContext(ZOOKEEPER, znode + " " + childAction);
     }
 
     static LogContext kubeWatch(Watcher.Action action, KafkaTopic kafkaTopic) {
-        LogContext logContext = new LogContext("kube " + action(action) + kafkaTopic.getMetadata().getName());
+        LogContext logContext = new LogContext(KUBE, "kube " + action(action) + kafkaTopic.getMetadata().getName());
         logContext.resourceVersion = kafkaTopic.getMetadata().getResourceVersion();
         return logContext;
     }
@@ -50,13 +59,20 @@ public class LogContext {
     }
 
     static LogContext periodic(String periodicType) {
-        return new LogContext(periodicType);
+        return new LogContext(PERIODIC, periodicType);
     }
 
     public String trigger() {
         return trigger;
     }
 
+    /**
+     * @return The kind of trigger: {@link #ZOOKEEPER}, {@link #KUBE} or {@link #PERIODIC}.
+     */
+    public String triggerKind() {
+        return triggerKind;
+    }
+
     @Override
     public String toString() {
         if (resourceVersion == null) {
@@ -0,0 +1,90 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.strimzi.api.kafka.model.KafkaTopic;
+import io.vertx.core.Future;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static io.strimzi.operator.topic.MetricsRegistry.time;
+
+/**
+ * A {@link K8s} which observes the latency of each call to its delegate.
+ */
+class MeteredK8s implements K8s {
+
+    private static final String BACKEND = "kubernetes";
+
+    private final K8s delegate;
+    private final MetricsRegistry.Histogram latency;
+
+    /**
+     * @param delegate The K8s to delegate to.
+     * @param latency The histogram of backend request latencies, labelled by backend and operation.
+     */
+    MeteredK8s(K8s delegate, MetricsRegistry.Histogram latency) {
+        this.delegate = delegate;
+        this.latency = latency;
+    }
+
+    @Override
+    public Future<KafkaTopic> createResource(KafkaTopic topicResource) {
+        return time(latency, () -> delegate.createResource(topicResource), BACKEND, "createResource");
+    }
+
+    @Override
+    public Future<KafkaTopic> updateResource(KafkaTopic topicResource) {
+        return time(latency, () -> delegate.updateResource(topicResource), BACKEND, "updateResource");
+    }
+
+    @Override
+    public Future<KafkaTopic> updateResourceStatus(KafkaTopic topicResource) {
+        return time(latency, () -> delegate.updateResourceStatus(topicResource), BACKEND, "updateResourceStatus");
+    }
+
+    @Override
+    public Future<Void> deleteResource(ResourceName resourceName) {
+        return time(latency, () -> delegate.deleteResource(resourceName), BACKEND, "deleteResource");
+    }
+
+    @Override
+    public Future<List<KafkaTopic>> listResources() {
+        return time(latency, delegate::listResources, BACKEND, "listResources");
+    }
+
+    @Override
+    public Future<Void> listResources(Function<List<KafkaTopic>, Future<Void>> pageHandler) {
+        // Not timed, since most of the time is spent handling the pages
+        return delegate.listResources(pageHandler);
+    }
+
+    @Override
+    public Future<KafkaTopic> getFromName(ResourceName resourceName) {
+        return time(latency, () -> delegate.getFromName(resourceName), BACKEND, "getFromName");
+    }
+
+    @Override
+    public Future<KafkaTopic> getFromTopicName(TopicName topicName) {
+        return time(latency, () -> delegate.getFromTopicName(topicName), BACKEND, "getFromTopicName");
+    }
+
+    @Override
+    public Future<Event> createEvent(Event event) {
+        return time(latency, () -> delegate.createEvent(event), BACKEND, "createEvent");
+    }
+
+    @Override
+    public Future<Void> updateEvent(Event event) {
+        return time(latency, () -> delegate.updateEvent(event), BACKEND, "updateEvent");
+    }
+
+    @Override
+    public String toString() {
+        return "MeteredK8s(" + delegate + ")";
+    }
+}
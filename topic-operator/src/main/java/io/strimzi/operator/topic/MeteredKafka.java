@@ -0,0 +1,113 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.strimzi.operator.topic.MetricsRegistry.time;
+
+/**
+ * A {@link Kafka} which observes the latency of each call to its delegate.
+ */
+class MeteredKafka implements Kafka {
+
+    private static final String BACKEND = "kafka";
+
+    private final Kafka delegate;
+    private final MetricsRegistry.Histogram latency;
+
+    /**
+     * @param delegate The Kafka to delegate to.
+     * @param latency The histogram of backend request latencies, labelled by backend and operation.
+     */
+    MeteredKafka(Kafka delegate, MetricsRegistry.Histogram latency) {
+        this.delegate = delegate;
+        this.latency = latency;
+    }
+
+    @Override
+    public Future<Void> createTopic(Topic newTopic) {
+        return time(latency, () -> delegate.createTopic(newTopic), BACKEND, "createTopic");
+    }
+
+    @Override
+    public Future<Void> deleteTopic(TopicName topicName) {
+        return time(latency, () -> delegate.deleteTopic(topicName), BACKEND, "deleteTopic");
+    }
+
+    @Override
+    public Future<Void> updateTopicConfig(Topic topic) {
+        return time(latency, () -> delegate.updateTopicConfig(topic), BACKEND, "updateTopicConfig");
+    }
+
+    @Override
+    public Future<Void> increasePartitions(Topic topic) {
+        return time(latency, () -> delegate.increasePartitions(topic), BACKEND, "increasePartitions");
+    }
+
+    @Override
+    public Future<TopicMetadata> topicMetadata(TopicName topicName) {
+        return time(latency, () -> delegate.topicMetadata(topicName), BACKEND, "topicMetadata");
+    }
+
+    @Override
+    public Future<Map<TopicName, TopicMetadata>> topicsMetadata(Set<TopicName> topicNames) {
+        return time(latency, () -> delegate.topicsMetadata(topicNames), BACKEND, "topicsMetadata");
+    }
+
+    @Override
+    public Future<Set<String>> listTopics() {
+        return time(latency, delegate::listTopics, BACKEND, "listTopics");
+    }
+
+    @Override
+    public Future<Map<Integer, String>> brokerRacks() {
+        return time(latency, delegate::brokerRacks, BACKEND, "brokerRacks");
+    }
+
+    @Override
+    public Future<Set<TopicName>> reassigningTopics() {
+        return time(latency, delegate::reassigningTopics, BACKEND, "reassigningTopics");
+    }
+
+    @Override
+    public Future<Void> reassignPartitions(Map<TopicName, Map<Integer, List<Integer>>> assignments) {
+        return time(latency, () -> delegate.reassignPartitions(assignments), BACKEND, "reassignPartitions");
+    }
+
+    @Override
+    public Future<Map<String, String>> throttledReplicas(TopicName topicName) {
+        return time(latency, () -> delegate.throttledReplicas(topicName), BACKEND, "throttledReplicas");
+    }
+
+    @Override
+    public Future<Void> setThrottledReplicas(TopicName topicName, String leaderReplicas, String followerReplicas) {
+        return time(latency, () -> delegate.setThrottledReplicas(topicName, leaderReplicas, followerReplicas), BACKEND, "setThrottledReplicas");
+    }
+
+    @Override
+    public Future<Void> setReplicationThrottleRate(Set<Integer> brokerIds, Long rate) {
+        return time(latency, () -> delegate.setReplicationThrottleRate(brokerIds, rate), BACKEND, "setReplicationThrottleRate");
+    }
+
+    @Override
+    public Future<Map<Integer, Map<String, String>>> replicationThrottleRates(Set<Integer> brokerIds) {
+        return time(latency, () -> delegate.replicationThrottleRates(brokerIds), BACKEND, "replicationThrottleRates");
+    }
+
+    @Override
+    public Future<Void> setReplicationThrottleRates(Map<Integer, Map<String, String>> rates) {
+        return time(latency, () -> delegate.setReplicationThrottleRates(rates), BACKEND, "setReplicationThrottleRates");
+    }
+
+    @Override
+    public String toString() {
+        return "MeteredKafka(" + delegate + ")";
+    }
+}
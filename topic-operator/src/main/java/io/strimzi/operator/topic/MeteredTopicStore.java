@@ -0,0 +1,55 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+
+import static io.strimzi.operator.topic.MetricsRegistry.time;
+
+/**
+ * A {@link TopicStore} which observes the latency of each call to its delegate.
+ */
+class MeteredTopicStore implements TopicStore {
+
+    private final TopicStore delegate;
+    private final MetricsRegistry.Histogram latency;
+    private final String backend;
+
+    /**
+     * @param delegate The TopicStore to delegate to.
+     * @param latency The histogram of backend request latencies, labelled by backend and operation.
+     * @param backend The backend of the delegate: {@code zookeeper} or {@code kafka}.
+     */
+    MeteredTopicStore(TopicStore delegate, MetricsRegistry.Histogram latency, String backend) {
+        this.delegate = delegate;
+        this.latency = latency;
+        this.backend = backend;
+    }
+
+    @Override
+    public Future<Topic> read(TopicName name) {
+        return time(latency, () -> delegate.read(name), backend, "topicStoreRead");
+    }
+
+    @Override
+    public Future<Void> create(Topic topic) {
+        return time(latency, () -> delegate.create(topic), backend, "topicStoreCreate");
+    }
+
+    @Override
+    public Future<Void> update(Topic topic) {
+        return time(latency, () -> delegate.update(topic), backend, "topicStoreUpdate");
+    }
+
+    @Override
+    public Future<Void> delete(TopicName topic) {
+        return time(latency, () -> delegate.delete(topic), backend, "topicStoreDelete");
+    }
+
+    @Override
+    public String toString() {
+        return "MeteredTopicStore(" + delegate + ")";
+    }
+}
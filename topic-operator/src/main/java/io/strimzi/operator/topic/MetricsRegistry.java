@@ -0,0 +1,242 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The metrics of the operator, rendered in the Prometheus text exposition format by {@link #scrape()}.
+ *
+ * Counters and gauges are read from a supplier when they're scraped, so the components of the operator
+ * only need to keep track of their own values. Histograms are observed explicitly.
+ */
+class MetricsRegistry {
+
+    static final String PREFIX = "strimzi_topic_operator_";
+
+    /** Histogram buckets, in seconds, suitable for requests to a backend and single reconciliations. */
+    static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    /** Histogram buckets, in seconds, suitable for full reconciliations. */
+    static final double[] PASS_BUCKETS = {1, 5, 10, 30, 60, 120, 300, 600, 1800};
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String type;
+
+        Metric(String name, String help, String type) {
+            this.name = PREFIX + name;
+            this.help = help;
+            this.type = type;
+        }
+
+        abstract void render(StringBuilder sb);
+    }
+
+    /** A counter or gauge, with one series, read from a supplier, per label. */
+    private static class SuppliedMetric extends Metric {
+        private final Map<String, DoubleSupplier> series = new LinkedHashMap<>();
+
+        SuppliedMetric(String name, String help, String type) {
+            super(name, help, type);
+        }
+
+        @Override
+        void render(StringBuilder sb) {
+            for (Map.Entry<String, DoubleSupplier> entry : series.entrySet()) {
+                sb.append(name).append(entry.getKey()).append(' ').append(format(entry.getValue().getAsDouble())).append('\n');
+            }
+        }
+    }
+
+    /**
+     * A histogram, with one series per combination of the values of its labels.
+     */
+    static class Histogram extends Metric {
+        private final String[] labelNames;
+        private final double[] buckets;
+        // Guarded by this
+        private final Map<List<String>, Series> series = new LinkedHashMap<>();
+
+        private static class Series {
+            private final long[] counts;
+            private double sum;
+            private long count;
+
+            Series(int buckets) {
+                counts = new long[buckets];
+            }
+        }
+
+        private Histogram(String name, String help, double[] buckets, String... labelNames) {
+            super(name, help, "histogram");
+            this.buckets = buckets;
+            this.labelNames = labelNames;
+        }
+
+        /**
+         * Record an observation.
+         * @param seconds The observed duration, in seconds.
+         * @param labelValues The values of the histogram's labels, in order.
+         */
+        synchronized void observe(double seconds, String... labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException("Expected " + labelNames.length + " label values");
+            }
+            Series s = series.computeIfAbsent(Arrays.asList(labelValues), k -> new Series(buckets.length));
+            for (int i = 0; i < buckets.length; i++) {
+                if (seconds <= buckets[i]) {
+                    s.counts[i]++;
+                }
+            }
+            s.sum += seconds;
+            s.count++;
+        }
+
+        /**
+         * Record the time since the given {@link System#nanoTime()}.
+         */
+        void observeSince(long startNanos, String... labelValues) {
+            observe((System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1), labelValues);
+        }
+
+        /**
+         * @return The number of observations with the given label values.
+         */
+        synchronized long count(String... labelValues) {
+            Series s = series.get(Arrays.asList(labelValues));
+            return s != null ? s.count : 0;
+        }
+
+        @Override
+        synchronized void render(StringBuilder sb) {
+            for (Map.Entry<List<String>, Series> entry : series.entrySet()) {
+                String labels = labels(entry.getKey());
+                Series s = entry.getValue();
+                for (int i = 0; i < buckets.length; i++) {
+                    sb.append(name).append("_bucket{").append(labels).append(labels.isEmpty() ? "" : ",")
+                            .append("le=\"").append(format(buckets[i])).append("\"} ").append(s.counts[i]).append('\n');
+                }
+                sb.append(name).append("_bucket{").append(labels).append(labels.isEmpty() ? "" : ",")
+                        .append("le=\"+Inf\"} ").append(s.count).append('\n');
+                sb.append(name).append("_sum").append(labels.isEmpty() ? "" : "{" + labels + "}").append(' ')
+                        .append(format(s.sum)).append('\n');
+                sb.append(name).append("_count").append(labels.isEmpty() ? "" : "{" + labels + "}").append(' ')
+                        .append(s.count).append('\n');
+            }
+        }
+
+        private String labels(List<String> values) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < labelNames.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labelNames[i]).append("=\"").append(escape(values.get(i))).append('"');
+            }
+            return sb.toString();
+        }
+    }
+
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    /**
+     * Register a counter whose value is read from the given supplier.
+     */
+    void counter(String name, String help, DoubleSupplier value) {
+        supplied(name, help, "counter", "", value);
+    }
+
+    /**
+     * Register a gauge whose value is read from the given supplier.
+     */
+    void gauge(String name, String help, DoubleSupplier value) {
+        supplied(name, help, "gauge", "", value);
+    }
+
+    /**
+     * Register the series of a counter with the given label value, whose value is read from the given supplier.
+     */
+    void counter(String name, String help, String labelName, String labelValue, DoubleSupplier value) {
+        supplied(name, help, "counter", "{" + labelName + "=\"" + escape(labelValue) + "\"}", value);
+    }
+
+    /**
+     * Register the series of a gauge with the given label value, whose value is read from the given supplier.
+     */
+    void gauge(String name, String help, String labelName, String labelValue, DoubleSupplier value) {
+        supplied(name, help, "gauge", "{" + labelName + "=\"" + escape(labelValue) + "\"}", value);
+    }
+
+    private synchronized void supplied(String name, String help, String type, String labels, DoubleSupplier value) {
+        Metric metric = metrics.computeIfAbsent(name, k -> new SuppliedMetric(name, help, type));
+        if (!(metric instanceof SuppliedMetric) || !metric.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + metric.type);
+        }
+        ((SuppliedMetric) metric).series.put(labels, value);
+    }
+
+    /**
+     * Register a histogram.
+     */
+    synchronized Histogram histogram(String name, String help, double[] buckets, String... labelNames) {
+        Histogram histogram = new Histogram(name, help, buckets, labelNames);
+        if (metrics.putIfAbsent(name, histogram) != null) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered");
+        }
+        return histogram;
+    }
+
+    /**
+     * Make a call, observing the time until the future it returns completes (successfully or not).
+     * @param histogram The histogram.
+     * @param call The call.
+     * @param labelValues The values of the histogram's labels.
+     * @return The future returned by the call.
+     */
+    static <T> Future<T> time(Histogram histogram, Supplier<Future<T>> call, String... labelValues) {
+        long start = System.nanoTime();
+        Future<T> result = call.get();
+        Future<T> timed = Future.future();
+        result.setHandler(ar -> {
+            histogram.observeSince(start, labelValues);
+            timed.handle(ar);
+        });
+        return timed;
+    }
+
+    /**
+     * @return The metrics, in the Prometheus text exposition format.
+     */
+    synchronized String scrape() {
+        StringBuilder sb = new StringBuilder();
+        for (Metric metric : metrics.values()) {
+            sb.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            sb.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+            metric.render(sb);
+        }
+        return sb.toString();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
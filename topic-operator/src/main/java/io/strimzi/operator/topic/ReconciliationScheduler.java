@@ -0,0 +1,181 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+
+/**
+ * Limits the number of reconciliations which are running at the same time.
+ *
+ * Tasks are started in the order they were scheduled, except that all the tasks waiting in the
+ * {@link Priority#HIGH} lane are started before any in the {@link Priority#LOW} lane.
+ * This means that reconciliations triggered by watches are not stuck behind those of a full reconciliation.
+ */
+class ReconciliationScheduler {
+
+    private final static Logger LOGGER = LogManager.getLogger(ReconciliationScheduler.class);
+
+    enum Priority {
+        /** For reconciliations triggered by changes in Kubernetes, Kafka or ZooKeeper. */
+        HIGH,
+        /** For the reconciliations of a full reconciliation. */
+        LOW
+    }
+
+    /**
+     * A task which is waiting for, or has been given, permission to run.
+     */
+    class Task {
+        private final Handler<Task> handler;
+        private Priority priority;
+        private boolean started = false;
+        private boolean done = false;
+
+        private Task(Priority priority, Handler<Task> handler) {
+            this.priority = priority;
+            this.handler = handler;
+        }
+
+        /**
+         * Give this task's place to the next waiting task.
+         * Must be called exactly once, when the task's work is complete.
+         */
+        void done() {
+            synchronized (ReconciliationScheduler.this) {
+                if (done) {
+                    throw new IllegalStateException("Task is already done");
+                }
+                done = true;
+                running--;
+                completed++;
+            }
+            startWaiting();
+        }
+    }
+
+    private final Vertx vertx;
+    private final int maxRunning;
+
+    // All guarded by this
+    private final ArrayDeque<Task> highLane = new ArrayDeque<>();
+    private final ArrayDeque<Task> lowLane = new ArrayDeque<>();
+    private int running = 0;
+    private long completed = 0;
+
+    /**
+     * @param vertx The vertx instance, on whose context the tasks are run.
+     * @param maxRunning The maximum number of tasks which may be running at the same time.
+     */
+    ReconciliationScheduler(Vertx vertx, int maxRunning) {
+        if (maxRunning <= 0) {
+            throw new IllegalArgumentException("maxRunning must be positive");
+        }
+        this.vertx = vertx;
+        this.maxRunning = maxRunning;
+    }
+
+    /**
+     * Schedule the given handler to be run on the context once there is room for it.
+     * The handler is passed its task, whose {@link Task#done()} it must call once its work is complete.
+     * @param priority The priority of the task.
+     * @param handler The task's work.
+     * @return The task.
+     */
+    Task schedule(Priority priority, Handler<Task> handler) {
+        Task task = new Task(priority, handler);
+        synchronized (this) {
+            lane(priority).add(task);
+        }
+        startWaiting();
+        return task;
+    }
+
+    /**
+     * If the given task is still waiting in the {@link Priority#LOW} lane, move it to the back of the
+     * {@link Priority#HIGH} lane.
+     * @param task The task.
+     */
+    synchronized void promote(Task task) {
+        if (!task.started && task.priority == Priority.LOW && lowLane.remove(task)) {
+            task.priority = Priority.HIGH;
+            highLane.add(task);
+        }
+    }
+
+    private ArrayDeque<Task> lane(Priority priority) {
+        return priority == Priority.HIGH ? highLane : lowLane;
+    }
+
+    private void startWaiting() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                if (running >= maxRunning) {
+                    return;
+                }
+                task = highLane.poll();
+                if (task == null) {
+                    task = lowLane.poll();
+                    if (task == null) {
+                        return;
+                    }
+                }
+                task.started = true;
+                running++;
+            }
+            Task started = task;
+            vertx.runOnContext(ignored -> {
+                try {
+                    started.handler.handle(started);
+                } catch (Throwable t) {
+                    LOGGER.error("Error running task", t);
+                    started.done();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return The number of tasks which are waiting to run.
+     */
+    synchronized int waiting() {
+        return highLane.size() + lowLane.size();
+    }
+
+    /**
+     * @return The number of tasks in the given lane which are waiting to run.
+     */
+    synchronized int waiting(Priority priority) {
+        return lane(priority).size();
+    }
+
+    /**
+     * @return The number of tasks which are running.
+     */
+    synchronized int running() {
+        return running;
+    }
+
+    /**
+     * @return The number of tasks which have completed.
+     */
+    synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ReconciliationScheduler(maxRunning=" + maxRunning
+                + ", running=" + running
+                + ", waitingHigh=" + highLane.size()
+                + ", waitingLow=" + lowLane.size()
+                + ", completed=" + completed + ")";
+    }
+}
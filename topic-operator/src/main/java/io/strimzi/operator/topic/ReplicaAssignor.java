@@ -0,0 +1,106 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Computes the assignment of a topic's partitions to brokers for a new replication factor,
+ * moving as few replicas as possible.
+ *
+ * The existing replicas of each partition are kept, in order, so that the preferred leader doesn't change.
+ * When the replication factor is increased, each new replica is placed on a broker in a rack which
+ * the partition doesn't already use, if there is one, and then on the broker with the fewest replicas
+ * of the topic. When it's decreased, the replicas which share a rack with another replica
+ * of the partition are removed first, and the first replica (the preferred leader) is never removed.
+ */
+class ReplicaAssignor {
+
+    private ReplicaAssignor() {
+    }
+
+    /**
+     * @param current The current replicas of each partition, keyed by partition.
+     * @param racks The rack of each broker (which may be null), keyed by broker id.
+     * @param replicas The new replication factor.
+     * @return The new replicas of each partition, keyed by partition.
+     * @throws IllegalArgumentException If there are fewer brokers than the new replication factor.
+     */
+    static Map<Integer, List<Integer>> assign(Map<Integer, List<Integer>> current, Map<Integer, String> racks, int replicas) {
+        if (replicas < 1 || replicas > racks.size()) {
+            throw new IllegalArgumentException("Cannot assign " + replicas + " replicas with " + racks.size() + " brokers");
+        }
+        Map<Integer, Integer> load = new HashMap<>();
+        for (Integer broker : racks.keySet()) {
+            load.put(broker, 0);
+        }
+        for (List<Integer> partitionReplicas : current.values()) {
+            for (Integer broker : partitionReplicas) {
+                load.merge(broker, 1, Integer::sum);
+            }
+        }
+        Map<Integer, List<Integer>> result = new TreeMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : new TreeMap<>(current).entrySet()) {
+            List<Integer> assigned = new ArrayList<>(entry.getValue());
+            while (assigned.size() > replicas) {
+                Integer removed = assigned.remove(replicaToRemove(assigned, racks));
+                load.merge(removed, -1, Integer::sum);
+            }
+            while (assigned.size() < replicas) {
+                Integer added = brokerToAdd(assigned, racks, load);
+                assigned.add(added);
+                load.merge(added, 1, Integer::sum);
+            }
+            result.put(entry.getKey(), assigned);
+        }
+        return result;
+    }
+
+    /** The index of the last replica which shares its rack with another replica, or else of the last replica. */
+    private static int replicaToRemove(List<Integer> assigned, Map<Integer, String> racks) {
+        for (int i = assigned.size() - 1; i > 0; i--) {
+            String rack = racks.get(assigned.get(i));
+            if (rack != null) {
+                for (int j = 0; j < assigned.size(); j++) {
+                    if (j != i && rack.equals(racks.get(assigned.get(j)))) {
+                        return i;
+                    }
+                }
+            }
+        }
+        return assigned.size() - 1;
+    }
+
+    /** The least loaded broker not already assigned, preferring those in racks not already used. */
+    private static Integer brokerToAdd(List<Integer> assigned, Map<Integer, String> racks, Map<Integer, Integer> load) {
+        Set<String> usedRacks = new HashSet<>();
+        for (Integer broker : assigned) {
+            usedRacks.add(racks.get(broker));
+        }
+        Integer best = null;
+        boolean bestInNewRack = false;
+        for (Integer broker : new TreeMap<>(racks).keySet()) {
+            if (assigned.contains(broker)) {
+                continue;
+            }
+            String rack = racks.get(broker);
+            boolean inNewRack = rack != null && !usedRacks.contains(rack);
+            if (best == null
+                    || inNewRack && !bestInNewRack
+                    || inNewRack == bestInNewRack && load.get(broker) < load.get(best)) {
+                best = broker;
+                bestInNewRack = inNewRack;
+            }
+        }
+        return Objects.requireNonNull(best);
+    }
+}
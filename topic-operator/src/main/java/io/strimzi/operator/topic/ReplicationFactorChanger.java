@@ -0,0 +1,455 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.strimzi.api.kafka.model.status.Condition;
+import io.strimzi.api.kafka.model.status.ConditionBuilder;
+import io.strimzi.operator.common.operator.resource.StatusUtils;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Changes the replication factor of topics by reassigning their partitions,
+ * as {@code kafka-reassign-partitions.sh} would.
+ *
+ * Each change is given a {@linkplain ReplicaAssignor rack-aware assignment}, and waits until no other
+ * reassignment is in progress, since Kafka only allows one at a time. All the waiting changes are then
+ * started together, as a single reassignment, having throttled the replication traffic of the moving replicas
+ * to the configured rate. The throttles which were already set on those topics and brokers are read first.
+ * The reassignment is verified every {@code verifyIntervalMs}: the previous throttles of each topic are restored
+ * as soon as its partitions have been reassigned, and those of the brokers once no change is in progress.
+ * A topic which is already being reassigned by someone else is waited for, but its throttles,
+ * and those of its brokers, are left alone.
+ *
+ * The given handler is called with the name of the topic after each verification of its change
+ * and once it has completed, so that its status can be updated and it can be reconciled.
+ */
+class ReplicationFactorChanger {
+
+    private final static Logger LOGGER = LogManager.getLogger(ReplicationFactorChanger.class);
+
+    /** The type of the KafkaTopic status condition reporting a change in progress. */
+    static final String CONDITION_TYPE = "ReplicationFactorChange";
+
+    /** A change of the replication factor of a topic. */
+    private static class Change {
+        private final TopicName topicName;
+        private final int from;
+        private final int to;
+        /** The assignment before the change, or null if the change was started by a previous instance. */
+        private final Map<Integer, List<Integer>> current;
+        /** The assignment after the change, or null if the change was started by a previous instance. */
+        private final Map<Integer, List<Integer>> target;
+        private final String started = StatusUtils.iso8601Now();
+        private boolean running;
+        private int reassigned;
+        /** The throttled replicas configs of the topic before it was throttled, or null if it hasn't been throttled. */
+        private Map<String, String> previousThrottledReplicas;
+
+        Change(TopicName topicName, int from, int to, Map<Integer, List<Integer>> current, Map<Integer, List<Integer>> target) {
+            this.topicName = topicName;
+            this.from = from;
+            this.to = to;
+            this.current = current;
+            this.target = target;
+        }
+    }
+
+    private final Vertx vertx;
+    private final Kafka kafka;
+    private final long throttleRate;
+    private final long verifyIntervalMs;
+    private final Handler<TopicName> onChange;
+
+    // All guarded by this
+    private final Map<TopicName, Change> changes = new LinkedHashMap<>();
+    /** The brokers whose replication has been throttled, with their throttle rate configs beforehand. */
+    private final Map<Integer, Map<String, String>> throttledBrokers = new HashMap<>();
+    private boolean submitting = false;
+    private Long timerId;
+    private long completed = 0;
+
+    /**
+     * @param vertx The vertx instance.
+     * @param kafka The kafka instance.
+     * @param throttleRate The rate, in bytes per second, to which the replication of moving replicas is throttled,
+     *                     or {@link Long#MAX_VALUE} for no throttle.
+     * @param verifyIntervalMs The interval between the verifications of the reassignment in progress.
+     * @param onChange The handler called with the name of a topic whose change has progressed or completed.
+     */
+    ReplicationFactorChanger(Vertx vertx, Kafka kafka, long throttleRate, long verifyIntervalMs, Handler<TopicName> onChange) {
+        this.vertx = vertx;
+        this.kafka = kafka;
+        this.throttleRate = throttleRate;
+        this.verifyIntervalMs = verifyIntervalMs;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Start changing the replication factor of the given topic, unless it is already being changed.
+     * @param logContext The log context.
+     * @param topicName The topic name.
+     * @param replicas The new replication factor.
+     * @return A future which is completed once the change has been planned, which fails if it cannot be done.
+     */
+    Future<Void> start(LogContext logContext, TopicName topicName, int replicas) {
+        if (inProgress(topicName)) {
+            return Future.succeededFuture();
+        }
+        Future<TopicMetadata> metadataFuture = kafka.topicMetadata(topicName);
+        Future<Map<Integer, String>> racksFuture = kafka.brokerRacks();
+        Future<Set<TopicName>> reassigningFuture = kafka.reassigningTopics();
+        return CompositeFuture.all(metadataFuture, racksFuture, reassigningFuture).compose(ignored -> {
+            TopicMetadata metadata = metadataFuture.result();
+            if (metadata == null) {
+                return Future.failedFuture(new OperatorException("Topic " + topicName + " does not exist"));
+            }
+            Map<Integer, List<Integer>> current = assignment(metadata);
+            int from = current.values().iterator().next().size();
+            Change change;
+            if (reassigningFuture.result().contains(topicName)) {
+                LOGGER.info("{}: Topic {} is already being reassigned, waiting for it to complete", logContext, topicName);
+                change = new Change(topicName, from, replicas, null, null);
+                change.running = true;
+            } else {
+                Map<Integer, List<Integer>> target;
+                try {
+                    target = ReplicaAssignor.assign(current, racksFuture.result(), replicas);
+                } catch (IllegalArgumentException e) {
+                    return Future.failedFuture(new OperatorException("Cannot change the replication factor of topic "
+                            + topicName + " to " + replicas + ": " + e.getMessage()));
+                }
+                LOGGER.info("{}: Changing the replication factor of topic {} from {} to {} with assignment {}",
+                        logContext, topicName, from, replicas, target);
+                change = new Change(topicName, from, replicas, current, target);
+            }
+            synchronized (this) {
+                changes.putIfAbsent(topicName, change);
+                if (timerId == null) {
+                    timerId = vertx.setPeriodic(verifyIntervalMs, id -> verify());
+                }
+            }
+            submit();
+            return Future.succeededFuture();
+        });
+    }
+
+    private static Map<Integer, List<Integer>> assignment(TopicMetadata metadata) {
+        Map<Integer, List<Integer>> assignment = new TreeMap<>();
+        for (TopicPartitionInfo partition : metadata.getDescription().partitions()) {
+            List<Integer> replicas = new ArrayList<>(partition.replicas().size());
+            for (Node node : partition.replicas()) {
+                replicas.add(node.id());
+            }
+            assignment.put(partition.partition(), replicas);
+        }
+        return assignment;
+    }
+
+    /**
+     * Start the changes which are waiting, if no reassignment is in progress.
+     */
+    private void submit() {
+        List<Change> batch = new ArrayList<>();
+        synchronized (this) {
+            if (submitting) {
+                return;
+            }
+            for (Change change : changes.values()) {
+                if (!change.running) {
+                    batch.add(change);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            submitting = true;
+        }
+        kafka.reassigningTopics().compose(reassigning -> {
+            if (!reassigning.isEmpty()) {
+                LOGGER.debug("Waiting for the reassignment of {} to complete", reassigning);
+                return Future.succeededFuture();
+            }
+            Map<TopicName, Map<Integer, List<Integer>>> assignments = new LinkedHashMap<>();
+            for (Change change : batch) {
+                assignments.put(change.topicName, change.target);
+            }
+            return throttle(batch)
+                .compose(ignored -> kafka.reassignPartitions(assignments))
+                .map(ignored -> {
+                    LOGGER.info("Started reassignment of topics {}", assignments.keySet());
+                    synchronized (this) {
+                        for (Change change : batch) {
+                            change.running = true;
+                        }
+                    }
+                    return null;
+                });
+        }).setHandler(ar -> {
+            synchronized (this) {
+                submitting = false;
+            }
+            if (ar.failed()) {
+                LOGGER.warn("Error starting reassignment, will retry", ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Throttle the replication of the replicas of the given changes, as {@code kafka-reassign-partitions.sh} would:
+     * the existing replicas of each partition are throttled as leaders, and the new replicas as followers.
+     * The throttles already set on the topics and brokers are saved first, so that they can be restored.
+     */
+    @SuppressWarnings("rawtypes")
+    private Future<Void> throttle(List<Change> batch) {
+        if (throttleRate == Long.MAX_VALUE) {
+            return Future.succeededFuture();
+        }
+        Set<Integer> brokers = new HashSet<>();
+        for (Change change : batch) {
+            for (Map.Entry<Integer, List<Integer>> partition : change.target.entrySet()) {
+                brokers.addAll(change.current.get(partition.getKey()));
+                brokers.addAll(partition.getValue());
+            }
+        }
+        List<Future> saved = new ArrayList<>(batch.size() + 1);
+        Set<Integer> newlyThrottled = new HashSet<>(brokers);
+        synchronized (this) {
+            newlyThrottled.removeAll(throttledBrokers.keySet());
+            for (Change change : batch) {
+                if (change.previousThrottledReplicas == null) {
+                    saved.add(kafka.throttledReplicas(change.topicName).map(configs -> {
+                        synchronized (this) {
+                            change.previousThrottledReplicas = configs;
+                        }
+                        return null;
+                    }));
+                }
+            }
+        }
+        if (!newlyThrottled.isEmpty()) {
+            saved.add(kafka.replicationThrottleRates(newlyThrottled).map(rates -> {
+                synchronized (this) {
+                    for (Map.Entry<Integer, Map<String, String>> broker : rates.entrySet()) {
+                        throttledBrokers.putIfAbsent(broker.getKey(), broker.getValue());
+                    }
+                }
+                return null;
+            }));
+        }
+        return CompositeFuture.all(saved).compose(ignored -> {
+            List<Future> futures = new ArrayList<>(batch.size() + 1);
+            for (Change change : batch) {
+                futures.add(throttleReplicas(change));
+            }
+            futures.add(kafka.setReplicationThrottleRate(brokers, throttleRate));
+            return CompositeFuture.all(futures);
+        }).map((Void) null);
+    }
+
+    private Future<Void> throttleReplicas(Change change) {
+        List<String> leaders = new ArrayList<>();
+        List<String> followers = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> partition : change.target.entrySet()) {
+            List<Integer> existing = change.current.get(partition.getKey());
+            for (Integer broker : existing) {
+                leaders.add(partition.getKey() + ":" + broker);
+            }
+            for (Integer broker : partition.getValue()) {
+                if (!existing.contains(broker)) {
+                    followers.add(partition.getKey() + ":" + broker);
+                }
+            }
+        }
+        return kafka.setThrottledReplicas(change.topicName,
+                String.join(",", leaders), followers.isEmpty() ? null : String.join(",", followers));
+    }
+
+    /**
+     * Throttle the replicas of the given topic again, if its replication factor is being changed,
+     * since replacing the config of the topic also removes its throttles.
+     */
+    Future<Void> rethrottle(TopicName topicName) {
+        Change change;
+        synchronized (this) {
+            change = changes.get(topicName);
+        }
+        if (throttleRate == Long.MAX_VALUE || change == null || !change.running || change.target == null) {
+            return Future.succeededFuture();
+        }
+        return throttleReplicas(change);
+    }
+
+    /**
+     * Verify the progress of the changes which are running, completing those whose reassignment has finished.
+     */
+    private void verify() {
+        Set<TopicName> running = new HashSet<>();
+        synchronized (this) {
+            if (changes.isEmpty()) {
+                vertx.cancelTimer(timerId);
+                timerId = null;
+                return;
+            }
+            for (Change change : changes.values()) {
+                if (change.running) {
+                    running.add(change.topicName);
+                }
+            }
+        }
+        if (running.isEmpty()) {
+            submit();
+            return;
+        }
+        Future<Set<TopicName>> reassigningFuture = kafka.reassigningTopics();
+        Future<Map<TopicName, TopicMetadata>> metadataFuture = kafka.topicsMetadata(running);
+        CompositeFuture.all(reassigningFuture, metadataFuture).setHandler(ar -> {
+            if (ar.failed()) {
+                LOGGER.warn("Error verifying reassignment", ar.cause());
+                return;
+            }
+            List<TopicName> done = new ArrayList<>();
+            for (TopicName topicName : running) {
+                if (!reassigningFuture.result().contains(topicName)) {
+                    done.add(topicName);
+                } else {
+                    TopicMetadata metadata = metadataFuture.result().get(topicName);
+                    updateProgress(topicName, metadata);
+                    onChange.handle(topicName);
+                }
+            }
+            complete(done);
+        });
+    }
+
+    private synchronized void updateProgress(TopicName topicName, TopicMetadata metadata) {
+        Change change = changes.get(topicName);
+        if (change != null && change.target != null && metadata != null) {
+            Map<Integer, List<Integer>> assignment = assignment(metadata);
+            int reassigned = 0;
+            for (Map.Entry<Integer, List<Integer>> partition : change.target.entrySet()) {
+                if (partition.getValue().equals(assignment.get(partition.getKey()))) {
+                    reassigned++;
+                }
+            }
+            change.reassigned = reassigned;
+        }
+    }
+
+    /**
+     * Restore the throttles of the given topics, whose reassignment has completed,
+     * and of the brokers if no other change is running or being started.
+     */
+    @SuppressWarnings("rawtypes")
+    private void complete(List<TopicName> done) {
+        List<Future> futures = new ArrayList<>(done.size() + 1);
+        List<Change> throttled = new ArrayList<>(done.size());
+        Map<Integer, Map<String, String>> unthrottle = new HashMap<>();
+        synchronized (this) {
+            for (TopicName topicName : done) {
+                LOGGER.info("Reassignment of topic {} has completed", topicName);
+                Change change = changes.remove(topicName);
+                if (change != null && change.previousThrottledReplicas != null) {
+                    throttled.add(change);
+                }
+                completed++;
+            }
+            boolean anyRunning = submitting;
+            for (Change change : changes.values()) {
+                anyRunning |= change.running;
+            }
+            if (!anyRunning) {
+                unthrottle.putAll(throttledBrokers);
+                throttledBrokers.clear();
+            }
+        }
+        for (Change change : throttled) {
+            futures.add(kafka.setThrottledReplicas(change.topicName,
+                    change.previousThrottledReplicas.get(KafkaImpl.LEADER_THROTTLED_REPLICAS),
+                    change.previousThrottledReplicas.get(KafkaImpl.FOLLOWER_THROTTLED_REPLICAS)));
+        }
+        if (!unthrottle.isEmpty()) {
+            futures.add(kafka.setReplicationThrottleRates(unthrottle));
+        }
+        CompositeFuture.join(futures).setHandler(ar -> {
+            if (ar.failed()) {
+                LOGGER.warn("Error removing replication throttles", ar.cause());
+            }
+            for (TopicName topicName : done) {
+                onChange.handle(topicName);
+            }
+            submit();
+        });
+    }
+
+    /**
+     * @return Whether the replication factor of the given topic is being changed.
+     */
+    synchronized boolean inProgress(TopicName topicName) {
+        return changes.containsKey(topicName);
+    }
+
+    /**
+     * @return The KafkaTopic status condition describing the change of the replication factor of the given topic,
+     * or null if it's not being changed.
+     */
+    synchronized Condition condition(TopicName topicName) {
+        Change change = changes.get(topicName);
+        if (change == null) {
+            return null;
+        }
+        String message = change.current != null
+                ? "Changing the replication factor from " + change.from + " to " + change.to
+                : "Changing the replication factor to " + change.to;
+        if (!change.running) {
+            message += ": waiting for another reassignment to complete";
+        } else if (change.target != null) {
+            message += ": " + change.reassigned + " of " + change.target.size() + " partitions reassigned";
+        }
+        return new ConditionBuilder()
+                .withType(CONDITION_TYPE)
+                .withStatus("True")
+                .withReason(change.running ? "Reassigning" : "Pending")
+                .withMessage(message)
+                .withLastTransitionTime(change.started)
+                .build();
+    }
+
+    /**
+     * @return The number of changes in progress.
+     */
+    synchronized int inProgress() {
+        return changes.size();
+    }
+
+    /**
+     * @return The number of changes which have completed.
+     */
+    synchronized long completed() {
+        return completed;
+    }
+
+    /**
+     * Verify the changes now, rather than waiting for the next interval.
+     */
+    void verifyNow() {
+        verify();
+    }
+}
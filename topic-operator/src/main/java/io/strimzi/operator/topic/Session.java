@@ -5,7 +5,10 @@
 package io.strimzi.operator.topic;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.strimzi.api.kafka.Crds;
 import io.strimzi.api.kafka.KafkaTopicList;
 import io.strimzi.api.kafka.model.DoneableKafkaTopic;
@@ -38,7 +41,9 @@ public class Session extends AbstractVerticle {
     private AdminClient adminClient;
     /*test*/ K8sImpl k8s;
     /*test*/ TopicOperator topicOperator;
-    private Watch topicWatch;
+    private volatile Watch topicWatch;
+    /** The watcher of the KafkaTopics, which also keeps the cache of them up to date. */
+    private Watcher<KafkaTopic> kafkaTopicWatcher;
     /*test*/ ZkTopicsWatcher topicsWatcher;
     /*test*/ TopicConfigsWatcher topicConfigsWatcher;
     /*test*/ ZkTopicWatcher topicWatcher;
@@ -46,7 +51,15 @@ public class Session extends AbstractVerticle {
     private volatile Long timerId;
     private volatile boolean stopped = false;
     private Zk zk;
+    private TopicStore topicStore;
     private volatile HttpServer healthServer;
+    /** Whether the initial reconciliation has completed, after which the operator is ready. */
+    private volatile boolean initialReconcileComplete = false;
+    /*test*/ final MetricsRegistry metrics = new MetricsRegistry();
+    /** The worker pools for the blocking calls to each backend. */
+    private Bulkhead kubernetesWorkerPool;
+    private Bulkhead zookeeperWorkerPool;
+    private Bulkhead kafkaWorkerPool;
 
     public Session(KubernetesClient kubeClient, Config config) {
         this.kubeClient = kubeClient;
@@ -98,6 +111,11 @@ public class Session extends AbstractVerticle {
                 LOGGER.debug("Stopping kafka {}", kafka);
                 kafka.stop();
 
+                if (topicStore instanceof KafkaTopicStore) {
+                    LOGGER.debug("Stopping topic store {}", topicStore);
+                    ((KafkaTopicStore) topicStore).stop();
+                }
+
                 LOGGER.debug("Disconnecting from zookeeper {}", zk);
                 zk.disconnect(zkResult -> {
                     if (zkResult.failed()) {
@@ -114,6 +132,9 @@ public class Session extends AbstractVerticle {
                     } catch (TimeoutException e) {
                         LOGGER.warn("Timeout while closing AdminClient with timeout {}ms", e, timeoutMs);
                     } finally {
+                        kubernetesWorkerPool.close();
+                        zookeeperWorkerPool.close();
+                        kafkaWorkerPool.close();
                         LOGGER.info("Stopped");
                         blockingResult.complete();
                     }
@@ -140,16 +161,21 @@ public class Session extends AbstractVerticle {
 
         this.adminClient = AdminClient.create(adminClientProps);
         LOGGER.debug("Using AdminClient {}", adminClient);
-        this.kafka = new KafkaImpl(adminClient, vertx);
-        LOGGER.debug("Using Kafka {}", kafka);
         Labels labels = config.get(Config.LABELS);
 
         String namespace = config.get(Config.NAMESPACE);
         LOGGER.debug("Using namespace {}", namespace);
-        this.k8s = new K8sImpl(vertx, kubeClient, labels, namespace);
+        this.kubernetesWorkerPool = new Bulkhead(vertx, "kubernetes", config.get(Config.KUBERNETES_WORKER_POOL_SIZE));
+        this.zookeeperWorkerPool = new Bulkhead(vertx, "zookeeper", config.get(Config.ZOOKEEPER_WORKER_POOL_SIZE));
+        this.kafkaWorkerPool = new Bulkhead(vertx, "kafka", config.get(Config.KAFKA_WORKER_POOL_SIZE));
+        kubernetesWorkerPool.registerMetrics(metrics);
+        zookeeperWorkerPool.registerMetrics(metrics);
+        kafkaWorkerPool.registerMetrics(metrics);
+
+        this.k8s = new K8sImpl(vertx, kubernetesWorkerPool, kubeClient, labels, namespace, config.get(Config.RESOURCE_DELETION_TIMEOUT_MS));
         LOGGER.debug("Using k8s {}", k8s);
 
-        Zk.create(vertx, config.get(Config.ZOOKEEPER_CONNECT),
+        Zk.create(vertx, zookeeperWorkerPool, config.get(Config.ZOOKEEPER_CONNECT),
                 this.config.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue(),
                 this.config.get(Config.ZOOKEEPER_CONNECTION_TIMEOUT_MS).intValue(),
             zkResult -> {
@@ -160,68 +186,201 @@ public class Session extends AbstractVerticle {
                 this.zk = zkResult.result();
                 LOGGER.debug("Using ZooKeeper {}", zk);
 
-                ZkTopicStore topicStore = new ZkTopicStore(zk);
-                LOGGER.debug("Using TopicStore {}", topicStore);
+                this.kafka = new KafkaImpl(adminClient, vertx, config.get(Config.TOPIC_METADATA_BATCH_SIZE),
+                        config.get(Config.ADMIN_BATCH_SIZE), config.get(Config.ADMIN_BATCH_LINGER_MS), zk);
+                LOGGER.debug("Using Kafka {}", kafka);
 
-                this.topicOperator = new TopicOperator(vertx, kafka, k8s, topicStore, labels, namespace, config);
-                LOGGER.debug("Using Operator {}", topicOperator);
+                createTopicStore(adminClientProps).setHandler(storeResult -> {
+                    if (storeResult.failed()) {
+                        startupFuture.fail(storeResult.cause());
+                        return;
+                    }
+                    this.topicStore = storeResult.result();
+                    LOGGER.debug("Using TopicStore {}", topicStore);
+                    startOperator(labels, namespace, startupFuture);
+                });
+            });
+    }
 
-                this.topicConfigsWatcher = new TopicConfigsWatcher(topicOperator);
-                LOGGER.debug("Using TopicConfigsWatcher {}", topicConfigsWatcher);
-                this.topicWatcher = new ZkTopicWatcher(topicOperator);
-                LOGGER.debug("Using TopicWatcher {}", topicWatcher);
-                this.topicsWatcher = new ZkTopicsWatcher(topicOperator, topicConfigsWatcher, topicWatcher);
-                LOGGER.debug("Using TopicsWatcher {}", topicsWatcher);
-                topicsWatcher.start(zk);
+    /**
+     * Create the configured TopicStore, completing the returned future once it is ready to use.
+     */
+    private Future<TopicStore> createTopicStore(Properties kafkaClientProps) {
+        Config.TopicStoreFormat format = config.get(Config.TOPIC_STORE_FORMAT);
+        ZkTopicStore zkTopicStore = new ZkTopicStore(zk, format);
+        if (config.get(Config.TOPIC_STORE) == Config.TopicStoreType.KAFKA) {
+            KafkaTopicStore kafkaTopicStore = new KafkaTopicStore(vertx, kafkaWorkerPool, kafkaClientProps,
+                    config.get(Config.TOPIC_STORE_TOPIC), format);
+            return kafkaTopicStore.start()
+                    .compose(ignored -> kafkaTopicStore.migrateFrom(zkTopicStore))
+                    .map(kafkaTopicStore);
+        } else {
+            CachingTopicStore cachingTopicStore = new CachingTopicStore(zkTopicStore);
+            cachingTopicStore.registerMetrics(metrics);
+            Future<TopicStore> result = Future.future();
+            cachingTopicStore.preload().setHandler(preloaded -> {
+                if (preloaded.failed()) {
+                    LOGGER.warn("Error preloading the topic store, topics will be loaded on demand", preloaded.cause());
+                }
+                result.complete(cachingTopicStore);
+            });
+            return result;
+        }
+    }
 
-                Future<Void> f = Future.future();
-                Future<Void> initReconcileFuture = Future.future();
-                K8sTopicWatcher watcher = new K8sTopicWatcher(topicOperator, initReconcileFuture);
-                Thread resourceThread = new Thread(() -> {
-                    try {
-                        LOGGER.debug("Watching KafkaTopics matching {}", labels.labels());
+    private void startOperator(Labels labels, String namespace, Future<Void> startupFuture) {
+        MetricsRegistry.Histogram backendLatency = metrics.histogram("backend_request_duration_seconds",
+                "The latency of the operator's requests to Kafka, Kubernetes and its topic store, by backend and operation.",
+                MetricsRegistry.LATENCY_BUCKETS, "backend", "operation");
+        String topicStoreBackend = config.get(Config.TOPIC_STORE) == Config.TopicStoreType.KAFKA ? "kafka" : "zookeeper";
+        this.topicOperator = new TopicOperator(vertx,
+                new MeteredKafka(kafka, backendLatency),
+                new MeteredK8s(k8s, backendLatency),
+                new MeteredTopicStore(topicStore, backendLatency, topicStoreBackend),
+                labels, namespace, config, metrics);
+        LOGGER.debug("Using Operator {}", topicOperator);
 
-                        Session.this.topicWatch = kubeClient.customResources(Crds.topic(), KafkaTopic.class, KafkaTopicList.class, DoneableKafkaTopic.class)
-                                .inNamespace(namespace).withLabels(labels.labels()).watch(watcher);
-                        LOGGER.debug("Watching setup");
+        if (config.get(Config.ZOOKEEPER_WATCH_MODE) == Config.ZkWatchMode.NOTIFICATIONS) {
+            ConfigChangeNotificationsWatcher configChangeNotificationsWatcher = new ConfigChangeNotificationsWatcher(topicOperator);
+            LOGGER.debug("Using ConfigChangeNotificationsWatcher {}", configChangeNotificationsWatcher);
+            this.topicsWatcher = new ZkTopicsWatcher(topicOperator, configChangeNotificationsWatcher);
+        } else {
+            this.topicConfigsWatcher = new TopicConfigsWatcher(topicOperator);
+            LOGGER.debug("Using TopicConfigsWatcher {}", topicConfigsWatcher);
+            this.topicWatcher = new ZkTopicWatcher(topicOperator);
+            LOGGER.debug("Using TopicWatcher {}", topicWatcher);
+            this.topicsWatcher = new ZkTopicsWatcher(topicOperator, topicConfigsWatcher, topicWatcher);
+        }
+        LOGGER.debug("Using TopicsWatcher {}", topicsWatcher);
+        topicsWatcher.start(zk);
 
-                        // start the HTTP server for healthchecks
-                        healthServer = this.startHealthServer();
-                        f.complete();
-                    } catch (Throwable t) {
-                        f.fail(t);
-                    }
+        Future<Void> f = Future.future();
+        Future<Void> initReconcileFuture = Future.future();
+        K8sTopicWatcher k8sTopicWatcher = new K8sTopicWatcher(topicOperator, initReconcileFuture);
+        this.kafkaTopicWatcher = k8s.cacheUpdating(new Watcher<KafkaTopic>() {
+            @Override
+            public void eventReceived(Action action, KafkaTopic kafkaTopic) {
+                k8sTopicWatcher.eventReceived(action, kafkaTopic);
+            }
 
-                }, "resource-watcher");
-                LOGGER.debug("Starting {}", resourceThread);
-                resourceThread.start();
+            @Override
+            public void onClose(KubernetesClientException cause) {
+                k8sTopicWatcher.onClose(cause);
+                if (cause != null && !stopped) {
+                    // The watch has given up (for example because its resourceVersion is too old), so start afresh
+                    LOGGER.info("Restarting the KafkaTopic watch");
+                    vertx.runOnContext(ignored -> listAndWatch(labels, namespace).setHandler(ar -> {
+                        if (ar.failed()) {
+                            LOGGER.error("Error restarting the KafkaTopic watch", ar.cause());
+                        }
+                    }));
+                }
+            }
+        });
+        listAndWatch(labels, namespace).setHandler(watched -> {
+            if (watched.succeeded()) {
+                // start the HTTP server for healthchecks
+                healthServer = this.startHealthServer();
+                f.complete();
+            } else {
+                f.fail(watched.cause());
+            }
+        });
+        scheduleResync();
 
-                final Long interval = config.get(Config.FULL_RECONCILIATION_INTERVAL_MS);
-                Handler<Long> periodic = new Handler<Long>() {
-                    @Override
-                    public void handle(Long oldTimerId) {
+        final Long interval = config.get(Config.FULL_RECONCILIATION_INTERVAL_MS);
+        Handler<Long> periodic = new Handler<Long>() {
+            @Override
+            public void handle(Long oldTimerId) {
+                if (!stopped) {
+                    timerId = null;
+                    boolean isInitialReconcile = oldTimerId == null;
+                    topicOperator.reconcileAllTopics(isInitialReconcile ? "initial " : "periodic ").setHandler(result -> {
+                        LOGGER.debug("Reconciliation complete, TopicStore is {}", topicStore);
+                        if (isInitialReconcile) {
+                            initialReconcileComplete = true;
+                            initReconcileFuture.complete();
+                        }
                         if (!stopped) {
-                            timerId = null;
-                            boolean isInitialReconcile = oldTimerId == null;
-                            topicOperator.reconcileAllTopics(isInitialReconcile ? "initial " : "periodic ").setHandler(result -> {
-                                if (isInitialReconcile) {
-                                    initReconcileFuture.complete();
-                                }
-                                if (!stopped) {
-                                    timerId = vertx.setTimer(interval, this);
-                                }
-                            });
+                            timerId = vertx.setTimer(interval, this);
                         }
+                    });
+                }
+            }
+        };
+        periodic.handle(null);
+        f.setHandler(startupFuture);
+        LOGGER.info("Started");
+    }
+
+    /**
+     * List the KafkaTopics into the cache, then watch them from the list's resourceVersion.
+     * The cache is used once the watch has started.
+     */
+    private Future<Void> listAndWatch(Labels labels, String namespace) {
+        Future<Void> watched = Future.future();
+        k8s.relist().setHandler(listed -> {
+            String resourceVersion;
+            if (listed.succeeded()) {
+                resourceVersion = k8s.cachedResourceVersion();
+            } else {
+                LOGGER.warn("Error listing KafkaTopics, they will be read from Kubernetes when needed", listed.cause());
+                resourceVersion = null;
+            }
+            startWatch(labels, namespace, resourceVersion).setHandler(ar -> {
+                if (ar.succeeded() && listed.succeeded()) {
+                    k8s.watchStarted();
+                }
+                watched.handle(ar);
+            });
+        });
+        return watched;
+    }
+
+    private Future<Void> startWatch(Labels labels, String namespace, String resourceVersion) {
+        Future<Void> f = Future.future();
+        Thread resourceThread = new Thread(() -> {
+            try {
+                LOGGER.debug("Watching KafkaTopics matching {} from resourceVersion {}", labels.labels(), resourceVersion);
+
+                FilterWatchListDeletable<KafkaTopic, KafkaTopicList, Boolean, Watch, Watcher<KafkaTopic>> topics =
+                        kubeClient.customResources(Crds.topic(), KafkaTopic.class, KafkaTopicList.class, DoneableKafkaTopic.class)
+                            .inNamespace(namespace).withLabels(labels.labels());
+                Session.this.topicWatch = resourceVersion != null
+                        ? topics.withResourceVersion(resourceVersion).watch(kafkaTopicWatcher)
+                        : topics.watch(kafkaTopicWatcher);
+                LOGGER.debug("Watching setup");
+                f.complete();
+            } catch (Throwable t) {
+                f.fail(t);
+            }
+
+        }, "resource-watcher");
+        LOGGER.debug("Starting {}", resourceThread);
+        resourceThread.start();
+        return f;
+    }
+
+    private void scheduleResync() {
+        long resyncInterval = config.get(Config.RESOURCE_RESYNC_INTERVAL_MS);
+        if (resyncInterval > 0) {
+            vertx.setPeriodic(resyncInterval, timerId -> {
+                if (stopped) {
+                    vertx.cancelTimer(timerId);
+                    return;
+                }
+                k8s.relist().setHandler(ar -> {
+                    if (ar.failed()) {
+                        LOGGER.warn("Error relisting KafkaTopics", ar.cause());
                     }
-                };
-                periodic.handle(null);
-                f.setHandler(startupFuture);
-                LOGGER.info("Started");
+                });
             });
+        }
     }
 
     /**
-     * Start an HTTP health server
+     * Start an HTTP health server, which also serves the operator's metrics in the Prometheus format.
+     * The operator is only ready once its initial reconciliation has completed.
      */
     private HttpServer startHealthServer() {
 
@@ -231,7 +390,14 @@ public class Session extends AbstractVerticle {
                     if (request.path().equals("/healthy")) {
                         request.response().setStatusCode(200).end();
                     } else if (request.path().equals("/ready")) {
-                        request.response().setStatusCode(200).end();
+                        request.response().setStatusCode(initialReconcileComplete ? 200 : 503).end();
+                    } else if (request.path().equals("/metrics")) {
+                        request.response()
+                                .putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+                                .setStatusCode(200)
+                                .end(metrics.scrape());
+                    } else {
+                        request.response().setStatusCode(404).end();
                     }
                 })
                 .listen(HEALTH_SERVER_PORT);
@@ -0,0 +1,125 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, for each topic, compact fingerprints of the KafkaTopic, Kafka and topic store versions of the topic
+ * the last time they were found to be in agreement.
+ * A periodic reconciliation can skip a topic when none of the three versions has changed since then.
+ */
+class TopicFingerprints {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The fingerprints of the three versions of a topic. */
+    private static class Fingerprint {
+        private final long k8s;
+        private final long kafka;
+        private final long store;
+
+        Fingerprint(long k8s, long kafka, long store) {
+            this.k8s = k8s;
+            this.kafka = kafka;
+            this.store = store;
+        }
+
+        boolean matches(long k8s, long kafka, long store) {
+            return this.k8s == k8s && this.kafka == kafka && this.store == store;
+        }
+    }
+
+    private final ConcurrentHashMap<TopicName, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Record that the given versions of a topic are in agreement.
+     */
+    void record(TopicName topicName, Topic k8sTopic, Topic kafkaTopic, Topic privateTopic) {
+        fingerprints.put(topicName, new Fingerprint(fingerprint(k8sTopic), fingerprint(kafkaTopic), fingerprint(privateTopic)));
+    }
+
+    /**
+     * @return Whether the given versions of a topic are the ones which were last {@linkplain #record recorded}.
+     */
+    boolean unchanged(TopicName topicName, Topic k8sTopic, Topic kafkaTopic, Topic privateTopic) {
+        Fingerprint fingerprint = fingerprints.get(topicName);
+        return fingerprint != null
+                && fingerprint.matches(fingerprint(k8sTopic), fingerprint(kafkaTopic), fingerprint(privateTopic));
+    }
+
+    /**
+     * Forget the fingerprints of the given topic, so that it's reconciled by the next periodic reconciliation.
+     */
+    void forget(TopicName topicName) {
+        fingerprints.remove(topicName);
+    }
+
+    /**
+     * @return The number of topics with fingerprints.
+     */
+    int size() {
+        return fingerprints.size();
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the fields of the given topic which affect reconciliation,
+     * with the configs, labels and annotations in key order, so that equal topics have equal fingerprints.
+     */
+    static long fingerprint(Topic topic) {
+        if (topic == null) {
+            return 0;
+        }
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, topic.getTopicName());
+        hash = hash(hash, topic.getResourceName());
+        hash = hash(hash, topic.getNumPartitions());
+        hash = hash(hash, topic.getNumReplicas());
+        hash = hash(hash, topic.getConfig());
+        ObjectMeta metadata = topic.getMetadata();
+        if (metadata != null) {
+            hash = hash(hash, metadata.getLabels());
+            hash = hash(hash, metadata.getAnnotations());
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, Map<String, String> map) {
+        if (map == null) {
+            return hash(hash, -1);
+        }
+        hash = hash(hash, map.size());
+        for (Map.Entry<String, String> entry : new TreeMap<>(map).entrySet()) {
+            hash = hash(hash, entry.getKey());
+            hash = hash(hash, entry.getValue());
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, Object value) {
+        if (value == null) {
+            return hash(hash, -1);
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        hash = hash(hash, bytes.length);
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash = (hash ^ ((value >>> (8 * i)) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
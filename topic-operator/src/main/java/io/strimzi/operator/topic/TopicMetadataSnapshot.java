@@ -0,0 +1,51 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory snapshot of the metadata of the topics in Kafka, as fetched in bulk by
+ * {@link Kafka#topicsMetadata(java.util.Set)} at the start of a full reconciliation.
+ * This allows the per-topic reconciliations of a full reconciliation to avoid making
+ * their own requests to Kafka.
+ *
+ * The metadata of a topic becomes stale as soon as any other reconciliation of that topic
+ * completes, because that reconciliation might have changed the topic in Kafka.
+ * The operator must therefore {@link #invalidate(TopicName)} the topic when that happens,
+ * after which the snapshot no longer has metadata for it.
+ */
+class TopicMetadataSnapshot {
+
+    private final ConcurrentHashMap<TopicName, TopicMetadata> metadata;
+
+    TopicMetadataSnapshot(Map<TopicName, TopicMetadata> metadata) {
+        this.metadata = new ConcurrentHashMap<>(metadata);
+    }
+
+    /**
+     * @param topicName The topic name.
+     * @return The metadata for the given topic, or null if this snapshot has no (or no longer has) metadata for it.
+     */
+    TopicMetadata get(TopicName topicName) {
+        return metadata.get(topicName);
+    }
+
+    /**
+     * Discard the metadata for the given topic, because it might no longer reflect the state in Kafka.
+     * @param topicName The topic name.
+     */
+    void invalidate(TopicName topicName) {
+        metadata.remove(topicName);
+    }
+
+    /**
+     * @return The number of topics this snapshot has metadata for.
+     */
+    int size() {
+        return metadata.size();
+    }
+}
@@ -6,12 +6,10 @@ package io.strimzi.operator.topic;
 
 import io.fabric8.kubernetes.api.model.EventBuilder;
 import io.fabric8.kubernetes.api.model.HasMetadata;
-import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.client.Watcher;
 import io.strimzi.api.kafka.model.KafkaTopic;
-import io.strimzi.api.kafka.model.KafkaTopicBuilder;
+import io.strimzi.api.kafka.model.status.Condition;
 import io.strimzi.api.kafka.model.status.KafkaTopicStatus;
-import io.strimzi.operator.cluster.model.StatusDiff;
 import io.strimzi.operator.common.BackOff;
 import io.strimzi.operator.common.MaxAttemptsExceededException;
 import io.strimzi.operator.common.operator.resource.StatusUtils;
@@ -33,8 +31,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiFunction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.disjoint;
@@ -51,7 +49,23 @@ class TopicOperator {
     private final String namespace;
     private TopicStore topicStore;
     private final Config config;
-    private final ConcurrentHashMap<TopicName, Integer> inflight = new ConcurrentHashMap<>();
+    /** The queue of each topic which has a reconciliation running or pending, guarded by itself. */
+    private final Map<TopicName, TopicQueue> queues = new HashMap<>();
+    /** The number of reconciliations which were coalesced into a later one, guarded by {@link #queues}. */
+    private long coalescedReconciliations = 0;
+    private final ReconciliationScheduler scheduler;
+    private final TopicFingerprints fingerprints = new TopicFingerprints();
+    private final KafkaTopicStatusWriter statusWriter;
+    private final EventAggregator eventAggregator;
+    private final ReplicationFactorChanger replicationFactorChanger;
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Histogram reconciliationDuration;
+    private final MetricsRegistry.Histogram reconciliationQueueWait;
+    private final MetricsRegistry.Histogram fullReconciliationDuration;
+    /** The number of topics which periodic reconciliations skipped because they were unchanged. */
+    private final AtomicLong unchangedTopicsSkipped = new AtomicLong();
+    /** The bulk-fetched Kafka metadata used by the current full reconciliation, or null. */
+    private volatile TopicMetadataSnapshot metadataSnapshot;
 
     enum EventType {
         INFO("Info"),
@@ -105,7 +119,7 @@ class TopicOperator {
                     LOGGER.warn("{}", message);
                     break;
             }
-            k8s.createEvent(event).setHandler(handler);
+            eventAggregator.emit(event).setHandler(handler);
         }
 
         public String toString() {
@@ -165,7 +179,7 @@ class TopicOperator {
         @Override
         public void handle(Void v) {
             k8s.deleteResource(resourceName).setHandler(handler);
-            statusUpdateGeneration.remove(resourceName.toString());
+            statusWriter.forget(resourceName);
         }
 
         @Override
@@ -272,12 +286,14 @@ class TopicOperator {
 
         @Override
         public void handle(Void v) throws OperatorException {
-            kafka.updateTopicConfig(topic).setHandler(ar -> {
-                if (ar.failed()) {
-                    enqueue(new Event(involvedObject, ar.cause().toString(), EventType.WARNING, eventResult -> { }));
-                }
-                handler.handle(ar);
-            });
+            kafka.updateTopicConfig(topic)
+                .compose(ignored -> replicationFactorChanger.rethrottle(topic.getTopicName()))
+                .setHandler(ar -> {
+                    if (ar.failed()) {
+                        enqueue(new Event(involvedObject, ar.cause().toString(), EventType.WARNING, eventResult -> { }));
+                    }
+                    handler.handle(ar);
+                });
 
         }
 
@@ -353,12 +369,25 @@ class TopicOperator {
 
     protected static final String KAFKA_TOPIC_OPERATOR_NAME = "strimzi-kafka-topic-operator";
 
+    /** The maximum number of KafkaTopics whose last written status generation is remembered. */
+    private static final int MAX_STATUS_GENERATIONS = 100_000;
+
     public TopicOperator(Vertx vertx, Kafka kafka,
                          K8s k8s,
                          TopicStore topicStore,
                          Labels labels,
                          String namespace,
                          Config config) {
+        this(vertx, kafka, k8s, topicStore, labels, namespace, config, new MetricsRegistry());
+    }
+
+    public TopicOperator(Vertx vertx, Kafka kafka,
+                         K8s k8s,
+                         TopicStore topicStore,
+                         Labels labels,
+                         String namespace,
+                         Config config,
+                         MetricsRegistry metrics) {
         this.kafka = kafka;
         this.k8s = k8s;
         this.vertx = vertx;
@@ -366,81 +395,219 @@ class TopicOperator {
         this.topicStore = topicStore;
         this.namespace = namespace;
         this.config = config;
+        this.scheduler = new ReconciliationScheduler(vertx, config.get(Config.MAX_CONCURRENT_RECONCILIATIONS));
+        this.statusWriter = new KafkaTopicStatusWriter(k8s, config.get(Config.MAX_CONCURRENT_STATUS_UPDATES), MAX_STATUS_GENERATIONS);
+        this.eventAggregator = new EventAggregator(vertx, k8s, config.get(Config.MAX_EVENTS_PER_MINUTE));
+        this.replicationFactorChanger = new ReplicationFactorChanger(vertx, kafka,
+                config.get(Config.REASSIGN_THROTTLE), config.get(Config.REASSIGN_VERIFY_INTERVAL_MS),
+            topicName -> onTopicConfigChanged(LogContext.periodic("replication factor change"), topicName).setHandler(ar -> {
+                if (ar.failed()) {
+                    LOGGER.warn("Error reconciling topic {} during replication factor change", topicName, ar.cause());
+                }
+            }));
+        this.metrics = metrics;
+        this.reconciliationDuration = metrics.histogram("reconciliation_duration_seconds",
+                "The duration of the reconciliations of single topics, by trigger.", MetricsRegistry.LATENCY_BUCKETS, "trigger");
+        this.reconciliationQueueWait = metrics.histogram("reconciliation_queue_wait_seconds",
+                "The time reconciliations of single topics waited to start, by trigger.", MetricsRegistry.LATENCY_BUCKETS, "trigger");
+        this.fullReconciliationDuration = metrics.histogram("full_reconciliation_duration_seconds",
+                "The duration of full reconciliations.", MetricsRegistry.PASS_BUCKETS, "type");
+        metrics.gauge("reconciliations_running", "The number of reconciliations which are running.", scheduler::running);
+        metrics.gauge("reconciliations_waiting", "The number of reconciliations which are waiting for the scheduler.", scheduler::waiting);
+        metrics.gauge("topics_queued", "The number of topics with a reconciliation running or pending.", this::queueDepth);
+        metrics.counter("reconciliations_total", "The number of reconciliations which have completed.", scheduler::completed);
+        metrics.counter("reconciliations_coalesced_total", "The number of reconciliations which were coalesced into another.",
+                this::coalescedReconciliations);
+        metrics.counter("unchanged_topics_skipped_total", "The number of topics which full reconciliations skipped because they were unchanged.",
+                this::unchangedTopicsSkipped);
+        metrics.gauge("status_updates_pending", "The number of KafkaTopic statuses waiting to be written.", statusWriter::pending);
+        metrics.gauge("status_updates_inflight", "The number of KafkaTopic status writes in flight.", statusWriter::inflight);
+        metrics.counter("events_created_total", "The number of Kubernetes Events created.", eventAggregator::created);
+        metrics.counter("events_updated_total", "The number of Kubernetes Events updated with a new count.", eventAggregator::updated);
+        metrics.counter("events_rate_limited_total", "The number of Kubernetes Events delayed by the rate limit.", eventAggregator::rateLimited);
+        metrics.gauge("events_delayed", "The number of Kubernetes Events waiting for the rate limit.", eventAggregator::delayed);
+        metrics.gauge("replication_factor_changes_in_progress", "The number of topics whose replication factor is being changed.",
+                replicationFactorChanger::inProgress);
+        metrics.counter("replication_factor_changes_completed_total", "The number of replication factor changes which have completed.",
+                replicationFactorChanger::completed);
     }
 
 
+    /** A reconciliation waiting for the running reconciliation of the same topic to finish. */
+    private static class PendingReconciliation {
+        Reconciliation action;
+        LogContext logContext;
+        ReconciliationScheduler.Priority priority;
+        /** When the first of the reconciliations coalesced into this one was queued, per {@link System#nanoTime()}. */
+        final long sinceNanos = System.nanoTime();
+        /** The futures to complete with the result of this reconciliation. */
+        final List<Future<Void>> results = new ArrayList<>(1);
+
+        PendingReconciliation(Reconciliation action, LogContext logContext, ReconciliationScheduler.Priority priority) {
+            this.action = action;
+            this.logContext = logContext;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * The reconciliations of a single topic.
+     * At most one reconciliation of a topic runs at a time, and at most one of each
+     * {@linkplain Reconciliation#coalescingKind() kind} is pending.
+     */
+    private static class TopicQueue {
+        /** Whether a reconciliation of the topic is currently running. */
+        boolean running;
+        /** The scheduler task of the next pending reconciliation, while it waits to be started, or null. */
+        ReconciliationScheduler.Task scheduled;
+        /** The reconciliations to run, in order, once the running one has finished. */
+        final List<PendingReconciliation> pending = new ArrayList<>(1);
+
+        PendingReconciliation pending(String kind) {
+            for (PendingReconciliation p : pending) {
+                if (p.action.coalescingKind().equals(kind)) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        /** The highest priority of the pending reconciliations. */
+        ReconciliationScheduler.Priority priority() {
+            ReconciliationScheduler.Priority priority = ReconciliationScheduler.Priority.LOW;
+            for (PendingReconciliation p : pending) {
+                if (p.priority.compareTo(priority) < 0) {
+                    priority = p.priority;
+                }
+            }
+            return priority;
+        }
+    }
+
+    /**
+     * Run the given {@code action} on the context thread with {@link ReconciliationScheduler.Priority#HIGH high priority}.
+     * @see #executeWithTopicLockHeld(LogContext, TopicName, Reconciliation, ReconciliationScheduler.Priority)
+     */
+    public Future<Void> executeWithTopicLockHeld(LogContext logContext, TopicName key, Reconciliation action) {
+        return executeWithTopicLockHeld(logContext, key, action, ReconciliationScheduler.Priority.HIGH);
+    }
+
     /**
      * Run the given {@code action} on the context thread,
-     * immediately if there are currently no other actions with the given {@code key},
-     * or when the other actions with the given {@code key} have completed.
+     * once there are no other running actions with the given {@code key}
+     * and the {@linkplain ReconciliationScheduler scheduler} has room for it.
      * When the given {@code action} is complete it must complete its argument future,
-     * which will complete the returned future
+     * which will complete the returned future.
+     *
+     * If another action of the same {@linkplain Reconciliation#coalescingKind() kind} with the given
+     * {@code key} is already waiting to run, the two are coalesced: only one of them is run
+     * and both returned futures are completed with its result. The one which is run is the
+     * one with the higher priority, or the more recent one if they have the same priority.
+     * Pending actions of different kinds are run in the order they were first queued.
      */
-    public Future<Void> executeWithTopicLockHeld(LogContext logContext, TopicName key, Reconciliation action) {
-        String lockName = key.toString();
-        int timeoutMs = 30 * 1_000;
+    public Future<Void> executeWithTopicLockHeld(LogContext logContext, TopicName key, Reconciliation action,
+                                                 ReconciliationScheduler.Priority priority) {
         Future<Void> result = Future.future();
-        BiFunction<TopicName, Integer, Integer> decrement = (topicName, waiters) -> {
-            if (waiters != null) {
-                if (waiters == 1) {
-                    LOGGER.debug("{}: Removing last waiter {}", logContext, action);
-                    return null;
+        synchronized (queues) {
+            TopicQueue queue = queues.computeIfAbsent(key, k -> new TopicQueue());
+            PendingReconciliation pending = queue.pending(action.coalescingKind());
+            if (pending == null) {
+                LOGGER.debug("{}: Queuing action {} on topic {}", logContext, action, key);
+                pending = new PendingReconciliation(action, logContext, priority);
+                queue.pending.add(pending);
+            } else {
+                coalescedReconciliations++;
+                if (priority.compareTo(pending.priority) <= 0) {
+                    LOGGER.debug("{}: Coalescing pending action {} on topic {} into action {}", logContext, pending.action, key, action);
+                    pending.action = action;
+                    pending.logContext = logContext;
+                    pending.priority = priority;
                 } else {
-                    LOGGER.debug("{}: Removing waiter {}, {} waiters left", logContext, action, waiters - 1);
-                    return waiters - 1;
+                    LOGGER.debug("{}: Coalescing action {} on topic {} into pending action {}", logContext, action, key, pending.action);
                 }
-            } else {
-                LOGGER.error("{}: Assertion failure. topic {}, action {}", logContext, lockName, action);
-                return null;
             }
-        };
-        LOGGER.debug("{}: Queuing action {} on topic {}", logContext, action, lockName);
-        inflight.compute(key, (topicName, waiters) -> {
-            if (waiters == null) {
-                LOGGER.debug("{}: Adding first waiter {}", logContext, action);
-                return 1;
-            } else {
-                LOGGER.debug("{}: Adding waiter {}: {}", logContext, action, waiters + 1);
-                return waiters + 1;
+            pending.results.add(result);
+            if (queue.scheduled != null) {
+                if (priority == ReconciliationScheduler.Priority.HIGH) {
+                    scheduler.promote(queue.scheduled);
+                }
+            } else if (!queue.running) {
+                queue.scheduled = scheduler.schedule(queue.priority(), task -> executeNext(key, task));
             }
-        });
-        vertx.sharedData().getLockWithTimeout(lockName, timeoutMs, lockResult -> {
-            if (lockResult.succeeded()) {
-                LOGGER.debug("{}: Lock acquired", logContext);
-                LOGGER.debug("{}: Executing action {} on topic {}", logContext, action, lockName);
-                action.execute().setHandler(actionResult -> {
-                    LOGGER.debug("{}: Executing handler for action {} on topic {}", logContext, action, lockName);
-                    action.result = actionResult;
-                    // Update status with lock held so that event is ignored via statusUpdateGeneration
-                    action.updateStatus(logContext).setHandler(statusResult -> {
-                        if (statusResult.failed()) {
-                            LOGGER.error("{}: Error updating KafkaTopic.status for action {}", logContext, action,
-                                    statusResult.cause());
-                        }
-                        try {
-                            if (actionResult.failed() && statusResult.failed()) {
-                                actionResult.cause().addSuppressed(statusResult.cause());
-                            }
-                            result.handle(actionResult.failed() ? actionResult : statusResult);
-                        } catch (Throwable t) {
-                            result.fail(t);
-                        } finally {
-                            lockResult.result().release();
-                            LOGGER.debug("{}: Lock released", logContext);
-                            inflight.compute(key, decrement);
-                        }
-                    });
-                });
-            } else {
-                LOGGER.warn("{}: Lock not acquired within {}ms: action {} will not be run", logContext, timeoutMs, action);
-                try {
-                    result.handle(Future.failedFuture("Failed to acquire lock for topic " + lockName + " after " + timeoutMs + "ms. Not executing action " + action));
-                } finally {
-                    inflight.compute(key, decrement);
+        }
+        return result;
+    }
+
+    /**
+     * Run the next pending action for the given {@code key}, and when it's complete,
+     * schedule the next one if there is one.
+     */
+    private void executeNext(TopicName key, ReconciliationScheduler.Task task) {
+        Reconciliation action;
+        LogContext logContext;
+        List<Future<Void>> results;
+        long queuedNanos;
+        synchronized (queues) {
+            TopicQueue queue = queues.get(key);
+            PendingReconciliation next = queue.pending.remove(0);
+            action = next.action;
+            logContext = next.logContext;
+            queuedNanos = next.sinceNanos;
+            results = next.results;
+            queue.scheduled = null;
+            queue.running = true;
+        }
+        LOGGER.debug("{}: Executing action {} on topic {}", logContext, action, key);
+        String trigger = logContext.triggerKind();
+        reconciliationQueueWait.observeSince(queuedNanos, trigger);
+        long startNanos = System.nanoTime();
+        Future<Void> executed;
+        try {
+            executed = action.execute();
+        } catch (Throwable t) {
+            executed = Future.failedFuture(t);
+        }
+        executed.setHandler(actionResult -> {
+            LOGGER.debug("{}: Executing handler for action {} on topic {}", logContext, action, key);
+            reconciliationDuration.observeSince(startNanos, trigger);
+            // The action might have changed the topic in Kafka, so any snapshotted metadata is now stale
+            invalidateMetadataSnapshot(key);
+            action.result = actionResult;
+            // The status is written by the status writer, so the next action can run without waiting for it.
+            // The writer remembers the generation being written, so that the event it causes is ignored.
+            Future<Void> statusWritten;
+            try {
+                statusWritten = action.updateStatus(logContext);
+            } finally {
+                task.done();
+                synchronized (queues) {
+                    TopicQueue queue = queues.get(key);
+                    queue.running = false;
+                    if (!queue.pending.isEmpty()) {
+                        queue.scheduled = scheduler.schedule(queue.priority(), next -> executeNext(key, next));
+                    } else {
+                        queues.remove(key);
+                    }
                 }
             }
+            statusWritten.setHandler(statusResult -> {
+                if (statusResult.failed()) {
+                    LOGGER.error("{}: Error updating KafkaTopic.status for action {}", logContext, action,
+                            statusResult.cause());
+                }
+                if (actionResult.failed() && statusResult.failed()) {
+                    actionResult.cause().addSuppressed(statusResult.cause());
+                }
+                AsyncResult<Void> outcome = actionResult.failed() ? actionResult : statusResult;
+                for (Future<Void> result : results) {
+                    try {
+                        result.handle(outcome);
+                    } catch (Throwable t) {
+                        LOGGER.error("{}: Error handling result of action {}", logContext, action, t);
+                    }
+                }
+            });
         });
-        return result;
     }
 
     /**
@@ -600,11 +767,34 @@ class TopicOperator {
     }
 
     private Future<Void> update3Way(Reconciliation reconciliation, LogContext logContext, HasMetadata involvedObject, Topic k8sTopic, Topic kafkaTopic, Topic privateTopic) {
-        final Future<Void> reconciliationResultHandler;
         if (!privateTopic.getResourceName().equals(k8sTopic.getResourceName())) {
             return Future.failedFuture(new OperatorException(involvedObject,
                     "Topic '" + kafkaTopic.getTopicName() + "' is already managed via KafkaTopic '" + privateTopic.getResourceName() + "' it cannot also be managed via the KafkaTopic '" + k8sTopic.getResourceName() + "'"));
         }
+        if (replicationFactorChanger.inProgress(kafkaTopic.getTopicName())) {
+            // While its partitions are being reassigned Kafka reports the replicas of both the old and new assignments,
+            // so the replication factor is left out of the reconciliation until the reassignment has completed
+            LOGGER.debug("{}: The replication factor of the topic is being changed", logContext);
+            return merge3Way(reconciliation, logContext, involvedObject,
+                    new Topic.Builder(k8sTopic).withNumReplicas(privateTopic.getNumReplicas()).build(),
+                    new Topic.Builder(kafkaTopic).withNumReplicas(privateTopic.getNumReplicas()).build(),
+                    privateTopic, k8sTopic.getNumReplicas());
+        } else if (k8sTopic.getNumReplicas() != privateTopic.getNumReplicas()
+                && kafkaTopic.getNumReplicas() == privateTopic.getNumReplicas()) {
+            // Start reassigning the partitions, then reconcile the rest of the topic
+            return replicationFactorChanger.start(logContext, kafkaTopic.getTopicName(), k8sTopic.getNumReplicas())
+                .compose(ignored -> update3Way(reconciliation, logContext, involvedObject, k8sTopic, kafkaTopic, privateTopic));
+        }
+        return merge3Way(reconciliation, logContext, involvedObject, k8sTopic, kafkaTopic, privateTopic, null);
+    }
+
+    /**
+     * Merge the changes made to the KafkaTopic and to the topic in Kafka since the private topic was stored.
+     * @param resourceReplicas If not null, the replication factor which the KafkaTopic keeps, because it's being changed.
+     */
+    private Future<Void> merge3Way(Reconciliation reconciliation, LogContext logContext, HasMetadata involvedObject,
+                                   Topic k8sTopic, Topic kafkaTopic, Topic privateTopic, Short resourceReplicas) {
+        final Future<Void> reconciliationResultHandler;
         TopicDiff oursKafka = TopicDiff.diff(privateTopic, kafkaTopic);
         LOGGER.debug("{}: topicStore->kafkaTopic: {}", logContext, oursKafka);
         TopicDiff oursK8s = TopicDiff.diff(privateTopic, k8sTopic);
@@ -620,6 +810,7 @@ class TopicOperator {
             LOGGER.debug("{}: Diffs do not conflict, merged diff: {}", logContext, merged);
             if (merged.isEmpty()) {
                 LOGGER.info("{}: All three topics are identical", logContext);
+                fingerprints.record(kafkaTopic.getTopicName(), k8sTopic, kafkaTopic, privateTopic);
                 reconciliationResultHandler = Future.succeededFuture();
             } else {
                 Topic result = merged.apply(privateTopic);
@@ -630,13 +821,6 @@ class TopicOperator {
                     enqueue(new Event(involvedObject, message, EventType.INFO, eventResult -> {
                     }));
                     reconciliationResultHandler = Future.failedFuture(new Exception(message));
-                } else if (oursK8s.changesReplicationFactor()
-                            && !oursKafka.changesReplicationFactor()) {
-                    reconciliationResultHandler = Future.failedFuture(new Exception(
-                                    "Changing 'spec.replicas' is not supported. " +
-                                            "This KafkaTopic's 'spec.replicas' should be reverted to " +
-                                            kafkaTopic.getNumReplicas() +
-                                            " and then the replication should be changed directly in Kafka."));
                 } else {
                     // TODO What if we increase min.in.sync.replicas and the number of replicas,
                     // such that the old number of replicas < the new min isr? But likewise
@@ -647,7 +831,8 @@ class TopicOperator {
                     Future<KafkaTopic> resourceFuture;
                     if (!kubeDiff.isEmpty()) {
                         LOGGER.debug("{}: Updating KafkaTopic with {}", logContext, kubeDiff);
-                        resourceFuture = updateResource(logContext, result).map(updatedKafkaTopic -> {
+                        Topic resourceTopic = resourceReplicas != null ? new Topic.Builder(result).withNumReplicas(resourceReplicas).build() : result;
+                        resourceFuture = updateResource(logContext, resourceTopic).map(updatedKafkaTopic -> {
                             reconciliation.observedTopicFuture(updatedKafkaTopic);
                             return updatedKafkaTopic;
                         });
@@ -708,8 +893,6 @@ class TopicOperator {
             });
     }
 
-    private Map<String, Long> statusUpdateGeneration = new HashMap<>();
-
     /**
      * Called when ZK watch notifies of change to topic's config
      */
@@ -732,6 +915,12 @@ class TopicOperator {
      */
     Future<Void> onTopicPartitionsChanged(LogContext logContext, TopicName topicName) {
         Reconciliation action = new Reconciliation("onTopicPartitionsChanged") {
+            @Override
+            protected boolean fromCurrentState() {
+                // It waits for the partition count in Kafka to change
+                return false;
+            }
+
             @Override
             public Future<Void> execute() {
                 Reconciliation self = this;
@@ -788,8 +977,8 @@ class TopicOperator {
         // Look up the private topic to discover the name of kube KafkaTopic
         return topicStore.read(topicName)
             .compose(storeTopic -> {
-                ResourceName resourceName = storeTopic != null ? storeTopic.getResourceName() : topicName.asKubeName();
-                return k8s.getFromName(resourceName).compose(topic -> {
+                Future<KafkaTopic> resourceFuture = storeTopic != null ? k8s.getFromName(storeTopic.getResourceName()) : k8s.getFromTopicName(topicName);
+                return resourceFuture.compose(topic -> {
                     reconciliation.observedTopicFuture(kafkaTopic != null ? topic : null);
                     Topic k8sTopic = TopicSerialization.fromTopicResource(topic);
                     return reconcile(reconciliation, logContext.withKubeTopic(topic), topic, k8sTopic, kafkaTopic, storeTopic);
@@ -802,6 +991,12 @@ class TopicOperator {
         // XXX currently runs on the ZK thread, requiring a synchronized inFlight
         // is it better to put this check in the topic deleted event?
         Reconciliation action = new Reconciliation("onTopicCreated") {
+            @Override
+            protected boolean fromCurrentState() {
+                // It waits for the topic to exist in Kafka
+                return false;
+            }
+
             @Override
             public Future<Void> execute() {
                 Reconciliation self = this;
@@ -857,6 +1052,23 @@ class TopicOperator {
 
         public abstract Future<Void> execute();
 
+        /**
+         * @return Whether this reconciliation reconciles the topic from its current state, whatever caused it,
+         * so that any other such reconciliation of the topic can stand in for it.
+         * Reconciliations which wait for a particular change to appear in Kafka return false.
+         */
+        protected boolean fromCurrentState() {
+            return true;
+        }
+
+        /**
+         * @return The kind of this reconciliation: pending reconciliations of a topic are only coalesced with
+         * those of the same kind.
+         */
+        String coalescingKind() {
+            return fromCurrentState() ? "" : name;
+        }
+
         protected void observedTopicFuture(KafkaTopic observedTopic) {
             topic = observedTopic;
         }
@@ -873,29 +1085,13 @@ class TopicOperator {
                             topic.getMetadata().getGeneration());
                     KafkaTopicStatus kts = new KafkaTopicStatus();
                     StatusUtils.setStatusConditionAndObservedGeneration(topic, kts, result);
-
-                    StatusDiff ksDiff = new StatusDiff(topic.getStatus(), kts);
-                    if (!ksDiff.isEmpty()) {
-                        statusFuture = Future.future();
-                        k8s.updateResourceStatus(new KafkaTopicBuilder(topic).withStatus(kts).build()).setHandler(ar -> {
-                            if (ar.succeeded() && ar.result() != null) {
-                                ObjectMeta metadata = ar.result().getMetadata();
-                                LOGGER.debug("{}: status was set rv={}, generation={}, observedGeneration={}",
-                                        logContext,
-                                        metadata.getResourceVersion(),
-                                        metadata.getGeneration(),
-                                        ar.result().getStatus().getObservedGeneration());
-                                statusUpdateGeneration.put(
-                                        metadata.getName(),
-                                        metadata.getGeneration());
-                            } else {
-                                LOGGER.error("{}: Error setting resource status", logContext, ar.cause());
-                            }
-                            statusFuture.handle(ar.map((Void) null));
-                        });
-                    } else {
-                        statusFuture = Future.succeededFuture();
+                    Condition replicationFactorChange = replicationFactorChanger.condition(new TopicName(topic));
+                    if (replicationFactorChange != null) {
+                        List<Condition> conditions = new ArrayList<>(kts.getConditions());
+                        conditions.add(replicationFactorChange);
+                        kts.setConditions(conditions);
                     }
+                    statusFuture = statusWriter.write(logContext, topic, kts);
                 } else {
                     LOGGER.debug("{}: No KafkaTopic to set status", logContext);
                     statusFuture = Future.succeededFuture();
@@ -919,15 +1115,11 @@ class TopicOperator {
                                 final Topic k8sTopic;
                                 if (mt != null) {
 
-                                    Long generation = statusUpdateGeneration.get(mt.getMetadata().getName());
+                                    Long generation = statusWriter.lastGeneration(new ResourceName(mt));
                                     LOGGER.debug("{}: last updated generation={}", logContext, generation);
                                     if (mt.getMetadata() != null
                                             && mt.getMetadata().getGeneration() != null) {
                                         if (mt.getMetadata().getGeneration().equals(generation)) {
-                                            // TODO we might also need some way to avoid statusUpdateGeneration getting too big
-                                            // e.g. remove after 10 seconds, for example
-                                            // Or do we not care and maintain this map to avoid unnecessary work always
-                                            // It doesn't scale to many topics so well, but maybe that's not such a huge problem.
                                             LOGGER.debug("{}: Ignoring modification event caused by my own status update on {}",
                                                     logContext,
                                                     mt.getMetadata().getName());
@@ -1057,6 +1249,7 @@ class TopicOperator {
 
 
     private Future<Void> deleteFromTopicStore(LogContext logContext, HasMetadata involvedObject, TopicName topicName) {
+        fingerprints.forget(topicName);
         Future<Void> reconciliationResultHandler = Future.future();
         enqueue(new DeleteFromTopicStore(logContext, topicName, involvedObject, reconciliationResultHandler));
         return reconciliationResultHandler;
@@ -1093,8 +1286,85 @@ class TopicOperator {
     }
 
     public boolean isWorkInflight() {
-        LOGGER.debug("Outstanding: {}", inflight);
-        return inflight.size() > 0;
+        synchronized (queues) {
+            LOGGER.debug("Outstanding: {}", queues.keySet());
+            if (!queues.isEmpty()) {
+                return true;
+            }
+        }
+        return statusWriter.pending() > 0 || statusWriter.inflight() > 0;
+    }
+
+    /**
+     * @return The number of topics which have a reconciliation running or pending.
+     */
+    int queueDepth() {
+        synchronized (queues) {
+            return queues.size();
+        }
+    }
+
+    /**
+     * @return The number of reconciliations which are waiting for another reconciliation of the same topic to finish.
+     */
+    int pendingReconciliations() {
+        synchronized (queues) {
+            int pending = 0;
+            for (TopicQueue queue : queues.values()) {
+                pending += queue.pending.size();
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * @return The number of reconciliations which were not run because a later reconciliation of the same topic was
+     * requested before they started.
+     */
+    long coalescedReconciliations() {
+        synchronized (queues) {
+            return coalescedReconciliations;
+        }
+    }
+
+    /**
+     * @return The number of topics which periodic reconciliations skipped because none of the KafkaTopic,
+     * the Kafka topic or the topic store had changed since the topic was last reconciled.
+     */
+    long unchangedTopicsSkipped() {
+        return unchangedTopicsSkipped.get();
+    }
+
+    /**
+     * @return The scheduler which limits the number of concurrent reconciliations.
+     */
+    ReconciliationScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The writer of KafkaTopic statuses.
+     */
+    KafkaTopicStatusWriter statusWriter() {
+        return statusWriter;
+    }
+
+    ReplicationFactorChanger replicationFactorChanger() {
+        return replicationFactorChanger;
+    }
+
+    /**
+     * @return The aggregator of the Kubernetes Events emitted by the operator.
+     */
+    EventAggregator eventAggregator() {
+        return eventAggregator;
+    }
+
+    /**
+     * @return The metrics of the operator.
+     */
+    MetricsRegistry metrics() {
+        return metrics;
     }
 
     /**
@@ -1117,87 +1387,151 @@ class TopicOperator {
         private final Set<TopicName> succeeded;
         private final Set<TopicName> undetermined;
         private final Map<TopicName, Throwable> failed;
-        private List<KafkaTopic> ktList;
 
         public ReconcileState(Set<TopicName> succeeded, Set<TopicName> undetermined, Map<TopicName, Throwable> failed) {
             this.succeeded = succeeded;
             this.undetermined = undetermined;
             this.failed = failed;
         }
-
-        public void addKafkaTopics(List<KafkaTopic> ktList) {
-            this.ktList = ktList;
-        }
     }
 
     Future<?> reconcileAllTopics(String reconciliationType) {
         LOGGER.info("Starting {} reconciliation", reconciliationType);
+        long startNanos = System.nanoTime();
         Future<Set<String>> listFut = Future.future();
         kafka.listTopics().setHandler(listFut);
-        return listFut.recover(ex -> Future.failedFuture(
+        Future<?> result = listFut.recover(ex -> Future.failedFuture(
                 new OperatorException("Error listing existing topics during " + reconciliationType + " reconciliation", ex)
-        )).compose(topicNamesFromKafka ->
+        )).compose(topicNamesFromKafka -> {
+            List<TopicName> topicNames = topicNamesFromKafka.stream().map(TopicName::new).collect(Collectors.toList());
+            return snapshotMetadata(reconciliationType, topicNames).map(topicNames);
+        }).compose(topicNamesFromKafka ->
                 // Reconcile the topic found in Kafka
-                reconcileFromKafka(reconciliationType, topicNamesFromKafka.stream().map(TopicName::new).collect(Collectors.toList()))
+                reconcileFromKafka(reconciliationType, topicNamesFromKafka)
 
         ).compose(reconcileState -> {
-            Future<List<KafkaTopic>> ktFut = k8s.listResources();
-            return ktFut.recover(ex -> Future.failedFuture(
+            // Reconcile the KafkaTopics a page at a time, so they're never all in memory at once
+            AtomicReference<Throwable> kubeFailure = new AtomicReference<>();
+            return k8s.listResources(page -> reconcileFromKube(reconciliationType, reconcileState, page).<Void>mapEmpty()
+                .otherwise(error -> {
+                    kubeFailure.compareAndSet(null, error);
+                    return null;
+                })
+            ).recover(ex -> Future.failedFuture(
                     new OperatorException("Error listing existing KafkaTopics during " + reconciliationType + " reconciliation", ex)
-            )).map(ktList -> {
-                reconcileState.addKafkaTopics(ktList);
-                return reconcileState;
-            });
+            )).compose(ignored -> kubeFailure.get() != null ? Future.failedFuture(kubeFailure.get()) : Future.succeededFuture(reconcileState));
         }).compose(reconcileState -> {
-            List<Future> futs = new ArrayList<>();
-            for (KafkaTopic kt : reconcileState.ktList) {
-                LogContext logContext = LogContext.periodic(reconciliationType + "kube " + kt.getMetadata().getName()).withKubeTopic(kt);
-                Topic topic = TopicSerialization.fromTopicResource(kt);
-                TopicName topicName = topic.getTopicName();
-                if (reconcileState.failed.containsKey(topicName)) {
-                    // we already failed to reconcile this topic in reconcileFromKafka(), /
-                    // don't bother trying again
-                    LOGGER.trace("{}: Already failed to reconcile {}", logContext, topicName);
-                } else if (reconcileState.succeeded.contains(topicName)) {
-                    // we already succeeded in reconciling this topic in reconcileFromKafka()
-                    LOGGER.trace("{}: Already successfully reconciled {}", logContext, topicName);
-                } else if (reconcileState.undetermined.contains(topicName)) {
-                    // The topic didn't exist in topicStore, but now we know which KT it corresponds to
-                    futs.add(reconcileWithKubeTopic(logContext, kt, reconciliationType, new ResourceName(kt), topic.getTopicName()).compose(r -> {
-                        // if success then remove from undetermined add to success
-                        reconcileState.undetermined.remove(topicName);
-                        reconcileState.succeeded.add(topicName);
-                        return Future.succeededFuture(Boolean.TRUE);
-                    }));
-                } else {
-                    // Topic exists in kube, but not in Kafka
-                    LOGGER.debug("{}: Topic {} exists in Kafka, but not Kubernetes", logContext, topicName, logTopic(kt));
-                    futs.add(reconcileWithKubeTopic(logContext, kt, reconciliationType, new ResourceName(kt), topic.getTopicName()).compose(r -> {
-                        // if success then add to success
-                        reconcileState.succeeded.add(topicName);
-                        return Future.succeededFuture(Boolean.TRUE);
-                    }));
-                }
+            List<Future> futs2 = new ArrayList<>();
+            for (Throwable exception : reconcileState.failed.values()) {
+                futs2.add(Future.failedFuture(exception));
             }
-            return CompositeFuture.join(futs).compose(joined -> {
-                List<Future> futs2 = new ArrayList<>();
-                for (Throwable exception : reconcileState.failed.values()) {
-                    futs2.add(Future.failedFuture(exception));
-                }
-                // anything left in undetermined doesn't exist in topic store nor kube
-                for (TopicName tn : reconcileState.undetermined) {
-                    LogContext logContext = LogContext.periodic(reconciliationType + "-" + tn);
-                    futs2.add(executeWithTopicLockHeld(logContext, tn, new Reconciliation("delete-remaining") {
-                        @Override
-                        public Future<Void> execute() {
-                            observedTopicFuture(null);
-                            return getKafkaAndReconcile(this, logContext, tn, null, null);
-                        }
-                    }));
-                }
-                return CompositeFuture.join(futs2);
-            });
+            // anything left in undetermined doesn't exist in topic store nor kube
+            for (TopicName tn : reconcileState.undetermined) {
+                LogContext logContext = LogContext.periodic(reconciliationType + "-" + tn);
+                futs2.add(executeWithTopicLockHeld(logContext, tn, new Reconciliation("delete-remaining") {
+                    @Override
+                    public Future<Void> execute() {
+                        observedTopicFuture(null);
+                        return getKafkaAndReconcile(this, logContext, tn, null, null);
+                    }
+                }, ReconciliationScheduler.Priority.LOW));
+            }
+            return CompositeFuture.join(futs2);
         });
+        Future<Void> done = Future.future();
+        result.setHandler(ar -> {
+            LOGGER.debug("Discarding metadata snapshot at end of {} reconciliation, {}", reconciliationType, scheduler);
+            metadataSnapshot = null;
+            fullReconciliationDuration.observeSince(startNanos, reconciliationType.trim());
+            done.handle(ar.mapEmpty());
+        });
+        return done;
+    }
+
+    /**
+     * Reconcile the given page of KafkaTopics, skipping the topics which were already reconciled from Kafka.
+     * @return A future which completes once the reconciliations of the page have completed,
+     * and which fails if any of them failed.
+     */
+    @SuppressWarnings("rawtypes")
+    private CompositeFuture reconcileFromKube(String reconciliationType, ReconcileState reconcileState, List<KafkaTopic> page) {
+        List<Future> futs = new ArrayList<>();
+        for (KafkaTopic kt : page) {
+            LogContext logContext = LogContext.periodic(reconciliationType + "kube " + kt.getMetadata().getName()).withKubeTopic(kt);
+            Topic topic = TopicSerialization.fromTopicResource(kt);
+            TopicName topicName = topic.getTopicName();
+            if (reconcileState.failed.containsKey(topicName)) {
+                // we already failed to reconcile this topic in reconcileFromKafka(), /
+                // don't bother trying again
+                LOGGER.trace("{}: Already failed to reconcile {}", logContext, topicName);
+            } else if (reconcileState.succeeded.contains(topicName)) {
+                // we already succeeded in reconciling this topic in reconcileFromKafka()
+                LOGGER.trace("{}: Already successfully reconciled {}", logContext, topicName);
+            } else if (reconcileState.undetermined.contains(topicName)) {
+                // The topic didn't exist in topicStore, but now we know which KT it corresponds to
+                futs.add(reconcileWithKubeTopic(logContext, kt, reconciliationType, new ResourceName(kt), topic.getTopicName()).compose(r -> {
+                    // if success then remove from undetermined add to success
+                    reconcileState.undetermined.remove(topicName);
+                    reconcileState.succeeded.add(topicName);
+                    return Future.succeededFuture(Boolean.TRUE);
+                }));
+            } else {
+                // Topic exists in kube, but not in Kafka
+                LOGGER.debug("{}: Topic {} exists in Kafka, but not Kubernetes", logContext, topicName, logTopic(kt));
+                futs.add(reconcileWithKubeTopic(logContext, kt, reconciliationType, new ResourceName(kt), topic.getTopicName()).compose(r -> {
+                    // if success then add to success
+                    reconcileState.succeeded.add(topicName);
+                    return Future.succeededFuture(Boolean.TRUE);
+                }));
+            }
+        }
+        return CompositeFuture.join(futs);
+    }
+
+    /**
+     * Fetch the metadata of all the given topics from Kafka in bulk, so that the per-topic
+     * reconciliations of a full reconciliation don't each need to make their own requests.
+     * Failure to fetch the metadata is not fatal: The reconciliations will instead
+     * fetch the metadata for each topic individually.
+     */
+    private Future<Void> snapshotMetadata(String reconciliationType, List<TopicName> topicNames) {
+        metadataSnapshot = null;
+        if (topicNames.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        Future<Void> result = Future.future();
+        kafka.topicsMetadata(new HashSet<>(topicNames)).setHandler(ar -> {
+            if (ar.succeeded()) {
+                metadataSnapshot = new TopicMetadataSnapshot(ar.result());
+                LOGGER.debug("Snapshotted metadata of {} topics for {} reconciliation", metadataSnapshot.size(), reconciliationType);
+            } else {
+                LOGGER.warn("Error getting metadata of {} topics during {} reconciliation, metadata will be fetched per topic",
+                        topicNames.size(), reconciliationType, ar.cause());
+            }
+            result.complete();
+        });
+        return result;
+    }
+
+    private void invalidateMetadataSnapshot(TopicName topicName) {
+        TopicMetadataSnapshot snapshot = metadataSnapshot;
+        if (snapshot != null) {
+            snapshot.invalidate(topicName);
+        }
+    }
+
+    /**
+     * Get the metadata of the given topic from the current full reconciliation's snapshot
+     * if it's there, otherwise from Kafka.
+     */
+    private Future<TopicMetadata> snapshottedTopicMetadata(TopicName topicName) {
+        TopicMetadataSnapshot snapshot = metadataSnapshot;
+        TopicMetadata metadata = snapshot != null ? snapshot.get(topicName) : null;
+        if (metadata != null) {
+            return Future.succeededFuture(metadata);
+        } else {
+            return kafka.topicMetadata(topicName);
+        }
     }
 
 
@@ -1246,7 +1580,7 @@ class TopicOperator {
                         });
 
                     }
-                }));
+                }, ReconciliationScheduler.Priority.LOW));
             }
             return join(futures).map(state);
         } else {
@@ -1287,9 +1621,14 @@ class TopicOperator {
         Future<Void> topicFuture = Future.future();
         try {
             Topic k8sTopic = kafkaTopicResource != null ? TopicSerialization.fromTopicResource(kafkaTopicResource) : null;
-            kafka.topicMetadata(topicName)
+            snapshottedTopicMetadata(topicName)
                 .compose(kafkaTopicMeta -> {
                     Topic topicFromKafka = TopicSerialization.fromTopicMetadata(kafkaTopicMeta);
+                    if (fingerprints.unchanged(topicName, k8sTopic, topicFromKafka, privateTopic)) {
+                        LOGGER.debug("{}: Topic {} is unchanged since it was last reconciled", logContext, topicName);
+                        unchangedTopicsSkipped.incrementAndGet();
+                        return Future.succeededFuture();
+                    }
                     return reconcile(reconciliation, logContext, kafkaTopicResource, k8sTopic, topicFromKafka, privateTopic);
                 })
                 .setHandler(ar -> {
@@ -1340,7 +1679,7 @@ class TopicOperator {
                         return reconcile(self, logContext, involvedObject, k8sTopic, kafkaTopic, privateTopic);
                     });
             }
-        });
+        }, ReconciliationScheduler.Priority.LOW);
     }
 
 }
@@ -7,6 +7,8 @@ package io.strimzi.operator.topic;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
@@ -19,14 +21,20 @@ import org.apache.kafka.common.config.ConfigResource;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 /**
  * Serialization of a {@link }Topic} to and from various other representations.
@@ -40,6 +48,20 @@ class TopicSerialization {
     public static final String JSON_KEY_REPLICAS = "replicas";
     public static final String JSON_KEY_CONFIG = "config";
 
+    /** The first byte of the binary encoding, which is never the first byte of JSON. */
+    static final byte BINARY_MAGIC = 0;
+    /** The version of the binary encoding. */
+    static final byte BINARY_VERSION = 1;
+
+    // ObjectReaders and ObjectWriters are immutable and thread safe, so they are built once
+    private static final ObjectMapper MAPPER = objectMapper();
+    private static final ObjectReader JSON_MAP_READER = MAPPER.readerFor(Map.class);
+    private static final ObjectWriter JSON_WRITER = MAPPER.writer();
+
+    /** The topic configs which are managed by the {@link ReplicationFactorChanger}. */
+    private static final Set<String> THROTTLED_REPLICAS_CONFIGS = new HashSet<>(asList(
+            KafkaImpl.LEADER_THROTTLED_REPLICAS, KafkaImpl.FOLLOWER_THROTTLED_REPLICAS));
+
     @SuppressWarnings("unchecked")
     private static Map<String, String> topicConfigFromTopicConfig(KafkaTopic kafkaTopic) {
         if (kafkaTopic.getSpec().getConfig() != null) {
@@ -230,7 +252,8 @@ class TopicSerialization {
                 .withNumReplicas((short) meta.getDescription().partitions().get(0).replicas().size())
                 .withMetadata(null);
         for (ConfigEntry entry: meta.getConfig().entries()) {
-            if (!entry.isDefault()) {
+            // The throttled replicas are set by the operator while the replication factor is being changed
+            if (!entry.isDefault() && !THROTTLED_REPLICAS_CONFIGS.contains(entry.name())) {
                 builder.withConfigEntry(entry.name(), entry.value());
             }
         }
@@ -242,26 +265,22 @@ class TopicSerialization {
      * This is what is stored in the znodes owned by the {@link ZkTopicStore}.
      */
     public static byte[] toJson(Topic topic) {
-        ObjectMapper mapper = objectMapper();
-        ObjectNode root = mapper.createObjectNode();
+        ObjectNode root = MAPPER.createObjectNode();
         // TODO Do we store the k8s uid here?
         root.put(JSON_KEY_MAP_NAME, topic.getOrAsKubeName().toString());
         root.put(JSON_KEY_TOPIC_NAME, topic.getTopicName().toString());
         root.put(JSON_KEY_PARTITIONS, topic.getNumPartitions());
         root.put(JSON_KEY_REPLICAS, topic.getNumReplicas());
 
-        ObjectNode config = mapper.createObjectNode();
+        ObjectNode config = root.putObject(JSON_KEY_CONFIG);
         for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
             config.put(entry.getKey(), entry.getValue());
         }
-        root.set(JSON_KEY_CONFIG, config);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
-            mapper.writeValue(baos, root);
+            return JSON_WRITER.writeValueAsBytes(root);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return baos.toByteArray();
     }
 
     /**
@@ -270,10 +289,9 @@ class TopicSerialization {
      */
     @SuppressWarnings("unchecked")
     public static Topic fromJson(byte[] json) {
-        ObjectMapper mapper = objectMapper();
         Map<String, Object> root = null;
         try {
-            root = mapper.readValue(json, Map.class);
+            root = JSON_MAP_READER.readValue(json);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -289,6 +307,113 @@ class TopicSerialization {
         return builder.build();
     }
 
+    /**
+     * Returns the compact binary encoding of the given Topic.
+     * The encoding starts with {@link #BINARY_MAGIC}, which JSON never starts with,
+     * followed by the {@link #BINARY_VERSION}, so that {@link #fromStoreBytes(byte[])} can tell it from JSON.
+     * Strings are written as their varint length followed by their UTF-8 bytes, and the map name is written
+     * as an empty string when it's the same as the topic name.
+     */
+    public static byte[] toBinary(Topic topic) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 32 * topic.getConfig().size());
+        out.write(BINARY_MAGIC);
+        out.write(BINARY_VERSION);
+        String topicName = topic.getTopicName().toString();
+        String mapName = topic.getOrAsKubeName().toString();
+        writeString(out, topicName);
+        writeString(out, mapName.equals(topicName) ? "" : mapName);
+        writeVarint(out, topic.getNumPartitions());
+        writeVarint(out, topic.getNumReplicas());
+        writeVarint(out, topic.getConfig().size());
+        for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the Topic represented by the given {@linkplain #toBinary(Topic) binary encoding}.
+     * @throws IllegalArgumentException If the bytes are not in a binary encoding this version understands.
+     */
+    public static Topic fromBinary(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.get() != BINARY_MAGIC) {
+                throw new IllegalArgumentException("Not a binary encoded topic");
+            }
+            byte version = in.get();
+            if (version != BINARY_VERSION) {
+                throw new IllegalArgumentException("Unsupported binary topic encoding version " + version);
+            }
+            Topic.Builder builder = new Topic.Builder();
+            String topicName = readString(in);
+            String mapName = readString(in);
+            builder.withTopicName(topicName)
+                    .withMapName(mapName.isEmpty() ? topicName : mapName)
+                    .withNumPartitions(readVarint(in))
+                    .withNumReplicas((short) readVarint(in));
+            int configs = readVarint(in);
+            for (int i = 0; i < configs; i++) {
+                builder.withConfigEntry(readString(in), readString(in));
+            }
+            return builder.build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary encoded topic", e);
+        }
+    }
+
+    /**
+     * Returns the encoding of the given Topic in the given format, as written by the topic stores.
+     */
+    public static byte[] toStoreBytes(Topic topic, io.strimzi.operator.topic.Config.TopicStoreFormat format) {
+        return format == io.strimzi.operator.topic.Config.TopicStoreFormat.BINARY ? toBinary(topic) : toJson(topic);
+    }
+
+    /**
+     * Returns the Topic represented by the given bytes, as read by the topic stores,
+     * which may be either JSON or the binary encoding.
+     */
+    public static Topic fromStoreBytes(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == BINARY_MAGIC ? fromBinary(bytes) : fromJson(bytes);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in binary encoded topic");
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in);
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String result = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return result;
+    }
+
     private static ObjectMapper objectMapper() {
         JsonFactory jf = new JsonFactory();
         jf.configure(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION, false);
@@ -8,17 +8,29 @@ import io.strimzi.operator.topic.zk.AclBuilder;
 import io.strimzi.operator.topic.zk.Zk;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import org.I0Itec.zkclient.exception.ZkException;
 import org.I0Itec.zkclient.exception.ZkNoNodeException;
 import org.I0Itec.zkclient.exception.ZkNodeExistsException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Implementation of {@link TopicStore} that stores the topic state in ZooKeeper.
+ *
+ * Writes are group-committed: while one ZooKeeper transaction is in flight, further writes are queued, and are
+ * then sent together in the next transaction. So a burst of writes (such as during a full reconciliation)
+ * needs only a few round trips, while a single write is sent immediately.
  */
 public class ZkTopicStore implements TopicStore {
 
@@ -29,8 +41,39 @@ public class ZkTopicStore implements TopicStore {
 
     private final List<ACL> acl;
 
+    private final Config.TopicStoreFormat format;
+
+    /** The maximum number of writes in a single ZooKeeper transaction. */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    /** A write which has been requested but not yet committed. */
+    private static class PendingOp {
+        private final Op op;
+        private final Future<Void> result;
+
+        PendingOp(Op op, Future<Void> result) {
+            this.op = op;
+            this.result = result;
+        }
+    }
+
+    /** Writes waiting to be sent, guarded by this. */
+    private final ArrayDeque<PendingOp> pending = new ArrayDeque<>();
+
+    /** Whether there is a transaction in flight, guarded by this. */
+    private boolean inflight = false;
+
     public ZkTopicStore(Zk zk) {
+        this(zk, Config.TopicStoreFormat.JSON);
+    }
+
+    /**
+     * @param zk The ZooKeeper client.
+     * @param format How to encode the topics written to the store. Topics in either format can be read.
+     */
+    public ZkTopicStore(Zk zk, Config.TopicStoreFormat format) {
         this.zk = zk;
+        this.format = format;
         acl = new AclBuilder().setWorld(AclBuilder.Permission.values()).build();
         createStrimziTopicsPath();
     }
@@ -59,19 +102,73 @@ public class ZkTopicStore implements TopicStore {
         return TOPICS_PATH + "/" + name;
     }
 
+    /**
+     * A topic, together with the version of the znode it was stored in.
+     */
+    static class VersionedTopic {
+        private final Topic topic;
+        private final int version;
+
+        VersionedTopic(Topic topic, int version) {
+            this.topic = topic;
+            this.version = version;
+        }
+
+        Topic getTopic() {
+            return topic;
+        }
+
+        int getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Asynchronously list the names of the topics in the store.
+     * @return A future which completes with the topic names.
+     */
+    Future<List<TopicName>> list() {
+        Future<List<String>> handler = Future.future();
+        zk.children(TOPICS_PATH, result -> {
+            if (result.failed() && result.cause() instanceof ZkNoNodeException) {
+                handler.complete(Collections.emptyList());
+            } else {
+                handler.handle(result);
+            }
+        });
+        return handler.map(children -> {
+            List<TopicName> names = new ArrayList<>(children.size());
+            for (String child : children) {
+                names.add(new TopicName(child));
+            }
+            return names;
+        });
+    }
+
     @Override
     public Future<Topic> read(TopicName topicName) {
-        Future<Topic> handler = Future.future();
+        return readVersioned(topicName).map(versioned -> versioned != null ? versioned.getTopic() : null);
+    }
+
+    /**
+     * Asynchronously get the topic with the given name, and the version of its znode.
+     * If no topic with the given name exists, the future will complete with a null result.
+     * @param topicName The name of the topic.
+     * @return A future which completes with the given topic and its version.
+     */
+    Future<VersionedTopic> readVersioned(TopicName topicName) {
+        Future<VersionedTopic> handler = Future.future();
         String topicPath = getTopicPath(topicName);
-        zk.getData(topicPath, result -> {
-            final AsyncResult<Topic> fut;
+        Stat stat = new Stat();
+        zk.getData(topicPath, stat, result -> {
+            final AsyncResult<VersionedTopic> fut;
             if (result.succeeded()) {
-                fut = Future.succeededFuture(TopicSerialization.fromJson(result.result()));
+                fut = Future.succeededFuture(new VersionedTopic(TopicSerialization.fromStoreBytes(result.result()), stat.getVersion()));
             } else {
                 if (result.cause() instanceof ZkNoNodeException) {
                     fut = Future.succeededFuture(null);
                 } else {
-                    fut = result.map((Topic) null);
+                    fut = result.map((VersionedTopic) null);
                 }
             }
             handler.handle(fut);
@@ -82,10 +179,10 @@ public class ZkTopicStore implements TopicStore {
     @Override
     public Future<Void> create(Topic topic) {
         Future<Void> handler = Future.future();
-        byte[] data = TopicSerialization.toJson(topic);
+        byte[] data = TopicSerialization.toStoreBytes(topic, format);
         String topicPath = getTopicPath(topic.getTopicName());
         LOGGER.debug("create znode {}", topicPath);
-        zk.create(topicPath, data, acl, CreateMode.PERSISTENT, result -> {
+        write(Op.create(topicPath, data, acl, CreateMode.PERSISTENT)).setHandler(result -> {
             if (result.failed() && result.cause() instanceof ZkNodeExistsException) {
                 handler.handle(Future.failedFuture(new EntityExistsException()));
             } else {
@@ -97,22 +194,41 @@ public class ZkTopicStore implements TopicStore {
 
     @Override
     public Future<Void> update(Topic topic) {
-        Future<Void> handler = Future.future();
-        byte[] data = TopicSerialization.toJson(topic);
-        // TODO pass a non-zero version
+        return update(topic, -1);
+    }
+
+    /**
+     * Asynchronously update the given topic in the store, iff the given version is -1 or matches the
+     * version of its znode. If the version doesn't match the future will complete with a
+     * {@link org.I0Itec.zkclient.exception.ZkBadVersionException}.
+     * @param topic The topic.
+     * @param version The expected version.
+     * @return A future which completes when the given topic has been updated.
+     */
+    Future<Void> update(Topic topic, int version) {
+        byte[] data = TopicSerialization.toStoreBytes(topic, format);
         String topicPath = getTopicPath(topic.getTopicName());
-        LOGGER.debug("update znode {}", topicPath);
-        zk.setData(topicPath, data, -1, handler);
-        return handler;
+        LOGGER.debug("update znode {} with version {}", topicPath, version);
+        return write(Op.setData(topicPath, data, version));
     }
 
     @Override
     public Future<Void> delete(TopicName topicName) {
+        return delete(topicName, -1);
+    }
+
+    /**
+     * Asynchronously delete the given topic from the store, iff the given version is -1 or matches the
+     * version of its znode.
+     * @param topicName The topic name.
+     * @param version The expected version.
+     * @return A future which completes when the given topic has been deleted.
+     */
+    Future<Void> delete(TopicName topicName, int version) {
         Future<Void> handler = Future.future();
-        // TODO pass a non-zero version
         String topicPath = getTopicPath(topicName);
-        LOGGER.debug("delete znode {}", topicPath);
-        zk.delete(topicPath, -1, result -> {
+        LOGGER.debug("delete znode {} with version {}", topicPath, version);
+        write(Op.delete(topicPath, version)).setHandler(result -> {
             if (result.failed() && result.cause() instanceof ZkNoNodeException) {
                 handler.handle(Future.failedFuture(new NoSuchEntityExistsException()));
             } else {
@@ -121,4 +237,72 @@ public class ZkTopicStore implements TopicStore {
         });
         return handler;
     }
+
+    /**
+     * Queue the given write, and send it (and any other queued writes) if there's no transaction in flight.
+     * @param op The write.
+     * @return A future which completes when the write has been committed.
+     */
+    private Future<Void> write(Op op) {
+        Future<Void> result = Future.future();
+        synchronized (this) {
+            pending.add(new PendingOp(op, result));
+        }
+        flush();
+        return result;
+    }
+
+    private void flush() {
+        List<PendingOp> batch;
+        synchronized (this) {
+            if (inflight || pending.isEmpty()) {
+                return;
+            }
+            inflight = true;
+            batch = new ArrayList<>(Math.min(pending.size(), MAX_BATCH_SIZE));
+            while (!pending.isEmpty() && batch.size() < MAX_BATCH_SIZE) {
+                batch.add(pending.poll());
+            }
+        }
+        List<Op> ops = new ArrayList<>(batch.size());
+        for (PendingOp pendingOp : batch) {
+            ops.add(pendingOp.op);
+        }
+        LOGGER.debug("Committing {} writes", ops.size());
+        zk.multi(ops, multiResult -> {
+            List<PendingOp> retry = new ArrayList<>();
+            if (multiResult.failed()) {
+                for (PendingOp pendingOp : batch) {
+                    pendingOp.result.fail(multiResult.cause());
+                }
+            } else {
+                List<OpResult> results = multiResult.result();
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingOp pendingOp = batch.get(i);
+                    OpResult opResult = results.get(i);
+                    if (opResult instanceof OpResult.ErrorResult) {
+                        int err = ((OpResult.ErrorResult) opResult).getErr();
+                        if (err == KeeperException.Code.OK.intValue()
+                                || err == KeeperException.Code.RUNTIMEINCONSISTENCY.intValue()) {
+                            // The transaction was aborted due to some other write, so this one needs to be retried
+                            retry.add(pendingOp);
+                        } else {
+                            pendingOp.result.fail(ZkException.create(
+                                    KeeperException.create(KeeperException.Code.get(err), pendingOp.op.getPath())));
+                        }
+                    } else {
+                        pendingOp.result.complete();
+                    }
+                }
+            }
+            synchronized (this) {
+                // Retry ahead of any writes queued since, to preserve the order of writes
+                for (int i = retry.size() - 1; i >= 0; i--) {
+                    pending.addFirst(retry.get(i));
+                }
+                inflight = false;
+            }
+            flush();
+        });
+    }
 }
@@ -17,6 +17,10 @@ import java.util.Set;
  * ZooKeeper watcher for child znodes of {@code /brokers/topics},
  * calling {@link TopicOperator#onTopicCreated(LogContext, TopicName)} for new children and
  * {@link TopicOperator#onTopicDeleted(LogContext, TopicName)} for deleted children.
+ *
+ * Config and partition changes are detected either with per-topic watches (using a {@link TopicConfigsWatcher}
+ * and a {@link ZkTopicWatcher}), or with a {@link ConfigChangeNotificationsWatcher}, in which case
+ * partition changes are only detected by periodic reconciliation.
  */
 class ZkTopicsWatcher {
 
@@ -27,6 +31,7 @@ class ZkTopicsWatcher {
     private final TopicOperator topicOperator;
     private final TopicConfigsWatcher tcw;
     private final ZkTopicWatcher tw;
+    private final ConfigChangeNotificationsWatcher ccnw;
 
     private List<String> children;
 
@@ -43,22 +48,58 @@ class ZkTopicsWatcher {
         this.topicOperator = topicOperator;
         this.tcw = tcw;
         this.tw = tw;
+        this.ccnw = null;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param topicOperator    Operator instance
+     * @param ccnw   watcher for the config change notifications
+     */
+    ZkTopicsWatcher(TopicOperator topicOperator, ConfigChangeNotificationsWatcher ccnw) {
+        this.topicOperator = topicOperator;
+        this.tcw = null;
+        this.tw = null;
+        this.ccnw = ccnw;
     }
 
     void stop() {
-        this.tcw.stop();
-        this.tw.stop();
+        if (ccnw != null) {
+            this.ccnw.stop();
+        } else {
+            this.tcw.stop();
+            this.tw.stop();
+        }
         this.state = 2;
     }
 
+    private void watchTopic(String topicName) {
+        if (ccnw == null) {
+            tcw.addChild(topicName);
+            tw.addChild(topicName);
+        }
+    }
+
+    private void unwatchTopic(String topicName) {
+        if (ccnw == null) {
+            tcw.removeChild(topicName);
+            tw.removeChild(topicName);
+        }
+    }
+
     boolean started() {
         return this.state == 1;
     }
 
     void start(Zk zk) {
         children = null;
-        tcw.start(zk);
-        tw.start(zk);
+        if (ccnw != null) {
+            ccnw.start(zk);
+        } else {
+            tcw.start(zk);
+            tw.start(zk);
+        }
         zk.watchChildren(TOPICS_ZNODE, childResult -> {
             if (state == 2) {
                 zk.unwatchChildren(TOPICS_ZNODE);
@@ -79,8 +120,7 @@ class ZkTopicsWatcher {
             if (!deleted.isEmpty()) {
                 LOGGER.info("Deleted topics: {}", deleted);
                 for (String topicName : deleted) {
-                    tcw.removeChild(topicName);
-                    tw.removeChild(topicName);
+                    unwatchTopic(topicName);
                     LogContext logContext = LogContext.zkWatch(TOPICS_ZNODE, "-" + topicName);
                     topicOperator.onTopicDeleted(logContext, new TopicName(topicName)).setHandler(ar -> {
                         if (ar.succeeded()) {
@@ -95,8 +135,7 @@ class ZkTopicsWatcher {
             if (!created.isEmpty()) {
                 LOGGER.info("Created topics: {}", created);
                 for (String topicName : created) {
-                    tcw.addChild(topicName);
-                    tw.addChild(topicName);
+                    watchTopic(topicName);
                     LogContext logContext = LogContext.zkWatch(TOPICS_ZNODE, "+" + topicName);
                     topicOperator.onTopicCreated(logContext, new TopicName(topicName)).setHandler(ar -> {
                         if (ar.succeeded()) {
@@ -119,8 +158,7 @@ class ZkTopicsWatcher {
                 this.children = result;
                 // Start watching existing children for config and partition changes
                 for (String child : result) {
-                    tcw.addChild(child);
-                    tw.addChild(child);
+                    watchTopic(child);
                 }
                 this.state = 1;
             });
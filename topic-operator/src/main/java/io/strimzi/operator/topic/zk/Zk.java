@@ -8,10 +8,12 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
-import org.I0Itec.zkclient.ZkClient;
-import org.I0Itec.zkclient.serialize.BytesPushThroughSerializer;
+import io.vertx.core.WorkerExecutor;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
 
 import java.util.List;
 
@@ -22,9 +24,23 @@ public interface Zk {
 
     static void create(Vertx vertx, String zkConnectionString, int sessionTimeout, int connectionTimeout,
                               Handler<AsyncResult<Zk>> handler) {
-        vertx.executeBlocking(f -> {
+        create(vertx, vertx.createSharedWorkerExecutor("topic-operator-zookeeper"), zkConnectionString, sessionTimeout, connectionTimeout, handler);
+    }
+
+    /**
+     * Connect to ZooKeeper in the given worker pool, which the client also uses for its own blocking calls.
+     * @param vertx The vertx instance.
+     * @param workerPool The worker pool.
+     * @param zkConnectionString The ZooKeeper connection string.
+     * @param sessionTimeout The session timeout, in milliseconds.
+     * @param connectionTimeout The connection timeout, in milliseconds.
+     * @param handler The handler, called with the client once it has connected.
+     */
+    static void create(Vertx vertx, WorkerExecutor workerPool, String zkConnectionString, int sessionTimeout, int connectionTimeout,
+                              Handler<AsyncResult<Zk>> handler) {
+        workerPool.executeBlocking(f -> {
             try {
-                f.complete(createSync(vertx, zkConnectionString, sessionTimeout, connectionTimeout));
+                f.complete(new ZkImpl(vertx, workerPool, zkConnectionString, sessionTimeout, connectionTimeout));
             } catch (Throwable t) {
                 f.fail(t);
             }
@@ -33,9 +49,7 @@ public interface Zk {
     }
 
     static Zk createSync(Vertx vertx, String zkConnectionString, int sessionTimeout, int connectionTimeout) {
-        return new ZkImpl(vertx,
-                new ZkClient(zkConnectionString, sessionTimeout, connectionTimeout,
-                        new BytesPushThroughSerializer()));
+        return new ZkImpl(vertx, zkConnectionString, sessionTimeout, connectionTimeout);
     }
 
     /**
@@ -116,6 +130,17 @@ public interface Zk {
      */
     Zk getData(String path, Handler<AsyncResult<byte[]>> handler);
 
+    /**
+     * Asynchronously fetch the data of the given znode at the given path, calling the given handler
+     * with the result. The given {@code stat} will have been populated with the znode's stat
+     * by the time the handler is called with a successful result.
+     * @param path The path.
+     * @param stat The stat to populate.
+     * @param handler The result handler.
+     * @return This instance.
+     */
+    Zk getData(String path, Stat stat, Handler<AsyncResult<byte[]>> handler);
+
     /**
      * Asynchronously set given the data {@code watcher} on the given {@code path},
      * returning a future which completes when the watcher is subscribed.
@@ -135,7 +160,21 @@ public interface Zk {
      */
     Zk unwatchData(String path);
 
-    // TODO getAcl(), setAcl(), multi()
+    /**
+     * Asynchronously execute the given operations as a single atomic transaction, then invoke the given
+     * handler with the result.
+     * If the transaction was processed by the server the handler is called with a list containing one result
+     * per operation. If the transaction was aborted because one of the operations failed, all the results will be
+     * {@link OpResult.ErrorResult}s, and the transaction had no effect.
+     * The handler is called with a failed result if the transaction could not be processed
+     * (for example due to a connection loss).
+     * @param ops The operations.
+     * @param handler The result handler.
+     * @return This instance.
+     */
+    Zk multi(List<Op> ops, Handler<AsyncResult<List<OpResult>>> handler);
+
+    // TODO getAcl(), setAcl()
 
 }
 
@@ -5,81 +5,224 @@
 package io.strimzi.operator.topic.zk;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.WorkerExecutor;
-import org.I0Itec.zkclient.IZkChildListener;
-import org.I0Itec.zkclient.IZkDataListener;
-import org.I0Itec.zkclient.ZkClient;
-import org.I0Itec.zkclient.exception.ZkNoNodeException;
+import org.I0Itec.zkclient.exception.ZkException;
+import org.I0Itec.zkclient.exception.ZkTimeoutException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Implementation of {@link Zk}
+ * Implementation of {@link Zk} using the asynchronous API of the ZooKeeper client.
+ * Results are passed to handlers on the Vert.x context of the caller, without using any worker threads.
+ *
+ * Errors are reported using the same exceptions as {@code org.I0Itec.zkclient.ZkClient} would throw
+ * (e.g. {@link org.I0Itec.zkclient.exception.ZkNoNodeException}).
+ * Watches are re-registered each time they fire, and after the session has expired and been re-established.
+ * A watch which could not be re-registered is retried once the connection has been re-established.
  */
 public class ZkImpl implements Zk {
 
     private final static Logger LOGGER = LogManager.getLogger(ZkImpl.class);
-    private static final <T> Handler<AsyncResult<T>> log(String msg) {
-        return ignored -> {
-            LOGGER.trace("{} returned {}", msg, ignored);
-        };
-    }
+
+    /** The delay before the first retry of a watch which could not be re-registered. */
+    private static final long WATCH_RETRY_MIN_DELAY_MS = 100L;
+
+    /** The longest delay between retries of a watch which could not be re-registered. */
+    private static final long WATCH_RETRY_MAX_DELAY_MS = 10_000L;
+
     private final Vertx vertx;
-    private final ZkClient zookeeper;
+    private final WorkerExecutor workerPool;
+    private final String connectString;
+    private final int sessionTimeout;
+    private volatile ZooKeeper zookeeper;
+    private volatile boolean closed = false;
 
-    // Only accessed on the vertx context.
+    private final ConcurrentHashMap<String, DataWatch> dataWatches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ChildWatch> childWatches = new ConcurrentHashMap<>();
+    /** Watches which are not registered with ZooKeeper because re-registering them failed. */
+    private final Set<RegisteredWatch> unregisteredWatches = ConcurrentHashMap.newKeySet();
 
-    private final ConcurrentHashMap<String, IZkDataListener> dataWatches = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, IZkChildListener> childWatches = new ConcurrentHashMap<>();
+    /**
+     * Connect to ZooKeeper, blocking until connected.
+     * @param vertx The vertx instance.
+     * @param connectString The ZooKeeper connection string.
+     * @param sessionTimeout The session timeout.
+     * @param connectionTimeout The maximum time to wait for the connection to be established.
+     * @throws ZkTimeoutException If the connection could not be established within the timeout.
+     */
+    public ZkImpl(Vertx vertx, String connectString, int sessionTimeout, int connectionTimeout) {
+        this(vertx, vertx.createSharedWorkerExecutor("topic-operator-zookeeper"), connectString, sessionTimeout, connectionTimeout);
+    }
 
-    public ZkImpl(Vertx vertx, ZkClient zkClient) {
+    /**
+     * Connect to ZooKeeper, blocking until connected.
+     * @param vertx The vertx instance.
+     * @param workerPool The worker pool in which to reconnect and disconnect.
+     * @param connectString The ZooKeeper connection string.
+     * @param sessionTimeout The session timeout.
+     * @param connectionTimeout The maximum time to wait for the connection to be established.
+     * @throws ZkTimeoutException If the connection could not be established within the timeout.
+     */
+    public ZkImpl(Vertx vertx, WorkerExecutor workerPool, String connectString, int sessionTimeout, int connectionTimeout) {
         this.vertx = vertx;
-        this.zookeeper = zkClient;
+        this.workerPool = workerPool;
+        this.connectString = connectString;
+        this.sessionTimeout = sessionTimeout;
+        CountDownLatch connected = new CountDownLatch(1);
+        this.zookeeper = newZooKeeper(connected);
+        try {
+            if (!connected.await(connectionTimeout, TimeUnit.MILLISECONDS)) {
+                closeQuietly(zookeeper);
+                throw new ZkTimeoutException("Unable to connect to zookeeper server '" + connectString + "' within timeout: " + connectionTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeQuietly(zookeeper);
+            throw new ZkException(e);
+        }
     }
 
+    private ZooKeeper newZooKeeper(CountDownLatch connected) {
+        try {
+            return new ZooKeeper(connectString, sessionTimeout, event -> {
+                switch (event.getState()) {
+                    case SyncConnected:
+                        connected.countDown();
+                        retryUnregisteredWatches();
+                        break;
+                    case Expired:
+                        onSessionExpired();
+                        break;
+                    default:
+                        LOGGER.debug("ZooKeeper connection state {}", event.getState());
+                }
+            });
+        } catch (IOException e) {
+            throw new ZkException(e);
+        }
+    }
+
+    private static void closeQuietly(ZooKeeper zookeeper) {
+        try {
+            zookeeper.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The session has expired, which means that all the watches are gone.
+     * Create a new session, then re-register the watches and notify them of the current state,
+     * since they might have missed changes while the session was expired.
+     */
+    private void onSessionExpired() {
+        if (closed) {
+            return;
+        }
+        LOGGER.warn("ZooKeeper session expired, reconnecting");
+        ZooKeeper old = this.zookeeper;
+        Future<Void> reconnected = Future.future();
+        workerPool.executeBlocking(future -> {
+            closeQuietly(old);
+            this.zookeeper = newZooKeeper(new CountDownLatch(1));
+            future.complete();
+        }, reconnected);
+        reconnected.setHandler(ar -> {
+            if (ar.succeeded()) {
+                refetchWatches();
+            } else {
+                LOGGER.error("Error reconnecting to ZooKeeper", ar.cause());
+            }
+        });
+    }
+
+    private void refetchWatches() {
+        for (DataWatch watch : dataWatches.values()) {
+            watch.fetch();
+        }
+        for (ChildWatch watch : childWatches.values()) {
+            watch.fetch();
+        }
+    }
+
+    private void retryUnregisteredWatches() {
+        for (RegisteredWatch watch : unregisteredWatches) {
+            watch.retry();
+        }
+    }
+
+    private static Throwable exception(int rc, String path) {
+        return ZkException.create(KeeperException.create(KeeperException.Code.get(rc), path));
+    }
+
+    private static <T> void complete(Context context, Handler<AsyncResult<T>> handler, int rc, String path, T result) {
+        context.runOnContext(ignored -> {
+            if (rc == KeeperException.Code.OK.intValue()) {
+                handler.handle(Future.succeededFuture(result));
+            } else {
+                handler.handle(Future.failedFuture(exception(rc, path)));
+            }
+        });
+    }
+
+    private static void copyStat(Stat from, Stat to) {
+        to.setAversion(from.getAversion());
+        to.setCtime(from.getCtime());
+        to.setCversion(from.getCversion());
+        to.setCzxid(from.getCzxid());
+        to.setMtime(from.getMtime());
+        to.setMzxid(from.getMzxid());
+        to.setPzxid(from.getPzxid());
+        to.setVersion(from.getVersion());
+        to.setEphemeralOwner(from.getEphemeralOwner());
+        to.setDataLength(from.getDataLength());
+        to.setNumChildren(from.getNumChildren());
+    }
 
     @Override
     public Zk create(String path, byte[] data, List<ACL> acls, CreateMode createMode, Handler<AsyncResult<Void>> handler) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    zookeeper.create(path, data == null ? new byte[0] : data, acls, createMode);
-                    future.complete();
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            handler);
+        Context context = vertx.getOrCreateContext();
+        zookeeper.create(path, data == null ? new byte[0] : data, acls, createMode,
+            (rc, p, ctx, name) -> complete(context, handler, rc, path, null), null);
         return this;
     }
 
     @Override
     public Zk setData(String path, byte[] data, int version, Handler<AsyncResult<Void>> handler) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    zookeeper.writeData(path, data, version);
-                    future.complete();
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            handler);
+        Context context = vertx.getOrCreateContext();
+        zookeeper.setData(path, data, version,
+            (rc, p, ctx, stat) -> complete(context, handler, rc, path, null), null);
         return this;
     }
 
     @Override
     public Zk disconnect(Handler<AsyncResult<Void>> handler) {
-
-        workerPool().executeBlocking(
+        closed = true;
+        dataWatches.clear();
+        childWatches.clear();
+        unregisteredWatches.clear();
+        // Closing waits for the server to acknowledge the session close, so don't block the event loop
+        workerPool.executeBlocking(
             future -> {
                 try {
                     zookeeper.close();
@@ -94,158 +237,248 @@ public class ZkImpl implements Zk {
 
     @Override
     public Zk getData(String path, Handler<AsyncResult<byte[]>> handler) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    future.complete(zookeeper.readData(path));
-                } catch (Throwable t) {
-                    future.fail(t);
+        Context context = vertx.getOrCreateContext();
+        zookeeper.getData(path, false,
+            (rc, p, ctx, data, stat) -> complete(context, handler, rc, path, data), null);
+        return this;
+    }
+
+    @Override
+    public Zk getData(String path, Stat stat, Handler<AsyncResult<byte[]>> handler) {
+        Context context = vertx.getOrCreateContext();
+        zookeeper.getData(path, false,
+            (rc, p, ctx, data, resultStat) -> {
+                if (resultStat != null) {
+                    copyStat(resultStat, stat);
                 }
-            },
-            handler);
+                complete(context, handler, rc, path, data);
+            }, null);
         return this;
     }
 
-    static class DataWatchAdapter implements IZkDataListener {
+    /**
+     * A watch which re-registers itself with ZooKeeper each time it fires, until it is removed.
+     * ZooKeeper doesn't register a watch when the operation which would have registered it fails,
+     * for example because the connection was lost, so a watch whose re-registration failed is retried
+     * once the client has reconnected, and with a back-off in case it already has.
+     */
+    private abstract class RegisteredWatch implements Watcher {
+        protected final String path;
+        protected final Context context;
+        private volatile long retryDelayMs = WATCH_RETRY_MIN_DELAY_MS;
+
+        RegisteredWatch(String path, Context context) {
+            this.path = path;
+            this.context = context;
+        }
+
+        abstract boolean active();
+
+        /** Register with ZooKeeper, and notify the watcher of the current state. */
+        abstract void fetch();
+
+        /** Handles the result of re-registering this watch. */
+        void reregistered(AsyncResult<Void> result) {
+            if (result.succeeded()) {
+                retryDelayMs = WATCH_RETRY_MIN_DELAY_MS;
+            } else if (active()) {
+                long delay = retryDelayMs;
+                retryDelayMs = Math.min(2 * delay, WATCH_RETRY_MAX_DELAY_MS);
+                LOGGER.warn("Error re-registering watch on {}, retrying in {}ms", path, delay, result.cause());
+                unregisteredWatches.add(this);
+                vertx.setTimer(delay, timerId -> retry());
+            }
+        }
+
+        void retry() {
+            if (unregisteredWatches.remove(this) && active()) {
+                fetch();
+            }
+        }
+    }
 
+    /**
+     * A registered data watch, which re-registers itself with ZooKeeper each time it fires
+     * until it is removed from {@link #dataWatches}.
+     */
+    private class DataWatch extends RegisteredWatch {
         private final Handler<AsyncResult<byte[]>> watcher;
 
-        public DataWatchAdapter(Handler<AsyncResult<byte[]>> watcher) {
+        DataWatch(String path, Context context, Handler<AsyncResult<byte[]>> watcher) {
+            super(path, context);
             this.watcher = watcher;
         }
 
         @Override
-        public void handleDataChange(String dataPath, Object data) throws Exception {
-            watcher.handle(Future.succeededFuture((byte[]) data));
+        boolean active() {
+            return !closed && dataWatches.get(path) == this;
         }
 
+        /** Register with ZooKeeper, without fetching the data. */
+        void register(Handler<AsyncResult<Void>> handler) {
+            zookeeper.exists(path, this, (rc, p, ctx, stat) -> {
+                if (rc == KeeperException.Code.NONODE.intValue()) {
+                    // The watch is registered anyway, and will fire when the node is created
+                    rc = KeeperException.Code.OK.intValue();
+                }
+                complete(context, handler, rc, path, null);
+            }, null);
+        }
+
+        /** Register with ZooKeeper, and notify the watcher of the current data, if any. */
         @Override
-        public void handleDataDeleted(String dataPath) throws Exception {
+        void fetch() {
+            zookeeper.getData(path, this, (rc, p, ctx, data, stat) -> {
+                if (rc == KeeperException.Code.NONODE.intValue()) {
+                    register(this::reregistered);
+                } else {
+                    complete(context, this::reregistered, rc, path, null);
+                    if (rc == KeeperException.Code.OK.intValue() && active()) {
+                        complete(context, watcher, rc, path, data);
+                    }
+                }
+            }, null);
+        }
 
+        @Override
+        public void process(WatchedEvent event) {
+            if (!active()) {
+                return;
+            }
+            switch (event.getType()) {
+                case NodeCreated:
+                case NodeDataChanged:
+                    fetch();
+                    break;
+                case NodeDeleted:
+                    register(this::reregistered);
+                    break;
+                default:
+                    break;
+            }
         }
     }
 
     @Override
     public Future<Zk> watchData(String path, Handler<AsyncResult<byte[]>> watcher) {
-        Future<Zk> result = Future.future();
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    IZkDataListener listener = new DataWatchAdapter(watcher);
-                    dataWatches.put(path, listener);
-                    zookeeper.subscribeDataChanges(path, listener);
-                    future.complete();
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            ar -> {
-                log("watchData").handle(ar);
-                if (ar.succeeded()) {
-                    result.complete(this);
-                } else {
-                    result.fail(ar.cause());
-                }
-            });
-        return result;
+        Future<Void> result = Future.future();
+        DataWatch watch = new DataWatch(path, vertx.getOrCreateContext(), watcher);
+        dataWatches.put(path, watch);
+        watch.register(result);
+        return result.map(this);
     }
 
     @Override
     public Zk unwatchData(String path) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    IZkDataListener listener = dataWatches.remove(path);
-                    if (listener != null) {
-                        zookeeper.unsubscribeDataChanges(path, listener);
-                    }
-                    future.complete();
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            log("unwatchData"));
+        // The ZooKeeper watch will fire once more, but will then be ignored
+        dataWatches.remove(path);
         return this;
     }
 
     @Override
     public Zk delete(String path, int version, Handler<AsyncResult<Void>> handler) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    if (zookeeper.delete(path, version)) {
-                        future.complete();
-                    } else {
-                        future.fail(new ZkNoNodeException());
-                    }
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            handler);
+        Context context = vertx.getOrCreateContext();
+        zookeeper.delete(path, version,
+            (rc, p, ctx) -> complete(context, handler, rc, path, null), null);
         return this;
     }
 
-    private WorkerExecutor workerPool() {
-        return vertx.createSharedWorkerExecutor(getClass().getName(), 4);
-    }
-
     @Override
     public Zk children(String path, Handler<AsyncResult<List<String>>> handler) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    future.complete(zookeeper.getChildren(path));
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            handler);
+        Context context = vertx.getOrCreateContext();
+        zookeeper.getChildren(path, false,
+            (rc, p, ctx, children) -> complete(context, handler, rc, path, children), null);
         return this;
+    }
+
+    /**
+     * A registered children watch, which re-registers itself with ZooKeeper each time it fires
+     * until it is removed from {@link #childWatches}.
+     */
+    private class ChildWatch extends RegisteredWatch {
+        private final Handler<AsyncResult<List<String>>> watcher;
 
+        ChildWatch(String path, Context context, Handler<AsyncResult<List<String>>> watcher) {
+            super(path, context);
+            this.watcher = watcher;
+        }
+
+        @Override
+        boolean active() {
+            return !closed && childWatches.get(path) == this;
+        }
+
+        /**
+         * Register with ZooKeeper, notifying the watcher of the current children iff {@code notify}.
+         * If the node doesn't exist, watch for its creation instead.
+         */
+        void register(boolean notify, Handler<AsyncResult<Void>> handler) {
+            zookeeper.getChildren(path, this, (rc, p, ctx, children) -> {
+                if (rc == KeeperException.Code.NONODE.intValue()) {
+                    zookeeper.exists(path, this, (rc2, p2, ctx2, stat) -> {
+                        if (rc2 == KeeperException.Code.NONODE.intValue()) {
+                            rc2 = KeeperException.Code.OK.intValue();
+                        }
+                        complete(context, handler, rc2, path, null);
+                    }, null);
+                    return;
+                }
+                if (notify && active() && rc == KeeperException.Code.OK.intValue()) {
+                    complete(context, watcher, rc, path, children);
+                }
+                complete(context, handler, rc, path, null);
+            }, null);
+        }
+
+        @Override
+        void fetch() {
+            register(true, this::reregistered);
+        }
+
+        @Override
+        public void process(WatchedEvent event) {
+            if (!active()) {
+                return;
+            }
+            switch (event.getType()) {
+                case NodeCreated:
+                case NodeChildrenChanged:
+                case NodeDeleted:
+                    fetch();
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 
     @Override
     public Future<Zk> watchChildren(String path, Handler<AsyncResult<List<String>>> watcher) {
-        Future<Zk> result = Future.future();
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    IZkChildListener listener = (parentPath, currentChilds) -> watcher.handle(Future.succeededFuture(currentChilds));
-                    childWatches.put(path, listener);
-                    zookeeper.subscribeChildChanges(path, listener);
-                    future.complete();
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            ar -> {
-                log("watchChildren").handle(ar);
-                if (ar.succeeded()) {
-                    result.complete(this);
-                } else {
-                    result.fail(ar.cause());
-                }
-            });
-        return result;
+        Future<Void> result = Future.future();
+        ChildWatch watch = new ChildWatch(path, vertx.getOrCreateContext(), watcher);
+        childWatches.put(path, watch);
+        watch.register(false, result);
+        return result.map(this);
     }
 
     @Override
     public Zk unwatchChildren(String path) {
-        workerPool().executeBlocking(
-            future -> {
-                try {
-                    IZkChildListener listener = childWatches.remove(path);
-                    if (listener != null) {
-                        zookeeper.unsubscribeChildChanges(path, listener);
-                    }
-                    future.complete();
-                } catch (Throwable t) {
-                    future.fail(t);
-                }
-            },
-            log("unwatchChildren"));
+        // The ZooKeeper watch will fire once more, but will then be ignored
+        childWatches.remove(path);
         return this;
     }
 
+    @Override
+    public Zk multi(List<Op> ops, Handler<AsyncResult<List<OpResult>>> handler) {
+        Context context = vertx.getOrCreateContext();
+        zookeeper.multi(ops, (rc, p, ctx, results) -> {
+            if (results != null && results.size() == ops.size()) {
+                // The transaction was processed, though it might have been aborted
+                complete(context, handler, KeeperException.Code.OK.intValue(), p, results);
+            } else {
+                complete(context, handler, rc, p, null);
+            }
+        }, null);
+        return this;
+    }
 }
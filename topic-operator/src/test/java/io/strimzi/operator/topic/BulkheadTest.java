@@ -0,0 +1,87 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BulkheadTest {
+
+    private Vertx vertx;
+
+    @BeforeEach
+    public void setup() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    public void teardown() {
+        vertx.close();
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void testBlockedCallsAreConfinedToTheirPool() throws InterruptedException {
+        Bulkhead slow = new Bulkhead(vertx, "slow", 2);
+        Bulkhead fast = new Bulkhead(vertx, "fast", 1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            slow.<Void>executeBlocking(future -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                future.complete();
+            }, false, ar -> done.countDown());
+        }
+        await(started);
+        assertThat(slow.active(), is(2));
+        assertThat(slow.queued(), is(1));
+        assertThat(slow.saturation(), is(1.0));
+
+        // The other pool still has a thread for its calls
+        CountDownLatch fastDone = new CountDownLatch(1);
+        fast.<String>executeBlocking(future -> future.complete(Thread.currentThread().getName()), false, ar -> {
+            assertThat(ar.result(), containsString("topic-operator-fast"));
+            fastDone.countDown();
+        });
+        await(fastDone);
+        assertThat(fast.completed(), is(1L));
+
+        release.countDown();
+        await(done);
+        assertThat(slow.active(), is(0));
+        assertThat(slow.queued(), is(0));
+        assertThat(slow.completed(), is(3L));
+    }
+
+    @Test
+    public void testMetricsAreLabelledWithThePool() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        new Bulkhead(vertx, "kubernetes", 10).registerMetrics(metrics);
+        new Bulkhead(vertx, "zookeeper", 2).registerMetrics(metrics);
+        String scrape = metrics.scrape();
+        assertThat(scrape, containsString("strimzi_topic_operator_worker_pool_size{pool=\"kubernetes\"} 10\n"));
+        assertThat(scrape, containsString("strimzi_topic_operator_worker_pool_size{pool=\"zookeeper\"} 2\n"));
+        assertThat(scrape, containsString("strimzi_topic_operator_worker_pool_saturation{pool=\"zookeeper\"} 0\n"));
+        assertThat(scrape.split("# TYPE strimzi_topic_operator_worker_pool_queued ", -1).length, is(2));
+    }
+}
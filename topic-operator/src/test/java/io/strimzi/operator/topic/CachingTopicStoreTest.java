@@ -0,0 +1,202 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+import org.I0Itec.zkclient.exception.ZkBadVersionException;
+import org.I0Itec.zkclient.exception.ZkNoNodeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CachingTopicStoreTest {
+
+    /**
+     * A ZkTopicStore which keeps the topics and their versions in memory, and counts the reads.
+     */
+    static class InMemoryZkTopicStore extends ZkTopicStore {
+        final Map<TopicName, ZkTopicStore.VersionedTopic> topics = new HashMap<>();
+        int reads = 0;
+
+        InMemoryZkTopicStore() {
+            super(mockZk());
+        }
+
+        private static MockZk mockZk() {
+            MockZk zk = new MockZk();
+            zk.createResult = Future.succeededFuture();
+            return zk;
+        }
+
+        @Override
+        Future<List<TopicName>> list() {
+            return Future.succeededFuture(new ArrayList<>(topics.keySet()));
+        }
+
+        @Override
+        Future<ZkTopicStore.VersionedTopic> readVersioned(TopicName topicName) {
+            reads++;
+            return Future.succeededFuture(topics.get(topicName));
+        }
+
+        @Override
+        public Future<Void> create(Topic topic) {
+            if (topics.containsKey(topic.getTopicName())) {
+                return Future.failedFuture(new EntityExistsException());
+            }
+            topics.put(topic.getTopicName(), new ZkTopicStore.VersionedTopic(topic, 0));
+            return Future.succeededFuture();
+        }
+
+        @Override
+        Future<Void> update(Topic topic, int version) {
+            ZkTopicStore.VersionedTopic existing = topics.get(topic.getTopicName());
+            if (existing == null) {
+                return Future.failedFuture(new ZkNoNodeException());
+            } else if (version != -1 && version != existing.getVersion()) {
+                return Future.failedFuture(new ZkBadVersionException());
+            }
+            topics.put(topic.getTopicName(), new ZkTopicStore.VersionedTopic(topic, existing.getVersion() + 1));
+            return Future.succeededFuture();
+        }
+
+        @Override
+        Future<Void> delete(TopicName topicName, int version) {
+            ZkTopicStore.VersionedTopic existing = topics.get(topicName);
+            if (existing == null) {
+                return Future.failedFuture(new NoSuchEntityExistsException());
+            } else if (version != -1 && version != existing.getVersion()) {
+                return Future.failedFuture(new ZkBadVersionException());
+            }
+            topics.remove(topicName);
+            return Future.succeededFuture();
+        }
+
+        /** Simulate another writer modifying the topic */
+        void modify(Topic topic) {
+            update(topic, -1);
+        }
+    }
+
+    private InMemoryZkTopicStore zkStore;
+    private CachingTopicStore store;
+
+    @BeforeEach
+    public void setup() {
+        zkStore = new InMemoryZkTopicStore();
+        store = new CachingTopicStore(zkStore);
+    }
+
+    private static Topic topic(String name, int partitions) {
+        return new Topic.Builder(name, partitions, (short) 1, Collections.emptyMap()).build();
+    }
+
+    @Test
+    public void testPreloadServesReadsFromMemory() {
+        for (int i = 0; i < 100; i++) {
+            zkStore.create(topic("topic-" + i, 1));
+        }
+        assertThat(store.preload().succeeded(), is(true));
+        assertThat(store.size(), is(100));
+        int readsAfterPreload = zkStore.reads;
+        assertThat(readsAfterPreload, is(100));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(store.read(new TopicName("topic-" + i)).result(), is(topic("topic-" + i, 1)));
+        }
+        assertThat(zkStore.reads, is(readsAfterPreload));
+        assertThat(store.hits(), is(100L));
+        assertThat(store.misses(), is(0L));
+        assertThat(store.hitRate(), is(1.0));
+    }
+
+    @Test
+    public void testMetrics() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        store.registerMetrics(metrics);
+        zkStore.create(topic("my-topic", 1));
+        TopicName name = new TopicName("my-topic");
+        store.read(name);
+        store.read(name);
+        store.read(name);
+        store.read(new TopicName("other"));
+
+        String scrape = metrics.scrape();
+        assertThat(scrape, containsString("strimzi_topic_operator_topic_store_cache_size 1\n"));
+        assertThat(scrape, containsString("strimzi_topic_operator_topic_store_cache_hits_total 2\n"));
+        assertThat(scrape, containsString("strimzi_topic_operator_topic_store_cache_misses_total 2\n"));
+        assertThat(scrape, containsString("strimzi_topic_operator_topic_store_cache_hit_ratio 0.5\n"));
+    }
+
+    @Test
+    public void testReadMissIsCached() {
+        zkStore.create(topic("my-topic", 1));
+        TopicName name = new TopicName("my-topic");
+        assertThat(store.read(name).result(), is(topic("my-topic", 1)));
+        assertThat(store.read(name).result(), is(topic("my-topic", 1)));
+        assertThat(zkStore.reads, is(1));
+        assertThat(store.hits(), is(1L));
+        assertThat(store.misses(), is(1L));
+
+        // Absent topics are not cached
+        assertThat(store.read(new TopicName("other")).result(), is(nullValue()));
+        assertThat(store.size(), is(1));
+    }
+
+    @Test
+    public void testWritesGoThrough() {
+        TopicName name = new TopicName("my-topic");
+        assertThat(store.create(topic("my-topic", 1)).succeeded(), is(true));
+        assertThat(zkStore.topics.get(name).getTopic(), is(topic("my-topic", 1)));
+        assertThat(store.read(name).result(), is(topic("my-topic", 1)));
+
+        assertThat(store.update(topic("my-topic", 2)).succeeded(), is(true));
+        assertThat(zkStore.topics.get(name).getVersion(), is(1));
+        assertThat(store.read(name).result(), is(topic("my-topic", 2)));
+
+        // The cached version must have tracked the znode version for this to succeed
+        assertThat(store.update(topic("my-topic", 3)).succeeded(), is(true));
+        assertThat(zkStore.topics.get(name).getVersion(), is(2));
+
+        assertThat(store.delete(name).succeeded(), is(true));
+        assertThat(zkStore.topics.containsKey(name), is(false));
+        assertThat(store.size(), is(0));
+        assertThat(zkStore.reads, is(0));
+
+        assertThat(store.create(topic("my-topic", 1)).succeeded(), is(true));
+        assertThat(store.create(topic("my-topic", 1)).cause(), instanceOf(TopicStore.EntityExistsException.class));
+    }
+
+    @Test
+    public void testConcurrentModificationIsDetected() {
+        TopicName name = new TopicName("my-topic");
+        zkStore.create(topic("my-topic", 1));
+        store.preload();
+        zkStore.modify(topic("my-topic", 5));
+
+        Future<Void> update = store.update(topic("my-topic", 2));
+        assertThat(update.failed(), is(true));
+        assertThat(update.cause(), instanceOf(ZkBadVersionException.class));
+        // The other writer's state was not overwritten, and is what we read next
+        assertThat(zkStore.topics.get(name).getTopic(), is(topic("my-topic", 5)));
+        assertThat(store.read(name).result(), is(topic("my-topic", 5)));
+
+        zkStore.modify(topic("my-topic", 6));
+        assertThat(store.delete(name).cause(), instanceOf(ZkBadVersionException.class));
+        assertThat(zkStore.topics.containsKey(name), is(true));
+        assertThat(store.read(name).result(), is(topic("my-topic", 6)));
+    }
+}
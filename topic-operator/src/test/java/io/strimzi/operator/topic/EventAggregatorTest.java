@@ -0,0 +1,121 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EventAggregatorTest {
+
+    private final MockK8s k8s = new MockK8s();
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    private static Event event(String topicName, String message, String timestamp) {
+        return new EventBuilder()
+                .withNewInvolvedObject()
+                    .withKind("KafkaTopic")
+                    .withName(topicName)
+                .endInvolvedObject()
+                .withType("Warning")
+                .withMessage(message)
+                .withNewMetadata()
+                    .withGenerateName("topic-operator")
+                .endMetadata()
+                .withLastTimestamp(timestamp)
+            .build();
+    }
+
+    @Test
+    public void testIdenticalEventsAreAggregated() {
+        EventAggregator aggregator = new EventAggregator(null, k8s, 60, clock::get);
+        assertThat(aggregator.emit(event("my-topic", "failed", "t1")).succeeded(), is(true));
+        clock.addAndGet(1_000);
+        aggregator.emit(event("my-topic", "failed", "t2"));
+        clock.addAndGet(1_000);
+        aggregator.emit(event("my-topic", "failed", "t3"));
+        aggregator.emit(event("other-topic", "failed", "t3"));
+
+        assertThat(k8s.getEvents().size(), is(2));
+        Event aggregated = k8s.getEvents().get(0);
+        assertThat(aggregated.getCount(), is(3));
+        assertThat(aggregated.getFirstTimestamp(), is("t1"));
+        assertThat(aggregated.getLastTimestamp(), is("t3"));
+        assertThat(k8s.getEvents().get(1).getCount(), is(1));
+        assertThat(aggregator.created(), is(2L));
+        assertThat(aggregator.updated(), is(2L));
+
+        // Once the aggregation window has passed, a new event is created
+        clock.addAndGet(EventAggregator.AGGREGATION_WINDOW_MS);
+        aggregator.emit(event("my-topic", "failed", "t4"));
+        assertThat(k8s.getEvents().size(), is(3));
+        assertThat(k8s.getEvents().get(2).getFirstTimestamp(), is("t4"));
+    }
+
+    @Test
+    public void testEventsAreRateLimited() {
+        EventAggregator aggregator = new EventAggregator(null, k8s, 2, clock::get);
+        for (int i = 0; i < 5; i++) {
+            aggregator.emit(event("topic-" + i, "failed", "t1"));
+        }
+        assertThat(k8s.getEvents().size(), is(2));
+        assertThat(aggregator.rateLimited(), is(3L));
+        assertThat(aggregator.delayed(), is(3));
+
+        // The delayed occurrences of an event still count towards it
+        aggregator.emit(event("topic-0", "failed", "t2"));
+        clock.addAndGet(30_000);
+        aggregator.emit(event("topic-0", "failed", "t3"));
+        assertThat(k8s.getEvents().size(), is(2));
+        assertThat(k8s.getEvents().get(0).getCount(), is(3));
+        assertThat(k8s.getEvents().get(0).getLastTimestamp(), is("t3"));
+
+        // A repeat of a delayed event creates it, with the count of all its occurrences
+        clock.addAndGet(30_000);
+        aggregator.emit(event("topic-4", "failed", "t4"));
+        assertThat(k8s.getEvents().size(), is(3));
+        assertThat(k8s.getEvents().get(2).getCount(), is(2));
+        assertThat(k8s.getEvents().get(2).getFirstTimestamp(), is("t1"));
+        assertThat(k8s.getEvents().get(2).getLastTimestamp(), is("t4"));
+        assertThat(aggregator.delayed(), is(2));
+    }
+
+    @Test
+    public void testDelayedEventsAreFlushed() {
+        EventAggregator aggregator = new EventAggregator(null, k8s, 2, clock::get);
+        for (int i = 0; i < 4; i++) {
+            aggregator.emit(event("topic-" + i, "failed", "t1"));
+        }
+        aggregator.emit(event("topic-3", "failed", "t2"));
+        assertThat(k8s.getEvents().size(), is(2));
+        assertThat(aggregator.delayed(), is(2));
+
+        // Nothing is written until there's a token
+        assertThat(aggregator.flush().succeeded(), is(true));
+        assertThat(k8s.getEvents().size(), is(2));
+
+        clock.addAndGet(30_000);
+        aggregator.flush();
+        assertThat(k8s.getEvents().size(), is(3));
+        assertThat(k8s.getEvents().get(2).getInvolvedObject().getName(), is("topic-2"));
+        assertThat(aggregator.delayed(), is(1));
+
+        clock.addAndGet(30_000);
+        aggregator.flush();
+        assertThat(k8s.getEvents().size(), is(4));
+        Event event = k8s.getEvents().get(3);
+        assertThat(event.getInvolvedObject().getName(), is("topic-3"));
+        assertThat(event.getCount(), is(2));
+        assertThat(event.getFirstTimestamp(), is("t1"));
+        assertThat(event.getLastTimestamp(), is("t2"));
+        assertThat(aggregator.delayed(), is(0));
+        assertThat(aggregator.created(), is(4L));
+    }
+}
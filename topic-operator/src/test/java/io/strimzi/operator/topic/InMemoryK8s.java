@@ -0,0 +1,167 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.strimzi.api.kafka.model.KafkaTopic;
+import io.strimzi.api.kafka.model.KafkaTopicBuilder;
+import io.vertx.core.Future;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A {@link K8s} which keeps its KafkaTopics in memory, with the latency and errors of a {@link SimulatedBackend}.
+ * Like the API server, it increments the generation of a KafkaTopic when its spec changes,
+ * and gives each write a new resourceVersion.
+ */
+class InMemoryK8s implements K8s {
+
+    private final SimulatedBackend backend;
+    private final Map<ResourceName, KafkaTopic> byName = new ConcurrentHashMap<>();
+    private final AtomicLong resourceVersion = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final int pageSize;
+
+    /**
+     * @param backend The simulated backend.
+     * @param pageSize The number of KafkaTopics in each page of a paginated list.
+     */
+    InMemoryK8s(SimulatedBackend backend, int pageSize) {
+        this.backend = backend;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Create or modify a KafkaTopic directly, as a user would, without any latency.
+     * @return The KafkaTopic, with its new generation and resourceVersion.
+     */
+    KafkaTopic put(KafkaTopic kafkaTopic) {
+        return write(kafkaTopic, true);
+    }
+
+    /**
+     * @return The KafkaTopic, or null if it doesn't exist.
+     */
+    KafkaTopic get(ResourceName resourceName) {
+        return byName.get(resourceName);
+    }
+
+    /**
+     * @return The number of KafkaTopics.
+     */
+    int size() {
+        return byName.size();
+    }
+
+    /**
+     * @return The number of Events created or updated.
+     */
+    long events() {
+        return events.get();
+    }
+
+    private KafkaTopic write(KafkaTopic kafkaTopic, boolean spec) {
+        ResourceName name = new ResourceName(kafkaTopic);
+        return byName.compute(name, (n, existing) -> {
+            long generation = existing == null || existing.getMetadata().getGeneration() == null ? 1
+                    : existing.getMetadata().getGeneration();
+            if (existing != null && spec && !Objects.equals(existing.getSpec(), kafkaTopic.getSpec())) {
+                generation++;
+            }
+            return new KafkaTopicBuilder(kafkaTopic)
+                    .editOrNewMetadata()
+                        .withGeneration(generation)
+                        .withResourceVersion(Long.toString(resourceVersion.incrementAndGet()))
+                    .endMetadata()
+                    .withStatus(spec && existing != null ? existing.getStatus() : kafkaTopic.getStatus())
+                    .build();
+        });
+    }
+
+    @Override
+    public Future<KafkaTopic> createResource(KafkaTopic topicResource) {
+        return backend.call("createResource", () -> {
+            if (byName.containsKey(new ResourceName(topicResource))) {
+                throw new KubernetesClientException("KafkaTopic " + topicResource.getMetadata().getName() + " already exists", 409, null);
+            }
+            return write(topicResource, true);
+        });
+    }
+
+    @Override
+    public Future<KafkaTopic> updateResource(KafkaTopic topicResource) {
+        return backend.call("updateResource", () -> write(topicResource, true));
+    }
+
+    @Override
+    public Future<KafkaTopic> updateResourceStatus(KafkaTopic topicResource) {
+        return backend.call("updateResourceStatus", () -> {
+            KafkaTopic existing = byName.get(new ResourceName(topicResource));
+            if (existing == null) {
+                throw new KubernetesClientException("KafkaTopic " + topicResource.getMetadata().getName() + " not found", 404, null);
+            }
+            return write(new KafkaTopicBuilder(existing).withStatus(topicResource.getStatus()).build(), false);
+        });
+    }
+
+    @Override
+    public Future<Void> deleteResource(ResourceName resourceName) {
+        return backend.call("deleteResource", () -> {
+            byName.remove(resourceName);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<List<KafkaTopic>> listResources() {
+        return backend.call("listResources", () -> new ArrayList<>(byName.values()));
+    }
+
+    @Override
+    public Future<Void> listResources(Function<List<KafkaTopic>, Future<Void>> pageHandler) {
+        List<KafkaTopic> kafkaTopics = new ArrayList<>(byName.values());
+        return listPages(kafkaTopics, 0, pageHandler);
+    }
+
+    private Future<Void> listPages(List<KafkaTopic> kafkaTopics, int from, Function<List<KafkaTopic>, Future<Void>> pageHandler) {
+        return backend.call("listResources", () -> kafkaTopics.subList(from, Math.min(kafkaTopics.size(), from + pageSize)))
+            .compose(page -> pageHandler.apply(page))
+            .compose(ignored -> from + pageSize < kafkaTopics.size()
+                    ? listPages(kafkaTopics, from + pageSize, pageHandler) : Future.succeededFuture());
+    }
+
+    @Override
+    public Future<KafkaTopic> getFromName(ResourceName resourceName) {
+        return backend.call("getFromName", () -> byName.get(resourceName));
+    }
+
+    @Override
+    public Future<KafkaTopic> getFromTopicName(TopicName topicName) {
+        return getFromName(topicName.asKubeName());
+    }
+
+    @Override
+    public Future<Event> createEvent(Event event) {
+        return backend.call("createEvent", () -> {
+            events.incrementAndGet();
+            return event;
+        });
+    }
+
+    @Override
+    public Future<Void> updateEvent(Event event) {
+        return backend.call("updateEvent", () -> {
+            events.incrementAndGet();
+            return null;
+        });
+    }
+}
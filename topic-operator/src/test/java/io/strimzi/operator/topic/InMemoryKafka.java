@@ -0,0 +1,219 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.InvalidPartitionsException;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link Kafka} which keeps its topics in memory, with the latency and errors of a {@link SimulatedBackend}.
+ * Unlike {@link MockKafka} it's thread safe, behaves like a real cluster without being configured per test,
+ * and is meant to hold a very large number of topics.
+ */
+class InMemoryKafka implements Kafka {
+
+    private final SimulatedBackend backend;
+    private final int brokers;
+    private final Map<TopicName, Topic> topics = new ConcurrentHashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * @param backend The simulated backend.
+     * @param brokers The number of brokers, which is the maximum replication factor.
+     */
+    InMemoryKafka(SimulatedBackend backend, int brokers) {
+        this.backend = backend;
+        this.brokers = brokers;
+        for (int i = 0; i < brokers; i++) {
+            nodes.add(new Node(i, "broker-" + i, 9092));
+        }
+    }
+
+    /**
+     * Create, or replace, a topic directly, as a user of Kafka would, without any latency.
+     */
+    void put(Topic topic) {
+        topics.put(topic.getTopicName(), kafkaView(topic));
+    }
+
+    /**
+     * @return The topic, or null if it doesn't exist.
+     */
+    Topic get(TopicName topicName) {
+        return topics.get(topicName);
+    }
+
+    /**
+     * @return The number of topics.
+     */
+    int size() {
+        return topics.size();
+    }
+
+    /** The parts of the topic which Kafka knows about. */
+    private static Topic kafkaView(Topic topic) {
+        return new Topic.Builder(topic.getTopicName(), topic.getNumPartitions(), topic.getNumReplicas(), topic.getConfig()).build();
+    }
+
+    private TopicMetadata metadata(Topic topic) {
+        List<Node> replicas = nodes.subList(0, Math.min(topic.getNumReplicas(), brokers));
+        List<TopicPartitionInfo> partitions = new ArrayList<>(topic.getNumPartitions());
+        for (int partition = 0; partition < topic.getNumPartitions(); partition++) {
+            partitions.add(new TopicPartitionInfo(partition, replicas.get(0), replicas, replicas));
+        }
+        List<ConfigEntry> configs = new ArrayList<>(topic.getConfig().size());
+        for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
+            configs.add(new ConfigEntry(entry.getKey(), entry.getValue()));
+        }
+        return new TopicMetadata(new TopicDescription(topic.getTopicName().toString(), false, partitions), new Config(configs));
+    }
+
+    @Override
+    public Future<Void> createTopic(Topic newTopic) {
+        return backend.call("createTopic", () -> {
+            if (topics.putIfAbsent(newTopic.getTopicName(), kafkaView(newTopic)) != null) {
+                throw new TopicExistsException("Topic '" + newTopic.getTopicName() + "' already exists.");
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> deleteTopic(TopicName topicName) {
+        return backend.call("deleteTopic", () -> {
+            if (topics.remove(topicName) == null) {
+                throw new UnknownTopicOrPartitionException("This server does not host this topic-partition.");
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> updateTopicConfig(Topic topic) {
+        return backend.call("updateTopicConfig", () -> {
+            if (topics.computeIfPresent(topic.getTopicName(),
+                (name, existing) -> new Topic.Builder(existing).withConfig(topic.getConfig()).build()) == null) {
+                throw new UnknownTopicOrPartitionException("This server does not host this topic-partition.");
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> increasePartitions(Topic topic) {
+        return backend.call("increasePartitions", () -> {
+            Topic existing = topics.get(topic.getTopicName());
+            if (existing == null) {
+                throw new UnknownTopicOrPartitionException("This server does not host this topic-partition.");
+            } else if (topic.getNumPartitions() <= existing.getNumPartitions()) {
+                throw new InvalidPartitionsException("Topic currently has " + existing.getNumPartitions() + " partitions");
+            }
+            topics.put(topic.getTopicName(), new Topic.Builder(existing).withNumPartitions(topic.getNumPartitions()).build());
+            return null;
+        });
+    }
+
+    @Override
+    public Future<TopicMetadata> topicMetadata(TopicName topicName) {
+        return backend.call("topicMetadata", () -> {
+            Topic topic = topics.get(topicName);
+            return topic != null ? metadata(topic) : null;
+        });
+    }
+
+    @Override
+    public Future<Map<TopicName, TopicMetadata>> topicsMetadata(Set<TopicName> topicNames) {
+        return backend.call("topicsMetadata", () -> {
+            Map<TopicName, TopicMetadata> result = new HashMap<>(topicNames.size());
+            for (TopicName topicName : topicNames) {
+                Topic topic = topics.get(topicName);
+                if (topic != null) {
+                    result.put(topicName, metadata(topic));
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public Future<Set<String>> listTopics() {
+        return backend.call("listTopics", () -> {
+            Set<String> result = new HashSet<>(topics.size());
+            for (TopicName topicName : topics.keySet()) {
+                result.add(topicName.toString());
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public Future<Map<Integer, String>> brokerRacks() {
+        return backend.call("brokerRacks", () -> {
+            Map<Integer, String> result = new HashMap<>();
+            for (Node node : nodes) {
+                result.put(node.id(), null);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public Future<Set<TopicName>> reassigningTopics() {
+        return backend.call("reassigningTopics", Collections::emptySet);
+    }
+
+    @Override
+    public Future<Void> reassignPartitions(Map<TopicName, Map<Integer, List<Integer>>> assignments) {
+        // Reassignments complete at once
+        return backend.call("reassignPartitions", () -> {
+            for (Map.Entry<TopicName, Map<Integer, List<Integer>>> entry : assignments.entrySet()) {
+                short replicas = (short) entry.getValue().values().iterator().next().size();
+                topics.computeIfPresent(entry.getKey(), (name, existing) -> new Topic.Builder(existing).withNumReplicas(replicas).build());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Map<String, String>> throttledReplicas(TopicName topicName) {
+        return backend.call("throttledReplicas", Collections::emptyMap);
+    }
+
+    @Override
+    public Future<Void> setThrottledReplicas(TopicName topicName, String leaderReplicas, String followerReplicas) {
+        return backend.call("setThrottledReplicas", () -> null);
+    }
+
+    @Override
+    public Future<Void> setReplicationThrottleRate(Set<Integer> brokerIds, Long rate) {
+        return backend.call("setReplicationThrottleRate", () -> null);
+    }
+
+    @Override
+    public Future<Map<Integer, Map<String, String>>> replicationThrottleRates(Set<Integer> brokerIds) {
+        return backend.call("replicationThrottleRates", Collections::emptyMap);
+    }
+
+    @Override
+    public Future<Void> setReplicationThrottleRates(Map<Integer, Map<String, String>> rates) {
+        return backend.call("setReplicationThrottleRates", () -> null);
+    }
+}
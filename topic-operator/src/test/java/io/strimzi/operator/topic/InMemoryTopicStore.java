@@ -0,0 +1,86 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link TopicStore} which keeps its topics in memory, with the latency and errors of a {@link SimulatedBackend}.
+ * Like the persistent stores, it keeps each topic in its serialized form, so the topics it returns
+ * always have a resource name.
+ */
+class InMemoryTopicStore implements TopicStore {
+
+    private final SimulatedBackend backend;
+    private final Map<TopicName, byte[]> topics = new ConcurrentHashMap<>();
+
+    InMemoryTopicStore(SimulatedBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * @return The topic, or null if it doesn't exist.
+     */
+    Topic get(TopicName topicName) {
+        byte[] json = topics.get(topicName);
+        return json != null ? TopicSerialization.fromJson(json) : null;
+    }
+
+    /**
+     * @return The number of topics.
+     */
+    int size() {
+        return topics.size();
+    }
+
+    @Override
+    public Future<Topic> read(TopicName name) {
+        return backend.call("read", () -> get(name));
+    }
+
+    @Override
+    public Future<Void> create(Topic topic) {
+        return backend.<Void>call("create", () -> {
+            if (topics.putIfAbsent(topic.getTopicName(), TopicSerialization.toJson(topic)) != null) {
+                throw new ExceptionWrapper(new EntityExistsException());
+            }
+            return null;
+        }).recover(InMemoryTopicStore::unwrap);
+    }
+
+    @Override
+    public Future<Void> update(Topic topic) {
+        return backend.<Void>call("update", () -> {
+            if (topics.replace(topic.getTopicName(), TopicSerialization.toJson(topic)) == null) {
+                throw new ExceptionWrapper(new NoSuchEntityExistsException());
+            }
+            return null;
+        }).recover(InMemoryTopicStore::unwrap);
+    }
+
+    @Override
+    public Future<Void> delete(TopicName topicName) {
+        return backend.<Void>call("delete", () -> {
+            if (topics.remove(topicName) == null) {
+                throw new ExceptionWrapper(new NoSuchEntityExistsException());
+            }
+            return null;
+        }).recover(InMemoryTopicStore::unwrap);
+    }
+
+    /** Carries the checked exceptions of the store out of a {@link SimulatedBackend#call}. */
+    private static class ExceptionWrapper extends RuntimeException {
+        ExceptionWrapper(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private static Future<Void> unwrap(Throwable error) {
+        return Future.failedFuture(error instanceof ExceptionWrapper ? error.getCause() : error);
+    }
+}
@@ -4,14 +4,20 @@
  */
 package io.strimzi.operator.topic;
 
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.strimzi.api.kafka.KafkaTopicList;
 import io.strimzi.api.kafka.model.KafkaTopic;
 import io.strimzi.api.kafka.model.KafkaTopicBuilder;
+import io.strimzi.operator.common.operator.resource.TimeoutException;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.Checkpoint;
 import io.vertx.junit5.VertxExtension;
@@ -20,13 +26,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(VertxExtension.class)
@@ -64,4 +78,212 @@ public class K8sImplTest {
             async.flag();
         });
     }
+
+    private static KafkaTopic kafkaTopic(String name, String topicName, String resourceVersion) {
+        return new KafkaTopicBuilder()
+                .withMetadata(new ObjectMetaBuilder()
+                    .withName(name)
+                    .withResourceVersion(resourceVersion)
+                    .withLabels(Collections.singletonMap("foo", "bar")).build())
+                .withNewSpec()
+                    .withTopicName(topicName)
+                    .withPartitions(1)
+                    .withReplicas(1)
+                .endSpec()
+                .build();
+    }
+
+    private static KafkaTopicList page(String continueToken, KafkaTopic... items) {
+        KafkaTopicList list = new KafkaTopicList();
+        list.setMetadata(new ListMetaBuilder().withResourceVersion("10").withContinue(continueToken).build());
+        list.setItems(new ArrayList<>(Arrays.asList(items)));
+        return list;
+    }
+
+    @Test
+    public void testReadsAreServedFromCacheAfterRelist(VertxTestContext context) {
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        MixedOperation<KafkaTopic, KafkaTopicList, TopicOperator.DeleteKafkaTopic, Resource<KafkaTopic, TopicOperator.DeleteKafkaTopic>> mockResources = mock(MixedOperation.class);
+        when(mockClient.customResources(any(CustomResourceDefinition.class), any(Class.class), any(Class.class), any(Class.class))).thenReturn(mockResources);
+        when(mockResources.withLabels(any())).thenReturn(mockResources);
+        when(mockResources.inNamespace(any())).thenReturn(mockResources);
+        when(mockResources.list(eq(K8sImpl.LIST_PAGE_SIZE), isNull())).thenReturn(page("page-2",
+                kafkaTopic("foo", null, "5")));
+        when(mockResources.list(eq(K8sImpl.LIST_PAGE_SIZE), eq("page-2"))).thenReturn(page(null,
+                kafkaTopic("bar", "my-topic", "6")));
+
+        K8sImpl k8s = new K8sImpl(vertx, mockClient, new Labels("foo", "bar"), "default");
+        List<Watcher.Action> delegated = new ArrayList<>();
+        Watcher<KafkaTopic> watcher = k8s.cacheUpdating(new Watcher<KafkaTopic>() {
+            @Override
+            public void eventReceived(Action action, KafkaTopic resource) {
+                delegated.add(action);
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+            }
+        });
+
+        k8s.relist().setHandler(context.succeeding(ignored -> context.verify(() -> {
+            assertThat(k8s.cachedResourceVersion(), is("10"));
+            assertThat(k8s.listResources().result().size(), is(2));
+            assertThat(k8s.getFromName(new ResourceName("foo")).result().getMetadata().getResourceVersion(), is("5"));
+            assertThat(k8s.getFromTopicName(new TopicName("my-topic")).result().getMetadata().getName(), is("bar"));
+            assertThat(k8s.getFromTopicName(new TopicName("foo")).result().getMetadata().getName(), is("foo"));
+            verify(mockResources, never()).withName(anyString());
+
+            watcher.eventReceived(Watcher.Action.MODIFIED, kafkaTopic("foo", null, "11"));
+            // An out of date event doesn't replace a newer version
+            watcher.eventReceived(Watcher.Action.MODIFIED, kafkaTopic("foo", null, "7"));
+            assertThat(k8s.getFromName(new ResourceName("foo")).result().getMetadata().getResourceVersion(), is("11"));
+            watcher.eventReceived(Watcher.Action.MODIFIED, kafkaTopic("bar", "other-topic", "12"));
+            assertThat(k8s.getFromTopicName(new TopicName("my-topic")).result(), is(nullValue()));
+            assertThat(k8s.getFromTopicName(new TopicName("other-topic")).result().getMetadata().getName(), is("bar"));
+            watcher.eventReceived(Watcher.Action.DELETED, kafkaTopic("foo", null, "13"));
+            assertThat(k8s.getFromName(new ResourceName("foo")).result(), is(nullValue()));
+            assertThat(k8s.listResources().result().size(), is(1));
+            assertThat(delegated.size(), is(4));
+
+            // Once the watch has closed, the cache is no longer used
+            watcher.onClose(new KubernetesClientException("closed"));
+            assertThat(k8s.cache().isSynced(), is(false));
+            context.completeNow();
+        })));
+    }
+
+    @Test
+    public void testListInFlightDuringDeletionDoesNotResurrectKafkaTopic() {
+        KafkaTopicCache cache = new KafkaTopicCache();
+        cache.replace(Arrays.asList(kafkaTopic("foo", null, "5"), kafkaTopic("bar", null, "6")), "6");
+
+        // A list starts, then foo is deleted by the watch and bar by the operator, then the list finishes
+        cache.update(Watcher.Action.DELETED, kafkaTopic("foo", null, "8"));
+        cache.remove(new ResourceName("bar"));
+        cache.replace(Arrays.asList(kafkaTopic("foo", null, "5"), kafkaTopic("bar", null, "6")), "7");
+        assertThat(cache.get(new ResourceName("foo")), is(nullValue()));
+        assertThat(cache.get(new ResourceName("bar")), is(nullValue()));
+
+        // A KafkaTopic of the same name created since the deletion is cached
+        cache.replace(Collections.singletonList(kafkaTopic("foo", null, "9")), "9");
+        assertThat(cache.get(new ResourceName("foo")).getMetadata().getResourceVersion(), is("9"));
+    }
+
+    @Test
+    public void testKafkaTopicAddedDuringListIsKept() {
+        KafkaTopicCache cache = new KafkaTopicCache();
+        cache.replace(Collections.emptyList(), "5");
+        cache.update(Watcher.Action.ADDED, kafkaTopic("foo", null, "8"));
+        cache.replace(Collections.emptyList(), "7");
+        assertThat(cache.get(new ResourceName("foo")).getMetadata().getResourceVersion(), is("8"));
+        assertThat(cache.resourceVersion(), is("8"));
+    }
+
+    @Test
+    public void testCacheIsUsedAgainOnceWatchRestartsFromFreshList() {
+        KafkaTopicCache cache = new KafkaTopicCache();
+        cache.replace(Collections.singletonList(kafkaTopic("foo", null, "5")), "5");
+        assertThat(cache.isSynced(), is(true));
+
+        cache.invalidate();
+        // A watch which starts without a list since the old one closed might have missed events
+        cache.watchStarted();
+        assertThat(cache.isSynced(), is(false));
+        cache.replace(Collections.singletonList(kafkaTopic("foo", null, "5")), "9");
+        assertThat(cache.isSynced(), is(false));
+        cache.watchStarted();
+        assertThat(cache.isSynced(), is(true));
+    }
+
+    @Test
+    public void testPaginatedList(VertxTestContext context) {
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        MixedOperation<KafkaTopic, KafkaTopicList, TopicOperator.DeleteKafkaTopic, Resource<KafkaTopic, TopicOperator.DeleteKafkaTopic>> mockResources = mock(MixedOperation.class);
+        when(mockClient.customResources(any(CustomResourceDefinition.class), any(Class.class), any(Class.class), any(Class.class))).thenReturn(mockResources);
+        when(mockResources.withLabels(any())).thenReturn(mockResources);
+        when(mockResources.inNamespace(any())).thenReturn(mockResources);
+        when(mockResources.list(eq(K8sImpl.LIST_PAGE_SIZE), isNull())).thenReturn(page("page-2",
+                kafkaTopic("foo", null, "5")));
+        // The continue token has expired by the time the second page is requested
+        when(mockResources.list(eq(K8sImpl.LIST_PAGE_SIZE), eq("page-2"))).thenThrow(new KubernetesClientException(
+                new StatusBuilder().withCode(410).withNewMetadata().withContinue("page-2-latest").endMetadata().build()));
+        when(mockResources.list(eq(K8sImpl.LIST_PAGE_SIZE), eq("page-2-latest"))).thenReturn(page(null,
+                kafkaTopic("bar", "my-topic", "6")));
+
+        K8sImpl k8s = new K8sImpl(vertx, mockClient, new Labels("foo", "bar"), "default");
+        List<String> names = new ArrayList<>();
+        k8s.listResources(page -> {
+            Future<Void> handled = Future.future();
+            vertx.setTimer(10, id -> {
+                if (names.isEmpty()) {
+                    // The next page isn't requested until this one has been handled
+                    context.verify(() -> verify(mockResources, never()).list(eq(K8sImpl.LIST_PAGE_SIZE), eq("page-2")));
+                }
+                for (KafkaTopic kafkaTopic : page) {
+                    names.add(kafkaTopic.getMetadata().getName());
+                }
+                handled.complete();
+            });
+            return handled;
+        }).setHandler(context.succeeding(ignored -> context.verify(() -> {
+            assertThat(names, is(Arrays.asList("foo", "bar")));
+            context.completeNow();
+        })));
+    }
+
+    @Test
+    public void testDeletionIsConfirmedByTheWatch(VertxTestContext context) {
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        MixedOperation<KafkaTopic, KafkaTopicList, TopicOperator.DeleteKafkaTopic, Resource<KafkaTopic, TopicOperator.DeleteKafkaTopic>> mockResources = mock(MixedOperation.class);
+        Resource<KafkaTopic, TopicOperator.DeleteKafkaTopic> mockResource = mock(Resource.class);
+        when(mockClient.customResources(any(CustomResourceDefinition.class), any(Class.class), any(Class.class), any(Class.class))).thenReturn(mockResources);
+        when(mockResources.withLabels(any())).thenReturn(mockResources);
+        when(mockResources.inNamespace(any())).thenReturn(mockResources);
+        when(mockResources.list(eq(K8sImpl.LIST_PAGE_SIZE), isNull())).thenReturn(page(null,
+                kafkaTopic("foo", null, "5")));
+        when(mockResources.withName("foo")).thenReturn(mockResource);
+        when(mockResource.cascading(true)).thenReturn(mockResource);
+        when(mockResource.delete()).thenReturn(true);
+
+        K8sImpl k8s = new K8sImpl(vertx, mockClient, new Labels("foo", "bar"), "default");
+        Watcher<KafkaTopic> watcher = k8s.cacheUpdating(new Watcher<KafkaTopic>() {
+            @Override
+            public void eventReceived(Action action, KafkaTopic resource) {
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+            }
+        });
+
+        k8s.relist().setHandler(context.succeeding(relisted -> {
+            k8s.deleteResource(new ResourceName("foo")).setHandler(context.succeeding(ignored -> context.verify(() -> {
+                assertThat(k8s.getFromName(new ResourceName("foo")).result(), is(nullValue()));
+                // The KafkaTopic isn't polled while the watch is running
+                verify(mockResource, never()).get();
+                context.completeNow();
+            })));
+            watcher.eventReceived(Watcher.Action.DELETED, kafkaTopic("foo", null, "6"));
+        }));
+    }
+
+    @Test
+    public void testDeletionTimesOut(VertxTestContext context) {
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        MixedOperation<KafkaTopic, KafkaTopicList, TopicOperator.DeleteKafkaTopic, Resource<KafkaTopic, TopicOperator.DeleteKafkaTopic>> mockResources = mock(MixedOperation.class);
+        Resource<KafkaTopic, TopicOperator.DeleteKafkaTopic> mockResource = mock(Resource.class);
+        when(mockClient.customResources(any(CustomResourceDefinition.class), any(Class.class), any(Class.class), any(Class.class))).thenReturn(mockResources);
+        when(mockResources.inNamespace(any())).thenReturn(mockResources);
+        when(mockResources.withName("foo")).thenReturn(mockResource);
+        when(mockResource.cascading(true)).thenReturn(mockResource);
+        when(mockResource.delete()).thenReturn(true);
+        // A finalizer prevents the deletion
+        when(mockResource.get()).thenReturn(kafkaTopic("foo", null, "5"));
+
+        K8sImpl k8s = new K8sImpl(vertx, vertx.createSharedWorkerExecutor("test"), mockClient, new Labels("foo", "bar"), "default", 100);
+        k8s.deleteResource(new ResourceName("foo")).setHandler(context.failing(e -> context.verify(() -> {
+            assertThat(e instanceof TimeoutException, is(true));
+            context.completeNow();
+        })));
+    }
 }
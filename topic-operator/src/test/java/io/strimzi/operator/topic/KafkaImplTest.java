@@ -0,0 +1,319 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.CreatePartitionsResult;
+import org.apache.kafka.clients.admin.CreateTopicsResult;
+import org.apache.kafka.clients.admin.DeleteTopicsResult;
+import org.apache.kafka.clients.admin.DescribeConfigsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(VertxExtension.class)
+public class KafkaImplTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(KafkaImplTest.class);
+
+    private Vertx vertx;
+    private AdminClient adminClient;
+    private List<KafkaFutureImpl<TopicDescription>> descFutures;
+    private List<KafkaFutureImpl<Config>> configFutures;
+
+    @BeforeEach
+    public void setup() {
+        vertx = Vertx.vertx();
+        adminClient = mock(AdminClient.class);
+        descFutures = Collections.synchronizedList(new ArrayList<>());
+        configFutures = Collections.synchronizedList(new ArrayList<>());
+        when(adminClient.describeTopics(any(Collection.class))).thenAnswer(invocation -> {
+            KafkaFutureImpl<TopicDescription> future = new KafkaFutureImpl<>();
+            descFutures.add(future);
+            Collection<String> names = invocation.getArgument(0);
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.values()).thenReturn(Collections.singletonMap(names.iterator().next(), future));
+            return result;
+        });
+        when(adminClient.describeConfigs(any(Collection.class))).thenAnswer(invocation -> {
+            KafkaFutureImpl<Config> future = new KafkaFutureImpl<>();
+            configFutures.add(future);
+            Collection<ConfigResource> resources = invocation.getArgument(0);
+            DescribeConfigsResult result = mock(DescribeConfigsResult.class);
+            when(result.values()).thenReturn(Collections.singletonMap(resources.iterator().next(), future));
+            return result;
+        });
+    }
+
+    @AfterEach
+    public void teardown() {
+        vertx.close();
+    }
+
+    private static TopicMetadata metadata(String topicName) {
+        return Utils.getTopicMetadata(new Topic.Builder(topicName, 1, (short) 1, Collections.emptyMap()).build());
+    }
+
+    @Test
+    public void testTopicMetadataCompletesOnCallersContext(VertxTestContext context) {
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx);
+        TopicMetadata metadata = metadata("my-topic");
+        Context callerContext = vertx.getOrCreateContext();
+        Checkpoint async = context.checkpoint();
+        callerContext.runOnContext(v -> {
+            kafka.topicMetadata(new TopicName("my-topic")).setHandler(context.succeeding(result -> {
+                context.verify(() -> assertThat(Vertx.currentContext(), is(callerContext)));
+                context.verify(() -> assertThat(result, is(notNullValue())));
+                context.verify(() -> assertThat(result.getDescription(), is(metadata.getDescription())));
+                async.flag();
+            }));
+            // Complete the AdminClient futures on some other thread, as the AdminClient would
+            CompletableFuture.runAsync(() -> {
+                descFutures.get(0).complete(metadata.getDescription());
+                configFutures.get(0).complete(metadata.getConfig());
+            });
+        });
+    }
+
+    @Test
+    public void testTopicMetadataOfUnknownTopic(VertxTestContext context) {
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx);
+        Checkpoint async = context.checkpoint();
+        kafka.topicMetadata(new TopicName("my-topic")).setHandler(context.succeeding(result -> {
+            context.verify(() -> assertThat(result, is(nullValue())));
+            async.flag();
+        }));
+        // The description fails first: we must still wait for the config without blocking
+        descFutures.get(0).completeExceptionally(new UnknownTopicOrPartitionException("my-topic"));
+        configFutures.get(0).completeExceptionally(new UnknownTopicOrPartitionException("my-topic"));
+    }
+
+    @Test
+    public void testTopicMetadataFailure(VertxTestContext context) {
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx);
+        RuntimeException error = new RuntimeException("some failure");
+        Checkpoint async = context.checkpoint();
+        kafka.topicMetadata(new TopicName("my-topic")).setHandler(context.failing(e -> {
+            context.verify(() -> assertThat(e, is(error)));
+            async.flag();
+        }));
+        descFutures.get(0).completeExceptionally(error);
+        configFutures.get(0).complete(metadata("my-topic").getConfig());
+    }
+
+    @Test
+    public void testDeleteTopicWaitsForDeletion(VertxTestContext context) {
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx);
+        DeleteTopicsResult deleteResult = mock(DeleteTopicsResult.class);
+        when(deleteResult.values()).thenReturn(Collections.singletonMap("my-topic", KafkaFuture.completedFuture(null)));
+        when(adminClient.deleteTopics(any(Collection.class))).thenReturn(deleteResult);
+        // The topic is still described by the first check, but not by the second
+        AtomicInteger describes = new AtomicInteger();
+        TopicMetadata metadata = metadata("my-topic");
+        when(adminClient.describeTopics(any(Collection.class))).thenAnswer(invocation -> {
+            KafkaFutureImpl<TopicDescription> future = new KafkaFutureImpl<>();
+            if (describes.getAndIncrement() == 0) {
+                future.complete(metadata.getDescription());
+            } else {
+                future.completeExceptionally(new UnknownTopicOrPartitionException("my-topic"));
+            }
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.values()).thenReturn(Collections.singletonMap("my-topic", future));
+            return result;
+        });
+        Checkpoint async = context.checkpoint();
+        kafka.deleteTopic(new TopicName("my-topic")).setHandler(context.succeeding(v -> {
+            context.verify(() -> assertThat(describes.get(), is(2)));
+            async.flag();
+        }));
+    }
+
+    private static Topic topic(String topicName) {
+        return new Topic.Builder(topicName, 1, (short) 1, Collections.singletonMap("retention.ms", "1000")).build();
+    }
+
+    @Test
+    public void testCreateTopicsAreBatched(VertxTestContext context) {
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx, 1000, 3, 60_000);
+        List<Collection<NewTopic>> requests = Collections.synchronizedList(new ArrayList<>());
+        when(adminClient.createTopics(any(Collection.class))).thenAnswer(invocation -> {
+            Collection<NewTopic> newTopics = invocation.getArgument(0);
+            requests.add(new ArrayList<>(newTopics));
+            Map<String, KafkaFuture<Void>> values = new HashMap<>();
+            for (NewTopic newTopic : newTopics) {
+                KafkaFutureImpl<Void> future = new KafkaFutureImpl<>();
+                if (newTopic.name().equals("exists")) {
+                    future.completeExceptionally(new TopicExistsException("exists"));
+                } else {
+                    future.complete(null);
+                }
+                values.put(newTopic.name(), future);
+            }
+            CreateTopicsResult result = mock(CreateTopicsResult.class);
+            when(result.values()).thenReturn(values);
+            return result;
+        });
+        Checkpoint async = context.checkpoint(3);
+        vertx.runOnContext(v -> {
+            kafka.createTopic(topic("topic-1")).setHandler(context.succeeding(ignored -> async.flag()));
+            kafka.createTopic(topic("exists")).setHandler(context.failing(e -> {
+                context.verify(() -> assertThat(e instanceof TopicExistsException, is(true)));
+                async.flag();
+            }));
+            // The third topic fills the batch, so it's sent without waiting for the linger time
+            kafka.createTopic(topic("topic-3")).setHandler(context.succeeding(ignored -> {
+                context.verify(() -> assertThat(requests.size(), is(1)));
+                context.verify(() -> assertThat(requests.get(0).size(), is(3)));
+                context.verify(() -> assertThat(kafka.adminBatches(), is(1L)));
+                async.flag();
+            }));
+        });
+    }
+
+    @Test
+    public void testConfigAndPartitionChangesAreBatchedUntilLingerTimeElapses(VertxTestContext context) {
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx, 1000, 100, 50);
+        List<Map<ConfigResource, Config>> configRequests = Collections.synchronizedList(new ArrayList<>());
+        when(adminClient.alterConfigs(any(Map.class))).thenAnswer(invocation -> {
+            Map<ConfigResource, Config> configs = invocation.getArgument(0);
+            configRequests.add(new HashMap<>(configs));
+            Map<ConfigResource, KafkaFuture<Void>> values = new HashMap<>();
+            for (ConfigResource resource : configs.keySet()) {
+                values.put(resource, KafkaFuture.completedFuture(null));
+            }
+            AlterConfigsResult result = mock(AlterConfigsResult.class);
+            when(result.values()).thenReturn(values);
+            return result;
+        });
+        List<Map<String, NewPartitions>> partitionRequests = Collections.synchronizedList(new ArrayList<>());
+        when(adminClient.createPartitions(any(Map.class))).thenAnswer(invocation -> {
+            Map<String, NewPartitions> newPartitions = invocation.getArgument(0);
+            partitionRequests.add(new HashMap<>(newPartitions));
+            Map<String, KafkaFuture<Void>> values = new HashMap<>();
+            for (String topicName : newPartitions.keySet()) {
+                values.put(topicName, KafkaFuture.completedFuture(null));
+            }
+            CreatePartitionsResult result = mock(CreatePartitionsResult.class);
+            when(result.values()).thenReturn(values);
+            return result;
+        });
+        Checkpoint async = context.checkpoint(4);
+        vertx.runOnContext(v -> {
+            kafka.updateTopicConfig(topic("topic-1")).setHandler(context.succeeding(ignored -> async.flag()));
+            kafka.increasePartitions(topic("topic-1")).setHandler(context.succeeding(ignored -> async.flag()));
+            // Requests made shortly afterwards join the same batches
+            vertx.setTimer(10, timerId -> {
+                kafka.updateTopicConfig(topic("topic-2")).setHandler(context.succeeding(ignored -> {
+                    context.verify(() -> assertThat(configRequests.size(), is(1)));
+                    context.verify(() -> assertThat(configRequests.get(0).size(), is(2)));
+                    async.flag();
+                }));
+                kafka.increasePartitions(topic("topic-2")).setHandler(context.succeeding(ignored -> {
+                    context.verify(() -> assertThat(partitionRequests.size(), is(1)));
+                    context.verify(() -> assertThat(partitionRequests.get(0).size(), is(2)));
+                    async.flag();
+                }));
+            });
+        });
+    }
+
+    /**
+     * Measures the CPU time used by the event loop thread while idle, and while 1000 topic metadata
+     * requests are waiting for the AdminClient. Waiting for the AdminClient should cost the event loop
+     * (almost) nothing.
+     */
+    @Test
+    public void benchmarkEventLoopCpuWhileAwaitingMetadata(VertxTestContext context) throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadCpuTimeSupported(), "Thread CPU time is not supported");
+        threadMXBean.setThreadCpuTimeEnabled(true);
+        int numRequests = 1000;
+        long measurementMs = 1000;
+
+        KafkaImpl kafka = new KafkaImpl(adminClient, vertx);
+        Context eventLoop = vertx.getOrCreateContext();
+        CompletableFuture<Thread> eventLoopThread = new CompletableFuture<>();
+        eventLoop.runOnContext(v -> eventLoopThread.complete(Thread.currentThread()));
+        long threadId = eventLoopThread.get(10, TimeUnit.SECONDS).getId();
+
+        long idleCpuNs = threadMXBean.getThreadCpuTime(threadId);
+        Thread.sleep(measurementMs);
+        idleCpuNs = threadMXBean.getThreadCpuTime(threadId) - idleCpuNs;
+
+        CompletableFuture<Void> requested = new CompletableFuture<>();
+        List<Future<TopicMetadata>> results = new ArrayList<>(numRequests);
+        eventLoop.runOnContext(v -> {
+            for (int i = 0; i < numRequests; i++) {
+                results.add(kafka.topicMetadata(new TopicName("topic-" + i)));
+            }
+            requested.complete(null);
+        });
+        requested.get(10, TimeUnit.SECONDS);
+
+        long awaitingCpuNs = threadMXBean.getThreadCpuTime(threadId);
+        Thread.sleep(measurementMs);
+        awaitingCpuNs = threadMXBean.getThreadCpuTime(threadId) - awaitingCpuNs;
+
+        LOGGER.info("Event loop CPU over {}ms: idle {}ms, with {} metadata requests in flight {}ms",
+                measurementMs, TimeUnit.NANOSECONDS.toMillis(idleCpuNs),
+                numRequests, TimeUnit.NANOSECONDS.toMillis(awaitingCpuNs));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(awaitingCpuNs), lessThan(measurementMs / 4));
+
+        for (int i = 0; i < numRequests; i++) {
+            TopicMetadata metadata = metadata("topic-" + i);
+            descFutures.get(i).complete(metadata.getDescription());
+            configFutures.get(i).complete(metadata.getConfig());
+        }
+        Checkpoint async = context.checkpoint();
+        eventLoop.runOnContext(v -> {
+            for (Future<TopicMetadata> result : results) {
+                context.verify(() -> assertThat(result.succeeded(), is(true)));
+            }
+            async.flag();
+        });
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.strimzi.api.kafka.model.KafkaTopic;
+import io.strimzi.api.kafka.model.KafkaTopicBuilder;
+import io.strimzi.api.kafka.model.status.KafkaTopicStatus;
+import io.strimzi.api.kafka.model.status.KafkaTopicStatusBuilder;
+import io.vertx.core.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KafkaTopicStatusWriterTest {
+
+    private final LogContext logContext = LogContext.periodic("test");
+    private K8s k8s;
+    private List<KafkaTopic> writes;
+    private List<Future<KafkaTopic>> responses;
+
+    @BeforeEach
+    public void setup() {
+        k8s = mock(K8s.class);
+        writes = new ArrayList<>();
+        responses = new ArrayList<>();
+        when(k8s.updateResourceStatus(any(KafkaTopic.class))).thenAnswer(invocation -> {
+            writes.add(invocation.getArgument(0));
+            Future<KafkaTopic> response = Future.future();
+            responses.add(response);
+            return response;
+        });
+    }
+
+    private static KafkaTopic kafkaTopic(String name, long generation) {
+        return new KafkaTopicBuilder()
+                .withMetadata(new ObjectMetaBuilder().withName(name).withGeneration(generation).build())
+                .withNewSpec()
+                    .withPartitions(1)
+                    .withReplicas(1)
+                .endSpec()
+            .build();
+    }
+
+    private static KafkaTopicStatus status(long observedGeneration) {
+        return new KafkaTopicStatusBuilder().withObservedGeneration(observedGeneration).build();
+    }
+
+    private void respond(int index) {
+        responses.get(index).complete(writes.get(index));
+    }
+
+    @Test
+    public void testOnlyTheLatestStatusIsWritten() {
+        KafkaTopicStatusWriter writer = new KafkaTopicStatusWriter(k8s, 10, 100);
+        Future<Void> first = writer.write(logContext, kafkaTopic("my-topic", 1), status(1));
+        Future<Void> second = writer.write(logContext, kafkaTopic("my-topic", 2), status(2));
+        Future<Void> third = writer.write(logContext, kafkaTopic("my-topic", 3), status(3));
+        // Only one write per KafkaTopic is in flight, and the second status was replaced by the third
+        assertThat(writes.size(), is(1));
+        assertThat(writer.pending(), is(1));
+        assertThat(writer.coalesced(), is(1L));
+        assertThat(writer.lastGeneration(new ResourceName("my-topic")), is(1L));
+
+        respond(0);
+        assertThat(first.succeeded(), is(true));
+        assertThat(second.isComplete(), is(false));
+        assertThat(writes.size(), is(2));
+        assertThat(writes.get(1).getStatus().getObservedGeneration(), is(3L));
+
+        respond(1);
+        assertThat(second.succeeded(), is(true));
+        assertThat(third.succeeded(), is(true));
+        assertThat(writer.written(), is(2L));
+        assertThat(writer.lastGeneration(new ResourceName("my-topic")), is(3L));
+
+        // The KafkaTopic already has the status
+        KafkaTopic written = writes.get(1);
+        assertThat(writer.write(logContext, written, status(3)).succeeded(), is(true));
+        assertThat(writes.size(), is(2));
+    }
+
+    @Test
+    public void testWritesInFlightAreBounded() {
+        KafkaTopicStatusWriter writer = new KafkaTopicStatusWriter(k8s, 2, 100);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(writer.write(logContext, kafkaTopic("topic-" + i, 1), status(1)));
+        }
+        assertThat(writes.size(), is(2));
+        assertThat(writer.inflight(), is(2));
+        assertThat(writer.pending(), is(3));
+
+        respond(0);
+        assertThat(writes.size(), is(3));
+        assertThat(writes.get(2).getMetadata().getName(), is("topic-2"));
+        responses.get(1).fail(new RuntimeException("some failure"));
+        assertThat(results.get(1).failed(), is(true));
+        respond(2);
+        respond(3);
+        respond(4);
+        for (int i = 0; i < 5; i++) {
+            assertThat(results.get(i).isComplete(), is(true));
+        }
+        assertThat(writer.inflight(), is(0));
+        assertThat(writer.pending(), is(0));
+    }
+
+    @Test
+    public void testGenerationsAreBoundedAndForgotten() {
+        KafkaTopicStatusWriter writer = new KafkaTopicStatusWriter(k8s, 10, 2);
+        for (int i = 0; i < 3; i++) {
+            writer.write(logContext, kafkaTopic("topic-" + i, 1), status(1));
+            respond(i);
+        }
+        assertThat(writer.generations(), is(2));
+        assertThat(writer.lastGeneration(new ResourceName("topic-0")), is(nullValue()));
+        assertThat(writer.lastGeneration(new ResourceName("topic-2")), is(1L));
+
+        // A status still waiting to be written to a deleted KafkaTopic is discarded
+        Future<Void> inflight = writer.write(logContext, kafkaTopic("topic-2", 2), status(2));
+        Future<Void> discarded = writer.write(logContext, kafkaTopic("topic-2", 3), status(3));
+        writer.forget(new ResourceName("topic-2"));
+        assertThat(discarded.succeeded(), is(true));
+        assertThat(writer.lastGeneration(new ResourceName("topic-2")), is(2L));
+        respond(3);
+        assertThat(inflight.succeeded(), is(true));
+        assertThat(writes.size(), is(4));
+        assertThat(writer.pending(), is(0));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.debezium.kafka.KafkaCluster;
+import io.debezium.kafka.ZookeeperServer;
+import io.strimzi.operator.topic.zk.Zk;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KafkaTopicStoreTest {
+
+    private static final String STORE_TOPIC = "__strimzi_topic_operator_store";
+
+    private Vertx vertx;
+    private KafkaCluster kafkaCluster;
+    private Properties clientProperties;
+    private List<KafkaTopicStore> stores = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        vertx = Vertx.vertx();
+        kafkaCluster = new KafkaCluster();
+        kafkaCluster.addBrokers(1);
+        kafkaCluster.deleteDataPriorToStartup(true);
+        kafkaCluster.deleteDataUponShutdown(true);
+        kafkaCluster.usingDirectory(Files.createTempDirectory("operator-integration-test").toFile());
+        kafkaCluster.startup();
+        clientProperties = new Properties();
+        clientProperties.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaCluster.brokerList());
+    }
+
+    @AfterEach
+    public void teardown() {
+        for (KafkaTopicStore store : stores) {
+            store.stop();
+        }
+        kafkaCluster.shutdown();
+        vertx.close();
+    }
+
+    private static int zkPort(KafkaCluster cluster) {
+        // TODO Method was added in DBZ-540, so no need for reflection once
+        // dependency gets upgraded
+        try {
+            Field zkServerField = KafkaCluster.class.getDeclaredField("zkServer");
+            zkServerField.setAccessible(true);
+            return ((ZookeeperServer) zkServerField.get(cluster)).getPort();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.setHandler(ar -> {
+            if (ar.succeeded()) {
+                result.complete(ar.result());
+            } else {
+                result.completeExceptionally(ar.cause());
+            }
+        });
+        try {
+            return result.get(60, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private KafkaTopicStore startedStore() throws Exception {
+        KafkaTopicStore store = new KafkaTopicStore(vertx, clientProperties, STORE_TOPIC);
+        stores.add(store);
+        await(store.start());
+        return store;
+    }
+
+    private static Topic topic(String name, int partitions) {
+        return new Topic.Builder(name, partitions, (short) 1, Collections.singletonMap("foo", "bar")).build();
+    }
+
+    private static void assertTopic(Topic actual, Topic expected) {
+        assertThat(actual.getTopicName(), is(expected.getTopicName()));
+        assertThat(actual.getNumPartitions(), is(expected.getNumPartitions()));
+        assertThat(actual.getNumReplicas(), is(expected.getNumReplicas()));
+        assertThat(actual.getConfig(), is(expected.getConfig()));
+    }
+
+    @Test
+    public void testStoreTopicIsCompacted() throws Exception {
+        startedStore();
+        try (AdminClient adminClient = AdminClient.create(clientProperties)) {
+            ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, STORE_TOPIC);
+            String cleanupPolicy = adminClient.describeConfigs(Collections.singleton(resource)).all().get()
+                    .get(resource).get(TopicConfig.CLEANUP_POLICY_CONFIG).value();
+            assertThat(cleanupPolicy, is(TopicConfig.CLEANUP_POLICY_COMPACT));
+        }
+    }
+
+    @Test
+    public void testCrud() throws Exception {
+        KafkaTopicStore store = startedStore();
+        TopicName name = new TopicName("my-topic");
+
+        await(store.create(topic("my-topic", 1)));
+        assertTopic(await(store.read(name)), topic("my-topic", 1));
+        assertThrows(TopicStore.EntityExistsException.class, () -> await(store.create(topic("my-topic", 1))));
+
+        await(store.update(topic("my-topic", 2)));
+        assertTopic(await(store.read(name)), topic("my-topic", 2));
+        assertThrows(TopicStore.NoSuchEntityExistsException.class, () -> await(store.update(topic("other", 2))));
+
+        await(store.delete(name));
+        assertThat(await(store.read(name)), is(nullValue()));
+        assertThrows(TopicStore.NoSuchEntityExistsException.class, () -> await(store.delete(name)));
+    }
+
+    @Test
+    public void testStateIsMaterializedOnStart() throws Exception {
+        KafkaTopicStore store = startedStore();
+        List<Future> creates = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            creates.add(store.create(topic("topic-" + i, 1)));
+        }
+        for (Future create : creates) {
+            await(create);
+        }
+        await(store.update(topic("topic-0", 3)));
+        await(store.delete(new TopicName("topic-1")));
+        store.stop();
+
+        KafkaTopicStore restarted = startedStore();
+        assertThat(restarted.size(), is(99));
+        assertTopic(await(restarted.read(new TopicName("topic-0"))), topic("topic-0", 3));
+        assertThat(await(restarted.read(new TopicName("topic-1"))), is(nullValue()));
+        assertTopic(await(restarted.read(new TopicName("topic-99"))), topic("topic-99", 1));
+    }
+
+    @Test
+    public void testMigrationFromZk() throws Exception {
+        Zk zk = Zk.createSync(vertx, "localhost:" + zkPort(kafkaCluster), 60_000, 10_000);
+        try {
+            ZkTopicStore zkTopicStore = new ZkTopicStore(zk);
+            // The ZkTopicStore creates its path asynchronously, so retry until it exists
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (true) {
+                try {
+                    await(zkTopicStore.create(topic("topic-a", 1)));
+                    break;
+                } catch (Exception e) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw e;
+                    }
+                    Thread.sleep(100);
+                }
+            }
+            await(zkTopicStore.create(topic("topic-b", 2)));
+
+            KafkaTopicStore store = startedStore();
+            await(store.create(topic("topic-b", 5)));
+            await(store.migrateFrom(zkTopicStore));
+
+            assertTopic(await(store.read(new TopicName("topic-a"))), topic("topic-a", 1));
+            // Topics already in the Kafka store are not overwritten
+            assertTopic(await(store.read(new TopicName("topic-b"))), topic("topic-b", 5));
+            // The migrated topics have gone from ZooKeeper, so the migration doesn't happen again
+            assertThat(await(zkTopicStore.list()).isEmpty(), is(true));
+            assertThat(await(zkTopicStore.read(new TopicName("topic-a"))), is(nullValue()));
+
+            await(store.delete(new TopicName("topic-a")));
+            await(store.migrateFrom(zkTopicStore));
+            assertThat(await(store.read(new TopicName("topic-a"))), is(nullValue()));
+        } finally {
+            CompletableFuture<Void> disconnected = new CompletableFuture<>();
+            zk.disconnect(ar -> disconnected.complete(null));
+            disconnected.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testWriteBeforeStartFails() {
+        KafkaTopicStore store = new KafkaTopicStore(vertx, clientProperties, STORE_TOPIC);
+        Future<Void> create = store.create(topic("my-topic", 1));
+        assertThat(create.failed(), is(true));
+        assertThat(create.cause(), instanceOf(IllegalStateException.class));
+    }
+}
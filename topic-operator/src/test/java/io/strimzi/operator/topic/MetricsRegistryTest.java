@@ -0,0 +1,58 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testScrape() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.gauge("things", "The number of things.", () -> 3);
+        metrics.counter("events_total", "The number of events.", () -> 0.5);
+        MetricsRegistry.Histogram histogram = metrics.histogram("duration_seconds", "The duration.", new double[] {0.1, 1}, "kind");
+        histogram.observe(0.05, "a");
+        histogram.observe(0.5, "a");
+        histogram.observe(5, "b");
+
+        assertThat(metrics.scrape(), is(
+                "# HELP strimzi_topic_operator_things The number of things.\n"
+                + "# TYPE strimzi_topic_operator_things gauge\n"
+                + "strimzi_topic_operator_things 3\n"
+                + "# HELP strimzi_topic_operator_events_total The number of events.\n"
+                + "# TYPE strimzi_topic_operator_events_total counter\n"
+                + "strimzi_topic_operator_events_total 0.5\n"
+                + "# HELP strimzi_topic_operator_duration_seconds The duration.\n"
+                + "# TYPE strimzi_topic_operator_duration_seconds histogram\n"
+                + "strimzi_topic_operator_duration_seconds_bucket{kind=\"a\",le=\"0.1\"} 1\n"
+                + "strimzi_topic_operator_duration_seconds_bucket{kind=\"a\",le=\"1\"} 2\n"
+                + "strimzi_topic_operator_duration_seconds_bucket{kind=\"a\",le=\"+Inf\"} 2\n"
+                + "strimzi_topic_operator_duration_seconds_sum{kind=\"a\"} 0.55\n"
+                + "strimzi_topic_operator_duration_seconds_count{kind=\"a\"} 2\n"
+                + "strimzi_topic_operator_duration_seconds_bucket{kind=\"b\",le=\"0.1\"} 0\n"
+                + "strimzi_topic_operator_duration_seconds_bucket{kind=\"b\",le=\"1\"} 0\n"
+                + "strimzi_topic_operator_duration_seconds_bucket{kind=\"b\",le=\"+Inf\"} 1\n"
+                + "strimzi_topic_operator_duration_seconds_sum{kind=\"b\"} 5\n"
+                + "strimzi_topic_operator_duration_seconds_count{kind=\"b\"} 1\n"));
+    }
+
+    @Test
+    public void testTime() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        MetricsRegistry.Histogram histogram = metrics.histogram("duration_seconds", "The duration.",
+                MetricsRegistry.LATENCY_BUCKETS, "backend", "operation");
+        Future<String> response = Future.future();
+        Future<String> timed = MetricsRegistry.time(histogram, () -> response, "kafka", "createTopic");
+        assertThat(histogram.count("kafka", "createTopic"), is(0L));
+        response.fail("some failure");
+        assertThat(timed.failed(), is(true));
+        assertThat(histogram.count("kafka", "createTopic"), is(1L));
+    }
+}
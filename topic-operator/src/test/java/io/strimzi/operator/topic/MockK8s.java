@@ -5,6 +5,7 @@
 package io.strimzi.operator.topic;
 
 import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
 import io.strimzi.api.kafka.model.KafkaTopic;
 import io.strimzi.api.kafka.model.KafkaTopicBuilder;
 import io.strimzi.api.kafka.model.status.KafkaTopicStatus;
@@ -161,6 +162,11 @@ public class MockK8s implements K8s {
         return handler;
     }
 
+    @Override
+    public Future<Void> listResources(Function<List<KafkaTopic>, Future<Void>> pageHandler) {
+        return listResources().compose(pageHandler);
+    }
+
     public void setListMapsResult(Supplier<AsyncResult<List<KafkaTopic>>> response) {
         this.listResponse = response;
     }
@@ -174,13 +180,44 @@ public class MockK8s implements K8s {
     }
 
     @Override
-    public Future<Void> createEvent(Event event) {
-        Future<Void> handler = Future.future();
-        events.add(event);
-        handler.handle(Future.succeededFuture());
+    public Future<KafkaTopic> getFromTopicName(TopicName topicName) {
+        for (AsyncResult<KafkaTopic> resource : byName.values()) {
+            if (resource.succeeded() && resource.result() != null && resource.result().getSpec() != null
+                    && topicName.equals(new TopicName(resource.result()))) {
+                return Future.succeededFuture(resource.result());
+            }
+        }
+        return getFromName(topicName.asKubeName());
+    }
+
+    @Override
+    public Future<Event> createEvent(Event event) {
+        Future<Event> handler = Future.future();
+        Event created = new EventBuilder(event)
+                .editMetadata()
+                    .withName(event.getMetadata().getGenerateName() + "-" + events.size())
+                .endMetadata()
+            .build();
+        events.add(created);
+        handler.handle(Future.succeededFuture(created));
         return handler;
     }
 
+    @Override
+    public Future<Void> updateEvent(Event event) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).getMetadata().getName().equals(event.getMetadata().getName())) {
+                events.set(i, event);
+                return Future.succeededFuture();
+            }
+        }
+        return Future.failedFuture("event does not exist, cannot be updated: " + event.getMetadata().getName());
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
     public void assertExists(VertxTestContext context, ResourceName resourceName) {
         AsyncResult<KafkaTopic> got = byName.get(resourceName);
         context.verify(() -> assertThat(got != null && got.succeeded(), is(true)));
@@ -11,6 +11,7 @@ import org.apache.kafka.clients.admin.NewTopic;
 import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,12 +33,18 @@ public class MockKafka implements Kafka {
     private int topicMetadataResposeCall = 0;
     private List<Function<TopicName, Future<TopicMetadata>>> topicMetadataRespose = singletonList(
         t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a topicMetadataResponse."));
+    private Function<Set<TopicName>, Future<Map<TopicName, TopicMetadata>>> topicsMetadataResponse =
+        t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a topicsMetadataResponse.");
     private Function<String, Future<Void>> createTopicResponse =
         t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a createTopicResponse.");
     private Function<TopicName, Future<Void>> deleteTopicResponse =
         t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a deleteTopicResponse.");
     private Function<TopicName, Future<Void>> updateTopicResponse =
         t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a updateTopicResponse.");
+    private Map<Integer, String> brokerRacks = Collections.emptyMap();
+    private final Map<TopicName, Map<Integer, List<Integer>>> reassignments = new HashMap<>();
+    private final Map<TopicName, String> throttledReplicas = new HashMap<>();
+    private final Map<Integer, Long> throttleRates = new HashMap<>();
 
     public MockKafka setTopicsListResponse(Future<Set<String>> topicsListResponse) {
         this.topicsListResponse = topicsListResponse;
@@ -76,6 +83,11 @@ public class MockKafka implements Kafka {
         return this;
     }
 
+    public MockKafka setTopicsMetadataResponse(Function<Set<TopicName>, Future<Map<TopicName, TopicMetadata>>> topicsMetadataResponse) {
+        this.topicsMetadataResponse = topicsMetadataResponse;
+        return this;
+    }
+
     public MockKafka setCreateTopicResponse(Function<String, Future<Void>> createTopicResponse) {
         this.createTopicResponse = createTopicResponse;
         return this;
@@ -192,11 +204,132 @@ public class MockKafka implements Kafka {
         return topicMetadataRespose.get(min(topicMetadataResposeCall++, topicMetadataRespose.size() - 1));
     }
 
+    @Override
+    public Future<Map<TopicName, TopicMetadata>> topicsMetadata(Set<TopicName> topicNames) {
+        return topicsMetadataResponse.apply(topicNames);
+    }
+
     @Override
     public Future<Set<String>> listTopics() {
         return topicsListResponse;
     }
 
+    public MockKafka setBrokerRacks(Map<Integer, String> brokerRacks) {
+        this.brokerRacks = brokerRacks;
+        return this;
+    }
+
+    @Override
+    public Future<Map<Integer, String>> brokerRacks() {
+        return succeededFuture(brokerRacks);
+    }
+
+    @Override
+    public Future<Set<TopicName>> reassigningTopics() {
+        return succeededFuture(new HashSet<>(reassignments.keySet()));
+    }
+
+    @Override
+    public Future<Void> reassignPartitions(Map<TopicName, Map<Integer, List<Integer>>> assignments) {
+        if (!reassignments.isEmpty()) {
+            return failedFuture("A reassignment is already in progress");
+        }
+        reassignments.putAll(assignments);
+        return succeededFuture();
+    }
+
+    /**
+     * Complete the reassignment in progress, changing the replication factor of the reassigned topics.
+     */
+    public void completeReassignment() {
+        for (Map.Entry<TopicName, Map<Integer, List<Integer>>> entry : reassignments.entrySet()) {
+            Topic topic = topics.get(entry.getKey());
+            if (topic != null) {
+                short replicas = (short) entry.getValue().values().iterator().next().size();
+                topics.put(entry.getKey(), new Topic.Builder(topic).withNumReplicas(replicas).build());
+            }
+        }
+        reassignments.clear();
+    }
+
+    public Map<TopicName, Map<Integer, List<Integer>>> getReassignments() {
+        return reassignments;
+    }
+
+    @Override
+    public Future<Map<String, String>> throttledReplicas(TopicName topicName) {
+        Map<String, String> result = new HashMap<>();
+        String replicas = throttledReplicas.get(topicName);
+        if (replicas != null) {
+            String[] leaderAndFollower = replicas.split("\\|");
+            if (!"null".equals(leaderAndFollower[0])) {
+                result.put(KafkaImpl.LEADER_THROTTLED_REPLICAS, leaderAndFollower[0]);
+            }
+            if (!"null".equals(leaderAndFollower[1])) {
+                result.put(KafkaImpl.FOLLOWER_THROTTLED_REPLICAS, leaderAndFollower[1]);
+            }
+        }
+        return succeededFuture(result);
+    }
+
+    @Override
+    public Future<Void> setThrottledReplicas(TopicName topicName, String leaderReplicas, String followerReplicas) {
+        if (leaderReplicas == null && followerReplicas == null) {
+            throttledReplicas.remove(topicName);
+        } else {
+            throttledReplicas.put(topicName, leaderReplicas + "|" + followerReplicas);
+        }
+        return succeededFuture();
+    }
+
+    public Map<TopicName, String> getThrottledReplicas() {
+        return throttledReplicas;
+    }
+
+    @Override
+    public Future<Void> setReplicationThrottleRate(Set<Integer> brokerIds, Long rate) {
+        for (Integer brokerId : brokerIds) {
+            if (rate == null) {
+                throttleRates.remove(brokerId);
+            } else {
+                throttleRates.put(brokerId, rate);
+            }
+        }
+        return succeededFuture();
+    }
+
+    @Override
+    public Future<Map<Integer, Map<String, String>>> replicationThrottleRates(Set<Integer> brokerIds) {
+        Map<Integer, Map<String, String>> result = new HashMap<>();
+        for (Integer brokerId : brokerIds) {
+            Map<String, String> rates = new HashMap<>();
+            Long rate = throttleRates.get(brokerId);
+            if (rate != null) {
+                rates.put(KafkaImpl.LEADER_THROTTLED_RATE, rate.toString());
+                rates.put(KafkaImpl.FOLLOWER_THROTTLED_RATE, rate.toString());
+            }
+            result.put(brokerId, rates);
+        }
+        return succeededFuture(result);
+    }
+
+    @Override
+    public Future<Void> setReplicationThrottleRates(Map<Integer, Map<String, String>> rates) {
+        for (Map.Entry<Integer, Map<String, String>> broker : rates.entrySet()) {
+            String rate = broker.getValue().get(KafkaImpl.LEADER_THROTTLED_RATE);
+            if (rate == null) {
+                throttleRates.remove(broker.getKey());
+            } else {
+                throttleRates.put(broker.getKey(), Long.valueOf(rate));
+            }
+        }
+        return succeededFuture();
+    }
+
+    public Map<Integer, Long> getThrottleRates() {
+        return throttleRates;
+    }
+
     public void assertExists(VertxTestContext context, TopicName topicName) {
         context.verify(() -> assertThat("The topic "  + topicName + " should exist in " + this, topics.containsKey(topicName), is(true)));
     }
@@ -9,8 +9,12 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,15 +25,30 @@ class MockZk implements Zk {
     public AsyncResult<Void> setDataResult = Future.failedFuture("Unexpected mock interaction. Configure " + getClass().getSimpleName() + ".setDataResult");
     public AsyncResult<List<String>> childrenResult = Future.failedFuture("Unexpected mock interaction. Configure " + getClass().getSimpleName() + ".childrenResult");
     public AsyncResult<byte[]> dataResult = Future.failedFuture("Unexpected mock interaction. Configure " + getClass().getSimpleName() + ".dataResult");
-    private Handler<AsyncResult<List<String>>> childrenHandler;
+    /** Path-specific results, which take precedence over {@link #childrenResult} and {@link #dataResult}. */
+    public Map<String, AsyncResult<List<String>>> childrenResults = new HashMap<>();
+    public Map<String, AsyncResult<byte[]>> dataResults = new HashMap<>();
+    /** The multi() calls which have been made, in order, whose handlers are called by {@link #completeMulti(int, AsyncResult)}. */
+    public List<List<Op>> multis = new ArrayList<>();
+    private List<Handler<AsyncResult<List<OpResult>>>> multiHandlers = new ArrayList<>();
+    private Map<String, Handler<AsyncResult<List<String>>>> childrenHandlers = new HashMap<>();
     private Map<String, Handler<AsyncResult<byte[]>>> dataHandlers = new HashMap<>();
 
     public void triggerChildren(AsyncResult<List<String>> childrenResult) {
+        triggerChildren("/brokers/topics", childrenResult);
+    }
+
+    public void triggerChildren(String path, AsyncResult<List<String>> childrenResult) {
+        Handler<AsyncResult<List<String>>> childrenHandler = childrenHandlers.get(path);
         if (childrenHandler != null) {
             childrenHandler.handle(childrenResult);
         }
     }
 
+    public void completeMulti(int index, AsyncResult<List<OpResult>> result) {
+        multiHandlers.get(index).handle(result);
+    }
+
     public void triggerData(String path, AsyncResult<byte[]> dataResult) {
         Handler<AsyncResult<byte[]>> asyncResultHandler = dataHandlers.get(path);
         if (asyncResultHandler != null) {
@@ -57,25 +76,31 @@ class MockZk implements Zk {
 
     @Override
     public Zk children(String path, Handler<AsyncResult<List<String>>> handler) {
-        handler.handle(childrenResult);
+        handler.handle(childrenResults.getOrDefault(path, childrenResult));
         return this;
     }
 
     @Override
     public Future<Zk> watchChildren(String path, Handler<AsyncResult<List<String>>> watcher) {
-        childrenHandler = watcher;
+        childrenHandlers.put(path, watcher);
         return Future.succeededFuture(this);
     }
 
     @Override
     public Zk unwatchChildren(String path) {
-        childrenHandler = null;
+        childrenHandlers.remove(path);
         return this;
     }
 
     @Override
     public Zk getData(String path, Handler<AsyncResult<byte[]>> handler) {
-        handler.handle(dataResult);
+        handler.handle(dataResults.getOrDefault(path, dataResult));
+        return this;
+    }
+
+    @Override
+    public Zk getData(String path, Stat stat, Handler<AsyncResult<byte[]>> handler) {
+        handler.handle(dataResults.getOrDefault(path, dataResult));
         return this;
     }
 
@@ -95,4 +120,11 @@ class MockZk implements Zk {
     public Zk delete(String path, int version, Handler<AsyncResult<Void>> handler) {
         return null;
     }
+
+    @Override
+    public Zk multi(List<Op> ops, Handler<AsyncResult<List<OpResult>>> handler) {
+        multis.add(ops);
+        multiHandlers.add(handler);
+        return this;
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class ReconciliationSchedulerTest {
+
+    private Vertx vertx;
+
+    @BeforeEach
+    public void setup() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Test
+    public void testConcurrencyIsBoundedAndHighPriorityGoesFirst(VertxTestContext context) {
+        ReconciliationScheduler scheduler = new ReconciliationScheduler(vertx, 2);
+        List<String> started = new ArrayList<>();
+        List<ReconciliationScheduler.Task> tasks = new ArrayList<>();
+        vertx.runOnContext(ignored -> {
+            for (String name : asList("low-1", "low-2", "low-3", "low-4")) {
+                scheduler.schedule(ReconciliationScheduler.Priority.LOW, task -> {
+                    started.add(name);
+                    tasks.add(task);
+                });
+            }
+            ReconciliationScheduler.Task promoted = scheduler.schedule(ReconciliationScheduler.Priority.LOW, task -> {
+                started.add("promoted");
+                tasks.add(task);
+            });
+            scheduler.schedule(ReconciliationScheduler.Priority.HIGH, task -> {
+                started.add("high");
+                tasks.add(task);
+            });
+            scheduler.promote(promoted);
+            vertx.runOnContext(ignored2 -> {
+                context.verify(() -> {
+                    assertThat(started, is(asList("low-1", "low-2")));
+                    assertThat(scheduler.running(), is(2));
+                    assertThat(scheduler.waiting(), is(4));
+                    assertThat(scheduler.waiting(ReconciliationScheduler.Priority.HIGH), is(2));
+                });
+                tasks.get(0).done();
+                tasks.get(1).done();
+                vertx.runOnContext(ignored3 -> {
+                    context.verify(() -> {
+                        assertThat(started, is(asList("low-1", "low-2", "high", "promoted")));
+                        assertThat(scheduler.running(), is(2));
+                        assertThat(scheduler.waiting(), is(2));
+                        assertThat(scheduler.completed(), is(2L));
+                    });
+                    context.completeNow();
+                });
+            });
+        });
+    }
+}
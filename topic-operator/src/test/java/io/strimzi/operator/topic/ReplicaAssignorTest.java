@@ -0,0 +1,75 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReplicaAssignorTest {
+
+    private static Map<Integer, String> racks(String... racks) {
+        Map<Integer, String> result = new HashMap<>();
+        for (int i = 0; i < racks.length; i++) {
+            result.put(i, racks[i]);
+        }
+        return result;
+    }
+
+    private static Map<Integer, List<Integer>> assignment(List<Integer>... partitions) {
+        Map<Integer, List<Integer>> result = new HashMap<>();
+        for (int i = 0; i < partitions.length; i++) {
+            result.put(i, partitions[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testIncreaseUsesNewRacksFirst() {
+        Map<Integer, List<Integer>> result = ReplicaAssignor.assign(
+                assignment(asList(0), asList(1)),
+                racks("a", "a", "b", "b"), 2);
+        assertThat(result, is(assignment(asList(0, 2), asList(1, 3))));
+    }
+
+    @Test
+    public void testIncreaseBalancesLoadWithoutRacks() {
+        Map<Integer, List<Integer>> result = ReplicaAssignor.assign(
+                assignment(asList(0), asList(0), asList(0)),
+                racks(null, null, null), 2);
+        assertThat(result, is(assignment(asList(0, 1), asList(0, 2), asList(0, 1))));
+    }
+
+    @Test
+    public void testDecreaseRemovesReplicasSharingARack() {
+        Map<Integer, List<Integer>> result = ReplicaAssignor.assign(
+                assignment(asList(0, 1, 2), asList(2, 0, 1)),
+                racks("a", "a", "b"), 2);
+        assertThat(result, is(assignment(asList(0, 2), asList(2, 0))));
+    }
+
+    @Test
+    public void testDecreaseKeepsThePreferredLeader() {
+        Map<Integer, List<Integer>> result = ReplicaAssignor.assign(
+                assignment(asList(0, 1, 2)),
+                racks(null, null, null), 1);
+        assertThat(result, is(assignment(asList(0))));
+    }
+
+    @Test
+    public void testTooFewBrokers() {
+        assertThrows(IllegalArgumentException.class, () -> ReplicaAssignor.assign(
+                assignment(asList(0)), racks("a", "b"), 3));
+        assertThrows(IllegalArgumentException.class, () -> ReplicaAssignor.assign(
+                assignment(asList(0)), racks("a", "b"), 0));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.strimzi.api.kafka.model.status.Condition;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReplicationFactorChangerTest {
+
+    private final TopicName topicName = new TopicName("my-topic");
+    private final TopicName otherTopicName = new TopicName("other-topic");
+    private final LogContext logContext = LogContext.periodic("test");
+    private Vertx vertx;
+    private MockKafka mockKafka;
+    private List<TopicName> changed;
+
+    @BeforeEach
+    public void setup() {
+        vertx = Vertx.vertx();
+        mockKafka = new MockKafka();
+        mockKafka.setCreateTopicResponse(t -> Future.succeededFuture());
+        mockKafka.setTopicMetadataResponse(t -> Future.succeededFuture(Utils.getTopicMetadata(mockKafka.getTopicState(t))));
+        mockKafka.setTopicsMetadataResponse(topicNames -> {
+            Map<TopicName, TopicMetadata> result = new HashMap<>();
+            for (TopicName t : topicNames) {
+                result.put(t, Utils.getTopicMetadata(mockKafka.getTopicState(t)));
+            }
+            return Future.succeededFuture(result);
+        });
+        Map<Integer, String> racks = new HashMap<>();
+        racks.put(0, "a");
+        racks.put(1, "b");
+        racks.put(2, "a");
+        mockKafka.setBrokerRacks(racks);
+        mockKafka.createTopic(new Topic.Builder(topicName.toString(), 2, (short) 1, Collections.emptyMap()).build());
+        changed = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void teardown() {
+        vertx.close();
+    }
+
+    private ReplicationFactorChanger changer(long throttleRate) {
+        return new ReplicationFactorChanger(vertx, mockKafka, throttleRate, 600_000L, changed::add);
+    }
+
+    @Test
+    public void testThrottledIncrease() {
+        ReplicationFactorChanger changer = changer(1000L);
+        assertThat(changer.start(logContext, topicName, 2).succeeded(), is(true));
+
+        Map<Integer, List<Integer>> target = new HashMap<>();
+        target.put(0, asList(0, 1));
+        target.put(1, asList(0, 1));
+        assertThat(mockKafka.getReassignments(), is(singletonMap(topicName, target)));
+        assertThat(mockKafka.getThrottledReplicas().get(topicName), is("0:0,1:0|0:1,1:1"));
+        assertThat(mockKafka.getThrottleRates().get(0), is(1000L));
+        assertThat(mockKafka.getThrottleRates().get(1), is(1000L));
+        assertThat(changer.inProgress(topicName), is(true));
+        Condition condition = changer.condition(topicName);
+        assertThat(condition.getType(), is(ReplicationFactorChanger.CONDITION_TYPE));
+        assertThat(condition.getReason(), is("Reassigning"));
+        assertThat(condition.getMessage(), containsString("from 1 to 2"));
+
+        // While the reassignment is in progress the topic is reported as changed, so its status is updated
+        changer.verifyNow();
+        assertThat(changed, is(asList(topicName)));
+        assertThat(changer.inProgress(topicName), is(true));
+
+        mockKafka.completeReassignment();
+        changer.verifyNow();
+        assertThat(changer.inProgress(topicName), is(false));
+        assertThat(changer.completed(), is(1L));
+        assertThat(changer.condition(topicName), is(nullValue()));
+        assertThat(mockKafka.getTopicState(topicName).getNumReplicas(), is((short) 2));
+        assertThat(mockKafka.getThrottledReplicas().isEmpty(), is(true));
+        assertThat(mockKafka.getThrottleRates().isEmpty(), is(true));
+        assertThat(changed, is(asList(topicName, topicName)));
+    }
+
+    @Test
+    public void testExistingThrottlesAreRestored() {
+        // Throttles set by the user
+        mockKafka.setThrottledReplicas(topicName, "*", null);
+        mockKafka.setReplicationThrottleRate(singleton(0), 5000L);
+        mockKafka.setReplicationThrottleRate(singleton(2), 7000L);
+
+        ReplicationFactorChanger changer = changer(1000L);
+        assertThat(changer.start(logContext, topicName, 2).succeeded(), is(true));
+        assertThat(mockKafka.getThrottledReplicas().get(topicName), is("0:0,1:0|0:1,1:1"));
+        assertThat(mockKafka.getThrottleRates().get(0), is(1000L));
+        assertThat(mockKafka.getThrottleRates().get(1), is(1000L));
+
+        mockKafka.completeReassignment();
+        changer.verifyNow();
+        assertThat(changer.inProgress(topicName), is(false));
+        assertThat(mockKafka.getThrottledReplicas().get(topicName), is("*|null"));
+        Map<Integer, Long> expectedRates = new HashMap<>();
+        expectedRates.put(0, 5000L);
+        expectedRates.put(2, 7000L);
+        assertThat(mockKafka.getThrottleRates(), is(expectedRates));
+    }
+
+    @Test
+    public void testOtherReassignmentIsNotUnthrottled() {
+        // A reassignment of the topic which the operator didn't start, with its own throttles
+        mockKafka.reassignPartitions(singletonMap(topicName, singletonMap(0, asList(0, 1))));
+        mockKafka.setThrottledReplicas(topicName, "0:0", "0:1");
+        mockKafka.setReplicationThrottleRate(new HashSet<>(asList(0, 1)), 5000L);
+
+        ReplicationFactorChanger changer = changer(1000L);
+        assertThat(changer.start(logContext, topicName, 2).succeeded(), is(true));
+        assertThat(changer.condition(topicName).getReason(), is("Reassigning"));
+
+        mockKafka.completeReassignment();
+        changer.verifyNow();
+        assertThat(changer.inProgress(topicName), is(false));
+        assertThat(mockKafka.getThrottledReplicas().get(topicName), is("0:0|0:1"));
+        assertThat(mockKafka.getThrottleRates().get(0), is(5000L));
+        assertThat(mockKafka.getThrottleRates().get(1), is(5000L));
+    }
+
+    @Test
+    public void testUnthrottledChange() {
+        ReplicationFactorChanger changer = changer(Long.MAX_VALUE);
+        assertThat(changer.start(logContext, topicName, 2).succeeded(), is(true));
+        assertThat(mockKafka.getReassignments().containsKey(topicName), is(true));
+        assertThat(mockKafka.getThrottledReplicas().isEmpty(), is(true));
+        assertThat(mockKafka.getThrottleRates().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testChangeWaitsForOtherReassignment() {
+        mockKafka.reassignPartitions(singletonMap(otherTopicName, singletonMap(0, asList(1))));
+        ReplicationFactorChanger changer = changer(1000L);
+        assertThat(changer.start(logContext, topicName, 2).succeeded(), is(true));
+        assertThat(mockKafka.getReassignments().containsKey(topicName), is(false));
+        assertThat(changer.condition(topicName).getReason(), is("Pending"));
+
+        mockKafka.completeReassignment();
+        changer.verifyNow();
+        assertThat(mockKafka.getReassignments().containsKey(topicName), is(true));
+        assertThat(changer.condition(topicName).getReason(), is("Reassigning"));
+    }
+
+    @Test
+    public void testTooManyReplicas() {
+        ReplicationFactorChanger changer = changer(1000L);
+        Future<Void> result = changer.start(logContext, topicName, 4);
+        assertThat(result.failed(), is(true));
+        assertThat(result.cause(), instanceOf(OperatorException.class));
+        assertThat(changer.inProgress(topicName), is(false));
+        assertThat(mockKafka.getReassignments().isEmpty(), is(true));
+    }
+}
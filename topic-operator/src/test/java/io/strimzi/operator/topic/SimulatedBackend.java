@@ -0,0 +1,109 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The simulated latency and errors of one of the in-memory stand-ins used by the {@link TopicOperatorScaleHarness}.
+ *
+ * Each call completes after the configured latency, using a timer rather than a thread,
+ * and fails with the configured probability, in which case its operation isn't applied.
+ */
+class SimulatedBackend {
+
+    /** The exception with which simulated errors fail. */
+    static class SimulatedException extends RuntimeException {
+        SimulatedException(String operation) {
+            super("Simulated failure of " + operation);
+        }
+    }
+
+    private final Vertx vertx;
+    private final String name;
+    private final long latencyMs;
+    private volatile double errorRate;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * @param vertx The vertx instance.
+     * @param name The name of the backend.
+     * @param latencyMs The latency of each call, or 0 to complete calls on the next turn of the event loop.
+     * @param errorRate The probability, between 0 and 1, that a call fails.
+     */
+    SimulatedBackend(Vertx vertx, String name, long latencyMs, double errorRate) {
+        this.vertx = vertx;
+        this.name = name;
+        this.latencyMs = latencyMs;
+        errorRate(errorRate);
+    }
+
+    /**
+     * Change the probability that a call fails.
+     * @param errorRate The probability, between 0 and 1, that a call fails.
+     */
+    void errorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1");
+        }
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Make a call, applying the given operation once the latency has elapsed, unless the call fails.
+     * @param operation The name of the operation.
+     * @param op The operation.
+     * @return A future which completes with the result of the operation.
+     */
+    <T> Future<T> call(String operation, Supplier<T> op) {
+        calls.incrementAndGet();
+        Future<T> result = Future.future();
+        Runnable run = () -> {
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                result.fail(new SimulatedException(name + " " + operation));
+            } else {
+                try {
+                    result.complete(op.get());
+                } catch (RuntimeException e) {
+                    result.fail(e);
+                }
+            }
+        };
+        if (latencyMs > 0) {
+            vertx.setTimer(latencyMs, id -> run.run());
+        } else {
+            vertx.runOnContext(v -> run.run());
+        }
+        return result;
+    }
+
+    /**
+     * @return The name of the backend.
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return The number of calls made.
+     */
+    long calls() {
+        return calls.get();
+    }
+
+    /**
+     * @return The number of calls which failed with a simulated error.
+     */
+    long errors() {
+        return errors.get();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TopicFingerprintsTest {
+
+    private static Topic topic(Map<String, String> config) {
+        return new Topic.Builder("my-topic", 3, (short) 2, config).build();
+    }
+
+    @Test
+    public void testFingerprintIgnoresConfigOrder() {
+        Map<String, String> config1 = new LinkedHashMap<>();
+        config1.put("a", "1");
+        config1.put("b", "2");
+        Map<String, String> config2 = new LinkedHashMap<>();
+        config2.put("b", "2");
+        config2.put("a", "1");
+        assertThat(TopicFingerprints.fingerprint(topic(config1)), is(TopicFingerprints.fingerprint(topic(config2))));
+
+        config2.put("a", "3");
+        assertThat(TopicFingerprints.fingerprint(topic(config1)), is(not(TopicFingerprints.fingerprint(topic(config2)))));
+        assertThat(TopicFingerprints.fingerprint(topic(config1)),
+                is(not(TopicFingerprints.fingerprint(new Topic.Builder("my-topic", 4, (short) 2, config1).build()))));
+        assertThat(TopicFingerprints.fingerprint(null), is(not(TopicFingerprints.fingerprint(topic(config1)))));
+    }
+
+    @Test
+    public void testUnchanged() {
+        TopicFingerprints fingerprints = new TopicFingerprints();
+        TopicName name = new TopicName("my-topic");
+        Topic topic = topic(new HashMap<>());
+        Topic changed = new Topic.Builder(topic).withConfigEntry("a", "1").build();
+        assertThat(fingerprints.unchanged(name, topic, topic, topic), is(false));
+
+        fingerprints.record(name, topic, topic, topic);
+        assertThat(fingerprints.unchanged(name, topic, topic, topic), is(true));
+        assertThat(fingerprints.unchanged(name, changed, topic, topic), is(false));
+        assertThat(fingerprints.unchanged(name, topic, changed, topic), is(false));
+        assertThat(fingerprints.unchanged(name, topic, topic, null), is(false));
+
+        fingerprints.forget(name);
+        assertThat(fingerprints.unchanged(name, topic, topic, topic), is(false));
+        assertThat(fingerprints.size(), is(0));
+    }
+}
@@ -10,6 +10,7 @@ import io.strimzi.api.kafka.Crds;
 import io.strimzi.api.kafka.model.KafkaTopic;
 import io.strimzi.api.kafka.model.KafkaTopicBuilder;
 import kafka.admin.ReassignPartitionsCommand;
+import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
@@ -19,8 +20,10 @@ import java.io.File;
 import java.io.PrintStream;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -51,19 +54,18 @@ public class TopicOperatorReplicationIT extends TopicOperatorBaseIT {
         String topicName = "test-kafkatopic-modified-with-changed-replication";
         String resourceName = createTopic(topicName, asList(1));
 
-        // now change the topicResource
+        // now change the topicResource, and the operator reassigns the partitions
         KafkaTopic changedTopic = new KafkaTopicBuilder(operation().inNamespace(NAMESPACE).withName(resourceName).get())
                 .editOrNewSpec().withReplicas(2).endSpec().build();
         operation().inNamespace(NAMESPACE).withName(resourceName).patch(changedTopic);
-        assertStatusNotReady(topicName,
-                "Changing 'spec.replicas' is not supported. " +
-                        "This KafkaTopic's 'spec.replicas' should be reverted to 1 and then " +
-                        "the replication should be changed directly in Kafka.");
-
-        // Now do the revert
-        changedTopic = new KafkaTopicBuilder(operation().inNamespace(NAMESPACE).withName(resourceName).get())
-                .editOrNewSpec().withReplicas(1).endSpec().build();
-        operation().inNamespace(NAMESPACE).withName(resourceName).patch(changedTopic);
+        waitFor(() -> {
+            try {
+                TopicDescription description = adminClient.describeTopics(singletonList(topicName)).all().get().get(topicName);
+                return description.partitions().get(0).replicas().size() == 2;
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }, "topic to have 2 replicas in Kafka");
         assertStatusReady(topicName);
 
         File file = File.createTempFile(getClass().getSimpleName(), ".json");
@@ -75,10 +77,9 @@ public class TopicOperatorReplicationIT extends TopicOperatorBaseIT {
                     .put("topic", topicName)
                     .put("partition", 0)
                     .putArray("replicas")
-                        .add(1)
-                        .add(2);
+                        .add(1);
         mapper.writeValue(file, root);
-        LOGGER.info("Creating 2nd replica: {}", mapper.writeValueAsString(root));
+        LOGGER.info("Removing 2nd replica: {}", mapper.writeValueAsString(root));
 
         // Now change it in Kafka
         doReassignmentCommand(
@@ -105,12 +106,12 @@ public class TopicOperatorReplicationIT extends TopicOperatorBaseIT {
             }
         }, "reassignment completion");
 
-        // wait for reconciliation and that now replicas=2.
+        // wait for reconciliation and that now replicas=1.
         waitFor(() -> {
             KafkaTopic kafkaTopic = Crds.topicOperation(kubeClient).inNamespace(NAMESPACE).withName(resourceName).get();
             LOGGER.info(kafkaTopic == null ? "Null topic" : kafkaTopic.toString());
-            return kafkaTopic.getSpec().getReplicas() == 2;
-        }, "KafkaTopic.spec.replicas=2");
+            return kafkaTopic.getSpec().getReplicas() == 1;
+        }, "KafkaTopic.spec.replicas=1");
 
         // And check that the status is ready
         assertStatusReady(topicName);
@@ -0,0 +1,345 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.client.Watcher;
+import io.strimzi.api.kafka.model.KafkaTopic;
+import io.strimzi.api.kafka.model.KafkaTopicBuilder;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Drives a {@link TopicOperator} against in-memory stand-ins for Kafka, Kubernetes and the topic store,
+ * so its behaviour with tens of thousands of topics can be measured without a cluster.
+ *
+ * The harness creates the same topics in Kafka and Kubernetes, and then runs these phases:
+ * <ol>
+ *     <li>an initial reconciliation, which populates the empty topic store,</li>
+ *     <li>a periodic reconciliation, which finds nothing to do,</li>
+ *     <li>a storm of KafkaTopic modifications, each delivered as a watch event,</li>
+ *     <li>a storm of topic config changes in Kafka, each delivered as a ZooKeeper notification,</li>
+ *     <li>if any backend fails calls, a reconciliation without failures, from which the topics should recover.</li>
+ * </ol>
+ * For each phase it reports the throughput, the latency of the operations, the live heap and the allocated bytes.
+ * Afterwards Kafka, Kubernetes and the topic store should all agree about every topic.
+ *
+ * The {@link #main(String[])} method takes its {@link Options} from system properties,
+ * and passes any {@code STRIMZI_} system properties to the operator's {@link Config}.
+ */
+class TopicOperatorScaleHarness implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(TopicOperatorScaleHarness.class);
+
+    /** The options of a run. */
+    static class Options {
+        int topics = Integer.getInteger("scale.topics", 10_000);
+        int partitions = Integer.getInteger("scale.partitions", 1);
+        short replicas = Short.parseShort(System.getProperty("scale.replicas", "1"));
+        int stormSize = Integer.getInteger("scale.stormSize", topics);
+        long kafkaLatencyMs = Long.getLong("scale.kafka.latencyMs", 0L);
+        double kafkaErrorRate = Double.parseDouble(System.getProperty("scale.kafka.errorRate", "0"));
+        long kubeLatencyMs = Long.getLong("scale.kube.latencyMs", 0L);
+        double kubeErrorRate = Double.parseDouble(System.getProperty("scale.kube.errorRate", "0"));
+        long storeLatencyMs = Long.getLong("scale.store.latencyMs", 0L);
+        double storeErrorRate = Double.parseDouble(System.getProperty("scale.store.errorRate", "0"));
+        long phaseTimeoutSeconds = Long.getLong("scale.phaseTimeoutSeconds", 600L);
+        Map<String, String> config = new HashMap<>();
+
+        Options() {
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("STRIMZI_")) {
+                    config.put(name, System.getProperty(name));
+                }
+            }
+        }
+
+        boolean failing() {
+            return kafkaErrorRate > 0 || kubeErrorRate > 0 || storeErrorRate > 0;
+        }
+    }
+
+    /** The measurements of one phase. */
+    static class PhaseResult {
+        final String name;
+        final int operations;
+        final int failures;
+        final long durationNanos;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long heapBytes;
+        final long allocatedBytes;
+
+        PhaseResult(String name, int operations, int failures, long durationNanos, long[] latencies,
+                    long heapBytes, long allocatedBytes) {
+            this.name = name;
+            this.operations = operations;
+            this.failures = failures;
+            this.durationNanos = durationNanos;
+            Arrays.sort(latencies);
+            this.p50Nanos = percentile(latencies, 0.50);
+            this.p99Nanos = percentile(latencies, 0.99);
+            this.heapBytes = heapBytes;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+        }
+
+        double throughput() {
+            return durationNanos == 0 ? 0 : operations * 1e9 / durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %7d ops %6d failed %10.1f ms %10.1f ops/s p50 %9.2f ms p99 %9.2f ms heap %6d MiB allocated %8d MiB",
+                    name, operations, failures, durationNanos / 1e6, throughput(), p50Nanos / 1e6, p99Nanos / 1e6,
+                    heapBytes >> 20, allocatedBytes < 0 ? -1 : allocatedBytes >> 20);
+        }
+    }
+
+    private final Options options;
+    private final Vertx vertx;
+    private final Context context;
+    private final SimulatedBackend kafkaBackend;
+    private final SimulatedBackend kubeBackend;
+    private final SimulatedBackend storeBackend;
+    private final InMemoryKafka kafka;
+    private final InMemoryK8s k8s;
+    private final InMemoryTopicStore topicStore;
+    private final Labels labels = Labels.fromString("strimzi.io/kind=topic");
+    private final TopicOperator topicOperator;
+    private final List<TopicName> topicNames;
+    private int round;
+
+    TopicOperatorScaleHarness(Options options) {
+        this.options = options;
+        this.vertx = Vertx.vertx();
+        this.context = vertx.getOrCreateContext();
+        this.kafkaBackend = new SimulatedBackend(vertx, "kafka", options.kafkaLatencyMs, options.kafkaErrorRate);
+        this.kubeBackend = new SimulatedBackend(vertx, "kube", options.kubeLatencyMs, options.kubeErrorRate);
+        this.storeBackend = new SimulatedBackend(vertx, "store", options.storeLatencyMs, options.storeErrorRate);
+        this.kafka = new InMemoryKafka(kafkaBackend, Math.max(3, options.replicas));
+        this.k8s = new InMemoryK8s(kubeBackend, 500);
+        this.topicStore = new InMemoryTopicStore(storeBackend);
+        Map<String, String> config = new HashMap<>(options.config);
+        config.putIfAbsent(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        config.putIfAbsent(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        config.putIfAbsent(Config.NAMESPACE.key, "scale");
+        this.topicOperator = new TopicOperator(vertx, kafka, k8s, topicStore, labels, "scale", new Config(config));
+        this.topicNames = new ArrayList<>(options.topics);
+        for (int i = 0; i < options.topics; i++) {
+            topicNames.add(new TopicName(String.format("topic-%06d", i)));
+        }
+    }
+
+    /**
+     * Create each topic in both Kafka and Kubernetes, as if the topic store had been lost.
+     */
+    void populate() {
+        for (TopicName topicName : topicNames) {
+            Map<String, String> config = new HashMap<>();
+            config.put("retention.ms", "3600000");
+            config.put("segment.bytes", "1073741824");
+            Topic topic = new Topic.Builder(topicName, options.partitions, options.replicas, config).build();
+            kafka.put(topic);
+            k8s.put(TopicSerialization.toTopicResource(topic, labels));
+        }
+    }
+
+    /**
+     * Run all the phases.
+     * @return The results of the phases.
+     */
+    List<PhaseResult> run() throws InterruptedException {
+        populate();
+        List<PhaseResult> results = new ArrayList<>();
+        results.add(reconcileAll("initial"));
+        results.add(reconcileAll("periodic"));
+        results.add(kubeStorm());
+        results.add(kafkaStorm());
+        if (options.failing()) {
+            kafkaBackend.errorRate(0);
+            kubeBackend.errorRate(0);
+            storeBackend.errorRate(0);
+            results.add(reconcileAll("recovery"));
+        }
+        return results;
+    }
+
+    /**
+     * Reconcile all the topics, as the periodic reconciliation does.
+     */
+    PhaseResult reconcileAll(String type) throws InterruptedException {
+        return phase(type + " reconciliation", 1, i -> topicOperator.reconcileAllTopics(type));
+    }
+
+    /**
+     * Modify the config of a KafkaTopic and deliver the watch event, for as many topics as the storm size,
+     * all at once.
+     */
+    PhaseResult kubeStorm() throws InterruptedException {
+        String value = Integer.toString(++round * 1000);
+        return phase("kube event storm", stormSize(), i -> {
+            KafkaTopic existing = k8s.get(topicNames.get(i).asKubeName());
+            Map<String, Object> config = new HashMap<>(existing.getSpec().getConfig());
+            config.put("retention.ms", value);
+            KafkaTopic modified = k8s.put(new KafkaTopicBuilder(existing).editSpec().withConfig(config).endSpec().build());
+            return topicOperator.onResourceEvent(LogContext.kubeWatch(Watcher.Action.MODIFIED, modified), modified, Watcher.Action.MODIFIED);
+        });
+    }
+
+    /**
+     * Change the config of a topic in Kafka and deliver the config change notification, for as many topics as the
+     * storm size, all at once.
+     * This changes a different config than {@link #kubeStorm()}, so that a change which failed to reach Kafka
+     * doesn't conflict with it.
+     */
+    PhaseResult kafkaStorm() throws InterruptedException {
+        String value = Integer.toString(++round * 1048576);
+        return phase("kafka event storm", stormSize(), i -> {
+            TopicName topicName = topicNames.get(i);
+            kafka.put(new Topic.Builder(kafka.get(topicName)).withConfigEntry("segment.bytes", value).build());
+            return topicOperator.onTopicConfigChanged(LogContext.zkWatch("/config/topics", "=" + topicName), topicName);
+        });
+    }
+
+    private int stormSize() {
+        return Math.min(options.stormSize, topicNames.size());
+    }
+
+    /**
+     * Start the given number of operations at once on the operator's context, and wait for them all to complete.
+     */
+    private PhaseResult phase(String name, int operations, IntFunction<Future<?>> operation) throws InterruptedException {
+        long allocatedBefore = allocatedBytes();
+        long[] latencies = new long[operations];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(operations);
+        long start = System.nanoTime();
+        context.runOnContext(v -> {
+            for (int i = 0; i < operations; i++) {
+                int index = i;
+                long operationStart = System.nanoTime();
+                operation.apply(i).setHandler(ar -> {
+                    latencies[index] = System.nanoTime() - operationStart;
+                    if (ar.failed()) {
+                        LOGGER.debug("{} operation {} failed", name, index, ar.cause());
+                        failures.incrementAndGet();
+                    }
+                    latch.countDown();
+                });
+            }
+        });
+        if (!latch.await(options.phaseTimeoutSeconds, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(name + " didn't complete within " + options.phaseTimeoutSeconds + "s, "
+                    + latch.getCount() + " of " + operations + " operations outstanding");
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+        PhaseResult result = new PhaseResult(name, operations, failures.get(), duration, latencies, heapAfterGc(), allocated);
+        LOGGER.info("{}", result);
+        return result;
+    }
+
+    private static long heapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return The bytes allocated by the live threads, or -1 if the JVM can't measure them.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long total = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return A description of each topic about which Kafka, Kubernetes and the topic store don't agree.
+     */
+    List<String> inconsistencies() {
+        List<String> result = new ArrayList<>();
+        for (TopicName topicName : topicNames) {
+            Topic inKafka = kafka.get(topicName);
+            KafkaTopic kafkaTopic = k8s.get(topicName.asKubeName());
+            Topic inKube = kafkaTopic != null ? TopicSerialization.fromTopicResource(kafkaTopic) : null;
+            Topic inStore = topicStore.get(topicName);
+            if (!sameState(inKafka, inKube) || !sameState(inKafka, inStore)) {
+                result.add(topicName + ": kafka=" + inKafka + ", kube=" + inKube + ", store=" + inStore);
+            }
+        }
+        return result;
+    }
+
+    private static boolean sameState(Topic a, Topic b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getNumPartitions() == b.getNumPartitions()
+                && a.getNumReplicas() == b.getNumReplicas()
+                && Objects.equals(a.getConfig(), b.getConfig());
+    }
+
+    /**
+     * @return The backends, for reporting their calls and errors.
+     */
+    List<SimulatedBackend> backends() {
+        return Arrays.asList(kafkaBackend, kubeBackend, storeBackend);
+    }
+
+    @Override
+    public void close() {
+        vertx.close();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options();
+        try (TopicOperatorScaleHarness harness = new TopicOperatorScaleHarness(options)) {
+            List<PhaseResult> results = harness.run();
+            System.out.println("Topics: " + options.topics + ", partitions: " + options.partitions
+                    + ", replicas: " + options.replicas + ", storm size: " + harness.stormSize());
+            for (PhaseResult result : results) {
+                System.out.println(result);
+            }
+            for (SimulatedBackend backend : harness.backends()) {
+                System.out.println(backend.name() + ": " + backend.calls() + " calls, " + backend.errors() + " errors");
+            }
+            List<String> inconsistencies = harness.inconsistencies();
+            System.out.println("Inconsistent topics: " + inconsistencies.size());
+            for (String inconsistency : inconsistencies.subList(0, Math.min(10, inconsistencies.size()))) {
+                System.out.println("  " + inconsistency);
+            }
+            if (!inconsistencies.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs the {@link TopicOperatorScaleHarness} with enough topics to catch regressions in the operator's handling
+ * of many topics, but few enough for the unit tests.
+ * Run {@link TopicOperatorScaleHarness#main(String[])} for measurements at scale.
+ */
+public class TopicOperatorScaleTest {
+
+    private static TopicOperatorScaleHarness.Options options(int topics) {
+        TopicOperatorScaleHarness.Options options = new TopicOperatorScaleHarness.Options();
+        options.topics = topics;
+        options.stormSize = topics;
+        options.kafkaErrorRate = 0;
+        options.kubeErrorRate = 0;
+        options.storeErrorRate = 0;
+        options.phaseTimeoutSeconds = 120;
+        return options;
+    }
+
+    @Test
+    public void testManyTopics() throws InterruptedException {
+        try (TopicOperatorScaleHarness harness = new TopicOperatorScaleHarness(options(2_000))) {
+            List<TopicOperatorScaleHarness.PhaseResult> results = harness.run();
+            assertThat(results.size(), is(4));
+            for (TopicOperatorScaleHarness.PhaseResult result : results) {
+                assertThat(result.name, result.failures, is(0));
+            }
+            assertThat(harness.inconsistencies(), is(Collections.emptyList()));
+        }
+    }
+
+    @Test
+    public void testRecoveryFromFailedCalls() throws InterruptedException {
+        TopicOperatorScaleHarness.Options options = options(500);
+        options.kafkaErrorRate = 0.05;
+        options.kubeErrorRate = 0.05;
+        options.storeErrorRate = 0.05;
+        try (TopicOperatorScaleHarness harness = new TopicOperatorScaleHarness(options)) {
+            List<TopicOperatorScaleHarness.PhaseResult> results = harness.run();
+            assertThat(results.size(), is(5));
+            assertThat(results.get(4).failures, is(0));
+            assertThat(harness.inconsistencies(), is(Collections.emptyList()));
+        }
+    }
+}
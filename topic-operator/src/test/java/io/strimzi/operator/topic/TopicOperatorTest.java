@@ -13,6 +13,7 @@ import io.strimzi.api.kafka.model.KafkaTopicBuilder;
 import io.strimzi.api.kafka.model.status.KafkaTopicStatus;
 import io.strimzi.operator.common.MaxAttemptsExceededException;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.Checkpoint;
@@ -27,6 +28,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -39,6 +41,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static io.fabric8.kubernetes.client.Watcher.Action.ADDED;
 import static io.fabric8.kubernetes.client.Watcher.Action.DELETED;
 import static io.fabric8.kubernetes.client.Watcher.Action.MODIFIED;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonMap;
@@ -214,6 +217,16 @@ public class TopicOperatorTest {
         resourceAdded(context, null, null);
     }
 
+    @Test
+    public void testReconciliationsAreMetered(VertxTestContext context) throws InterruptedException {
+        TopicOperator op = resourceAdded(context, null, null);
+        String scrape = op.metrics().scrape();
+        context.verify(() -> assertThat(scrape, scrape.contains(
+                "strimzi_topic_operator_reconciliation_duration_seconds_count{trigger=\"kube\"} 1\n"), is(true)));
+        context.verify(() -> assertThat(scrape, scrape.contains(
+                "strimzi_topic_operator_reconciliations_total 1\n"), is(true)));
+    }
+
     /**
      * 1. operator is notified that a KafkaTopic is created
      * 2. error when creating topic in kafka
@@ -983,6 +996,216 @@ public class TopicOperatorTest {
         }));
     }
 
+    @Test
+    public void testReconcileAllTopics_usesMetadataSnapshot(VertxTestContext context) {
+        Topic topic = new Topic.Builder(topicName, resourceName, 10, (short) 2, map("cleanup.policy", "bar"), null).build();
+        mockKafka.setTopicsList(singleton(topicName.toString()));
+        mockKafka.setTopicsMetadataResponse(topicNames -> Future.succeededFuture(singletonMap(topicName, Utils.getTopicMetadata(topic))));
+        mockKafka.setTopicMetadataResponse(t -> Future.failedFuture("The metadata should have come from the snapshot"));
+        mockTopicStore.setCreateTopicResponse(topicName, null)
+                .create(topic);
+        mockK8s.setGetFromNameResponse(resourceName, Future.succeededFuture(TopicSerialization.toTopicResource(topic, labels)));
+        mockK8s.setListMapsResult(() -> Future.succeededFuture(Collections.singletonList(TopicSerialization.toTopicResource(topic, labels))));
+
+        topicOperator.reconcileAllTopics("periodic").setHandler(context.succeeding(ignored -> {
+            mockTopicStore.assertContains(context, topic);
+            context.completeNow();
+        }));
+    }
+
+    @Test
+    public void testReconcileAllTopics_skipsUnchangedTopics(VertxTestContext context) {
+        Topic topic = new Topic.Builder(topicName, resourceName, 10, (short) 2, map("cleanup.policy", "bar"), null).build();
+        mockKafka.setTopicsList(singleton(topicName.toString()));
+        mockKafka.setTopicsMetadataResponse(topicNames -> Future.succeededFuture(singletonMap(topicName, Utils.getTopicMetadata(topic))));
+        mockTopicStore.setCreateTopicResponse(topicName, null)
+                .create(topic);
+        mockK8s.setGetFromNameResponse(resourceName, Future.succeededFuture(TopicSerialization.toTopicResource(topic, labels)));
+        mockK8s.setListMapsResult(() -> Future.succeededFuture(Collections.singletonList(TopicSerialization.toTopicResource(topic, labels))));
+
+        topicOperator.reconcileAllTopics("periodic").compose(ignored -> {
+            context.verify(() -> assertThat(topicOperator.unchangedTopicsSkipped(), is(0L)));
+            return topicOperator.reconcileAllTopics("periodic");
+        }).compose(ignored -> {
+            context.verify(() -> assertThat(topicOperator.unchangedTopicsSkipped(), is(1L)));
+            // A change in Kafka means the topic is reconciled again
+            Topic changed = new Topic.Builder(topic).withConfigEntry("cleanup.policy", "baz").build();
+            mockKafka.setTopicsMetadataResponse(topicNames -> Future.succeededFuture(singletonMap(topicName, Utils.getTopicMetadata(changed))));
+            mockK8s.setModifyResponse(resourceName, null);
+            return topicOperator.reconcileAllTopics("periodic");
+        }).setHandler(context.succeeding(ignored -> {
+            context.verify(() -> assertThat(topicOperator.unchangedTopicsSkipped(), is(1L)));
+            context.completeNow();
+        }));
+    }
+
+    @Test
+    public void testReconcileAllTopics_metadataSnapshotFails(VertxTestContext context) {
+        Topic topic = new Topic.Builder(topicName, resourceName, 10, (short) 2, map("cleanup.policy", "bar"), null).build();
+        mockKafka.setTopicsList(singleton(topicName.toString()));
+        mockKafka.setTopicsMetadataResponse(topicNames -> Future.failedFuture("some failure"));
+        mockKafka.setTopicMetadataResponse(topicName, Utils.getTopicMetadata(topic), null);
+        mockTopicStore.setCreateTopicResponse(topicName, null)
+                .create(topic);
+        mockK8s.setGetFromNameResponse(resourceName, Future.succeededFuture(TopicSerialization.toTopicResource(topic, labels)));
+        mockK8s.setListMapsResult(() -> Future.succeededFuture(Collections.singletonList(TopicSerialization.toTopicResource(topic, labels))));
+
+        topicOperator.reconcileAllTopics("periodic").setHandler(context.succeeding(ignored -> {
+            mockTopicStore.assertContains(context, topic);
+            context.completeNow();
+        }));
+    }
+
+    /** A reconciliation which counts its executions and completes when told to */
+    private TopicOperator.Reconciliation reconciliation(String name, AtomicInteger executions, Future<Void> outcome) {
+        return topicOperator.new Reconciliation(name) {
+            @Override
+            public Future<Void> execute() {
+                executions.incrementAndGet();
+                return outcome;
+            }
+        };
+    }
+
+    @Test
+    public void testReconciliationsOfTheSameTopicAreCoalesced(VertxTestContext context) {
+        LogContext logContext = LogContext.periodic("test");
+        Future<Void> first = Future.future();
+        AtomicInteger firstExecutions = new AtomicInteger();
+        AtomicInteger secondExecutions = new AtomicInteger();
+        AtomicInteger thirdExecutions = new AtomicInteger();
+        vertx.runOnContext(ignored -> {
+            Future<Void> firstResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                    reconciliation("first", firstExecutions, first));
+            // Runs on the same context after the first has started
+            vertx.runOnContext(ignored2 -> {
+                // The first is running, so these two are coalesced into a single re-run
+                Future<Void> secondResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                        reconciliation("second", secondExecutions, Future.failedFuture("second failed")));
+                Future<Void> thirdResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                        reconciliation("third", thirdExecutions, Future.succeededFuture()));
+                context.verify(() -> {
+                    assertThat(firstExecutions.get(), is(1));
+                    assertThat(topicOperator.queueDepth(), is(1));
+                    assertThat(topicOperator.pendingReconciliations(), is(1));
+                    assertThat(topicOperator.coalescedReconciliations(), is(1L));
+                    assertThat(topicOperator.isWorkInflight(), is(true));
+                });
+                thirdResult.setHandler(context.succeeding(ignored3 -> {
+                    context.verify(() -> {
+                        assertThat(firstResult.succeeded(), is(true));
+                        assertThat(secondExecutions.get(), is(0));
+                        assertThat(thirdExecutions.get(), is(1));
+                        assertThat(secondResult.succeeded(), is(true));
+                    });
+                    vertx.runOnContext(ignored4 -> {
+                        context.verify(() -> {
+                            assertThat(topicOperator.isWorkInflight(), is(false));
+                            assertThat(topicOperator.scheduler().completed(), is(2L));
+                        });
+                        context.completeNow();
+                    });
+                }));
+                first.complete();
+            });
+        });
+    }
+
+    @Test
+    public void testReconciliationsOfDifferentTopicsAreNotCoalesced(VertxTestContext context) {
+        LogContext logContext = LogContext.periodic("test");
+        AtomicInteger executions = new AtomicInteger();
+        Future<Void> running = Future.future();
+        vertx.runOnContext(ignored -> {
+            topicOperator.executeWithTopicLockHeld(logContext, topicName, reconciliation("a", executions, running));
+            topicOperator.executeWithTopicLockHeld(logContext, new TopicName("other"),
+                    reconciliation("b", executions, Future.succeededFuture())).setHandler(context.succeeding(ignored2 -> {
+                        context.verify(() -> {
+                            assertThat(executions.get(), is(2));
+                            assertThat(topicOperator.coalescedReconciliations(), is(0L));
+                        });
+                        running.complete();
+                        context.completeNow();
+                    }));
+        });
+    }
+
+    @Test
+    public void testPendingHighPriorityReconciliationIsNotCoalescedIntoLowPriority(VertxTestContext context) {
+        LogContext logContext = LogContext.periodic("test");
+        Future<Void> first = Future.future();
+        AtomicInteger executions = new AtomicInteger();
+        AtomicInteger lowExecutions = new AtomicInteger();
+        vertx.runOnContext(ignored -> {
+            topicOperator.executeWithTopicLockHeld(logContext, topicName, reconciliation("first", executions, first));
+            vertx.runOnContext(ignored2 -> {
+                Future<Void> highResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                        reconciliation("high", executions, Future.succeededFuture()));
+                Future<Void> lowResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                        reconciliation("low", lowExecutions, Future.succeededFuture()), ReconciliationScheduler.Priority.LOW);
+                CompositeFuture.all(highResult, lowResult).setHandler(context.succeeding(ignored3 -> {
+                    context.verify(() -> {
+                        assertThat(executions.get(), is(2));
+                        assertThat(lowExecutions.get(), is(0));
+                    });
+                    context.completeNow();
+                }));
+                first.complete();
+            });
+        });
+    }
+
+    @Test
+    public void testPendingReconciliationOfAnotherKindIsNotCoalesced(VertxTestContext context) {
+        LogContext logContext = LogContext.periodic("test");
+        Future<Void> first = Future.future();
+        AtomicInteger executions = new AtomicInteger();
+        AtomicInteger createdExecutions = new AtomicInteger();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        vertx.runOnContext(ignored -> {
+            topicOperator.executeWithTopicLockHeld(logContext, topicName, reconciliation("first", executions, first));
+            vertx.runOnContext(ignored2 -> {
+                // Waits for the topic to exist in Kafka, so a later reconciliation can't stand in for it
+                Future<Void> createdResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                        topicOperator.new Reconciliation("created") {
+                            @Override
+                            protected boolean fromCurrentState() {
+                                return false;
+                            }
+
+                            @Override
+                            public Future<Void> execute() {
+                                createdExecutions.incrementAndGet();
+                                order.add("created");
+                                return Future.succeededFuture();
+                            }
+                        });
+                Future<Void> modifiedResult = topicOperator.executeWithTopicLockHeld(logContext, topicName,
+                        topicOperator.new Reconciliation("modified") {
+                            @Override
+                            public Future<Void> execute() {
+                                executions.incrementAndGet();
+                                order.add("modified");
+                                return Future.succeededFuture();
+                            }
+                        });
+                context.verify(() -> {
+                    assertThat(topicOperator.pendingReconciliations(), is(2));
+                    assertThat(topicOperator.coalescedReconciliations(), is(0L));
+                });
+                CompositeFuture.all(createdResult, modifiedResult).setHandler(context.succeeding(ignored3 -> {
+                    context.verify(() -> {
+                        assertThat(createdExecutions.get(), is(1));
+                        assertThat(executions.get(), is(2));
+                        assertThat(order, is(asList("created", "modified")));
+                    });
+                    context.completeNow();
+                }));
+                first.complete();
+            });
+        });
+    }
+
     // TODO tests for nasty races (e.g. create on both ends, update on one end and delete on the other)
     // I think in these cases we should seek to detect the concurrent modification
     // and perform a full reconciliation, possibly after a backoff time
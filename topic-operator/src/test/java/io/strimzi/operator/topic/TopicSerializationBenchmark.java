@@ -0,0 +1,112 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compares the throughput and allocation of a store round trip (encoding a topic and decoding it again)
+ * using a new ObjectMapper for each call, as {@link TopicSerialization} used to, the cached JSON
+ * reader and writer, and the binary encoding.
+ *
+ * Run {@link #main(String[])}, optionally with the number of iterations as the argument.
+ * Each encoding is warmed up with the same number of iterations before it's measured.
+ */
+class TopicSerializationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static ObjectMapper newObjectMapper() {
+        JsonFactory jf = new JsonFactory();
+        jf.configure(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION, false);
+        return new ObjectMapper(jf);
+    }
+
+    /** The JSON round trip as it was before the ObjectMapper was cached, creating one for each call. */
+    @SuppressWarnings("unchecked")
+    private static Topic uncachedRoundTrip(Topic topic) {
+        try {
+            ObjectMapper mapper = newObjectMapper();
+            ObjectNode root = mapper.createObjectNode();
+            root.put(TopicSerialization.JSON_KEY_MAP_NAME, topic.getOrAsKubeName().toString());
+            root.put(TopicSerialization.JSON_KEY_TOPIC_NAME, topic.getTopicName().toString());
+            root.put(TopicSerialization.JSON_KEY_PARTITIONS, topic.getNumPartitions());
+            root.put(TopicSerialization.JSON_KEY_REPLICAS, topic.getNumReplicas());
+            ObjectNode config = mapper.createObjectNode();
+            for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
+                config.put(entry.getKey(), entry.getValue());
+            }
+            root.set(TopicSerialization.JSON_KEY_CONFIG, config);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            mapper.writeValue(baos, root);
+
+            Map<String, Object> read = newObjectMapper().readValue(baos.toByteArray(), Map.class);
+            Topic.Builder builder = new Topic.Builder()
+                    .withTopicName((String) read.get(TopicSerialization.JSON_KEY_TOPIC_NAME))
+                    .withMapName((String) read.get(TopicSerialization.JSON_KEY_MAP_NAME))
+                    .withNumPartitions((Integer) read.get(TopicSerialization.JSON_KEY_PARTITIONS))
+                    .withNumReplicas(((Integer) read.get(TopicSerialization.JSON_KEY_REPLICAS)).shortValue());
+            for (Map.Entry<String, String> entry : ((Map<String, String>) read.get(TopicSerialization.JSON_KEY_CONFIG)).entrySet()) {
+                builder.withConfigEntry(entry.getKey(), entry.getValue());
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Topic topic() {
+        return new Topic.Builder()
+                .withTopicName("my-application-events")
+                .withMapName("my-application-events")
+                .withNumPartitions(12)
+                .withNumReplicas((short) 3)
+                .withConfigEntry("cleanup.policy", "compact")
+                .withConfigEntry("retention.ms", "604800000")
+                .withConfigEntry("segment.bytes", "1073741824")
+                .withConfigEntry("min.insync.replicas", "2")
+                .build();
+    }
+
+    private static void measure(String name, int iterations, Topic topic, Function<Topic, Topic> roundTrip) {
+        Topic result = null;
+        for (int i = 0; i < iterations; i++) {
+            result = roundTrip.apply(topic);
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result = roundTrip.apply(topic);
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (!topic.equals(result)) {
+            throw new IllegalStateException(name + " round trip changed the topic: " + result);
+        }
+        System.out.println(String.format("%-16s %12.0f round trips/s %10d bytes allocated/round trip",
+                name, iterations * 1e9 / duration, allocated / iterations));
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Topic topic = topic();
+        System.out.println("Encoded size: json " + TopicSerialization.toJson(topic).length
+                + " bytes, binary " + TopicSerialization.toBinary(topic).length + " bytes");
+        measure("uncached json", iterations / 10, topic, TopicSerializationBenchmark::uncachedRoundTrip);
+        measure("cached json", iterations, topic, t -> TopicSerialization.fromJson(TopicSerialization.toJson(t)));
+        measure("binary", iterations, topic, t -> TopicSerialization.fromBinary(TopicSerialization.toBinary(t)));
+    }
+}
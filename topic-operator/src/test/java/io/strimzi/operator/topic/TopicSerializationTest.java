@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,7 @@ import static java.util.Collections.singletonMap;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class TopicSerializationTest {
@@ -86,6 +88,59 @@ public class TopicSerializationTest {
         assertThat(readTopic, is(wroteTopic));
     }
 
+    @Test
+    public void testBinarySerializationRoundTrip() {
+        Topic wroteTopic = new Topic.Builder()
+                .withTopicName("tom")
+                .withMapName("bob")
+                .withNumReplicas((short) 3)
+                .withNumPartitions(300)
+                .withConfigEntry("foo", "bar")
+                .withConfigEntry("retention.ms", "\u00e9t\u00e9")
+                .build();
+        byte[] bytes = TopicSerialization.toBinary(wroteTopic);
+        assertThat(bytes[0], is(TopicSerialization.BINARY_MAGIC));
+        assertThat(bytes[1], is(TopicSerialization.BINARY_VERSION));
+        assertThat(bytes.length < TopicSerialization.toJson(wroteTopic).length, is(true));
+        assertThat(TopicSerialization.fromBinary(bytes), is(wroteTopic));
+        assertThat(TopicSerialization.fromStoreBytes(bytes), is(wroteTopic));
+
+        // The map name is omitted when it's derived from the topic name
+        Topic derived = new Topic.Builder()
+                .withTopicName("my_topic")
+                .withMapName(new TopicName("my_topic").asKubeName())
+                .withNumReplicas((short) 1)
+                .withNumPartitions(1)
+                .build();
+        assertThat(TopicSerialization.fromBinary(TopicSerialization.toBinary(derived)), is(derived));
+    }
+
+    @Test
+    public void testStoreBytesReadsEitherFormat() {
+        Topic topic = new Topic.Builder()
+                .withTopicName("tom")
+                .withMapName("bob")
+                .withNumReplicas((short) 1)
+                .withNumPartitions(2)
+                .withConfigEntry("foo", "bar")
+                .build();
+        byte[] json = TopicSerialization.toStoreBytes(topic, io.strimzi.operator.topic.Config.TopicStoreFormat.JSON);
+        assertThat(json, is(TopicSerialization.toJson(topic)));
+        assertThat(TopicSerialization.fromStoreBytes(json), is(topic));
+        byte[] binary = TopicSerialization.toStoreBytes(topic, io.strimzi.operator.topic.Config.TopicStoreFormat.BINARY);
+        assertThat(binary, is(TopicSerialization.toBinary(topic)));
+        assertThat(TopicSerialization.fromStoreBytes(binary), is(topic));
+    }
+
+    @Test
+    public void testBinaryRejectsUnknownVersionsAndTruncation() {
+        byte[] bytes = TopicSerialization.toBinary(new Topic.Builder("tom", 2).withMapName("bob").build());
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[1] = 2;
+        assertThrows(IllegalArgumentException.class, () -> TopicSerialization.fromStoreBytes(unknownVersion));
+        assertThrows(IllegalArgumentException.class, () -> TopicSerialization.fromStoreBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
 
     @Test
     public void testToNewTopic() {
@@ -0,0 +1,109 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Future;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.OpResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ZkTopicStoreBatchingTest {
+
+    private MockZk zk;
+    private ZkTopicStore store;
+
+    @BeforeEach
+    public void setup() {
+        zk = new MockZk();
+        zk.createResult = Future.succeededFuture();
+        store = new ZkTopicStore(zk);
+    }
+
+    private static Topic topic(String name) {
+        return new Topic.Builder(name, 1, (short) 1, Collections.emptyMap()).build();
+    }
+
+    private static List<OpResult> created(int n) {
+        List<OpResult> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            results.add(new OpResult.CreateResult("/strimzi/topics/t" + i));
+        }
+        return results;
+    }
+
+    @Test
+    public void testWritesAreGroupCommitted() {
+        Future<Void> first = store.create(topic("first"));
+        assertThat(zk.multis.size(), is(1));
+        assertThat(zk.multis.get(0).size(), is(1));
+
+        // While the first transaction is in flight, writes are queued...
+        List<Future<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            queued.add(store.create(topic("topic-" + i)));
+        }
+        assertThat(zk.multis.size(), is(1));
+
+        // ... and are sent together once it completes
+        zk.completeMulti(0, Future.succeededFuture(created(1)));
+        assertThat(first.succeeded(), is(true));
+        assertThat(zk.multis.size(), is(2));
+        assertThat(zk.multis.get(1).size(), is(10));
+
+        zk.completeMulti(1, Future.succeededFuture(created(10)));
+        for (Future<Void> f : queued) {
+            assertThat(f.succeeded(), is(true));
+        }
+        assertThat(zk.multis.size(), is(2));
+    }
+
+    @Test
+    public void testAbortedTransactionIsRetriedWithoutTheFailedWrite() {
+        store.create(topic("first"));
+        List<Future<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queued.add(store.create(topic("topic-" + i)));
+        }
+        zk.completeMulti(0, Future.succeededFuture(created(1)));
+        assertThat(zk.multis.get(1).size(), is(3));
+
+        // The second write fails, so the transaction is aborted
+        List<OpResult> aborted = new ArrayList<>();
+        aborted.add(new OpResult.ErrorResult(KeeperException.Code.OK.intValue()));
+        aborted.add(new OpResult.ErrorResult(KeeperException.Code.NODEEXISTS.intValue()));
+        aborted.add(new OpResult.ErrorResult(KeeperException.Code.RUNTIMEINCONSISTENCY.intValue()));
+        zk.completeMulti(1, Future.succeededFuture(aborted));
+        assertThat(queued.get(1).failed(), is(true));
+        assertThat(queued.get(1).cause(), instanceOf(TopicStore.EntityExistsException.class));
+        assertThat(queued.get(0).isComplete(), is(false));
+        assertThat(queued.get(2).isComplete(), is(false));
+
+        // The other writes are retried, in their original order
+        assertThat(zk.multis.size(), is(3));
+        assertThat(zk.multis.get(2).size(), is(2));
+        assertThat(zk.multis.get(2).get(0).getPath(), is("/strimzi/topics/topic-0"));
+        assertThat(zk.multis.get(2).get(1).getPath(), is("/strimzi/topics/topic-2"));
+        zk.completeMulti(2, Future.succeededFuture(created(2)));
+        assertThat(queued.get(0).succeeded(), is(true));
+        assertThat(queued.get(2).succeeded(), is(true));
+    }
+
+    @Test
+    public void testFailedTransactionFailsAllWrites() {
+        Future<Void> write = store.update(topic("first"));
+        zk.completeMulti(0, Future.failedFuture(new RuntimeException("connection loss")));
+        assertThat(write.failed(), is(true));
+        assertThat(write.cause().getMessage(), is("connection loss"));
+    }
+}
@@ -11,9 +11,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.nio.charset.StandardCharsets;
+
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 @ExtendWith(VertxExtension.class)
@@ -80,4 +84,60 @@ public class ZkTopicsWatcherTest {
                 Type.DELETE, new TopicName("bar")))));
         assertThat(topicConfigsWatcher.watching("baz"), is(false));
     }
+
+    private ZkTopicsWatcher startWithNotifications() {
+        operator = new MockTopicOperator();
+        operator.topicCreatedResult = Future.succeededFuture();
+        operator.topicModifiedResult = Future.succeededFuture();
+        mockZk = new MockZk();
+        mockZk.childrenResult = Future.succeededFuture(asList("foo", "bar"));
+        mockZk.childrenResults.put("/config/changes", Future.succeededFuture(asList("config_change_0000000007")));
+        ZkTopicsWatcher topicsWatcher = new ZkTopicsWatcher(operator, new ConfigChangeNotificationsWatcher(operator));
+        topicsWatcher.start(mockZk);
+        return topicsWatcher;
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testTopicAddWithNotifications() {
+        startWithNotifications();
+        mockZk.triggerChildren(Future.succeededFuture(asList("foo", "bar", "baz")));
+        assertThat(operator.getMockOperatorEvents(), is(asList(new MockTopicOperator.MockOperatorEvent(
+                Type.CREATE, new TopicName("baz")))));
+    }
+
+    @Test
+    public void testTopicConfigChangeWithNotifications() {
+        startWithNotifications();
+        mockZk.dataResults.put("/config/changes/config_change_0000000008",
+                Future.succeededFuture(json("{\"version\":2,\"entity_path\":\"topics/foo\"}")));
+        mockZk.dataResults.put("/config/changes/config_change_0000000009",
+                Future.succeededFuture(json("{\"version\":2,\"entity_path\":\"brokers/0\"}")));
+        mockZk.dataResults.put("/config/changes/config_change_0000000010",
+                Future.succeededFuture(json("{\"version\":1,\"entity_type\":\"topics\",\"entity_name\":\"bar\"}")));
+        mockZk.triggerChildren("/config/changes", Future.succeededFuture(asList(
+                "config_change_0000000007", "config_change_0000000008",
+                "config_change_0000000009", "config_change_0000000010")));
+        // The pre-existing notification is ignored, and so is the one which is not about a topic
+        assertThat(operator.getMockOperatorEvents(), is(asList(
+                new MockTopicOperator.MockOperatorEvent(Type.MODIFY_CONFIG, new TopicName("foo")),
+                new MockTopicOperator.MockOperatorEvent(Type.MODIFY_CONFIG, new TopicName("bar")))));
+
+        // Kafka purging old notifications doesn't generate events
+        operator.clearEvents();
+        mockZk.triggerChildren("/config/changes", Future.succeededFuture(asList("config_change_0000000010")));
+        mockZk.triggerChildren("/config/changes", Future.succeededFuture(emptyList()));
+        assertThat(operator.getMockOperatorEvents(), is(emptyList()));
+    }
+
+    @Test
+    public void testNotificationTopicName() throws Exception {
+        assertThat(ConfigChangeNotificationsWatcher.topicName(json("{\"version\":2,\"entity_path\":\"topics/my-topic\"}")), is("my-topic"));
+        assertThat(ConfigChangeNotificationsWatcher.topicName(json("{\"version\":2,\"entity_path\":\"users/CN=my-user\"}")), is(nullValue()));
+        assertThat(ConfigChangeNotificationsWatcher.topicName(json("{\"version\":1,\"entity_type\":\"topics\",\"entity_name\":\"my-topic\"}")), is("my-topic"));
+        assertThat(ConfigChangeNotificationsWatcher.topicName(json("{\"version\":1,\"entity_type\":\"clients\",\"entity_name\":\"my-client\"}")), is(nullValue()));
+    }
 }
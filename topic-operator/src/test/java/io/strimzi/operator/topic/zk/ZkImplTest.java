@@ -10,7 +10,13 @@ import io.vertx.core.Vertx;
 import io.vertx.junit5.Checkpoint;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import org.I0Itec.zkclient.exception.ZkBadVersionException;
+import org.I0Itec.zkclient.exception.ZkNoNodeException;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.data.Stat;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -21,8 +27,10 @@ import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -144,4 +152,56 @@ public class ZkImplTest {
         context.completeNow();
     }
 
+    @Test
+    public void testErrorsAndVersions(VertxTestContext context) {
+        Checkpoint done = context.checkpoint();
+        zk.getData("/nonexistent", noData -> {
+            context.verify(() -> assertThat(noData.cause(), instanceOf(ZkNoNodeException.class)));
+            zk.create("/foo", new byte[]{1}, AclBuilder.PUBLIC, CreateMode.PERSISTENT, created -> {
+                zk.setData("/foo", new byte[]{2}, 0, set -> {
+                    context.verify(() -> assertThat(set.succeeded(), is(true)));
+                    zk.setData("/foo", new byte[]{3}, 0, badVersion -> {
+                        context.verify(() -> assertThat(badVersion.cause(), instanceOf(ZkBadVersionException.class)));
+                        Stat stat = new Stat();
+                        zk.getData("/foo", stat, data -> {
+                            context.verify(() -> {
+                                assertThat(data.result(), is(new byte[]{2}));
+                                assertThat(stat.getVersion(), is(1));
+                            });
+                            done.flag();
+                        });
+                    });
+                });
+            });
+        });
+    }
+
+    @Test
+    public void testMulti(VertxTestContext context) {
+        Checkpoint done = context.checkpoint();
+        zk.multi(asList(
+                Op.create("/a", new byte[0], AclBuilder.PUBLIC, CreateMode.PERSISTENT),
+                Op.create("/b", new byte[0], AclBuilder.PUBLIC, CreateMode.PERSISTENT)), committed -> {
+                context.verify(() -> {
+                    assertThat(committed.succeeded(), is(true));
+                    assertThat(committed.result().get(0), instanceOf(OpResult.CreateResult.class));
+                    assertThat(committed.result().get(1), instanceOf(OpResult.CreateResult.class));
+                });
+                // /a exists, so this is aborted, and /c must not be created
+                zk.multi(asList(
+                        Op.create("/c", new byte[0], AclBuilder.PUBLIC, CreateMode.PERSISTENT),
+                        Op.create("/a", new byte[0], AclBuilder.PUBLIC, CreateMode.PERSISTENT)), aborted -> {
+                        context.verify(() -> {
+                            assertThat(aborted.succeeded(), is(true));
+                            assertThat(((OpResult.ErrorResult) aborted.result().get(1)).getErr(),
+                                    is(KeeperException.Code.NODEEXISTS.intValue()));
+                        });
+                        zk.children("/", children -> {
+                            context.verify(() -> assertThat(children.result().contains("c"), is(false)));
+                            done.flag();
+                        });
+                    });
+            });
+    }
+
 }